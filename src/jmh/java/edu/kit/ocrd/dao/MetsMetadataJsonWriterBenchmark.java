@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.dao;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks comparing the streaming JSON writer of METS metadata with
+ * reflective serialization for growing number of pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetsMetadataJsonWriterBenchmark {
+
+  /**
+   * Number of pages of METS metadata.
+   */
+  @Param({"10", "100", "2000"})
+  public int noOfPages;
+  /**
+   * Mapper for reflective serialization.
+   */
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  /**
+   * Stream discarding all output.
+   */
+  private final OutputStream out = new NullOutputStream();
+  /**
+   * METS metadata to serialize.
+   */
+  private MetsMetadata metsMetadata;
+
+  /**
+   * Create METS metadata.
+   */
+  @Setup
+  public void setUp() {
+    metsMetadata = new MetsMetadata();
+    metsMetadata.setTitle("Grundriss der \"Psychologie\"");
+    metsMetadata.setAuthor("Wilhelm Wundt");
+    metsMetadata.setYear("1896");
+    metsMetadata.setLanguage(Arrays.asList("deu"));
+    metsMetadata.setGenre(new ArrayList<>());
+    metsMetadata.setNoOfPages(noOfPages);
+    metsMetadata.getModsIdentifier().add(new ModsIdentifier("purl", "http://www.deutschestextarchiv.de/wundt_grundriss_1896"));
+    metsMetadata.getModsIdentifier().add(new ModsIdentifier("dtaid", "16196"));
+    for (int page = 0; page < noOfPages; page++) {
+      PageFeatures pageFeatures = new PageFeatures();
+      pageFeatures.setPageId("PHYS_" + page);
+      pageFeatures.setOrder(page % 2 == 0 ? page : null);
+      pageFeatures.setNoOfImages(page % 3);
+      pageFeatures.setFeatures(Arrays.asList("granularity/physical/document-related/region", "font/typeface/fraktur"));
+      metsMetadata.getPages().add(pageFeatures);
+    }
+  }
+
+  /**
+   * Benchmark for the streaming writer.
+   *
+   * @throws IOException Error writing JSON.
+   */
+  @Benchmark
+  public void writeStreaming() throws IOException {
+    MetsMetadataJsonWriter.write(out, metsMetadata);
+  }
+
+  /**
+   * Benchmark for reflective serialization.
+   *
+   * @throws IOException Error writing JSON.
+   */
+  @Benchmark
+  public void writeReflective() throws IOException {
+    objectMapper.writeValue(out, metsMetadata);
+  }
+}
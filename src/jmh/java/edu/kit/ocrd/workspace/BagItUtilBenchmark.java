@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import com.github.jscancella.domain.Bag;
+import edu.kit.ocrd.workspace.generator.WorkspaceGenerator;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for building and validating bags of generated workspaces with
+ * growing number of pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BagItUtilBenchmark {
+
+  /**
+   * Number of pages of generated workspace.
+   */
+  @Param({"10", "100", "1000"})
+  public int noOfPages;
+  /**
+   * Directory containing payload and metadata for building bag.
+   */
+  private File invocationDir;
+  /**
+   * Directory containing payload for building bag.
+   */
+  private File payloadDir;
+  /**
+   * Bag for validation.
+   */
+  private Bag bag;
+  /**
+   * Directory of bag for validation.
+   */
+  private File bagDir;
+
+  /**
+   * Create bag for validation.
+   *
+   * @throws Exception Error creating bag.
+   */
+  @Setup(Level.Trial)
+  public void setUpTrial() throws Exception {
+    bagDir = Files.createTempDirectory("validateBagBenchmark_").toFile();
+    new WorkspaceGenerator().withPages(noOfPages).generateBag(bagDir.toPath(), "ocrdIdentifier");
+    bag = BagItUtil.readBag(bagDir.toPath());
+  }
+
+  /**
+   * Create payload for building bag. (Building a bag moves the payload.)
+   *
+   * @throws Exception Error creating payload.
+   */
+  @Setup(Level.Invocation)
+  public void setUpInvocation() throws Exception {
+    invocationDir = Files.createTempDirectory("buildBagBenchmark_").toFile();
+    payloadDir = new File(invocationDir, "payload");
+    new WorkspaceGenerator().withPages(noOfPages).generate(payloadDir.toPath(), invocationDir.toPath());
+  }
+
+  /**
+   * Remove payload.
+   *
+   * @throws Exception Error removing payload.
+   */
+  @TearDown(Level.Invocation)
+  public void tearDownInvocation() throws Exception {
+    FileUtils.deleteDirectory(invocationDir);
+  }
+
+  /**
+   * Remove bag.
+   *
+   * @throws Exception Error removing bag.
+   */
+  @TearDown(Level.Trial)
+  public void tearDownTrial() throws Exception {
+    FileUtils.deleteDirectory(bagDir);
+  }
+
+  /**
+   * Benchmark for building a bag.
+   *
+   * @return Bag.
+   */
+  @Benchmark
+  public Bag buildBag() {
+    return BagItUtil.buildBag(payloadDir, new File(invocationDir, WorkspaceGenerator.METADATA_DIR), "ocrdIdentifier");
+  }
+
+  /**
+   * Benchmark for validating a bag.
+   *
+   * @return true if bag is valid.
+   */
+  @Benchmark
+  public boolean validateBagit() {
+    return BagItUtil.validateBagit(bag);
+  }
+}
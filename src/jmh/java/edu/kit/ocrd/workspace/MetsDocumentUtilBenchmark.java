@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.entity.MetsFile;
+import edu.kit.ocrd.workspace.entity.MetsProperties;
+import edu.kit.ocrd.workspace.entity.PageMetadata;
+import edu.kit.ocrd.workspace.generator.WorkspaceGenerator;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.jdom.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for extracting metadata from METS documents of generated
+ * workspaces with growing number of pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetsDocumentUtilBenchmark {
+
+  /**
+   * Number of pages of METS document.
+   */
+  @Param({"10", "100", "1000"})
+  public int noOfPages;
+  /**
+   * Directory of generated workspace.
+   */
+  private Path workspaceDir;
+  /**
+   * METS document.
+   */
+  private Document metsDocument;
+
+  /**
+   * Generate workspace and parse METS document.
+   *
+   * @throws Exception Error creating METS document.
+   */
+  @Setup
+  public void setUp() throws Exception {
+    workspaceDir = Files.createTempDirectory("metsBenchmark_");
+    Path metsFile = new WorkspaceGenerator().withPages(noOfPages).generate(workspaceDir, workspaceDir);
+    metsDocument = XmlParserUtil.getDocument(metsFile);
+  }
+
+  /**
+   * Remove workspace.
+   *
+   * @throws Exception Error removing workspace.
+   */
+  @TearDown
+  public void tearDown() throws Exception {
+    FileUtils.deleteDirectory(workspaceDir.toFile());
+  }
+
+  /**
+   * Benchmark for extracting all files.
+   *
+   * @return Files of METS document.
+   */
+  @Benchmark
+  public List<MetsFile> extractMetsFiles() {
+    return MetsDocumentUtil.extractMetsFiles(metsDocument, "resourceId", 1);
+  }
+
+  /**
+   * Benchmark for extracting all metadata.
+   *
+   * @return Metadata of METS document.
+   * @throws Exception Error extracting metadata.
+   */
+  @Benchmark
+  public MetsProperties extractMetadataFromMets() throws Exception {
+    return MetsDocumentUtil.extractMetadataFromMets(metsDocument, "resourceId");
+  }
+
+  /**
+   * Benchmark for extracting ground truth features of all pages.
+   *
+   * @return Ground truth features of all pages.
+   * @throws Exception Error extracting features.
+   */
+  @Benchmark
+  public List<PageMetadata> extractGroundTruthFeaturesFromMets() throws Exception {
+    return MetsDocumentUtil.extractGroundTruthFeaturesFromMets(metsDocument, "resourceId");
+  }
+}
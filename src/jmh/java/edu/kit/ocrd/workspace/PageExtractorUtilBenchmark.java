@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.cache.DocumentCache;
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import edu.kit.ocrd.workspace.generator.WorkspaceGenerator;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for extracting text regions from PAGE files of different sizes.
+ * The document cache is disabled, so every invocation parses the PAGE file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageExtractorUtilBenchmark {
+
+  /**
+   * Number of text regions of the PAGE file.
+   */
+  @Param({"10", "100", "1000"})
+  public int noOfRegions;
+  /**
+   * Workspace containing the PAGE file.
+   */
+  private Path workspace;
+  /**
+   * Default document cache restored after the benchmark.
+   */
+  private DocumentCache defaultCache;
+
+  /**
+   * Create workspace and disable document cache.
+   *
+   * @throws Exception Error creating workspace.
+   */
+  @Setup
+  public void setUp() throws Exception {
+    defaultCache = DocumentCache.getDefault();
+    DocumentCache.setDefault(new DocumentCache(0));
+    workspace = Files.createTempDirectory("pageBenchmark_");
+    new WorkspaceGenerator().withPages(1).withFileGrps(2).withRegions(noOfRegions).generate(workspace, workspace);
+  }
+
+  /**
+   * Remove workspace and restore document cache.
+   *
+   * @throws Exception Error removing workspace.
+   */
+  @TearDown
+  public void tearDown() throws Exception {
+    DocumentCache.setDefault(defaultCache);
+    FileUtils.deleteDirectory(workspace.toFile());
+  }
+
+  /**
+   * Benchmark for extracting all text regions of one PAGE file.
+   *
+   * @return Text regions.
+   * @throws Exception Error extracting text regions.
+   */
+  @Benchmark
+  public List<TextRegion> extractTextRegions() throws Exception {
+    return PageExtractorUtil.extractTextRegions(workspace, WorkspaceGenerator.getPageUrl(1, 1), "resourceId");
+  }
+}
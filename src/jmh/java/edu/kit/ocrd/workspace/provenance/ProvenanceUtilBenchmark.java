@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.provenance;
+
+import edu.kit.ocrd.workspace.XmlParserUtil;
+import edu.kit.ocrd.workspace.entity.ProvenanceMetadata;
+import edu.kit.ocrd.workspace.generator.WorkspaceGenerator;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.jdom.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for extracting workflows from generated provenance documents
+ * with growing number of processors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProvenanceUtilBenchmark {
+
+  /**
+   * Number of processors of the workflow.
+   */
+  @Param({"5", "50", "500"})
+  public int noOfProcessors;
+  /**
+   * Directory of generated workspace.
+   */
+  private Path workspaceDir;
+  /**
+   * Provenance document.
+   */
+  private Document provDocument;
+  /**
+   * METS document.
+   */
+  private Document metsDocument;
+
+  /**
+   * Generate workspace and parse provenance document.
+   *
+   * @throws Exception Error creating provenance document.
+   */
+  @Setup
+  public void setUp() throws Exception {
+    workspaceDir = Files.createTempDirectory("provenanceBenchmark_");
+    Path metsFile = new WorkspaceGenerator().withPages(1).withProcessors(noOfProcessors).generate(workspaceDir, workspaceDir);
+    metsDocument = XmlParserUtil.getDocument(metsFile);
+    provDocument = XmlParserUtil.getDocument(workspaceDir.resolve(WorkspaceGenerator.METADATA_DIR).resolve(WorkspaceGenerator.PROVENANCE_FILE));
+  }
+
+  /**
+   * Remove workspace.
+   *
+   * @throws Exception Error removing workspace.
+   */
+  @TearDown
+  public void tearDown() throws Exception {
+    FileUtils.deleteDirectory(workspaceDir.toFile());
+  }
+
+  /**
+   * Benchmark for extracting all workflows.
+   *
+   * @return Provenance metadata of all processors.
+   * @throws Exception Error extracting workflows.
+   */
+  @Benchmark
+  public List<ProvenanceMetadata> extractWorkflows() throws Exception {
+    return ProvenanceUtil.extractWorkflows(provDocument, metsDocument, "resourceId");
+  }
+}
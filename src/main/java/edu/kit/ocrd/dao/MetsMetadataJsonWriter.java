@@ -0,0 +1,227 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.dao;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Streaming JSON writer for MetsMetadata, PageFeatures and ModsIdentifier.
+ * The JSON is written straight to the given stream (e.g. the servlet output
+ * stream) and has the same structure as the reflective serialization of the
+ * DAOs. For corpus-wide dumps every document may be written as a single line
+ * (NDJSON).
+ */
+public class MetsMetadataJsonWriter implements Closeable, Flushable {
+
+  /**
+   * Shared (thread safe) factory for all generators.
+   */
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  /**
+   * Generator writing to the output stream.
+   */
+  private final JsonGenerator generator;
+
+  /**
+   * Create writer for given stream. Closing the writer doesn't close the
+   * stream.
+   *
+   * @param outputStream Stream to write to.
+   * @throws IOException Error creating generator.
+   */
+  public MetsMetadataJsonWriter(final OutputStream outputStream) throws IOException {
+    generator = JSON_FACTORY.createGenerator(outputStream, JsonEncoding.UTF8);
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    generator.setRootValueSeparator(null);
+  }
+
+  /**
+   * Write metadata of one METS document as a JSON object.
+   *
+   * @param metsMetadata Metadata of METS document.
+   * @throws IOException Error writing to stream.
+   */
+  public void write(final MetsMetadata metsMetadata) throws IOException {
+    writeMetsMetadata(generator, metsMetadata);
+  }
+
+  /**
+   * Write metadata of one METS document as a single line (NDJSON).
+   *
+   * @param metsMetadata Metadata of METS document.
+   * @throws IOException Error writing to stream.
+   */
+  public void writeLine(final MetsMetadata metsMetadata) throws IOException {
+    writeMetsMetadata(generator, metsMetadata);
+    generator.writeRaw('\n');
+  }
+
+  @Override
+  public void flush() throws IOException {
+    generator.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    generator.close();
+  }
+
+  /**
+   * Write metadata of one METS document as JSON to the given stream.
+   *
+   * @param outputStream Stream to write to.
+   * @param metsMetadata Metadata of METS document.
+   * @throws IOException Error writing to stream.
+   */
+  public static void write(final OutputStream outputStream, final MetsMetadata metsMetadata) throws IOException {
+    try (MetsMetadataJsonWriter writer = new MetsMetadataJsonWriter(outputStream)) {
+      writer.write(metsMetadata);
+    }
+  }
+
+  /**
+   * Write metadata of all METS documents as NDJSON to the given stream.
+   *
+   * @param outputStream Stream to write to.
+   * @param allMetsMetadata Metadata of all METS documents.
+   * @throws IOException Error writing to stream.
+   */
+  public static void writeNdjson(final OutputStream outputStream, final Iterable<MetsMetadata> allMetsMetadata) throws IOException {
+    try (MetsMetadataJsonWriter writer = new MetsMetadataJsonWriter(outputStream)) {
+      for (MetsMetadata metsMetadata : allMetsMetadata) {
+        writer.writeLine(metsMetadata);
+      }
+    }
+  }
+
+  /**
+   * Write metadata of METS document.
+   *
+   * @param generator JSON generator.
+   * @param metsMetadata Metadata of METS document.
+   * @throws IOException Error writing to stream.
+   */
+  public static void writeMetsMetadata(final JsonGenerator generator, final MetsMetadata metsMetadata) throws IOException {
+    if (metsMetadata == null) {
+      generator.writeNull();
+      return;
+    }
+    generator.writeStartObject();
+    generator.writeStringField("title", metsMetadata.getTitle());
+    generator.writeStringField("subTitle", metsMetadata.getSubTitle());
+    generator.writeFieldName("modsIdentifier");
+    if (metsMetadata.getModsIdentifier() == null) {
+      generator.writeNull();
+    } else {
+      generator.writeStartArray();
+      for (ModsIdentifier modsIdentifier : metsMetadata.getModsIdentifier()) {
+        writeModsIdentifier(generator, modsIdentifier);
+      }
+      generator.writeEndArray();
+    }
+    generator.writeFieldName("pages");
+    if (metsMetadata.getPages() == null) {
+      generator.writeNull();
+    } else {
+      generator.writeStartArray();
+      for (PageFeatures pageFeatures : metsMetadata.getPages()) {
+        writePageFeatures(generator, pageFeatures);
+      }
+      generator.writeEndArray();
+    }
+    generator.writeStringField("year", metsMetadata.getYear());
+    generator.writeStringField("licence", metsMetadata.getLicence());
+    writeStringList(generator, "language", metsMetadata.getLanguage());
+    generator.writeStringField("author", metsMetadata.getAuthor());
+    generator.writeNumberField("noOfPages", metsMetadata.getNoOfPages());
+    writeStringList(generator, "classification", metsMetadata.getClassification());
+    writeStringList(generator, "genre", metsMetadata.getGenre());
+    generator.writeStringField("publisher", metsMetadata.getPublisher());
+    generator.writeStringField("physicalDescription", metsMetadata.getPhysicalDescription());
+    generator.writeEndObject();
+  }
+
+  /**
+   * Write features of a page.
+   *
+   * @param generator JSON generator.
+   * @param pageFeatures Features of page.
+   * @throws IOException Error writing to stream.
+   */
+  public static void writePageFeatures(final JsonGenerator generator, final PageFeatures pageFeatures) throws IOException {
+    if (pageFeatures == null) {
+      generator.writeNull();
+      return;
+    }
+    generator.writeStartObject();
+    generator.writeFieldName("order");
+    if (pageFeatures.getOrder() == null) {
+      generator.writeNull();
+    } else {
+      generator.writeNumber(pageFeatures.getOrder());
+    }
+    writeStringList(generator, "features", pageFeatures.getFeatures());
+    generator.writeNumberField("noOfImages", pageFeatures.getNoOfImages());
+    generator.writeStringField("pageId", pageFeatures.getPageId());
+    generator.writeEndObject();
+  }
+
+  /**
+   * Write MODS identifier.
+   *
+   * @param generator JSON generator.
+   * @param modsIdentifier MODS identifier.
+   * @throws IOException Error writing to stream.
+   */
+  public static void writeModsIdentifier(final JsonGenerator generator, final ModsIdentifier modsIdentifier) throws IOException {
+    if (modsIdentifier == null) {
+      generator.writeNull();
+      return;
+    }
+    generator.writeStartObject();
+    generator.writeStringField("type", modsIdentifier.getType());
+    generator.writeStringField("identifier", modsIdentifier.getIdentifier());
+    generator.writeEndObject();
+  }
+
+  /**
+   * Write list of strings as array field.
+   *
+   * @param generator JSON generator.
+   * @param fieldName Name of the field.
+   * @param values Values (may be null).
+   * @throws IOException Error writing to stream.
+   */
+  private static void writeStringList(final JsonGenerator generator, final String fieldName, final List<String> values) throws IOException {
+    generator.writeFieldName(fieldName);
+    if (values == null) {
+      generator.writeNull();
+    } else {
+      generator.writeStartArray();
+      for (String value : values) {
+        generator.writeString(value);
+      }
+      generator.writeEndArray();
+    }
+  }
+}
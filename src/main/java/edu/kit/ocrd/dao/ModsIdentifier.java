@@ -23,6 +23,13 @@ public class ModsIdentifier {
   private String type;
   /** Identifier. */
   private String identifier;
+
+  /**
+   * Default constructor (e.g. for deserialization).
+   */
+  public ModsIdentifier() {
+  }
+
   /**
    * Constructor inializing object with values.
    * @param type Type of the identifier.
@@ -45,6 +45,9 @@ import com.github.jscancella.writer.internal.CreateTagManifestsVistor;
 import com.github.jscancella.writer.internal.ManifestWriter;
 import com.github.jscancella.writer.internal.MetadataWriter;
 import edu.kit.ocrd.exception.BagItException;
+import edu.kit.ocrd.workspace.metrics.ExtractionMetrics;
+import edu.kit.ocrd.workspace.metrics.FlightRecorderEvents;
+import edu.kit.ocrd.workspace.metrics.FlightRecorderEvents.BagHashing;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -115,6 +118,10 @@ public class BagItUtil {
    * Default location of profiler.
    */
   public static final String OCRD_MANIFESTATION_DEFAULT = "partial";
+  /**
+   * Key for payload oxum (octet count and stream count of payload).
+   */
+  public static final String PAYLOAD_OXUM = "Payload-Oxum";
 
   /**
    * Build BagIt container of a payload directory.
@@ -127,12 +134,30 @@ public class BagItUtil {
    * @throws BagItException Error building bag.
    */
   public static Bag buildBag(final File payLoadPath, final File pathToMetadataDir, final String ocrdIdentifier) throws BagItException {
+    return ExtractionMetrics.record(ExtractionMetrics.STAGE_BAGIT_BUILD, () -> buildBagInPlace(payLoadPath, pathToMetadataDir, ocrdIdentifier));
+  }
+
+  /**
+   * Build BagIt container of a payload directory.
+   *
+   * @param payLoadPath Path to payload directory.
+   * @param pathToMetadataDir Path to metadata directory.
+   * @param ocrdIdentifier OCR-D Identifier of the bag.
+   *
+   * @return Bag of directory.
+   * @throws BagItException Error building bag.
+   */
+  private static Bag buildBagInPlace(final File payLoadPath, final File pathToMetadataDir, final String ocrdIdentifier) throws BagItException {
     Bag bag = null;
     try {
       Path folder = Paths.get(payLoadPath.getAbsolutePath());
       List<String> algorithms = Arrays.asList(StandardHasher.SHA512.getBagitAlgorithmName());
       boolean includeHiddenFiles = false;
+      BagHashing event = FlightRecorderEvents.beginBagHashing();
       bag = BagCreator.bagInPlace(folder, algorithms, includeHiddenFiles);
+      if (event.isEnabled()) {
+        event.complete(ocrdIdentifier, bag.getRootDir().toString(), BagHashing.OPERATION_BUILD, getPayloadSize(bag), getPayloadFiles(bag).size());
+      }
       bag.getMetadata().add(X_OCRD_IDENTIFIER, ocrdIdentifier);
       bag.getMetadata().add(PROFILE_IDENTIFIER, PROFILE_IDENTIFIER_LOCATION);
       bag.getMetadata().add(X_OCRD_METS, METS_LOCATION_DEFAULT);
@@ -184,9 +209,12 @@ public class BagItUtil {
   public static Bag readBag(final Path pathToBag) throws BagItException {
     LOGGER.debug("Read BagIt...");
     Bag bag = null;
+    ExtractionMetrics.Sample sample = ExtractionMetrics.start(ExtractionMetrics.STAGE_BAGIT_READ);
     try {
       bag = BagReader.read(pathToBag);
+      sample.success();
     } catch (IOException | UnparsableVersionException | MaliciousPathException | InvalidBagitFileFormatException ex) {
+      sample.failure();
       LOGGER.error("Can't read Bag!", ex);
       throw new BagItException(ex.getMessage());
     }
@@ -217,12 +245,15 @@ public class BagItUtil {
     /////////////////////////////////////////////////////////////////
     List<String> url2Profile = bag.getMetadata().get("BagIt-Profile-Identifier");
     Iterator<String> profileIterator = url2Profile.iterator();
+    ExtractionMetrics.Sample profileSample = ExtractionMetrics.start(ExtractionMetrics.STAGE_BAGIT_PROFILE);
     try {
       if (profileIterator.hasNext()) {
         InputStream inputStream4Profile = new URL(profileIterator.next()).openStream();
         BagLinter.checkAgainstProfile(inputStream4Profile, bag);
       }
+      profileSample.success();
     } catch (BagitVersionIsNotAcceptableException | FetchFileNotAllowedException | MetatdataValueIsNotAcceptableException | MetatdataValueIsNotRepeatableException | RequiredManifestNotPresentException | RequiredMetadataFieldNotPresentException | RequiredTagFileNotPresentException | IOException ex) {
+      profileSample.failure();
       LOGGER.error("Container does not match the defined profile!", ex);
       throw new BagItException(ex.getMessage());
     }
@@ -239,9 +270,21 @@ public class BagItUtil {
     /////////////////////////////////////////////////////////////////
     // Verify validity
     /////////////////////////////////////////////////////////////////
+    ExtractionMetrics.Sample checksumSample = ExtractionMetrics.start(ExtractionMetrics.STAGE_BAGIT_CHECKSUM);
+    BagHashing event = FlightRecorderEvents.beginBagHashing();
     try {
       BagVerifier.isValid(bag, ignoreHiddenFiles);
+      checksumSample.success();
+      if (event.isEnabled()) {
+        List<String> ocrdIdentifier = bag.getMetadata().get(X_OCRD_IDENTIFIER);
+        event.complete(ocrdIdentifier != null && !ocrdIdentifier.isEmpty() ? ocrdIdentifier.get(0) : null,
+                bag.getRootDir().toString(), BagHashing.OPERATION_VERIFY, getPayloadSize(bag), getPayloadFiles(bag).size());
+      }
+      if (ExtractionMetrics.isEnabled()) {
+        ExtractionMetrics.recordChecksumThroughput(getPayloadSize(bag), checksumSample.elapsed());
+      }
     } catch (IOException | MissingPayloadManifestException | MissingBagitFileException | MissingPayloadDirectoryException | FileNotInPayloadDirectoryException | MaliciousPathException | CorruptChecksumException | InvalidBagitFileFormatException | NoSuchAlgorithmException ex) {
+      checksumSample.failure();
       LOGGER.error("Bag is not valid!", ex);
       throw new BagItException(ex.getMessage());
     }
@@ -249,6 +292,43 @@ public class BagItUtil {
     return valid;
   }
 
+  /**
+   * Determine size of payload. The size is taken from 'Payload-Oxum' if
+   * available.
+   *
+   * @param bag Bag.
+   * @return Size of payload in bytes.
+   */
+  private static long getPayloadSize(final Bag bag) {
+    List<String> payloadOxum = bag.getMetadata().get(PAYLOAD_OXUM);
+    if (payloadOxum != null && !payloadOxum.isEmpty()) {
+      try {
+        return Long.parseLong(payloadOxum.get(0).split("\\.")[0].trim());
+      } catch (NumberFormatException ex) {
+        LOGGER.debug("Invalid Payload-Oxum: '{}'", payloadOxum.get(0));
+      }
+    }
+    long size = 0;
+    for (Path payloadFile : getPayloadFiles(bag)) {
+      size += payloadFile.toFile().length();
+    }
+    return size;
+  }
+
+  /**
+   * Get all payload files listed in any payload manifest.
+   *
+   * @param bag Bag.
+   * @return Set of payload files.
+   */
+  private static Set<Path> getPayloadFiles(final Bag bag) {
+    Set<Path> payloadFiles = new HashSet<>();
+    for (Manifest manifest : bag.getPayLoadManifests()) {
+      payloadFiles.addAll(manifest.getFileToChecksumMap().keySet());
+    }
+    return payloadFiles;
+  }
+
   /**
    * Print some information about the BagIt container.
    *
@@ -18,6 +18,7 @@ package edu.kit.ocrd.workspace;
 import edu.kit.ocrd.dao.MetsMetadata;
 import edu.kit.ocrd.dao.ModsIdentifier;
 import edu.kit.ocrd.dao.PageFeatures;
+import edu.kit.ocrd.workspace.cache.DocumentCache;
 import edu.kit.ocrd.workspace.entity.ClassificationMetadata;
 import edu.kit.ocrd.workspace.entity.GenreMetadata;
 import edu.kit.ocrd.workspace.entity.GroundTruthProperties;
@@ -26,8 +27,17 @@ import edu.kit.ocrd.workspace.entity.MetsFile;
 import edu.kit.ocrd.workspace.entity.MetsIdentifier;
 import edu.kit.ocrd.workspace.entity.MetsProperties;
 import edu.kit.ocrd.workspace.entity.PageMetadata;
+import edu.kit.ocrd.workspace.metrics.ExtractionMetrics;
+import edu.kit.ocrd.workspace.metrics.FlightRecorderEvents;
+import edu.kit.ocrd.workspace.metrics.FlightRecorderEvents.XPathEvaluation;
+import edu.kit.ocrd.workspace.structure.LogicalStructure;
+import edu.kit.ocrd.workspace.structure.LogicalStructureUtil;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import org.fzk.tools.xml.JaxenUtil;
@@ -41,6 +51,10 @@ import org.slf4j.LoggerFactory;
  */
 public class MetsDocumentUtil extends MetsUtil {
 
+  /**
+   * Mimetype of PAGE files.
+   */
+  public static final String PAGE_MIMETYPE = "application/vnd.prima.page+xml";
   /**
    * Logger.
    */
@@ -56,32 +70,37 @@ public class MetsDocumentUtil extends MetsUtil {
    * @return List with all found files.
    */
   public static List<MetsFile> extractMetsFiles(Document metsDocument, String resourceId, Integer version) {
-    LOGGER.info("Extract files from METS document. ResourceID: {}, Version: {}", resourceId, version);
-    List<MetsFile> metsFiles = new ArrayList<>();
-    List nodes = JaxenUtil.getNodes(metsDocument, metsMap.get(FILE_GROUPS), getNamespaces());
-    LOGGER.trace("Found {} fileGrp(s)", nodes.size());
-    for (Object node : nodes) {
-      Element fileGrpElement = (Element) node;
-      String use = JaxenUtil.getAttributeValue(fileGrpElement, "./@USE");
-      List fileNodes = JaxenUtil.getNodes(fileGrpElement, "./mets:file", getNamespaces());
-      LOGGER.trace("Found fileGrp with USE: {} containing {} file(s)", use, fileNodes.size());
-      for (Object node2 : fileNodes) {
-        Element fileElement = (Element) node2;
-        String id = JaxenUtil.getAttributeValue(fileElement, "./@ID");
-        String pageId;
-        try {
-          pageId = JaxenUtil.getAttributeValue(metsDocument, "//mets:div[./mets:fptr/@FILEID='" + id + "']/@ID", getNamespaces());
-        } catch (ArrayIndexOutOfBoundsException aioobe) {
-          // Try to find pageId using old style
-          pageId = JaxenUtil.getAttributeValue(fileElement, "./@GROUPID");
+    return ExtractionMetrics.record(ExtractionMetrics.STAGE_METS_FILES, () -> {
+      LOGGER.info("Extract files from METS document. ResourceID: {}, Version: {}", resourceId, version);
+      List<MetsFile> metsFiles = new ArrayList<>();
+      List nodes = JaxenUtil.getNodes(metsDocument, metsMap.get(FILE_GROUPS), getNamespaces());
+      LOGGER.trace("Found {} fileGrp(s)", nodes.size());
+      for (Object node : nodes) {
+        Element fileGrpElement = (Element) node;
+        String use = JaxenUtil.getAttributeValue(fileGrpElement, "./@USE");
+        List fileNodes = JaxenUtil.getNodes(fileGrpElement, "./mets:file", getNamespaces());
+        LOGGER.trace("Found fileGrp with USE: {} containing {} file(s)", use, fileNodes.size());
+        for (Object node2 : fileNodes) {
+          Element fileElement = (Element) node2;
+          String id = JaxenUtil.getAttributeValue(fileElement, "./@ID");
+          String pageId;
+          try {
+            String pageIdPath = "//mets:div[./mets:fptr/@FILEID='" + id + "']/@ID";
+            XPathEvaluation event = FlightRecorderEvents.beginXPathEvaluation();
+            pageId = JaxenUtil.getAttributeValue(metsDocument, pageIdPath, getNamespaces());
+            event.complete(resourceId, metsDocument.getBaseURI(), pageIdPath, pageId != null ? 1 : 0);
+          } catch (ArrayIndexOutOfBoundsException aioobe) {
+            // Try to find pageId using old style
+            pageId = JaxenUtil.getAttributeValue(fileElement, "./@GROUPID");
+          }
+          String mimetype = JaxenUtil.getAttributeValue(fileElement, "./@MIMETYPE");
+          String url = JaxenUtil.getAttributeValue(fileElement, "./mets:FLocat/@xlink:href", getNamespaces());
+          LOGGER.trace("Found file with id: {}, pageId: {}, mimetype: {}, url: {}", id, pageId, mimetype, url);
+          metsFiles.add(new MetsFile(resourceId, version, id, mimetype, pageId, use, url));
         }
-        String mimetype = JaxenUtil.getAttributeValue(fileElement, "./@MIMETYPE");
-        String url = JaxenUtil.getAttributeValue(fileElement, "./mets:FLocat/@xlink:href", getNamespaces());
-        LOGGER.trace("Found file with id: {}, pageId: {}, mimetype: {}, url: {}", id, pageId, mimetype, url);
-        metsFiles.add(new MetsFile(resourceId, version, id, mimetype, pageId, use, url));
       }
-    }
-    return metsFiles;
+      return metsFiles;
+    });
   }
 
   /**
@@ -94,55 +113,57 @@ public class MetsDocumentUtil extends MetsUtil {
    * @throws Exception An error occurred during parsing METS file.
    */
   public static MetsProperties extractMetadataFromMets(final Document metsDocument, String resourceId) throws Exception {
-    MetsProperties metsMetadata = new MetsProperties();
-    metsMetadata.setResourceId(resourceId);
-    // define XPaths
-    Element root = metsDocument.getRootElement();
-    String[] values = JaxenUtil.getValues(root, metsMap.get(TITLE), getNamespaces());
-    if (values.length >= 1) {
-      metsMetadata.setTitle(values[0]);
-    }
-    values = JaxenUtil.getValues(root, metsMap.get(SUB_TITLE), getNamespaces());
-    if (values.length >= 1) {
-      metsMetadata.setSubTitle(values[0]);
-    }
-    values = JaxenUtil.getValues(root, metsMap.get(YEAR), getNamespaces());
-    if (values.length >= 1) {
-      metsMetadata.setYear(values[0]);
-    }
-    values = JaxenUtil.getValues(root, metsMap.get(LICENSE), getNamespaces());
-    if (values.length >= 1) {
-      StringBuilder builder = new StringBuilder();
-      for (int i = 0; i < values.length; i++) {
-        if (values[i].trim().length() > 0) {
-          if (builder.length() > 0) {
-            builder.append(", ");
+    return ExtractionMetrics.record(ExtractionMetrics.STAGE_METS_METADATA, () -> {
+      MetsProperties metsMetadata = new MetsProperties();
+      metsMetadata.setResourceId(resourceId);
+      // define XPaths
+      Element root = metsDocument.getRootElement();
+      String[] values = JaxenUtil.getValues(root, metsMap.get(TITLE), getNamespaces());
+      if (values.length >= 1) {
+        metsMetadata.setTitle(values[0]);
+      }
+      values = JaxenUtil.getValues(root, metsMap.get(SUB_TITLE), getNamespaces());
+      if (values.length >= 1) {
+        metsMetadata.setSubTitle(values[0]);
+      }
+      values = JaxenUtil.getValues(root, metsMap.get(YEAR), getNamespaces());
+      if (values.length >= 1) {
+        metsMetadata.setYear(values[0]);
+      }
+      values = JaxenUtil.getValues(root, metsMap.get(LICENSE), getNamespaces());
+      if (values.length >= 1) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+          if (values[i].trim().length() > 0) {
+            if (builder.length() > 0) {
+              builder.append(", ");
+            }
+            builder.append(values[i]);
           }
-          builder.append(values[i]);
         }
+        metsMetadata.setLicense(builder.toString());
       }
-      metsMetadata.setLicense(builder.toString());
-    }
-    values = JaxenUtil.getValues(root, metsMap.get(AUTHOR), getNamespaces());
-    if (values.length >= 1) {
-      metsMetadata.setAuthor(values[0]);
-    }
-    values = JaxenUtil.getValues(root, metsMap.get(NUMBER_OF_IMAGES), getNamespaces());
-    metsMetadata.setNoOfPages(values.length);
+      values = JaxenUtil.getValues(root, metsMap.get(AUTHOR), getNamespaces());
+      if (values.length >= 1) {
+        metsMetadata.setAuthor(values[0]);
+      }
+      values = JaxenUtil.getValues(root, metsMap.get(NUMBER_OF_IMAGES), getNamespaces());
+      metsMetadata.setNoOfPages(values.length);
 
-    values = JaxenUtil.getValues(root, metsMap.get(PUBLISHER), getNamespaces());
-    if (values.length >= 1) {
-      metsMetadata.setPublisher(values[0]);
-    }
-    values = JaxenUtil.getValues(root, metsMap.get(PHYSICAL_DESCRIPTION), getNamespaces());
-    if (values.length >= 1) {
-      metsMetadata.setPhysicalDescription(values[0]);
-    }
-    values = JaxenUtil.getValues(root, metsMap.get(PPN), getNamespaces());
-    if (values.length >= 1) {
-      metsMetadata.setPpn(values[0]);
-    }
-    return metsMetadata;
+      values = JaxenUtil.getValues(root, metsMap.get(PUBLISHER), getNamespaces());
+      if (values.length >= 1) {
+        metsMetadata.setPublisher(values[0]);
+      }
+      values = JaxenUtil.getValues(root, metsMap.get(PHYSICAL_DESCRIPTION), getNamespaces());
+      if (values.length >= 1) {
+        metsMetadata.setPhysicalDescription(values[0]);
+      }
+      values = JaxenUtil.getValues(root, metsMap.get(PPN), getNamespaces());
+      if (values.length >= 1) {
+        metsMetadata.setPpn(values[0]);
+      }
+      return metsMetadata;
+    });
   }
 
   /**
@@ -155,19 +176,21 @@ public class MetsDocumentUtil extends MetsUtil {
    * @throws Exception An error occurred during parsing METS file.
    */
   public static List<MetsIdentifier> extractIdentifierFromMets(final Document metsDocument, final String resourceId) throws Exception {
-    List<MetsIdentifier> metsIdentifierList = new ArrayList<>();
-    Element root = metsDocument.getRootElement();
-    List identifierList = JaxenUtil.getNodes(root, metsMap.get(UNIQUE_IDENTIFIER), getNamespaces());
-    if (!identifierList.isEmpty()) {
-      for (Object identifierObject : identifierList) {
-        // Determine type and id 
-        Element identifier = (Element) identifierObject;
-        String type = getAttribute(identifier, "type");
-        String id = identifier.getValue();
-        metsIdentifierList.add(new MetsIdentifier(resourceId, type, id));
+    return ExtractionMetrics.record(ExtractionMetrics.STAGE_METS_IDENTIFIER, () -> {
+      List<MetsIdentifier> metsIdentifierList = new ArrayList<>();
+      Element root = metsDocument.getRootElement();
+      List identifierList = JaxenUtil.getNodes(root, metsMap.get(UNIQUE_IDENTIFIER), getNamespaces());
+      if (!identifierList.isEmpty()) {
+        for (Object identifierObject : identifierList) {
+          // Determine type and id 
+          Element identifier = (Element) identifierObject;
+          String type = getAttribute(identifier, "type");
+          String id = identifier.getValue();
+          metsIdentifierList.add(new MetsIdentifier(resourceId, type, id));
+        }
       }
-    }
-    return metsIdentifierList;
+      return metsIdentifierList;
+    });
   }
 
   /**
@@ -180,17 +203,19 @@ public class MetsDocumentUtil extends MetsUtil {
    * @throws Exception An error occurred during parsing METS file.
    */
   public static List<LanguageMetadata> extractLanguageMetadataFromMets(final Document metsDocument, final String resourceId) throws Exception {
-    List<LanguageMetadata> languageList = new ArrayList<>();
-    Element root = metsDocument.getRootElement();
-    String[] values = JaxenUtil.getValues(root, metsMap.get(LANGUAGE), getNamespaces());
-    if (values.length >= 1) {
-      for (String language : values) {
-        if (language.trim().length() > 1) {
-          languageList.add(new LanguageMetadata(resourceId, language.trim()));
+    return ExtractionMetrics.record(ExtractionMetrics.STAGE_METS_LANGUAGE, () -> {
+      List<LanguageMetadata> languageList = new ArrayList<>();
+      Element root = metsDocument.getRootElement();
+      String[] values = JaxenUtil.getValues(root, metsMap.get(LANGUAGE), getNamespaces());
+      if (values.length >= 1) {
+        for (String language : values) {
+          if (language.trim().length() > 1) {
+            languageList.add(new LanguageMetadata(resourceId, language.trim()));
+          }
         }
       }
-    }
-    return languageList;
+      return languageList;
+    });
   }
 
   /**
@@ -203,17 +228,19 @@ public class MetsDocumentUtil extends MetsUtil {
    * @throws Exception An error occurred during parsing METS file.
    */
   public static List<ClassificationMetadata> extractClassificationMetadataFromMets(final Document metsDocument, final String resourceId) throws Exception {
-    List<ClassificationMetadata> classificationList = new ArrayList<>();
-    Element root = metsDocument.getRootElement();
-    String[] values = JaxenUtil.getValues(root, metsMap.get(CLASSIFICATION), getNamespaces());
-    if (values.length >= 1) {
-      for (String classification : values) {
-        if (classification.trim().length() > 1) {
-          classificationList.add(new ClassificationMetadata(resourceId, classification.trim()));
+    return ExtractionMetrics.record(ExtractionMetrics.STAGE_METS_CLASSIFICATION, () -> {
+      List<ClassificationMetadata> classificationList = new ArrayList<>();
+      Element root = metsDocument.getRootElement();
+      String[] values = JaxenUtil.getValues(root, metsMap.get(CLASSIFICATION), getNamespaces());
+      if (values.length >= 1) {
+        for (String classification : values) {
+          if (classification.trim().length() > 1) {
+            classificationList.add(new ClassificationMetadata(resourceId, classification.trim()));
+          }
         }
       }
-    }
-    return classificationList;
+      return classificationList;
+    });
   }
 
   /**
@@ -226,17 +253,19 @@ public class MetsDocumentUtil extends MetsUtil {
    * @throws Exception An error occurred during parsing METS file.
    */
   public static List<GenreMetadata> extractGenreMetadataFromMets(final Document metsDocument, final String resourceId) throws Exception {
-    List<GenreMetadata> genreList = new ArrayList<>();
-    Element root = metsDocument.getRootElement();
-    String[] values = JaxenUtil.getValues(root, metsMap.get(GENRE), getNamespaces());
-    if (values.length >= 1) {
-      for (String genre : values) {
-        if (genre.trim().length() > 1) {
-          genreList.add(new GenreMetadata(resourceId, genre.trim()));
+    return ExtractionMetrics.record(ExtractionMetrics.STAGE_METS_GENRE, () -> {
+      List<GenreMetadata> genreList = new ArrayList<>();
+      Element root = metsDocument.getRootElement();
+      String[] values = JaxenUtil.getValues(root, metsMap.get(GENRE), getNamespaces());
+      if (values.length >= 1) {
+        for (String genre : values) {
+          if (genre.trim().length() > 1) {
+            genreList.add(new GenreMetadata(resourceId, genre.trim()));
+          }
         }
       }
-    }
-    return genreList;
+      return genreList;
+    });
   }
 
   /**
@@ -249,27 +278,29 @@ public class MetsDocumentUtil extends MetsUtil {
    * @throws Exception An error occurred during parsing METS file.
    */
   public static List<PageMetadata> extractGroundTruthFeaturesFromMets(final Document metsDocument, final String resourceId) throws Exception {
-    List<PageMetadata> pageMetadataList = new ArrayList<>();
-    Element root = metsDocument.getRootElement();
-    List physicalList = JaxenUtil.getNodes(root, metsMap.get(PHYSICAL_MAP), getNamespaces());
-    if (!physicalList.isEmpty()) {
-      Element structMap = (Element) physicalList.get(0);
-      List pageList = JaxenUtil.getNodes(structMap, metsMap.get(PAGE_NODES), getNamespaces());
-      if (!pageList.isEmpty()) {
-        for (Object pageObject : pageList) {
-          // Determine order, id and dmdid. 
-          Element pageNode = (Element) pageObject;
-          String order = getAttribute(pageNode, "ORDER");
-          String id = getAttribute(pageNode, "ID");
-          String dmdId = getAttribute(pageNode, "DMDID");
-          String[] features = JaxenUtil.getValues(root, "//mets:dmdSec[@ID='" + dmdId + "']/mets:mdWrap[@OTHERMDTYPE='GT']/mets:xmlData/gt:gt/gt:state/@prop", getNamespaces());
-          for (String feature : features) {
-            pageMetadataList.add(new PageMetadata(resourceId, Integer.getInteger(order), id, GroundTruthProperties.get(feature)));
+    return ExtractionMetrics.record(ExtractionMetrics.STAGE_METS_GROUND_TRUTH, () -> {
+      List<PageMetadata> pageMetadataList = new ArrayList<>();
+      Element root = metsDocument.getRootElement();
+      List physicalList = JaxenUtil.getNodes(root, metsMap.get(PHYSICAL_MAP), getNamespaces());
+      if (!physicalList.isEmpty()) {
+        Element structMap = (Element) physicalList.get(0);
+        List pageList = JaxenUtil.getNodes(structMap, metsMap.get(PAGE_NODES), getNamespaces());
+        if (!pageList.isEmpty()) {
+          for (Object pageObject : pageList) {
+            // Determine order, id and dmdid. 
+            Element pageNode = (Element) pageObject;
+            String order = getAttribute(pageNode, "ORDER");
+            String id = getAttribute(pageNode, "ID");
+            String dmdId = getAttribute(pageNode, "DMDID");
+            String[] features = JaxenUtil.getValues(root, "//mets:dmdSec[@ID='" + dmdId + "']/mets:mdWrap[@OTHERMDTYPE='GT']/mets:xmlData/gt:gt/gt:state/@prop", getNamespaces());
+            for (String feature : features) {
+              pageMetadataList.add(new PageMetadata(resourceId, Integer.getInteger(order), id, GroundTruthProperties.get(feature)));
+            }
           }
         }
       }
-    }
-    return pageMetadataList;
+      return pageMetadataList;
+    });
   }
 
   /**
@@ -281,13 +312,257 @@ public class MetsDocumentUtil extends MetsUtil {
    * @throws Exception An error occurred during parsing METS file.
    */
   public static List<String> extractPageUrls(final Document metsDocument) throws Exception {
-    List<String> pageUrls = new ArrayList<>();
-    Element root = metsDocument.getRootElement();
-    String[] values = JaxenUtil.getAttributesValues(root, "//mets:file[@MIMETYPE='application/vnd.prima.page+xml']/mets:FLocat/@xlink:href", getNamespaces());
-      for (String href : values) {
-        pageUrls.add(href);
+    return ExtractionMetrics.record(ExtractionMetrics.STAGE_METS_PAGE_URLS, () -> {
+      List<String> pageUrls = new ArrayList<>();
+      Element root = metsDocument.getRootElement();
+      String[] values = JaxenUtil.getAttributesValues(root, "//mets:file[@MIMETYPE='" + PAGE_MIMETYPE + "']/mets:FLocat/@xlink:href", getNamespaces());
+        for (String href : values) {
+          pageUrls.add(href);
+        }
+      return pageUrls;
+    });
+  }
+
+  /**
+   * Extract all 'URLs' of referenced page.xml files inside the given
+   * fileGrps. The URLs are sorted by the order of the given fileGrps.
+   *
+   * @param metsDocument METS file.
+   * @param fileGrps USE of all selected fileGrps (null or empty for all
+   * fileGrps).
+   * @return List of 'URLs'.
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  public static List<String> extractPageUrls(final Document metsDocument, final Collection<String> fileGrps) throws Exception {
+    if (fileGrps == null || fileGrps.isEmpty()) {
+      return extractPageUrls(metsDocument);
+    }
+    return ExtractionMetrics.record(ExtractionMetrics.STAGE_METS_PAGE_URLS, () -> {
+      List<String> pageUrls = new ArrayList<>();
+      Element root = metsDocument.getRootElement();
+      // USE is compared in Java, so it never becomes part of an expression.
+      List fileGrpNodes = JaxenUtil.getNodes(root, "//mets:fileGrp", getNamespaces());
+      for (String use : fileGrps) {
+        int noOfFiles = 0;
+        for (Object node : fileGrpNodes) {
+          Element fileGrpElement = (Element) node;
+          if (use.equals(fileGrpElement.getAttributeValue("USE"))) {
+            String[] values = JaxenUtil.getAttributesValues(fileGrpElement, "./mets:file[@MIMETYPE='" + PAGE_MIMETYPE + "']/mets:FLocat/@xlink:href", getNamespaces());
+            noOfFiles += values.length;
+            pageUrls.addAll(Arrays.asList(values));
+          }
+        }
+        LOGGER.trace("Found {} PAGE file(s) in fileGrp '{}'", noOfFiles, use);
       }
-    return pageUrls;
+      return pageUrls;
+    });
+  }
+
+  /**
+   * Extract USE of all fileGrps containing page.xml files in document order.
+   *
+   * @param metsDocument METS file.
+   * @return List of USE of fileGrps.
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  public static List<String> extractPageFileGrps(final Document metsDocument) throws Exception {
+    Element root = metsDocument.getRootElement();
+    String[] values = JaxenUtil.getAttributesValues(root, "//mets:fileGrp[mets:file/@MIMETYPE='" + PAGE_MIMETYPE + "']/@USE", getNamespaces());
+    return new ArrayList<>(new LinkedHashSet<>(Arrays.asList(values)));
+  }
+
+  /**
+   * Extract logical structure (logical structMap linked to the physical
+   * pages via structLink) from METS.
+   *
+   * @param metsDocument METS file.
+   * @return Logical structure with index of page ranges.
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  public static LogicalStructure extractLogicalStructure(final Document metsDocument) throws Exception {
+    return ExtractionMetrics.record(ExtractionMetrics.STAGE_METS_LOGICAL_STRUCTURE, () -> LogicalStructureUtil.extractLogicalStructure(metsDocument));
+  }
+
+  /**
+   * Extract MetsFile instances from METS file. The parsed document is taken
+   * from the {@link DocumentCache#getDefault() document cache}.
+   *
+   * @param metsFile METS file.
+   * @param resourceId Resource ID of METS document.
+   * @param version Version of METS document.
+   *
+   * @return List with all found files.
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  public static List<MetsFile> extractMetsFiles(final Path metsFile, final String resourceId, final Integer version) throws Exception {
+    return extractMetsFiles(getMetsDocument(metsFile, resourceId), resourceId, version);
+  }
+
+  /**
+   * Extract all metadata from METS file. The parsed document is taken from
+   * the {@link DocumentCache#getDefault() document cache}.
+   *
+   * @param metsFile METS file.
+   * @param resourceId Resource ID of METS document.
+   * @return MetsMetadata holding all metadata.
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  public static MetsProperties extractMetadataFromMets(final Path metsFile, final String resourceId) throws Exception {
+    return extractMetadataFromMets(getMetsDocument(metsFile, resourceId), resourceId);
+  }
+
+  /**
+   * Extract all 'URLs' of referenced page.xml files inside the given
+   * fileGrps of METS file. The parsed document is taken from the
+   * {@link DocumentCache#getDefault() document cache}.
+   *
+   * @param metsFile METS file.
+   * @param fileGrps USE of all selected fileGrps (null or empty for all
+   * fileGrps).
+   * @return List of 'URLs'.
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  public static List<String> extractPageUrls(final Path metsFile, final Collection<String> fileGrps) throws Exception {
+    return extractPageUrls(getMetsDocument(metsFile, null), fileGrps);
+  }
+
+  /**
+   * Extract MetsFile instances from METS document of workspace.
+   *
+   * @param session Session of workspace.
+   * @param version Version of METS document.
+   *
+   * @return List with all found files.
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  public static List<MetsFile> extractMetsFiles(final WorkspaceSession session, final Integer version) throws Exception {
+    return extractMetsFiles(session.getMetsDocument(), session.getResourceId(), version);
+  }
+
+  /**
+   * Extract metadata from METS document of workspace.
+   *
+   * @param session Session of workspace.
+   *
+   * @return Metadata of METS document.
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  public static MetsProperties extractMetadataFromMets(final WorkspaceSession session) throws Exception {
+    return extractMetadataFromMets(session.getMetsDocument(), session.getResourceId());
+  }
+
+  /**
+   * Extract identifiers from METS document of workspace.
+   *
+   * @param session Session of workspace.
+   *
+   * @return List with all identifiers.
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  public static List<MetsIdentifier> extractIdentifierFromMets(final WorkspaceSession session) throws Exception {
+    return extractIdentifierFromMets(session.getMetsDocument(), session.getResourceId());
+  }
+
+  /**
+   * Extract language metadata from METS document of workspace.
+   *
+   * @param session Session of workspace.
+   *
+   * @return List with all languages.
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  public static List<LanguageMetadata> extractLanguageMetadataFromMets(final WorkspaceSession session) throws Exception {
+    return extractLanguageMetadataFromMets(session.getMetsDocument(), session.getResourceId());
+  }
+
+  /**
+   * Extract classification metadata from METS document of workspace.
+   *
+   * @param session Session of workspace.
+   *
+   * @return List with all classifications.
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  public static List<ClassificationMetadata> extractClassificationMetadataFromMets(final WorkspaceSession session) throws Exception {
+    return extractClassificationMetadataFromMets(session.getMetsDocument(), session.getResourceId());
+  }
+
+  /**
+   * Extract genre metadata from METS document of workspace.
+   *
+   * @param session Session of workspace.
+   *
+   * @return List with all genres.
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  public static List<GenreMetadata> extractGenreMetadataFromMets(final WorkspaceSession session) throws Exception {
+    return extractGenreMetadataFromMets(session.getMetsDocument(), session.getResourceId());
+  }
+
+  /**
+   * Extract ground truth features from METS document of workspace.
+   *
+   * @param session Session of workspace.
+   *
+   * @return List with all ground truth features.
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  public static List<PageMetadata> extractGroundTruthFeaturesFromMets(final WorkspaceSession session) throws Exception {
+    return extractGroundTruthFeaturesFromMets(session.getMetsDocument(), session.getResourceId());
+  }
+
+  /**
+   * Extract logical structure from METS document of workspace.
+   *
+   * @param session Session of workspace.
+   *
+   * @return Logical structure with index of page ranges.
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  public static LogicalStructure extractLogicalStructure(final WorkspaceSession session) throws Exception {
+    return extractLogicalStructure(session.getMetsDocument());
+  }
+
+  /**
+   * Extract all 'URLs' of referenced page.xml files inside the given
+   * fileGrps of workspace.
+   *
+   * @param session Session of workspace.
+   * @param fileGrps USE of all selected fileGrps (null or empty for all
+   * fileGrps).
+   * @return List of 'URLs'.
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  public static List<String> extractPageUrls(final WorkspaceSession session, final Collection<String> fileGrps) throws Exception {
+    return extractPageUrls(session.getMetsDocument(), fileGrps);
+  }
+
+  /**
+   * Get parsed METS document from document cache.
+   *
+   * @param metsFile METS file.
+   * @param resourceId Resource ID of METS document.
+   * @return METS document (must not be modified).
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  private static Document getMetsDocument(final Path metsFile, final String resourceId) throws Exception {
+    return DocumentCache.getDefault().getDocument(metsFile, resourceId, null, ExtractionMetrics.STAGE_METS_PARSE);
   }
 
   /**
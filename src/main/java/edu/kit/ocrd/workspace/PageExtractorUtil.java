@@ -15,12 +15,31 @@
  */
 package edu.kit.ocrd.workspace;
 
+import edu.kit.ocrd.workspace.cache.DocumentCache;
+import edu.kit.ocrd.workspace.entity.ConfidenceStatistics;
+import edu.kit.ocrd.workspace.entity.ProvenanceMetadata;
 import edu.kit.ocrd.workspace.entity.TextRegion;
+import edu.kit.ocrd.workspace.metrics.ExtractionMetrics;
+import edu.kit.ocrd.workspace.metrics.FlightRecorderEvents;
+import edu.kit.ocrd.workspace.metrics.FlightRecorderEvents.RegionExtraction;
+import edu.kit.ocrd.workspace.metrics.FlightRecorderEvents.XPathEvaluation;
+import edu.kit.ocrd.workspace.page.PageStreamExtractor;
+import edu.kit.ocrd.workspace.provenance.ProvenanceUtil;
+import edu.kit.ocrd.workspace.remote.RemotePageFetcher;
+import edu.kit.ocrd.workspace.spatial.PolygonUtil;
+import edu.kit.ocrd.workspace.stats.ConfidenceStatisticsCollector;
 import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 import org.fzk.tools.xml.JaxenUtil;
 import org.jdom.Document;
 import org.jdom.Element;
@@ -47,19 +66,328 @@ public class PageExtractorUtil extends PageUtil {
    * @return List with all found files.
    */
   public static List<TextRegion> extractAllTextRegions(final File metsFile, String resourceId) throws Exception {
+    return extractAllTextRegions(metsFile, resourceId, null);
+  }
+
+  /**
+   * Extract text equivalents from text regions of PAGE documents inside the
+   * given fileGrps only.
+   *
+   * @param metsFile Mets file
+   * @param resourceId Resource ID of METS document.
+   * @param fileGrps USE of all selected fileGrps (null or empty for all
+   * fileGrps).
+   *
+   * @return List with all found files.
+   */
+  public static List<TextRegion> extractAllTextRegions(final File metsFile, String resourceId, final Collection<String> fileGrps) throws Exception {
+    return extractAllTextRegions(metsFile, resourceId, fileGrps, null);
+  }
+
+  /**
+   * Extract text equivalents from text regions of PAGE documents inside the
+   * given fileGrps including remote PAGE files.
+   *
+   * @param metsFile Mets file
+   * @param resourceId Resource ID of METS document.
+   * @param fileGrps USE of all selected fileGrps (null or empty for all
+   * fileGrps).
+   * @param fetcher Fetcher for remote files (null for ignoring remote
+   * files).
+   *
+   * @return List with all found files.
+   */
+  public static List<TextRegion> extractAllTextRegions(final File metsFile, String resourceId, final Collection<String> fileGrps,
+          final RemotePageFetcher fetcher) throws Exception {
+    return ExtractionMetrics.record(ExtractionMetrics.STAGE_PAGE_ALL_TEXT_REGIONS, () -> {
+      Document metsDocument = DocumentCache.getDefault().getDocument(metsFile.toPath(), resourceId, null, ExtractionMetrics.STAGE_METS_PARSE);
+      return extractAllTextRegions(metsDocument, metsFile.toPath().getParent(), resourceId, fileGrps, fetcher);
+    });
+  }
+
+  /**
+   * Extract text equivalents from text regions of PAGE documents of the
+   * final OCR output only (see
+   * {@link #selectFinalOcrFileGrp(Document, List)}).
+   *
+   * @param metsFile Mets file
+   * @param provenanceFile Provenance file of workspace (may be null).
+   * @param resourceId Resource ID of METS document.
+   *
+   * @return List with all found files.
+   */
+  public static List<TextRegion> extractFinalTextRegions(final File metsFile, final File provenanceFile, String resourceId) throws Exception {
+    return ExtractionMetrics.record(ExtractionMetrics.STAGE_PAGE_ALL_TEXT_REGIONS, () -> {
+      Document metsDocument = DocumentCache.getDefault().getDocument(metsFile.toPath(), resourceId, null, ExtractionMetrics.STAGE_METS_PARSE);
+      List<ProvenanceMetadata> provenanceMetadata = new ArrayList<>();
+      if (provenanceFile != null && provenanceFile.exists()) {
+        Document provDocument = DocumentCache.getDefault().getDocument(provenanceFile.toPath(), resourceId);
+        provenanceMetadata = ProvenanceUtil.extractWorkflows(provDocument, metsDocument, resourceId);
+      }
+      String fileGrp = selectFinalOcrFileGrp(metsDocument, provenanceMetadata);
+      if (fileGrp == null) {
+        return new ArrayList<>();
+      }
+      return extractAllTextRegions(metsDocument, metsFile.toPath().getParent(), resourceId, Collections.singletonList(fileGrp));
+    });
+  }
+
+  /**
+   * Extract text equivalents from text regions of PAGE documents referenced
+   * by METS document. Remote files are ignored.
+   *
+   * @param metsDocument METS document.
+   * @param basePath Path to workspace.
+   * @param resourceId Resource ID of METS document.
+   * @param fileGrps USE of all selected fileGrps (null or empty for all
+   * fileGrps).
+   *
+   * @return List with all found files.
+   */
+  public static List<TextRegion> extractAllTextRegions(final Document metsDocument, final Path basePath, String resourceId, final Collection<String> fileGrps) throws Exception {
+    return extractAllTextRegions(metsDocument, basePath, resourceId, fileGrps, null);
+  }
+
+  /**
+   * Extract text equivalents from text regions of PAGE documents referenced
+   * by METS document. Remote files are fetched asynchronously by the given
+   * fetcher: all downloads are started first and local files are parsed
+   * meanwhile.
+   *
+   * @param metsDocument METS document.
+   * @param basePath Path to workspace.
+   * @param resourceId Resource ID of METS document.
+   * @param fileGrps USE of all selected fileGrps (null or empty for all
+   * fileGrps).
+   * @param fetcher Fetcher for remote files (null for ignoring remote
+   * files).
+   *
+   * @return List with all found files.
+   */
+  public static List<TextRegion> extractAllTextRegions(final Document metsDocument, final Path basePath, String resourceId,
+          final Collection<String> fileGrps, final RemotePageFetcher fetcher) throws Exception {
+    return extractAllTextRegions(metsDocument, pageUrl -> Paths.get(basePath.toString(), pageUrl), resourceId, fileGrps, fetcher);
+  }
+
+  /**
+   * Extract text equivalents from text regions of all PAGE documents of the
+   * workspace. The METS document is parsed only once per session.
+   *
+   * @param session Session of workspace.
+   *
+   * @return List with all found files.
+   */
+  public static List<TextRegion> extractAllTextRegions(final WorkspaceSession session) throws Exception {
+    return extractAllTextRegions(session, null);
+  }
+
+  /**
+   * Extract text equivalents from text regions of PAGE documents inside the
+   * given fileGrps of the workspace.
+   *
+   * @param session Session of workspace.
+   * @param fileGrps USE of all selected fileGrps (null or empty for all
+   * fileGrps).
+   *
+   * @return List with all found files.
+   */
+  public static List<TextRegion> extractAllTextRegions(final WorkspaceSession session, final Collection<String> fileGrps) throws Exception {
+    return extractAllTextRegions(session, fileGrps, null);
+  }
+
+  /**
+   * Extract text equivalents from text regions of PAGE documents inside the
+   * given fileGrps of the workspace including remote PAGE files. Local files
+   * are resolved against the workspace root of the session.
+   *
+   * @param session Session of workspace.
+   * @param fileGrps USE of all selected fileGrps (null or empty for all
+   * fileGrps).
+   * @param fetcher Fetcher for remote files (null for ignoring remote
+   * files).
+   *
+   * @return List with all found files.
+   */
+  public static List<TextRegion> extractAllTextRegions(final WorkspaceSession session, final Collection<String> fileGrps,
+          final RemotePageFetcher fetcher) throws Exception {
+    return ExtractionMetrics.record(ExtractionMetrics.STAGE_PAGE_ALL_TEXT_REGIONS,
+            () -> extractAllTextRegions(session.getMetsDocument(), session::resolve, session.getResourceId(), fileGrps, fetcher));
+  }
+
+  /**
+   * Extract text equivalents from text regions of PAGE documents of the
+   * final OCR output of the workspace only (see
+   * {@link #selectFinalOcrFileGrp(Document, List)}).
+   *
+   * @param session Session of workspace.
+   *
+   * @return List with all found files.
+   */
+  public static List<TextRegion> extractFinalTextRegions(final WorkspaceSession session) throws Exception {
+    String fileGrp = selectFinalOcrFileGrp(session.getMetsDocument(), ProvenanceUtil.extractWorkflows(session));
+    if (fileGrp == null) {
+      return new ArrayList<>();
+    }
+    return extractAllTextRegions(session, Collections.singletonList(fileGrp));
+  }
+
+  /**
+   * Collect confidence statistics of the text regions of all PAGE documents
+   * inside the given fileGrps of the workspace. The PAGE files are streamed
+   * (see {@link PageStreamExtractor}), so neither the text regions nor their
+   * text are held in memory. Remote files are ignored.
+   *
+   * @param session Session of workspace.
+   * @param fileGrps USE of all selected fileGrps (null or empty for all
+   * fileGrps).
+   * @param lowConfidenceThreshold Threshold for low confidence.
+   *
+   * @return Statistics of workspace, all fileGrps and all pages.
+   */
+  public static List<ConfidenceStatistics> extractConfidenceStatistics(final WorkspaceSession session, final Collection<String> fileGrps,
+          final float lowConfidenceThreshold) throws Exception {
+    return extractConfidenceStatistics(session.getMetsDocument(), session::resolve, session.getResourceId(), fileGrps, lowConfidenceThreshold);
+  }
+
+  /**
+   * Collect confidence statistics of already extracted text regions of all
+   * PAGE documents inside the given fileGrps (e.g. taken from
+   * {@link #extractAllTextRegions(Document, Path, String, Collection)}), so
+   * the PAGE files are not parsed again. Text regions without confidence
+   * (see {@link TextRegion#hasConfidence()}) are counted as missing
+   * confidences. Remote files are ignored.
+   *
+   * @param metsDocument METS document.
+   * @param textRegions Text regions of the selected PAGE files.
+   * @param resourceId Resource ID of METS document.
+   * @param fileGrps USE of all selected fileGrps (null or empty for all
+   * fileGrps).
+   * @param lowConfidenceThreshold Threshold for low confidence.
+   *
+   * @return Statistics of workspace, all fileGrps and all pages.
+   */
+  public static List<ConfidenceStatistics> collectConfidenceStatistics(final Document metsDocument, final List<TextRegion> textRegions,
+          final String resourceId, final Collection<String> fileGrps, final float lowConfidenceThreshold) throws Exception {
+    Map<String, List<TextRegion>> textRegionsOfPage = new HashMap<>();
+    for (TextRegion textRegion : textRegions) {
+      textRegionsOfPage.computeIfAbsent(textRegion.getPageUrl(), pageUrl -> new ArrayList<>()).add(textRegion);
+    }
+    Collection<String> selectedFileGrps = fileGrps == null || fileGrps.isEmpty() ? MetsDocumentUtil.extractPageFileGrps(metsDocument) : fileGrps;
+    ConfidenceStatisticsCollector collector = new ConfidenceStatisticsCollector(lowConfidenceThreshold);
+    for (String fileGrp : selectedFileGrps) {
+      for (String pageUrl : MetsDocumentUtil.extractPageUrls(metsDocument, Collections.singletonList(fileGrp))) {
+        if (RemotePageFetcher.isRemote(pageUrl)) {
+          LOGGER.trace("Ignore remote file '{}'", pageUrl);
+          continue;
+        }
+        collector.startPage(fileGrp, pageUrl);
+        for (TextRegion textRegion : textRegionsOfPage.getOrDefault(pageUrl, Collections.emptyList())) {
+          collector.add(textRegion.hasConfidence() ? textRegion.getConfidence() : Float.NaN, textRegion.getText());
+        }
+      }
+    }
+    return collector.getStatistics(resourceId);
+  }
+
+  /**
+   * Collect confidence statistics of the text regions of all PAGE documents
+   * inside the given fileGrps.
+   *
+   * @param metsDocument METS document.
+   * @param resolver Resolves 'URL' of local page file to path.
+   * @param resourceId Resource ID of METS document.
+   * @param fileGrps USE of all selected fileGrps (null or empty for all
+   * fileGrps).
+   * @param lowConfidenceThreshold Threshold for low confidence.
+   *
+   * @return Statistics of workspace, all fileGrps and all pages.
+   */
+  private static List<ConfidenceStatistics> extractConfidenceStatistics(final Document metsDocument, final Function<String, Path> resolver,
+          final String resourceId, final Collection<String> fileGrps, final float lowConfidenceThreshold) throws Exception {
+    Collection<String> selectedFileGrps = fileGrps == null || fileGrps.isEmpty() ? MetsDocumentUtil.extractPageFileGrps(metsDocument) : fileGrps;
+    ConfidenceStatisticsCollector collector = new ConfidenceStatisticsCollector(lowConfidenceThreshold);
+    for (String fileGrp : selectedFileGrps) {
+      for (String pageUrl : MetsDocumentUtil.extractPageUrls(metsDocument, Collections.singletonList(fileGrp))) {
+        if (RemotePageFetcher.isRemote(pageUrl)) {
+          LOGGER.trace("Ignore remote file '{}'", pageUrl);
+          continue;
+        }
+        collector.startPage(fileGrp, pageUrl);
+        PageStreamExtractor.extract(resolver.apply(pageUrl), PageStreamExtractor.Granularity.REGION,
+                element -> collector.add(element.getConfidence(), element.getText()));
+      }
+    }
+    return collector.getStatistics(resourceId);
+  }
+
+  /**
+   * Extract text equivalents from text regions of PAGE documents referenced
+   * by METS document.
+   *
+   * @param metsDocument METS document.
+   * @param resolver Resolves 'URL' of local page file to path.
+   * @param resourceId Resource ID of METS document.
+   * @param fileGrps USE of all selected fileGrps (null or empty for all
+   * fileGrps).
+   * @param fetcher Fetcher for remote files (null for ignoring remote
+   * files).
+   *
+   * @return List with all found files.
+   */
+  private static List<TextRegion> extractAllTextRegions(final Document metsDocument, final Function<String, Path> resolver, final String resourceId,
+          final Collection<String> fileGrps, final RemotePageFetcher fetcher) throws Exception {
     List<TextRegion> textRegions = new ArrayList<>();
-    Document metsDocument = JaxenUtil.getDocument(metsFile);
-    List<String> pageUrls = MetsDocumentUtil.extractPageUrls(metsDocument);
+    List<String> pageUrls = MetsDocumentUtil.extractPageUrls(metsDocument, fileGrps);
+    Map<String, CompletableFuture<Path>> downloads = new HashMap<>();
+    if (fetcher != null) {
+      for (String pageUrl : pageUrls) {
+        if (RemotePageFetcher.isRemote(pageUrl)) {
+          downloads.put(pageUrl, fetcher.fetch(pageUrl));
+        }
+      }
+    }
     for (String pageUrl : pageUrls) {
-      if (pageUrl.startsWith("http://")) {
-        // ignore 
+      if (RemotePageFetcher.isRemote(pageUrl)) {
+        if (fetcher == null) {
+          LOGGER.trace("Ignore remote file '{}'", pageUrl);
+          continue;
+        }
+        Path pageFile;
+        try {
+          pageFile = downloads.get(pageUrl).get();
+        } catch (ExecutionException ex) {
+          throw ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+        }
+        textRegions.addAll(extractTextRegions(pageFile.toFile(), pageUrl, resourceId, false));
       } else {
-        textRegions.addAll(PageExtractorUtil.extractTextRegions(metsFile.toPath().getParent(), pageUrl, resourceId));
+        textRegions.addAll(extractTextRegions(resolver.apply(pageUrl).toFile(), pageUrl, resourceId, false));
       }
     }
     return textRegions;
   }
 
+  /**
+   * Select fileGrp holding the final OCR output. This is the PAGE fileGrp
+   * written by the last processor according to the provenance. Without
+   * provenance the last fileGrp containing PAGE files is selected as OCR-D
+   * processors append their output fileGrps to the METS document.
+   *
+   * @param metsDocument METS document.
+   * @param provenanceMetadata Provenance metadata of all processors (may be
+   * empty).
+   *
+   * @return USE of fileGrp or null if there are no PAGE files.
+   */
+  public static String selectFinalOcrFileGrp(final Document metsDocument, final List<ProvenanceMetadata> provenanceMetadata) throws Exception {
+    List<String> pageFileGrps = MetsDocumentUtil.extractPageFileGrps(metsDocument);
+    String fileGrp = ProvenanceUtil.getFinalOutputFileGrp(provenanceMetadata, pageFileGrps);
+    if (fileGrp == null && !pageFileGrps.isEmpty()) {
+      fileGrp = pageFileGrps.get(pageFileGrps.size() - 1);
+    }
+    LOGGER.debug("Final OCR output: '{}'", fileGrp);
+    return fileGrp;
+  }
+
   /**
    * Extract text equivalents from text regions of PAGE document.
    *
@@ -70,40 +398,118 @@ public class PageExtractorUtil extends PageUtil {
    * @return List with all found files.
    */
   public static List<TextRegion> extractTextRegions(final Path basePath, final String pageUrl, final String resourceId) throws Exception {
-    List<TextRegion> textRegions = new ArrayList<>();
-    File pageFile = Paths.get(basePath.toString(), pageUrl).toFile();
-    Document pageDocument = JaxenUtil.getDocument(pageFile);
-    String pageNamespace = XmlUtil.getNamespace(pageDocument);
-
-    Namespace[] namespaces = {Namespace.getNamespace("page", pageNamespace)};
-    String imageUrl = JaxenUtil.getValues(pageDocument, PageUtil.IMAGE_PATH, namespaces)[0];
-    List textRegionNodes = JaxenUtil.getNodes(pageDocument, "//page:Page/page:TextRegion", namespaces);
-    for (Object textRegionNode : textRegionNodes) {
-      Element textRegionElement = (Element) textRegionNode;
-      String regionId = JaxenUtil.getAttributeValue(textRegionElement, "./@id");
-      String order = JaxenUtil.getAttributeValue(pageDocument, "//page:ReadingOrder/page:OrderedGroup/page:RegionRefIndexed[@regionRef='" + regionId + "']/@index", namespaces);
-      String[] confidenceLevels = JaxenUtil.getAttributesValues(textRegionElement, "./page:TextEquiv/@conf", namespaces);
-      String confidenceLevel = "1.0";
-      if (confidenceLevels.length > 0) {
-        confidenceLevel = confidenceLevels[0];
+    return extractTextRegions(Paths.get(basePath.toString(), pageUrl).toFile(), pageUrl, resourceId);
+  }
+
+  /**
+   * Extract text equivalents from text regions of PAGE document stored in
+   * the given file (e.g. local copy of a remote file). The PAGE document is
+   * taken from the {@link DocumentCache#getDefault() document cache}.
+   *
+   * @param pageFile PAGE file.
+   * @param pageUrl 'URL' of page file recorded with the text regions.
+   * @param resourceId Resource ID of METS document.
+   *
+   * @return List with all found files.
+   */
+  public static List<TextRegion> extractTextRegions(final File pageFile, final String pageUrl, final String resourceId) throws Exception {
+    return extractTextRegions(pageFile, pageUrl, resourceId, true);
+  }
+
+  /**
+   * Extract text equivalents from text regions of PAGE document stored in
+   * the given file.
+   *
+   * @param pageFile PAGE file.
+   * @param pageUrl 'URL' of page file recorded with the text regions.
+   * @param resourceId Resource ID of METS document.
+   * @param useCache Take PAGE document from the document cache. Otherwise
+   * the file is parsed without caching it (e.g. while extracting all PAGE
+   * files of a workspace once).
+   *
+   * @return List with all found files.
+   */
+  public static List<TextRegion> extractTextRegions(final File pageFile, final String pageUrl, final String resourceId, final boolean useCache) throws Exception {
+    return ExtractionMetrics.record(ExtractionMetrics.STAGE_PAGE_TEXT_REGIONS, () -> {
+      List<TextRegion> textRegions = new ArrayList<>();
+      RegionExtraction regionEvent = FlightRecorderEvents.beginRegionExtraction();
+      Document pageDocument;
+      if (useCache) {
+        pageDocument = DocumentCache.getDefault().getDocument(pageFile.toPath(), resourceId, null, ExtractionMetrics.STAGE_PAGE_PARSE);
+      } else {
+        pageDocument = ExtractionMetrics.record(ExtractionMetrics.STAGE_PAGE_PARSE, () -> XmlParserUtil.getDocument(pageFile.toPath(), resourceId));
+        if (ExtractionMetrics.isEnabled()) {
+          ExtractionMetrics.recordFileSize(ExtractionMetrics.STAGE_PAGE_PARSE, pageFile.length());
+        }
       }
-      String text = "";
-      String[] texts = JaxenUtil.getNodesValues(textRegionElement, "./page:TextEquiv/page:Unicode", namespaces);
-      if (texts.length > 0) {
-        text = texts[0];
+      String pageNamespace = XmlUtil.getNamespace(pageDocument);
+
+      Namespace[] namespaces = {Namespace.getNamespace("page", pageNamespace)};
+      String imageUrl = JaxenUtil.getValues(pageDocument, PageUtil.IMAGE_PATH, namespaces)[0];
+      List textRegionNodes = JaxenUtil.getNodes(pageDocument, "//page:Page/page:TextRegion", namespaces);
+      for (Object textRegionNode : textRegionNodes) {
+        Element textRegionElement = (Element) textRegionNode;
+        String regionId = JaxenUtil.getAttributeValue(textRegionElement, "./@id");
+        String orderPath = "//page:ReadingOrder/page:OrderedGroup/page:RegionRefIndexed[@regionRef='" + regionId + "']/@index";
+        XPathEvaluation xpathEvent = FlightRecorderEvents.beginXPathEvaluation();
+        String order = JaxenUtil.getAttributeValue(pageDocument, orderPath, namespaces);
+        xpathEvent.complete(resourceId, pageUrl, orderPath, order != null ? 1 : 0);
+        String[] confidenceLevels = JaxenUtil.getAttributesValues(textRegionElement, "./page:TextEquiv/@conf", namespaces);
+        String confidenceLevel = null;
+        if (confidenceLevels.length > 0) {
+          confidenceLevel = confidenceLevels[0];
+        }
+        String text = "";
+        String[] texts = JaxenUtil.getNodesValues(textRegionElement, "./page:TextEquiv/page:Unicode", namespaces);
+        if (texts.length > 0) {
+          text = texts[0];
+        }
+        if (!text.trim().isEmpty()) {
+          TextRegion textRegion = new TextRegion();
+          textRegion.setResourceId(resourceId);
+          textRegion.setPageUrl(pageUrl);
+          textRegion.setImageUrl(imageUrl);
+          textRegion.setOrder(new Integer(order));
+          textRegion.setRegion(regionId);
+          if (confidenceLevel != null) {
+            textRegion.setConfidence(Float.parseFloat(confidenceLevel));
+          } else {
+            textRegion.setConfidence(TextRegion.DEFAULT_CONFIDENCE);
+            textRegion.setHasConfidence(false);
+          }
+          textRegion.setText(text);
+          textRegion.setPoints(extractPoints(textRegionElement, namespaces[0]));
+          textRegions.add(textRegion);
+        } 
       }
-      if (!text.trim().isEmpty()) {
-        TextRegion textRegion = new TextRegion();
-        textRegion.setResourceId(resourceId);
-        textRegion.setPageUrl(pageUrl);
-        textRegion.setImageUrl(imageUrl);
-        textRegion.setOrder(new Integer(order));
-        textRegion.setRegion(regionId);
-        textRegion.setConfidence(Float.parseFloat(confidenceLevel));
-        textRegion.setText(text);
-        textRegions.add(textRegion);
-      } 
+      regionEvent.complete(resourceId, pageUrl, textRegionNodes.size(), textRegions.size());
+      return textRegions;
+    });
+  }
+
+  /**
+   * Extract polygon of region from 'Coords' (attribute 'points' or 'Point'
+   * elements of older PAGE versions).
+   *
+   * @param regionElement Element of region.
+   * @param pageNamespace Namespace of PAGE document.
+   *
+   * @return Polygon (empty if region has no valid coordinates).
+   */
+  static int[] extractPoints(final Element regionElement, final Namespace pageNamespace) {
+    Element coords = regionElement.getChild("Coords", pageNamespace);
+    if (coords == null) {
+      return PolygonUtil.NO_POINTS;
     }
-    return textRegions;
+    String points = coords.getAttributeValue("points");
+    if (points != null) {
+      return PolygonUtil.parsePoints(points);
+    }
+    StringBuilder builder = new StringBuilder();
+    for (Object pointNode : coords.getChildren("Point", pageNamespace)) {
+      Element point = (Element) pointNode;
+      builder.append(point.getAttributeValue("x")).append(',').append(point.getAttributeValue("y")).append(' ');
+    }
+    return PolygonUtil.parsePoints(builder.toString());
   }
 }
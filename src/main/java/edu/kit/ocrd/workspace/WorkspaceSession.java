@@ -0,0 +1,214 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import com.github.jscancella.domain.Bag;
+import edu.kit.ocrd.exception.BagItException;
+import edu.kit.ocrd.workspace.metrics.ExtractionMetrics;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.jdom.Document;
+import org.jdom.JDOMException;
+
+/**
+ * Session on one workspace shared by all extractors
+ * ({@link MetsDocumentUtil}, {@link PageExtractorUtil},
+ * {@link edu.kit.ocrd.workspace.provenance.ProvenanceUtil}). The METS
+ * document (and the provenance document if available) is parsed lazily on
+ * first access and only once per session. Relative paths of files are
+ * resolved against the directory of the METS file (workspace root).
+ * <p>
+ * A session is thread safe. Call {@link #release()} to free the parsed
+ * documents.
+ */
+public class WorkspaceSession {
+
+  /**
+   * Location of provenance document inside bag.
+   */
+  public static final String PROVENANCE_LOCATION = "metadata/ocrd_provenance.xml";
+  /**
+   * METS file.
+   */
+  private final Path metsFile;
+  /**
+   * Workspace root (directory of METS file).
+   */
+  private final Path workspaceRoot;
+  /**
+   * Resource ID of METS document.
+   */
+  private final String resourceId;
+  /**
+   * Provenance file (may be null).
+   */
+  private Path provenanceFile;
+  /**
+   * Parsed METS document (null if not parsed yet).
+   */
+  private Document metsDocument;
+  /**
+   * Parsed provenance document (null if not parsed yet).
+   */
+  private Document provenanceDocument;
+  /**
+   * Number of parsed METS documents.
+   */
+  private int noOfMetsParses = 0;
+
+  /**
+   * Constructor.
+   *
+   * @param metsFile METS file.
+   * @param resourceId Resource ID of METS document.
+   */
+  public WorkspaceSession(final Path metsFile, final String resourceId) {
+    this.metsFile = metsFile.toAbsolutePath().normalize();
+    this.workspaceRoot = this.metsFile.getParent();
+    this.resourceId = resourceId;
+  }
+
+  /**
+   * Create session for bag. The provenance document is expected at
+   * {@link #PROVENANCE_LOCATION}.
+   *
+   * @param bag Bag.
+   * @param resourceId Resource ID of METS document.
+   * @return Session.
+   * @throws BagItException METS location is not well defined.
+   */
+  public static WorkspaceSession fromBag(final Bag bag, final String resourceId) throws BagItException {
+    return new WorkspaceSession(bag.getRootDir().resolve(BagItUtil.getPathToMets(bag)), resourceId)
+            .withProvenanceFile(bag.getRootDir().resolve(PROVENANCE_LOCATION));
+  }
+
+  /**
+   * Set provenance file of workspace.
+   *
+   * @param file Provenance file (may not exist).
+   * @return Session.
+   */
+  public WorkspaceSession withProvenanceFile(final Path file) {
+    provenanceFile = file;
+    return this;
+  }
+
+  /**
+   * Get METS file.
+   *
+   * @return the metsFile
+   */
+  public Path getMetsFile() {
+    return metsFile;
+  }
+
+  /**
+   * Get workspace root (directory of METS file).
+   *
+   * @return the workspaceRoot
+   */
+  public Path getWorkspaceRoot() {
+    return workspaceRoot;
+  }
+
+  /**
+   * Get resource ID of METS document.
+   *
+   * @return the resourceId
+   */
+  public String getResourceId() {
+    return resourceId;
+  }
+
+  /**
+   * Get provenance file.
+   *
+   * @return the provenanceFile (may be null)
+   */
+  public Path getProvenanceFile() {
+    return provenanceFile;
+  }
+
+  /**
+   * Get METS document. The document is parsed on first access.
+   *
+   * @return METS document.
+   * @throws Exception Document is not readable or not well-formed.
+   */
+  public synchronized Document getMetsDocument() throws Exception {
+    if (metsDocument == null) {
+      metsDocument = ExtractionMetrics.record(ExtractionMetrics.STAGE_METS_PARSE, () -> XmlParserUtil.getDocument(metsFile, resourceId));
+      noOfMetsParses++;
+    }
+    return metsDocument;
+  }
+
+  /**
+   * Test if workspace has a provenance document.
+   *
+   * @return true if provenance file exists.
+   */
+  public boolean hasProvenance() {
+    return provenanceFile != null && Files.exists(provenanceFile);
+  }
+
+  /**
+   * Get provenance document. The document is parsed on first access.
+   *
+   * @return Provenance document or null if there is no provenance.
+   * @throws JDOMException Document is not well-formed.
+   * @throws IOException Error reading file.
+   */
+  public synchronized Document getProvenanceDocument() throws JDOMException, IOException {
+    if (provenanceDocument == null && hasProvenance()) {
+      provenanceDocument = XmlParserUtil.getDocument(provenanceFile, resourceId);
+    }
+    return provenanceDocument;
+  }
+
+  /**
+   * Resolve 'URL' of file relative to workspace root.
+   *
+   * @param url 'URL' of file (relative path).
+   * @return Absolute path.
+   * @throws IllegalArgumentException Path points outside of workspace.
+   */
+  public Path resolve(final String url) {
+    Path path = workspaceRoot.resolve(url).normalize();
+    if (!path.startsWith(workspaceRoot)) {
+      throw new IllegalArgumentException("File '" + url + "' is outside of workspace '" + workspaceRoot + "'!");
+    }
+    return path;
+  }
+
+  /**
+   * Get number of METS parses of this session (0 or 1 unless released).
+   *
+   * @return Number of parses.
+   */
+  public synchronized int getNumberOfMetsParses() {
+    return noOfMetsParses;
+  }
+
+  /**
+   * Release parsed documents. They are parsed again on next access.
+   */
+  public synchronized void release() {
+    metsDocument = null;
+    provenanceDocument = null;
+  }
+}
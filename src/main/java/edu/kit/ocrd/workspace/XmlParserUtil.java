@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.metrics.FlightRecorderEvents;
+import edu.kit.ocrd.workspace.metrics.FlightRecorderEvents.DocumentParse;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.jdom.Document;
+import org.jdom.JDOMException;
+import org.jdom.input.SAXBuilder;
+import org.xml.sax.InputSource;
+
+/**
+ * Utility for parsing XML documents with reused, preconfigured parsers.
+ * <p>
+ * Each thread holds its own SAXBuilder which reuses its underlying SAX
+ * parser. The parsers neither load DTDs nor resolve external entities, and
+ * files are read via buffered NIO streams.
+ */
+public class XmlParserUtil {
+
+  /**
+   * Size of the buffer used for reading files.
+   */
+  public static final int BUFFER_SIZE = 65536;
+  /**
+   * Feature for loading external DTDs (Xerces).
+   */
+  private static final String FEATURE_LOAD_EXTERNAL_DTD = "http://apache.org/xml/features/nonvalidating/load-external-dtd";
+  /**
+   * Feature for resolving external general entities.
+   */
+  private static final String FEATURE_EXTERNAL_GENERAL_ENTITIES = "http://xml.org/sax/features/external-general-entities";
+  /**
+   * Feature for resolving external parameter entities.
+   */
+  private static final String FEATURE_EXTERNAL_PARAMETER_ENTITIES = "http://xml.org/sax/features/external-parameter-entities";
+  /**
+   * One builder per thread.
+   */
+  private static final ThreadLocal<SAXBuilder> BUILDER = ThreadLocal.withInitial(XmlParserUtil::createBuilder);
+
+  /**
+   * Parse XML file.
+   *
+   * @param file XML file.
+   * @return Parsed document.
+   * @throws JDOMException Document is not well-formed.
+   * @throws IOException Error reading file.
+   */
+  public static Document getDocument(final File file) throws JDOMException, IOException {
+    return getDocument(file.toPath());
+  }
+
+  /**
+   * Parse XML file.
+   *
+   * @param path Path to XML file.
+   * @return Parsed document.
+   * @throws JDOMException Document is not well-formed.
+   * @throws IOException Error reading file.
+   */
+  public static Document getDocument(final Path path) throws JDOMException, IOException {
+    return getDocument(path, null);
+  }
+
+  /**
+   * Parse XML file. Parsing is recorded as
+   * {@link edu.kit.ocrd.workspace.metrics.DocumentParseEvent} if the flight
+   * recorder is running.
+   *
+   * @param path Path to XML file.
+   * @param resourceId Resource ID of the METS document the file belongs to
+   * (may be null).
+   * @return Parsed document.
+   * @throws JDOMException Document is not well-formed.
+   * @throws IOException Error reading file.
+   */
+  public static Document getDocument(final Path path, final String resourceId) throws JDOMException, IOException {
+    DocumentParse event = FlightRecorderEvents.beginDocumentParse();
+    Document document = null;
+    try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE)) {
+      InputSource inputSource = new InputSource(inputStream);
+      inputSource.setSystemId(path.toUri().toString());
+      document = BUILDER.get().build(inputSource);
+      return document;
+    } finally {
+      if (event.isEnabled()) {
+        event.complete(resourceId, path.toString(), path.toFile().length(), document);
+      }
+    }
+  }
+
+  /**
+   * Parse XML from stream. The stream is not closed.
+   *
+   * @param inputStream Stream containing XML.
+   * @return Parsed document.
+   * @throws JDOMException Document is not well-formed.
+   * @throws IOException Error reading stream.
+   */
+  public static Document getDocument(final InputStream inputStream) throws JDOMException, IOException {
+    return BUILDER.get().build(inputStream);
+  }
+
+  /**
+   * Parse XML string.
+   *
+   * @param content XML as string.
+   * @return Parsed document.
+   * @throws JDOMException Document is not well-formed.
+   * @throws IOException Error reading string.
+   */
+  public static Document getDocument(final String content) throws JDOMException, IOException {
+    return BUILDER.get().build(new StringReader(content));
+  }
+
+  /**
+   * Create builder with tuned configuration.
+   *
+   * @return Builder.
+   */
+  private static SAXBuilder createBuilder() {
+    SAXBuilder builder = new SAXBuilder(false);
+    builder.setReuseParser(true);
+    builder.setFeature(FEATURE_LOAD_EXTERNAL_DTD, false);
+    builder.setFeature(FEATURE_EXTERNAL_GENERAL_ENTITIES, false);
+    builder.setFeature(FEATURE_EXTERNAL_PARAMETER_ENTITIES, false);
+    // Never fetch anything referenced by the document.
+    builder.setEntityResolver((publicId, systemId) -> new InputSource(new StringReader("")));
+    return builder;
+  }
+}
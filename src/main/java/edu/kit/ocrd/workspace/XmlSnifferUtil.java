@@ -0,0 +1,242 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Utility determining namespace and version of XML documents by reading only
+ * up to the root element (StAX). The rest of the document is never parsed.
+ */
+public class XmlSnifferUtil {
+
+  /**
+   * Namespace of XML schema.
+   */
+  public static final String XML_SCHEMA_NAMESPACE = "http://www.w3.org/2001/XMLSchema";
+  /**
+   * Size of the buffer used for reading files (root element is expected at
+   * the beginning).
+   */
+  private static final int BUFFER_SIZE = 8192;
+  /**
+   * Shared factory (thread safe after configuration).
+   */
+  private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+  /**
+   * Sniff root element of XML file.
+   *
+   * @param path Path to XML file.
+   * @return Root element.
+   * @throws IOException Error reading file or document contains no element.
+   */
+  public static RootElement sniff(final Path path) throws IOException {
+    try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE)) {
+      return sniff(inputStream);
+    }
+  }
+
+  /**
+   * Sniff root element of XML stream. The stream is not closed.
+   *
+   * @param inputStream Stream containing XML.
+   * @return Root element.
+   * @throws IOException Error reading stream or document contains no
+   * element.
+   */
+  public static RootElement sniff(final InputStream inputStream) throws IOException {
+    try {
+      return sniff(INPUT_FACTORY.createXMLStreamReader(inputStream));
+    } catch (XMLStreamException ex) {
+      throw new IOException(ex.getMessage(), ex);
+    }
+  }
+
+  /**
+   * Sniff root element of XML string.
+   *
+   * @param content XML as string.
+   * @return Root element.
+   * @throws IOException Document contains no element.
+   */
+  public static RootElement sniff(final String content) throws IOException {
+    try {
+      return sniff(INPUT_FACTORY.createXMLStreamReader(new StringReader(content)));
+    } catch (XMLStreamException ex) {
+      throw new IOException(ex.getMessage(), ex);
+    }
+  }
+
+  /**
+   * Create stream reader positioned at the root element. The reader may be
+   * used for further processing of the whole document (e.g. validation).
+   *
+   * @param inputStream Stream containing XML.
+   * @param systemId System ID of document (may be null).
+   * @return Reader positioned at the first start element.
+   * @throws XMLStreamException Error parsing document or document contains
+   * no element.
+   */
+  public static XMLStreamReader openAtRootElement(final InputStream inputStream, final String systemId) throws XMLStreamException {
+    XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(systemId, inputStream);
+    try {
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+          return reader;
+        }
+      }
+      throw new XMLStreamException("No root element found!");
+    } catch (XMLStreamException | RuntimeException ex) {
+      reader.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Read up to first start element.
+   *
+   * @param reader Stream reader.
+   * @return Root element.
+   * @throws XMLStreamException Error parsing document.
+   */
+  private static RootElement sniff(final XMLStreamReader reader) throws XMLStreamException {
+    try {
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+          String namespace = reader.getNamespaceURI();
+          return new RootElement(namespace != null ? namespace : "",
+                  reader.getLocalName(),
+                  reader.getAttributeValue(null, "targetNamespace"),
+                  reader.getAttributeValue(null, "version"));
+        }
+      }
+      throw new XMLStreamException("No root element found!");
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Create factory for namespace aware parsing without DTDs.
+   *
+   * @return Factory.
+   */
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    return factory;
+  }
+
+  /**
+   * Information about the root element of a document.
+   */
+  public static final class RootElement {
+
+    /**
+     * Namespace of root element.
+     */
+    private final String namespace;
+    /**
+     * Local name of root element.
+     */
+    private final String localName;
+    /**
+     * Value of attribute 'targetNamespace' (XSD only).
+     */
+    private final String targetNamespace;
+    /**
+     * Value of attribute 'version'.
+     */
+    private final String version;
+
+    /**
+     * Constructor.
+     *
+     * @param namespace Namespace of root element.
+     * @param localName Local name of root element.
+     * @param targetNamespace Value of attribute 'targetNamespace'.
+     * @param version Value of attribute 'version'.
+     */
+    RootElement(final String namespace, final String localName, final String targetNamespace, final String version) {
+      this.namespace = namespace;
+      this.localName = localName;
+      this.targetNamespace = targetNamespace;
+      this.version = version;
+    }
+
+    /**
+     * Get namespace of root element.
+     *
+     * @return Namespace (empty string if not defined).
+     */
+    public String getNamespace() {
+      return namespace;
+    }
+
+    /**
+     * Get local name of root element.
+     *
+     * @return Local name.
+     */
+    public String getLocalName() {
+      return localName;
+    }
+
+    /**
+     * Get target namespace (XSD only).
+     *
+     * @return Target namespace or null if not defined.
+     */
+    public String getTargetNamespace() {
+      return targetNamespace;
+    }
+
+    /**
+     * Get version attribute of root element.
+     *
+     * @return Version or null if not defined.
+     */
+    public String getVersion() {
+      return version;
+    }
+
+    /**
+     * Test if root element is an XML schema.
+     *
+     * @return true if document is an XSD.
+     */
+    public boolean isXmlSchema() {
+      return XML_SCHEMA_NAMESPACE.equals(namespace) && "schema".equals(localName);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("{%s}%s, targetNamespace: '%s', version: '%s'", namespace, localName, targetNamespace, version);
+    }
+  }
+}
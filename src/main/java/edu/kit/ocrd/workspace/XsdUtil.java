@@ -15,9 +15,9 @@
  */
 package edu.kit.ocrd.workspace;
 
-import org.fzk.tools.xml.JaxenUtil;
-import org.jdom.Document;
-import org.jdom.Namespace;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,21 +52,73 @@ public class XsdUtil {
    * @return String containing target namespace and version.
    */
   public String getNamespaceAndVersionFromXsd(String fileContent) {
+    try {
+      return getNamespaceAndVersion(XmlSnifferUtil.sniff(fileContent));
+    } catch (IOException ex) {
+      LOGGER.error(null, ex);
+      namespace = NO_NAMESPACE_DEFINED;
+      namespacePlusVersion = namespace;
+    }
+    return namespacePlusVersion;
+  }
 
+  /**
+   * Get target namespace and version from XSD file.
+   *
+   * @param pathToXsd Path to XSD file.
+   * 
+   * @return String containing target namespace and version.
+   */
+  public String getNamespaceAndVersionFromXsd(Path pathToXsd) {
     try {
-      Document document = JaxenUtil.getDocument(fileContent);
-      Namespace[] namespaces = {Namespace.getNamespace("xs", "http://www.w3.org/2001/XMLSchema")};
-      namespace = JaxenUtil.getAttributeValue(document, "/xs:schema/@targetNamespace", namespaces);
+      return getNamespaceAndVersion(XmlSnifferUtil.sniff(pathToXsd));
+    } catch (IOException ex) {
+      LOGGER.error(null, ex);
+      namespace = NO_NAMESPACE_DEFINED;
+      namespacePlusVersion = namespace;
+    }
+    return namespacePlusVersion;
+  }
+
+  /**
+   * Get target namespace and version from XSD file.
+   *
+   * @param xsdStream Stream containing XSD file. (Stream is not closed.)
+   * 
+   * @return String containing target namespace and version.
+   */
+  public String getNamespaceAndVersionFromXsd(InputStream xsdStream) {
+    try {
+      return getNamespaceAndVersion(XmlSnifferUtil.sniff(xsdStream));
+    } catch (IOException ex) {
+      LOGGER.error(null, ex);
+      namespace = NO_NAMESPACE_DEFINED;
+      namespacePlusVersion = namespace;
+    }
+    return namespacePlusVersion;
+  }
+
+  /**
+   * Determine target namespace and version from root element of XSD file.
+   * Only the root element is read.
+   *
+   * @param rootElement Root element of XSD file.
+   * 
+   * @return String containing target namespace and version.
+   */
+  private String getNamespaceAndVersion(XmlSnifferUtil.RootElement rootElement) {
+    if (rootElement.isXmlSchema() && (rootElement.getTargetNamespace() != null)) {
+      namespace = rootElement.getTargetNamespace();
+    } else {
+      LOGGER.error("No target namespace defined: {}", rootElement);
+      namespace = NO_NAMESPACE_DEFINED;
+    }
 //     Currently we donot support the version as a part as version attribute has to be present in XML file to which will be additional attribute 
-//      String version = JaxenUtil.getAttributeValue(document, "/xs:schema/@version", namespaces);
+//      String version = rootElement.getVersion();
       /*if (version != null) {
         namespacePlusVersion = namespace + "/" + version;
       }*/
-      namespacePlusVersion = namespace;
-    } catch (Exception ex) {
-      namespacePlusVersion = namespace;
-      LOGGER.error(null, ex);
-    }
+    namespacePlusVersion = namespace;
     return namespacePlusVersion;
   }
 
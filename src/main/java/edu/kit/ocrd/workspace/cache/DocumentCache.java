@@ -0,0 +1,428 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.cache;
+
+import edu.kit.ocrd.workspace.XmlParserUtil;
+import edu.kit.ocrd.workspace.metrics.ExtractionMetrics;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jdom.Attribute;
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.JDOMException;
+import org.jdom.Text;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded LRU cache of parsed XML documents (METS and PAGE files) keyed by
+ * path. An entry is valid as long as size and modification time of the file
+ * are unchanged or, if a checksum is given on lookup, as long as the checksum
+ * is unchanged. The cache is bounded by the estimated memory footprint of the
+ * documents (see {@link #estimateWeight(Document)}), least recently used
+ * documents are evicted first.
+ * <p>
+ * Cached documents are shared between all callers and must not be modified.
+ * Files are parsed outside the lock, so concurrent lookups of the same
+ * uncached file may parse it twice.
+ */
+public class DocumentCache {
+
+  /**
+   * Default maximum weight (estimated bytes) of all cached documents.
+   */
+  public static final long DEFAULT_MAX_WEIGHT = 256L * 1024 * 1024;
+  /**
+   * Estimated bytes of an element (without attributes and content).
+   */
+  private static final int ELEMENT_WEIGHT = 96;
+  /**
+   * Estimated bytes of an attribute (without value).
+   */
+  private static final int ATTRIBUTE_WEIGHT = 64;
+  /**
+   * Estimated bytes of a text node (without characters).
+   */
+  private static final int TEXT_WEIGHT = 48;
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(DocumentCache.class);
+  /**
+   * Cache used by the utilities parsing files.
+   */
+  private static volatile DocumentCache defaultCache = new DocumentCache(DEFAULT_MAX_WEIGHT);
+  /**
+   * Maximum weight of all cached documents.
+   */
+  private final long maxWeight;
+  /**
+   * Cached documents in access order (path -&gt; entry).
+   */
+  private final Map<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  /**
+   * Weight of all cached documents.
+   */
+  private long weight = 0;
+  /**
+   * Number of lookups finding a valid document.
+   */
+  private final AtomicLong noOfHits = new AtomicLong();
+  /**
+   * Number of lookups parsing the file.
+   */
+  private final AtomicLong noOfMisses = new AtomicLong();
+  /**
+   * Number of documents evicted due to the size limit.
+   */
+  private final AtomicLong noOfEvictions = new AtomicLong();
+
+  /**
+   * Constructor.
+   *
+   * @param maxWeight Maximum weight (estimated bytes) of all cached documents
+   * (0 disables caching).
+   */
+  public DocumentCache(final long maxWeight) {
+    if (maxWeight < 0) {
+      throw new IllegalArgumentException("Maximum weight must not be negative!");
+    }
+    this.maxWeight = maxWeight;
+  }
+
+  /**
+   * Get cache used by {@link edu.kit.ocrd.workspace.MetsDocumentUtil} and
+   * {@link edu.kit.ocrd.workspace.PageExtractorUtil} for parsing files.
+   *
+   * @return Cache.
+   */
+  public static DocumentCache getDefault() {
+    return defaultCache;
+  }
+
+  /**
+   * Set cache used by the utilities parsing files. (Default: cache with
+   * {@link #DEFAULT_MAX_WEIGHT})
+   *
+   * @param cache Cache (use maximum weight 0 to disable caching).
+   */
+  public static void setDefault(final DocumentCache cache) {
+    if (cache == null) {
+      throw new IllegalArgumentException("Cache must not be null!");
+    }
+    defaultCache = cache;
+  }
+
+  /**
+   * Get parsed document. The file is parsed if it is not cached or was
+   * modified (size or modification time changed).
+   *
+   * @param path Path to XML file.
+   * @param resourceId Resource ID of the METS document the file belongs to
+   * (may be null).
+   * @return Parsed document (must not be modified).
+   * @throws JDOMException Document is not well-formed.
+   * @throws IOException Error reading file.
+   */
+  public Document getDocument(final Path path, final String resourceId) throws JDOMException, IOException {
+    return getDocument(path, resourceId, null);
+  }
+
+  /**
+   * Get parsed document. If a checksum is given the cached document is
+   * valid as long as the checksum is unchanged (e.g. checksum from the
+   * payload manifest of a bag), otherwise as long as size and modification
+   * time of the file are unchanged.
+   *
+   * @param path Path to XML file.
+   * @param resourceId Resource ID of the METS document the file belongs to
+   * (may be null).
+   * @param checksum Checksum of file (may be null).
+   * @return Parsed document (must not be modified).
+   * @throws JDOMException Document is not well-formed.
+   * @throws IOException Error reading file.
+   */
+  public Document getDocument(final Path path, final String resourceId, final String checksum) throws JDOMException, IOException {
+    return getDocument(path, resourceId, checksum, null);
+  }
+
+  /**
+   * Get parsed document (see {@link #getDocument(Path, String, String)}).
+   * Duration and file size of parsing are recorded for the given stage of
+   * {@link ExtractionMetrics}, so cache hits are not recorded.
+   *
+   * @param path Path to XML file.
+   * @param resourceId Resource ID of the METS document the file belongs to
+   * (may be null).
+   * @param checksum Checksum of file (may be null).
+   * @param stage Stage recording parsing on a cache miss (may be null).
+   * @return Parsed document (must not be modified).
+   * @throws JDOMException Document is not well-formed.
+   * @throws IOException Error reading file.
+   */
+  public Document getDocument(final Path path, final String resourceId, final String checksum, final String stage) throws JDOMException, IOException {
+    Path key = path.toAbsolutePath().normalize();
+    BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+    long size = attributes.size();
+    long lastModified = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    synchronized (this) {
+      Entry entry = entries.get(key);
+      if (entry != null) {
+        if (entry.isValid(size, lastModified, checksum)) {
+          noOfHits.incrementAndGet();
+          ExtractionMetrics.countDocumentCache(ExtractionMetrics.OUTCOME_HIT);
+          return entry.document;
+        }
+        LOGGER.trace("Invalidate modified document '{}'", key);
+        remove(key);
+      }
+    }
+    noOfMisses.incrementAndGet();
+    ExtractionMetrics.countDocumentCache(ExtractionMetrics.OUTCOME_MISS);
+    Document document = parse(key, resourceId, size, stage);
+    long documentWeight = maxWeight > 0 ? estimateWeight(document) : 1;
+    if (documentWeight <= maxWeight) {
+      put(key, new Entry(document, size, lastModified, checksum, documentWeight));
+    } else {
+      LOGGER.debug("Document '{}' exceeds size of cache ({} > {})", key, documentWeight, maxWeight);
+    }
+    return document;
+  }
+
+  /**
+   * Parse file and record it for the given stage.
+   *
+   * @param path Path to XML file.
+   * @param resourceId Resource ID of the METS document (may be null).
+   * @param size Size of file in bytes.
+   * @param stage Stage of {@link ExtractionMetrics} (may be null).
+   * @return Parsed document.
+   * @throws JDOMException Document is not well-formed.
+   * @throws IOException Error reading file.
+   */
+  private static Document parse(final Path path, final String resourceId, final long size, final String stage) throws JDOMException, IOException {
+    if (stage == null) {
+      return XmlParserUtil.getDocument(path, resourceId);
+    }
+    ExtractionMetrics.Sample sample = ExtractionMetrics.start(stage);
+    Document document;
+    try {
+      document = XmlParserUtil.getDocument(path, resourceId);
+    } catch (JDOMException | IOException | RuntimeException ex) {
+      sample.failure();
+      throw ex;
+    }
+    sample.success();
+    ExtractionMetrics.recordFileSize(stage, size);
+    return document;
+  }
+
+  /**
+   * Remove document from cache.
+   *
+   * @param path Path to XML file.
+   */
+  public synchronized void invalidate(final Path path) {
+    remove(path.toAbsolutePath().normalize());
+  }
+
+  /**
+   * Remove all documents from cache.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    weight = 0;
+  }
+
+  /**
+   * Get number of cached documents.
+   *
+   * @return Number of documents.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Get weight (estimated bytes) of all cached documents.
+   *
+   * @return Weight.
+   */
+  public synchronized long getWeight() {
+    return weight;
+  }
+
+  /**
+   * Get maximum weight of all cached documents.
+   *
+   * @return the maxWeight
+   */
+  public long getMaxWeight() {
+    return maxWeight;
+  }
+
+  /**
+   * Get number of lookups finding a valid document.
+   *
+   * @return Number of hits.
+   */
+  public long getNumberOfHits() {
+    return noOfHits.get();
+  }
+
+  /**
+   * Get number of lookups parsing the file.
+   *
+   * @return Number of misses.
+   */
+  public long getNumberOfMisses() {
+    return noOfMisses.get();
+  }
+
+  /**
+   * Get number of documents evicted due to the size limit.
+   *
+   * @return Number of evictions.
+   */
+  public long getNumberOfEvictions() {
+    return noOfEvictions.get();
+  }
+
+  /**
+   * Estimate memory footprint of parsed document from its elements,
+   * attributes and text nodes.
+   *
+   * @param document Document.
+   * @return Estimated size in bytes.
+   */
+  static long estimateWeight(final Document document) {
+    long estimate = 0;
+    Iterator iterator = document.getDescendants();
+    while (iterator.hasNext()) {
+      Object node = iterator.next();
+      if (node instanceof Element) {
+        estimate += ELEMENT_WEIGHT;
+        for (Object attribute : (List) ((Element) node).getAttributes()) {
+          estimate += ATTRIBUTE_WEIGHT + 2L * ((Attribute) attribute).getValue().length();
+        }
+      } else if (node instanceof Text) {
+        estimate += TEXT_WEIGHT + 2L * ((Text) node).getText().length();
+      }
+    }
+    return estimate;
+  }
+
+  /**
+   * Add document and evict least recently used documents exceeding the
+   * maximum weight.
+   *
+   * @param key Normalized path.
+   * @param entry Entry.
+   */
+  private synchronized void put(final Path key, final Entry entry) {
+    remove(key);
+    entries.put(key, entry);
+    weight += entry.weight;
+    Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+    while (weight > maxWeight && iterator.hasNext()) {
+      Map.Entry<Path, Entry> eldest = iterator.next();
+      LOGGER.trace("Evict document '{}'", eldest.getKey());
+      weight -= eldest.getValue().weight;
+      iterator.remove();
+      noOfEvictions.incrementAndGet();
+      ExtractionMetrics.countDocumentCache(ExtractionMetrics.OUTCOME_EVICTION);
+    }
+  }
+
+  /**
+   * Remove document.
+   *
+   * @param key Normalized path.
+   */
+  private void remove(final Path key) {
+    Entry removed = entries.remove(key);
+    if (removed != null) {
+      weight -= removed.weight;
+    }
+  }
+
+  /**
+   * Cached document with the file state it was parsed from.
+   */
+  private static final class Entry {
+
+    /**
+     * Parsed document.
+     */
+    private final Document document;
+    /**
+     * Size of file.
+     */
+    private final long size;
+    /**
+     * Modification time of file.
+     */
+    private final long lastModified;
+    /**
+     * Checksum of file (may be null).
+     */
+    private final String checksum;
+    /**
+     * Estimated size of document.
+     */
+    private final long weight;
+
+    /**
+     * Constructor.
+     *
+     * @param document Parsed document.
+     * @param size Size of file.
+     * @param lastModified Modification time of file.
+     * @param checksum Checksum of file (may be null).
+     * @param weight Estimated size of document.
+     */
+    Entry(final Document document, final long size, final long lastModified, final String checksum, final long weight) {
+      this.document = document;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.checksum = checksum;
+      this.weight = weight;
+    }
+
+    /**
+     * Is document still valid for the given file state?
+     *
+     * @param currentSize Current size of file.
+     * @param currentLastModified Current modification time of file.
+     * @param currentChecksum Current checksum of file (may be null).
+     * @return true if document is valid.
+     */
+    boolean isValid(final long currentSize, final long currentLastModified, final String currentChecksum) {
+      if (currentChecksum != null && checksum != null) {
+        return currentChecksum.equals(checksum);
+      }
+      return size == currentSize && lastModified == currentLastModified;
+    }
+  }
+}
@@ -0,0 +1,587 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.jscancella.domain.Bag;
+import com.github.jscancella.domain.Manifest;
+import edu.kit.ocrd.dao.MetsMetadata;
+import edu.kit.ocrd.dao.MetsMetadataJsonWriter;
+import edu.kit.ocrd.workspace.MetsDocumentUtil;
+import edu.kit.ocrd.workspace.PageExtractorUtil;
+import edu.kit.ocrd.workspace.XmlParserUtil;
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import edu.kit.ocrd.workspace.export.TextRegionColumnReader;
+import edu.kit.ocrd.workspace.export.TextRegionColumnWriter;
+import edu.kit.ocrd.workspace.remote.RemotePageFetcher;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jdom.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content addressed cache for extraction results. Results are keyed by the
+ * checksum of the source file taken from the payload manifests of the bag,
+ * so identical files (e.g. the same PAGE file in several versions of a
+ * workspace) are parsed only once.
+ * <p>
+ * The cache holds the text regions of PAGE files and the metadata
+ * ({@link MetsMetadata}) of METS files. Both are independent of the bag
+ * they were extracted from: resource ID and page URL of the text regions
+ * are set on each lookup. Results are held in a bounded LRU cache in memory
+ * and optionally in a directory on disk (text regions in the columnar format
+ * of {@link TextRegionColumnWriter}, METS metadata as JSON). The directory
+ * should be changed if the extraction itself changes.
+ * <p>
+ * Concurrent lookups of the same checksum wait for one extraction.
+ */
+public class ExtractionCache {
+
+  /**
+   * Default maximum number of results held in memory.
+   */
+  public static final int DEFAULT_MAX_ENTRIES = 1024;
+  /**
+   * Preferred checksum algorithm (name used in BagIt).
+   */
+  public static final String PREFERRED_ALGORITHM = "sha512";
+  /**
+   * Sub directory (and key prefix) for text regions of PAGE files.
+   */
+  private static final String KIND_PAGE = "page";
+  /**
+   * Sub directory (and key prefix) for metadata of METS files.
+   */
+  private static final String KIND_METS = "mets";
+  /**
+   * Suffix of files holding text regions.
+   */
+  private static final String SUFFIX_PAGE = ".bin";
+  /**
+   * Suffix of files holding METS metadata.
+   */
+  private static final String SUFFIX_METS = ".json";
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExtractionCache.class);
+  /**
+   * Mapper for reading METS metadata.
+   */
+  private static final ObjectMapper MAPPER = new ObjectMapper()
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  /**
+   * Directory of disk cache (may be null).
+   */
+  private final Path directory;
+  /**
+   * Results in access order (key -&gt; result).
+   */
+  private final Map<String, Object> entries;
+  /**
+   * Running extractions (key -&gt; extraction).
+   */
+  private final Map<String, FutureTask<Object>> pending = new ConcurrentHashMap<>();
+  /**
+   * Number of results found in memory.
+   */
+  private final AtomicLong noOfMemoryHits = new AtomicLong();
+  /**
+   * Number of results found on disk.
+   */
+  private final AtomicLong noOfDiskHits = new AtomicLong();
+  /**
+   * Number of extractions.
+   */
+  private final AtomicLong noOfMisses = new AtomicLong();
+
+  /**
+   * Constructor for cache in memory only.
+   *
+   * @param maxEntries Maximum number of results held in memory.
+   */
+  public ExtractionCache(final int maxEntries) {
+    this(null, maxEntries);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param directory Directory of disk cache (null for memory only).
+   * @param maxEntries Maximum number of results held in memory.
+   * @throws IllegalArgumentException Maximum number of results is not
+   * positive.
+   */
+  public ExtractionCache(final Path directory, final int maxEntries) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("Maximum number of entries has to be positive!");
+    }
+    this.directory = directory;
+    entries = new LinkedHashMap<String, Object>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, Object> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Get checksums of all payload files of bag. If there are several payload
+   * manifests SHA-512 is preferred.
+   *
+   * @param bag Bag.
+   * @return Map (absolute path -&gt; 'algorithm:checksum').
+   */
+  public static Map<Path, String> getChecksums(final Bag bag) {
+    Map<Path, String> checksums = new HashMap<>();
+    List<Manifest> manifests = new ArrayList<>(bag.getPayLoadManifests());
+    // Preferred algorithm last, so its checksums win.
+    manifests.sort((first, second) -> Boolean.compare(isPreferred(first), isPreferred(second)));
+    for (Manifest manifest : manifests) {
+      String algorithm = manifest.getBagitAlgorithmName();
+      for (Map.Entry<Path, String> entry : manifest.getFileToChecksumMap().entrySet()) {
+        checksums.put(normalize(entry.getKey()), algorithm + ":" + entry.getValue().toLowerCase(Locale.ROOT));
+      }
+    }
+    return checksums;
+  }
+
+  /**
+   * Extract text equivalents from text regions of all PAGE files referenced
+   * by METS document. Remote files are ignored.
+   *
+   * @param bag Bag containing the workspace.
+   * @param metsDocument Parsed METS document.
+   * @param basePath Path to workspace.
+   * @param resourceId Resource ID of METS document.
+   * @return List with all text regions.
+   * @throws Exception Error extracting text regions.
+   */
+  public List<TextRegion> extractAllTextRegions(final Bag bag, final Document metsDocument, final Path basePath, final String resourceId) throws Exception {
+    return extractAllTextRegions(bag, metsDocument, basePath, resourceId, null);
+  }
+
+  /**
+   * Extract text equivalents from text regions of all PAGE files inside the
+   * given fileGrps. Remote files are ignored.
+   *
+   * @param bag Bag containing the workspace.
+   * @param metsDocument Parsed METS document.
+   * @param basePath Path to workspace.
+   * @param resourceId Resource ID of METS document.
+   * @param fileGrps USE of all selected fileGrps (null or empty for all
+   * fileGrps).
+   * @return List with all text regions.
+   * @throws Exception Error extracting text regions.
+   */
+  public List<TextRegion> extractAllTextRegions(final Bag bag, final Document metsDocument, final Path basePath, final String resourceId,
+          final Collection<String> fileGrps) throws Exception {
+    Map<Path, String> checksums = getChecksums(bag);
+    List<TextRegion> textRegions = new ArrayList<>();
+    for (String pageUrl : MetsDocumentUtil.extractPageUrls(metsDocument, fileGrps)) {
+      if (!RemotePageFetcher.isRemote(pageUrl)) {
+        textRegions.addAll(extractTextRegions(checksums, basePath, pageUrl, resourceId));
+      }
+    }
+    return textRegions;
+  }
+
+  /**
+   * Extract text equivalents from text regions of PAGE document. Files
+   * without checksum are extracted without caching. PAGE documents are
+   * never added to the {@link DocumentCache#getDefault() document cache}.
+   *
+   * @param checksums Checksums of files (see {@link #getChecksums(Bag)}).
+   * @param basePath Path to workspace.
+   * @param pageUrl 'URL' of page file (relative path to base path).
+   * @param resourceId Resource ID of METS document.
+   * @return List with all found text regions.
+   * @throws Exception Error extracting text regions.
+   */
+  public List<TextRegion> extractTextRegions(final Map<Path, String> checksums, final Path basePath, final String pageUrl, final String resourceId) throws Exception {
+    String checksum = checksums.get(normalize(basePath.resolve(pageUrl)));
+    if (checksum == null) {
+      LOGGER.debug("No checksum for '{}', skip cache.", pageUrl);
+      return PageExtractorUtil.extractTextRegions(basePath.resolve(pageUrl).toFile(), pageUrl, resourceId, false);
+    }
+    @SuppressWarnings("unchecked")
+    List<TextRegion> cachedRegions = (List<TextRegion>) get(KIND_PAGE, checksum, SUFFIX_PAGE,
+            () -> Collections.unmodifiableList(PageExtractorUtil.extractTextRegions(basePath.resolve(pageUrl).toFile(), pageUrl, resourceId, false)),
+            ExtractionCache::readTextRegions,
+            ExtractionCache::writeTextRegions);
+    List<TextRegion> textRegions = new ArrayList<>(cachedRegions.size());
+    for (TextRegion cachedRegion : cachedRegions) {
+      TextRegion textRegion = new TextRegion();
+      textRegion.setResourceId(resourceId);
+      textRegion.setPageUrl(pageUrl);
+      textRegion.setImageUrl(cachedRegion.getImageUrl());
+      textRegion.setOrder(cachedRegion.getOrder());
+      textRegion.setRegion(cachedRegion.getRegion());
+      textRegion.setConfidence(cachedRegion.getConfidence());
+      textRegion.setHasConfidence(cachedRegion.hasConfidence());
+      textRegion.setText(cachedRegion.getText());
+      textRegion.setPoints(cachedRegion.getPoints());
+      textRegions.add(textRegion);
+    }
+    return textRegions;
+  }
+
+  /**
+   * Extract metadata of METS file. The returned instance is shared by all
+   * lookups of the same content and must not be modified.
+   *
+   * @param bag Bag containing the METS file.
+   * @param metsFile METS file.
+   * @return Metadata of METS file.
+   * @throws Exception Error extracting metadata.
+   */
+  public MetsMetadata getMetsMetadata(final Bag bag, final Path metsFile) throws Exception {
+    String checksum = getChecksums(bag).get(normalize(metsFile));
+    if (checksum == null) {
+      LOGGER.debug("No checksum for '{}', skip cache.", metsFile);
+      return extractMetsMetadata(metsFile);
+    }
+    return (MetsMetadata) get(KIND_METS, checksum, SUFFIX_METS,
+            () -> extractMetsMetadata(metsFile),
+            ExtractionCache::readMetsMetadata,
+            ExtractionCache::writeMetsMetadata);
+  }
+
+  /**
+   * Remove all results from memory. The disk cache is kept.
+   */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /**
+   * Get number of results held in memory.
+   *
+   * @return Number of results.
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Get number of results found in memory.
+   *
+   * @return Number of hits.
+   */
+  public long getNumberOfMemoryHits() {
+    return noOfMemoryHits.get();
+  }
+
+  /**
+   * Get number of results found on disk.
+   *
+   * @return Number of hits.
+   */
+  public long getNumberOfDiskHits() {
+    return noOfDiskHits.get();
+  }
+
+  /**
+   * Get number of extractions (results neither in memory nor on disk).
+   *
+   * @return Number of misses.
+   */
+  public long getNumberOfMisses() {
+    return noOfMisses.get();
+  }
+
+  /**
+   * Get result from memory, disk or extraction.
+   *
+   * @param kind Kind of result.
+   * @param checksum Checksum of source file.
+   * @param suffix Suffix of file on disk.
+   * @param extractor Extraction on miss.
+   * @param reader Reader for file on disk.
+   * @param writer Writer for file on disk.
+   * @return Result.
+   * @throws Exception Error extracting result.
+   */
+  private Object get(final String kind, final String checksum, final String suffix,
+          final Callable<Object> extractor, final FileReader reader, final FileWriter writer) throws Exception {
+    String key = kind + "/" + checksum;
+    Object result = getFromMemory(key);
+    if (result != null) {
+      noOfMemoryHits.incrementAndGet();
+      return result;
+    }
+    FutureTask<Object> task = new FutureTask<>(() -> load(key, getFile(kind, checksum, suffix), extractor, reader, writer));
+    FutureTask<Object> runningTask = pending.putIfAbsent(key, task);
+    if (runningTask == null) {
+      runningTask = task;
+      try {
+        task.run();
+      } finally {
+        pending.remove(key, task);
+      }
+    }
+    try {
+      return runningTask.get();
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof Exception) {
+        throw (Exception) ex.getCause();
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * Load result from disk or extract it and store it in memory and on disk.
+   *
+   * @param key Key of result.
+   * @param file File on disk (may be null).
+   * @param extractor Extraction on miss.
+   * @param reader Reader for file on disk.
+   * @param writer Writer for file on disk.
+   * @return Result.
+   * @throws Exception Error extracting result.
+   */
+  private Object load(final String key, final Path file, final Callable<Object> extractor,
+          final FileReader reader, final FileWriter writer) throws Exception {
+    Object result = getFromMemory(key);
+    if (result != null) {
+      noOfMemoryHits.incrementAndGet();
+      return result;
+    }
+    if (file != null && Files.exists(file)) {
+      try {
+        result = reader.read(file);
+        noOfDiskHits.incrementAndGet();
+      } catch (IOException | RuntimeException ex) {
+        LOGGER.warn("Error reading cached result '{}', extract again.", file, ex);
+      }
+    }
+    if (result == null) {
+      result = extractor.call();
+      noOfMisses.incrementAndGet();
+      if (file != null) {
+        store(file, result, writer);
+      }
+    }
+    synchronized (entries) {
+      entries.put(key, result);
+    }
+    return result;
+  }
+
+  /**
+   * Get result from memory.
+   *
+   * @param key Key of result.
+   * @return Result or null if not in memory.
+   */
+  private Object getFromMemory(final String key) {
+    synchronized (entries) {
+      return entries.get(key);
+    }
+  }
+
+  /**
+   * Write result to disk. The file is written to a temporary file first and
+   * moved afterwards, so readers never see incomplete files. Errors are only
+   * logged.
+   *
+   * @param file Target file.
+   * @param result Result.
+   * @param writer Writer for file.
+   */
+  private static void store(final Path file, final Object result, final FileWriter writer) {
+    Path tempFile = null;
+    try {
+      Files.createDirectories(file.getParent());
+      tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      writer.write(tempFile, result);
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ex) {
+      LOGGER.warn("Error writing cached result '{}'.", file, ex);
+      if (tempFile != null) {
+        try {
+          Files.deleteIfExists(tempFile);
+        } catch (IOException ignore) {
+          // Nothing to do.
+        }
+      }
+    }
+  }
+
+  /**
+   * Get file of result on disk.
+   *
+   * @param kind Kind of result.
+   * @param checksum Checksum of source file.
+   * @param suffix Suffix of file.
+   * @return File or null if there is no disk cache.
+   */
+  private Path getFile(final String kind, final String checksum, final String suffix) {
+    if (directory == null) {
+      return null;
+    }
+    String name = checksum.replace(':', '-');
+    String hash = checksum.substring(checksum.indexOf(':') + 1);
+    String prefix = hash.length() > 2 ? hash.substring(0, 2) : hash;
+    return directory.resolve(kind).resolve(prefix).resolve(name + suffix);
+  }
+
+  /**
+   * Extract metadata of METS file.
+   *
+   * @param metsFile METS file.
+   * @return Metadata.
+   * @throws Exception Error parsing METS file.
+   */
+  private static MetsMetadata extractMetsMetadata(final Path metsFile) throws Exception {
+    Document metsDocument = XmlParserUtil.getDocument(metsFile);
+    return MetsDocumentUtil.convertEntityToDao(MetsDocumentUtil.extractMetadataFromMets(metsDocument, null),
+            MetsDocumentUtil.extractLanguageMetadataFromMets(metsDocument, null),
+            MetsDocumentUtil.extractClassificationMetadataFromMets(metsDocument, null),
+            MetsDocumentUtil.extractGenreMetadataFromMets(metsDocument, null),
+            MetsDocumentUtil.extractGroundTruthFeaturesFromMets(metsDocument, null),
+            MetsDocumentUtil.extractIdentifierFromMets(metsDocument, null));
+  }
+
+  /**
+   * Read text regions from file.
+   *
+   * @param file File in columnar format.
+   * @return Unmodifiable list of text regions.
+   * @throws IOException Error reading file.
+   */
+  private static Object readTextRegions(final Path file) throws IOException {
+    try (TextRegionColumnReader reader = new TextRegionColumnReader(file)) {
+      return Collections.unmodifiableList(reader.readAll());
+    }
+  }
+
+  /**
+   * Write text regions to file.
+   *
+   * @param file File.
+   * @param textRegions Text regions.
+   * @throws IOException Error writing file.
+   */
+  @SuppressWarnings("unchecked")
+  private static void writeTextRegions(final Path file, final Object textRegions) throws IOException {
+    try (TextRegionColumnWriter writer = new TextRegionColumnWriter(file)) {
+      writer.writeAll((List<TextRegion>) textRegions);
+    }
+  }
+
+  /**
+   * Read METS metadata from JSON file.
+   *
+   * @param file JSON file.
+   * @return Metadata.
+   * @throws IOException Error reading file.
+   */
+  private static Object readMetsMetadata(final Path file) throws IOException {
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      return MAPPER.readValue(inputStream, MetsMetadata.class);
+    }
+  }
+
+  /**
+   * Write METS metadata to JSON file.
+   *
+   * @param file File.
+   * @param metsMetadata Metadata.
+   * @throws IOException Error writing file.
+   */
+  private static void writeMetsMetadata(final Path file, final Object metsMetadata) throws IOException {
+    try (OutputStream outputStream = Files.newOutputStream(file)) {
+      MetsMetadataJsonWriter.write(outputStream, (MetsMetadata) metsMetadata);
+    }
+  }
+
+  /**
+   * Test if manifest uses the preferred algorithm.
+   *
+   * @param manifest Manifest.
+   * @return true if algorithm is preferred.
+   */
+  private static boolean isPreferred(final Manifest manifest) {
+    return PREFERRED_ALGORITHM.equalsIgnoreCase(manifest.getBagitAlgorithmName());
+  }
+
+  /**
+   * Normalize path for lookup of checksums.
+   *
+   * @param path Path.
+   * @return Absolute, normalized path.
+   */
+  private static Path normalize(final Path path) {
+    return path.toAbsolutePath().normalize();
+  }
+
+  /**
+   * Reader for results on disk.
+   */
+  @FunctionalInterface
+  private interface FileReader {
+
+    /**
+     * Read result.
+     *
+     * @param file File.
+     * @return Result.
+     * @throws IOException Error reading file.
+     */
+    Object read(Path file) throws IOException;
+  }
+
+  /**
+   * Writer for results on disk.
+   */
+  @FunctionalInterface
+  private interface FileWriter {
+
+    /**
+     * Write result.
+     *
+     * @param file File.
+     * @param result Result.
+     * @throws IOException Error writing file.
+     */
+    void write(Path file, Object result) throws IOException;
+  }
+}
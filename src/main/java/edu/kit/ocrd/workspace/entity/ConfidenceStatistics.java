@@ -0,0 +1,360 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.entity;
+
+import com.arangodb.springframework.annotation.Document;
+import com.arangodb.springframework.annotation.HashIndex;
+import org.springframework.data.annotation.Id;
+
+/**
+ * Summary of the OCR confidences of one page, one fileGrp or a whole
+ * workspace. Holds no text.
+ */
+@Document("confidenceStatistics")
+@HashIndex(fields = {"resourceId", "version"})
+public class ConfidenceStatistics implements IBaseEntity {
+
+  /**
+   * Scope: whole workspace.
+   */
+  public static final String SCOPE_WORKSPACE = "workspace";
+  /**
+   * Scope: one fileGrp.
+   */
+  public static final String SCOPE_FILE_GRP = "fileGrp";
+  /**
+   * Scope: one page.
+   */
+  public static final String SCOPE_PAGE = "page";
+  /**
+   * ID of the document.
+   */
+  @Id
+  private String id;
+  /**
+   * Resource ID of METS document.
+   */
+  private String resourceId;
+  /**
+   * Version of the document.
+   */
+  private Integer version;
+  /**
+   * Scope of statistics (workspace, fileGrp or page).
+   */
+  private String scope;
+  /**
+   * USE of fileGrp (null for workspace).
+   */
+  private String fileGrp;
+  /**
+   * 'URL' of page file (page scope only).
+   */
+  private String pageUrl;
+  /**
+   * Number of text elements with confidence.
+   */
+  private long count;
+  /**
+   * Number of text elements without confidence.
+   */
+  private long noOfMissingConfidences;
+  /**
+   * Mean confidence.
+   */
+  private float mean;
+  /**
+   * 10th percentile of confidences.
+   */
+  private float p10;
+  /**
+   * Median of confidences.
+   */
+  private float p50;
+  /**
+   * 90th percentile of confidences.
+   */
+  private float p90;
+  /**
+   * Number of characters of all text elements.
+   */
+  private long noOfCharacters;
+  /**
+   * Number of characters of text elements below the low confidence
+   * threshold.
+   */
+  private long noOfLowConfidenceCharacters;
+  /**
+   * Threshold for low confidence.
+   */
+  private float lowConfidenceThreshold;
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  @Override
+  public String getResourceId() {
+    return resourceId;
+  }
+
+  @Override
+  public void setResourceId(String resourceId) {
+    this.resourceId = resourceId;
+  }
+
+  @Override
+  public Integer getVersion() {
+    return version;
+  }
+
+  @Override
+  public void setVersion(Integer version) {
+    this.version = version;
+  }
+
+  /**
+   * Get scope of statistics.
+   *
+   * @return the scope ({@link #SCOPE_WORKSPACE}, {@link #SCOPE_FILE_GRP} or
+   * {@link #SCOPE_PAGE})
+   */
+  public String getScope() {
+    return scope;
+  }
+
+  /**
+   * Set scope of statistics.
+   *
+   * @param scope the scope to set
+   */
+  public void setScope(String scope) {
+    this.scope = scope;
+  }
+
+  /**
+   * Get USE of fileGrp.
+   *
+   * @return the fileGrp (null for workspace)
+   */
+  public String getFileGrp() {
+    return fileGrp;
+  }
+
+  /**
+   * Set USE of fileGrp.
+   *
+   * @param fileGrp the fileGrp to set
+   */
+  public void setFileGrp(String fileGrp) {
+    this.fileGrp = fileGrp;
+  }
+
+  /**
+   * Get 'URL' of page file.
+   *
+   * @return the pageUrl (null for workspace and fileGrp)
+   */
+  public String getPageUrl() {
+    return pageUrl;
+  }
+
+  /**
+   * Set 'URL' of page file.
+   *
+   * @param pageUrl the pageUrl to set
+   */
+  public void setPageUrl(String pageUrl) {
+    this.pageUrl = pageUrl;
+  }
+
+  /**
+   * Get number of text elements with confidence.
+   *
+   * @return the count
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Set number of text elements with confidence.
+   *
+   * @param count the count to set
+   */
+  public void setCount(long count) {
+    this.count = count;
+  }
+
+  /**
+   * Get number of text elements without confidence.
+   *
+   * @return the noOfMissingConfidences
+   */
+  public long getNoOfMissingConfidences() {
+    return noOfMissingConfidences;
+  }
+
+  /**
+   * Set number of text elements without confidence.
+   *
+   * @param noOfMissingConfidences the noOfMissingConfidences to set
+   */
+  public void setNoOfMissingConfidences(long noOfMissingConfidences) {
+    this.noOfMissingConfidences = noOfMissingConfidences;
+  }
+
+  /**
+   * Get mean confidence.
+   *
+   * @return the mean (NaN if count is 0)
+   */
+  public float getMean() {
+    return mean;
+  }
+
+  /**
+   * Set mean confidence.
+   *
+   * @param mean the mean to set
+   */
+  public void setMean(float mean) {
+    this.mean = mean;
+  }
+
+  /**
+   * Get 10th percentile of confidences.
+   *
+   * @return the p10 (NaN if count is 0)
+   */
+  public float getP10() {
+    return p10;
+  }
+
+  /**
+   * Set 10th percentile of confidences.
+   *
+   * @param p10 the p10 to set
+   */
+  public void setP10(float p10) {
+    this.p10 = p10;
+  }
+
+  /**
+   * Get median of confidences.
+   *
+   * @return the p50 (NaN if count is 0)
+   */
+  public float getP50() {
+    return p50;
+  }
+
+  /**
+   * Set median of confidences.
+   *
+   * @param p50 the p50 to set
+   */
+  public void setP50(float p50) {
+    this.p50 = p50;
+  }
+
+  /**
+   * Get 90th percentile of confidences.
+   *
+   * @return the p90 (NaN if count is 0)
+   */
+  public float getP90() {
+    return p90;
+  }
+
+  /**
+   * Set 90th percentile of confidences.
+   *
+   * @param p90 the p90 to set
+   */
+  public void setP90(float p90) {
+    this.p90 = p90;
+  }
+
+  /**
+   * Get number of characters of all text elements.
+   *
+   * @return the noOfCharacters
+   */
+  public long getNoOfCharacters() {
+    return noOfCharacters;
+  }
+
+  /**
+   * Set number of characters of all text elements.
+   *
+   * @param noOfCharacters the noOfCharacters to set
+   */
+  public void setNoOfCharacters(long noOfCharacters) {
+    this.noOfCharacters = noOfCharacters;
+  }
+
+  /**
+   * Get number of characters of text elements below the low confidence
+   * threshold.
+   *
+   * @return the noOfLowConfidenceCharacters
+   */
+  public long getNoOfLowConfidenceCharacters() {
+    return noOfLowConfidenceCharacters;
+  }
+
+  /**
+   * Set number of characters of text elements below the low confidence
+   * threshold.
+   *
+   * @param noOfLowConfidenceCharacters the noOfLowConfidenceCharacters to set
+   */
+  public void setNoOfLowConfidenceCharacters(long noOfLowConfidenceCharacters) {
+    this.noOfLowConfidenceCharacters = noOfLowConfidenceCharacters;
+  }
+
+  /**
+   * Get threshold for low confidence.
+   *
+   * @return the lowConfidenceThreshold
+   */
+  public float getLowConfidenceThreshold() {
+    return lowConfidenceThreshold;
+  }
+
+  /**
+   * Set threshold for low confidence.
+   *
+   * @param lowConfidenceThreshold the lowConfidenceThreshold to set
+   */
+  public void setLowConfidenceThreshold(float lowConfidenceThreshold) {
+    this.lowConfidenceThreshold = lowConfidenceThreshold;
+  }
+
+  @Override
+  public String toString() {
+    return "ConfidenceStatistics[resourceId=" + resourceId + ", scope=" + scope + ", fileGrp=" + fileGrp + ", pageUrl=" + pageUrl
+            + ", count=" + count + ", mean=" + mean + ", p10=" + p10 + ", p50=" + p50 + ", p90=" + p90
+            + ", noOfCharacters=" + noOfCharacters + ", noOfLowConfidenceCharacters=" + noOfLowConfidenceCharacters + "]";
+  }
+}
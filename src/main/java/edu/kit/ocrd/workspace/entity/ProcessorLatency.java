@@ -0,0 +1,252 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.entity;
+
+/**
+ * Latencies of one processor summed up over all ingested workspaces. Besides
+ * the summary the non empty buckets of the latency histogram are stored, so
+ * rollups of several nodes can be merged without losing precision. All
+ * values are in milliseconds.
+ */
+public class ProcessorLatency {
+
+  /**
+   * Number of processor runs.
+   */
+  private long count;
+  /**
+   * Sum of all latencies.
+   */
+  private long sum;
+  /**
+   * Minimum latency.
+   */
+  private long min;
+  /**
+   * Maximum latency.
+   */
+  private long max;
+  /**
+   * Mean latency.
+   */
+  private double mean;
+  /**
+   * Median latency.
+   */
+  private long p50;
+  /**
+   * 90th percentile of latencies.
+   */
+  private long p90;
+  /**
+   * 99th percentile of latencies.
+   */
+  private long p99;
+  /**
+   * Indexes of non empty histogram buckets.
+   */
+  private int[] bucketIndexes = new int[0];
+  /**
+   * Counts of non empty histogram buckets.
+   */
+  private long[] bucketCounts = new long[0];
+
+  /**
+   * Get number of processor runs.
+   *
+   * @return the count
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Set number of processor runs.
+   *
+   * @param count the count to set
+   */
+  public void setCount(long count) {
+    this.count = count;
+  }
+
+  /**
+   * Get sum of all latencies.
+   *
+   * @return the sum
+   */
+  public long getSum() {
+    return sum;
+  }
+
+  /**
+   * Set sum of all latencies.
+   *
+   * @param sum the sum to set
+   */
+  public void setSum(long sum) {
+    this.sum = sum;
+  }
+
+  /**
+   * Get minimum latency.
+   *
+   * @return the min
+   */
+  public long getMin() {
+    return min;
+  }
+
+  /**
+   * Set minimum latency.
+   *
+   * @param min the min to set
+   */
+  public void setMin(long min) {
+    this.min = min;
+  }
+
+  /**
+   * Get maximum latency.
+   *
+   * @return the max
+   */
+  public long getMax() {
+    return max;
+  }
+
+  /**
+   * Set maximum latency.
+   *
+   * @param max the max to set
+   */
+  public void setMax(long max) {
+    this.max = max;
+  }
+
+  /**
+   * Get mean latency.
+   *
+   * @return the mean
+   */
+  public double getMean() {
+    return mean;
+  }
+
+  /**
+   * Set mean latency.
+   *
+   * @param mean the mean to set
+   */
+  public void setMean(double mean) {
+    this.mean = mean;
+  }
+
+  /**
+   * Get median latency.
+   *
+   * @return the p50
+   */
+  public long getP50() {
+    return p50;
+  }
+
+  /**
+   * Set median latency.
+   *
+   * @param p50 the p50 to set
+   */
+  public void setP50(long p50) {
+    this.p50 = p50;
+  }
+
+  /**
+   * Get 90th percentile of latencies.
+   *
+   * @return the p90
+   */
+  public long getP90() {
+    return p90;
+  }
+
+  /**
+   * Set 90th percentile of latencies.
+   *
+   * @param p90 the p90 to set
+   */
+  public void setP90(long p90) {
+    this.p90 = p90;
+  }
+
+  /**
+   * Get 99th percentile of latencies.
+   *
+   * @return the p99
+   */
+  public long getP99() {
+    return p99;
+  }
+
+  /**
+   * Set 99th percentile of latencies.
+   *
+   * @param p99 the p99 to set
+   */
+  public void setP99(long p99) {
+    this.p99 = p99;
+  }
+
+  /**
+   * Get indexes of non empty histogram buckets.
+   *
+   * @return the bucketIndexes
+   */
+  public int[] getBucketIndexes() {
+    return bucketIndexes;
+  }
+
+  /**
+   * Set indexes of non empty histogram buckets.
+   *
+   * @param bucketIndexes the bucketIndexes to set
+   */
+  public void setBucketIndexes(int[] bucketIndexes) {
+    this.bucketIndexes = bucketIndexes;
+  }
+
+  /**
+   * Get counts of non empty histogram buckets.
+   *
+   * @return the bucketCounts
+   */
+  public long[] getBucketCounts() {
+    return bucketCounts;
+  }
+
+  /**
+   * Set counts of non empty histogram buckets.
+   *
+   * @param bucketCounts the bucketCounts to set
+   */
+  public void setBucketCounts(long[] bucketCounts) {
+    this.bucketCounts = bucketCounts;
+  }
+
+  @Override
+  public String toString() {
+    return "ProcessorLatency[count=" + count + ", mean=" + mean + ", p50=" + p50 + ", p90=" + p90 + ", p99=" + p99
+            + ", min=" + min + ", max=" + max + "]";
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.entity;
+
+import com.arangodb.springframework.annotation.Document;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import org.springframework.data.annotation.Id;
+
+/**
+ * Corpus wide latencies of all processors (label of processor -&gt;
+ * latencies) derived from the provenance of all ingested workspaces. There
+ * is only one rollup document which is updated with each ingest.
+ */
+@Document("processorPerformanceRollup")
+public class ProcessorPerformanceRollup {
+
+  /**
+   * ID of the (only) rollup document.
+   */
+  public static final String ROLLUP_ID = "processorPerformance";
+  /**
+   * ID of the document.
+   */
+  @Id
+  private String id = ROLLUP_ID;
+  /**
+   * Number of ingested workspaces.
+   */
+  private long noOfWorkspaces;
+  /**
+   * Number of processor runs.
+   */
+  private long noOfProcessorRuns;
+  /**
+   * Date of last update.
+   */
+  private Date lastUpdate;
+  /**
+   * Latencies per processor (label of processor -&gt; latencies).
+   */
+  private Map<String, ProcessorLatency> processors = new TreeMap<>();
+
+  /**
+   * Get ID of the document.
+   *
+   * @return the id
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Set ID of the document.
+   *
+   * @param id the id to set
+   */
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  /**
+   * Get number of ingested workspaces.
+   *
+   * @return the noOfWorkspaces
+   */
+  public long getNoOfWorkspaces() {
+    return noOfWorkspaces;
+  }
+
+  /**
+   * Set number of ingested workspaces.
+   *
+   * @param noOfWorkspaces the noOfWorkspaces to set
+   */
+  public void setNoOfWorkspaces(long noOfWorkspaces) {
+    this.noOfWorkspaces = noOfWorkspaces;
+  }
+
+  /**
+   * Get number of processor runs.
+   *
+   * @return the noOfProcessorRuns
+   */
+  public long getNoOfProcessorRuns() {
+    return noOfProcessorRuns;
+  }
+
+  /**
+   * Set number of processor runs.
+   *
+   * @param noOfProcessorRuns the noOfProcessorRuns to set
+   */
+  public void setNoOfProcessorRuns(long noOfProcessorRuns) {
+    this.noOfProcessorRuns = noOfProcessorRuns;
+  }
+
+  /**
+   * Get date of last update.
+   *
+   * @return the lastUpdate
+   */
+  public Date getLastUpdate() {
+    return lastUpdate;
+  }
+
+  /**
+   * Set date of last update.
+   *
+   * @param lastUpdate the lastUpdate to set
+   */
+  public void setLastUpdate(Date lastUpdate) {
+    this.lastUpdate = lastUpdate;
+  }
+
+  /**
+   * Get latencies per processor.
+   *
+   * @return the processors (label of processor -&gt; latencies)
+   */
+  public Map<String, ProcessorLatency> getProcessors() {
+    return processors;
+  }
+
+  /**
+   * Set latencies per processor.
+   *
+   * @param processors the processors to set
+   */
+  public void setProcessors(Map<String, ProcessorLatency> processors) {
+    this.processors = processors;
+  }
+
+  @Override
+  public String toString() {
+    return "ProcessorPerformanceRollup[noOfWorkspaces=" + noOfWorkspaces + ", noOfProcessorRuns=" + noOfProcessorRuns
+            + ", lastUpdate=" + lastUpdate + ", processors=" + processors + "]";
+  }
+}
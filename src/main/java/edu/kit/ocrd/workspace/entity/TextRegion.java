@@ -16,9 +16,11 @@
 package edu.kit.ocrd.workspace.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 
 import com.arangodb.springframework.annotation.Document;
 import com.arangodb.springframework.annotation.HashIndex;
+import edu.kit.ocrd.workspace.spatial.PolygonUtil;
 
 /**
  * Contains one text region of one page.
@@ -27,6 +29,11 @@ import com.arangodb.springframework.annotation.HashIndex;
 @HashIndex(fields = {"resourceId"})
 public class TextRegion implements IBaseEntity {
 
+  /**
+   * Confidence level of texts without confidence.
+   */
+  public static final float DEFAULT_CONFIDENCE = 1.0f;
+
   /**
    * ID of the document.
    */
@@ -69,6 +76,32 @@ public class TextRegion implements IBaseEntity {
    * Confidence level of given text.
    */
   private float confidence;
+  /**
+   * Confidence level is given by the source (otherwise it's
+   * {@link #DEFAULT_CONFIDENCE}; not persisted).
+   */
+  @Transient
+  private boolean hasConfidence = true;
+  /**
+   * Polygon of the region (x0, y0, x1, y1, ...; null if not available).
+   */
+  private int[] points;
+  /**
+   * Minimal x of bounding box (-1 if not available).
+   */
+  private int minX = -1;
+  /**
+   * Minimal y of bounding box (-1 if not available).
+   */
+  private int minY = -1;
+  /**
+   * Maximal x of bounding box (-1 if not available).
+   */
+  private int maxX = -1;
+  /**
+   * Maximal y of bounding box (-1 if not available).
+   */
+  private int maxY = -1;
 
 
   @Override
@@ -206,6 +239,85 @@ public class TextRegion implements IBaseEntity {
   public void setConfidence(float confidence) {
     this.confidence = confidence;
   }
+
+  /**
+   * Is confidence level given by the source?
+   * @return false if confidence is {@link #DEFAULT_CONFIDENCE} as the source
+   * has no confidence level
+   */
+  public boolean hasConfidence() {
+    return hasConfidence;
+  }
+
+  /**
+   * Set whether confidence level is given by the source.
+   * @param hasConfidence false if the source has no confidence level
+   */
+  public void setHasConfidence(boolean hasConfidence) {
+    this.hasConfidence = hasConfidence;
+  }
+
+  /**
+   * Get polygon of the region.
+   * @return the points (x0, y0, x1, y1, ...; null if not available)
+   */
+  public int[] getPoints() {
+    return points;
+  }
+
+  /**
+   * Set polygon of the region. The bounding box is updated.
+   * @param points the points to set (x0, y0, x1, y1, ...; null or empty if
+   * not available)
+   */
+  public void setPoints(int[] points) {
+    this.points = points != null && points.length >= 2 ? points : null;
+    int[] box = PolygonUtil.getBoundingBox(this.points != null ? this.points : PolygonUtil.NO_POINTS);
+    minX = box[0];
+    minY = box[1];
+    maxX = box[2];
+    maxY = box[3];
+  }
+
+  /**
+   * Has region coordinates?
+   * @return true if polygon is available
+   */
+  public boolean hasCoordinates() {
+    return points != null;
+  }
+
+  /**
+   * Get minimal x of bounding box.
+   * @return the minX (-1 if not available)
+   */
+  public int getMinX() {
+    return minX;
+  }
+
+  /**
+   * Get minimal y of bounding box.
+   * @return the minY (-1 if not available)
+   */
+  public int getMinY() {
+    return minY;
+  }
+
+  /**
+   * Get maximal x of bounding box.
+   * @return the maxX (-1 if not available)
+   */
+  public int getMaxX() {
+    return maxX;
+  }
+
+  /**
+   * Get maximal y of bounding box.
+   * @return the maxY (-1 if not available)
+   */
+  public int getMaxY() {
+    return maxY;
+  }
    @Override
   public String toString() {
     String buffer = String.format("Resource ID: '%s', PageUrl: '%s', ImageUrl: '%s', Region ID: '%s', Order: '%s', Confidence Level: '%s', Text: '%s'", 
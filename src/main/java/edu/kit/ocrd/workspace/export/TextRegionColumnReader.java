@@ -0,0 +1,337 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.export;
+
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import static edu.kit.ocrd.workspace.export.TextRegionColumnWriter.*;
+
+/**
+ * Memory mapped reader for files written by {@link TextRegionColumnWriter}.
+ * Columns are accessed as views on the mapped file without copying, so
+ * scanning e.g. only the confidences doesn't touch the texts.
+ */
+public class TextRegionColumnReader implements Closeable {
+
+  /**
+   * Channel of file.
+   */
+  private final FileChannel channel;
+  /**
+   * Offsets of all blocks.
+   */
+  private final long[] blockOffsets;
+  /**
+   * Lengths of all blocks.
+   */
+  private final long[] blockLengths;
+
+  /**
+   * Open file.
+   *
+   * @param file File to read.
+   * @throws IOException Error reading file or invalid format.
+   */
+  public TextRegionColumnReader(final Path file) throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      long size = channel.size();
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, 2 * Integer.BYTES);
+      ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - Long.BYTES - Integer.BYTES, Long.BYTES + Integer.BYTES);
+      if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION || trailer.getInt(Long.BYTES) != MAGIC) {
+        throw new IOException("Invalid text region file: " + file);
+      }
+      long indexOffset = trailer.getLong(0);
+      ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, size - indexOffset);
+      int noOfBlocks = index.getInt();
+      blockOffsets = new long[noOfBlocks];
+      blockLengths = new long[noOfBlocks];
+      for (int block = 0; block < noOfBlocks; block++) {
+        blockOffsets[block] = index.getLong();
+        blockLengths[block] = index.getLong();
+      }
+    } catch (IOException | RuntimeException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Get number of blocks.
+   *
+   * @return Number of blocks.
+   */
+  public int getNumberOfBlocks() {
+    return blockOffsets.length;
+  }
+
+  /**
+   * Map given block.
+   *
+   * @param block Index of block.
+   * @return Block.
+   * @throws IOException Error mapping block.
+   */
+  public ColumnBlock getBlock(final int block) throws IOException {
+    return new ColumnBlock(channel.map(FileChannel.MapMode.READ_ONLY, blockOffsets[block], blockLengths[block]));
+  }
+
+  /**
+   * Get number of regions inside file.
+   *
+   * @return Number of regions.
+   * @throws IOException Error reading file.
+   */
+  public long getNumberOfRegions() throws IOException {
+    long noOfRegions = 0;
+    for (int block = 0; block < blockOffsets.length; block++) {
+      noOfRegions += channel.map(FileChannel.MapMode.READ_ONLY, blockOffsets[block], Integer.BYTES).getInt();
+    }
+    return noOfRegions;
+  }
+
+  /**
+   * Read all regions of file.
+   *
+   * @return All regions.
+   * @throws IOException Error reading file.
+   */
+  public List<TextRegion> readAll() throws IOException {
+    List<TextRegion> textRegions = new ArrayList<>();
+    for (int block = 0; block < blockOffsets.length; block++) {
+      textRegions.addAll(getBlock(block).toTextRegions());
+    }
+    return textRegions;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * One mapped block of the file.
+   */
+  public static final class ColumnBlock {
+
+    /**
+     * Mapped block.
+     */
+    private final ByteBuffer buffer;
+    /**
+     * Number of regions.
+     */
+    private final int rowCount;
+    /**
+     * Dictionary of block.
+     */
+    private final String[] dictionary;
+    /**
+     * Offsets of all columns.
+     */
+    private final int[] columnOffsets = new int[NO_OF_COLUMNS + 1];
+
+    /**
+     * Constructor.
+     *
+     * @param buffer Mapped block.
+     */
+    ColumnBlock(final ByteBuffer buffer) {
+      this.buffer = buffer;
+      rowCount = buffer.getInt();
+      dictionary = new String[buffer.getInt()];
+      for (int column = 0; column < NO_OF_COLUMNS; column++) {
+        columnOffsets[column] = buffer.getInt();
+      }
+      columnOffsets[NO_OF_COLUMNS] = buffer.limit();
+      for (int entry = 0; entry < dictionary.length; entry++) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        dictionary[entry] = new String(bytes, StandardCharsets.UTF_8);
+      }
+    }
+
+    /**
+     * Get number of regions inside block.
+     *
+     * @return Number of regions.
+     */
+    public int getRowCount() {
+      return rowCount;
+    }
+
+    /**
+     * Get confidence column.
+     *
+     * @return View on confidences.
+     */
+    public FloatBuffer getConfidences() {
+      return column(COLUMN_CONFIDENCE).asFloatBuffer();
+    }
+
+    /**
+     * Get order column.
+     *
+     * @return View on orders.
+     */
+    public IntBuffer getOrders() {
+      return column(COLUMN_ORDER).asIntBuffer();
+    }
+
+    /**
+     * Get resource ID of given row.
+     *
+     * @param row Row.
+     * @return Resource ID.
+     */
+    public String getResourceId(final int row) {
+      return dictionary[buffer.getInt(columnOffsets[COLUMN_RESOURCE_ID] + row * Integer.BYTES)];
+    }
+
+    /**
+     * Get page URL of given row.
+     *
+     * @param row Row.
+     * @return Page URL.
+     */
+    public String getPageUrl(final int row) {
+      return dictionary[buffer.getInt(columnOffsets[COLUMN_PAGE_URL] + row * Integer.BYTES)];
+    }
+
+    /**
+     * Get image URL of given row.
+     *
+     * @param row Row.
+     * @return Image URL.
+     */
+    public String getImageUrl(final int row) {
+      return dictionary[buffer.getInt(columnOffsets[COLUMN_IMAGE_URL] + row * Integer.BYTES)];
+    }
+
+    /**
+     * Scan all texts. Every text is passed as view on its UTF-8 bytes.
+     *
+     * @param consumer Consumer of texts.
+     */
+    public void scanTexts(final Consumer<ByteBuffer> consumer) {
+      scanStrings(COLUMN_TEXT, consumer);
+    }
+
+    /**
+     * Scan all region IDs. Every ID is passed as view on its UTF-8 bytes.
+     *
+     * @param consumer Consumer of region IDs.
+     */
+    public void scanRegions(final Consumer<ByteBuffer> consumer) {
+      scanStrings(COLUMN_REGION, consumer);
+    }
+
+    /**
+     * Scan all polygons. Every polygon is passed as view on its coordinates
+     * (x0, y0, x1, y1, ...).
+     *
+     * @param consumer Consumer of polygons.
+     */
+    public void scanPoints(final Consumer<IntBuffer> consumer) {
+      ByteBuffer view = column(COLUMN_POINTS);
+      while (view.hasRemaining()) {
+        int length = view.getInt();
+        ByteBuffer value = view.slice();
+        value.limit(length * Integer.BYTES);
+        consumer.accept(value.asIntBuffer());
+        view.position(view.position() + length * Integer.BYTES);
+      }
+    }
+
+    /**
+     * Decode all regions of block.
+     *
+     * @return List of text regions.
+     */
+    public List<TextRegion> toTextRegions() {
+      List<TextRegion> textRegions = new ArrayList<>(rowCount);
+      FloatBuffer confidences = getConfidences();
+      IntBuffer orders = getOrders();
+      for (int row = 0; row < rowCount; row++) {
+        TextRegion textRegion = new TextRegion();
+        textRegion.setResourceId(getResourceId(row));
+        textRegion.setPageUrl(getPageUrl(row));
+        textRegion.setImageUrl(getImageUrl(row));
+        textRegion.setOrder(orders.get(row));
+        float confidence = confidences.get(row);
+        if (Float.isNaN(confidence)) {
+          textRegion.setConfidence(TextRegion.DEFAULT_CONFIDENCE);
+          textRegion.setHasConfidence(false);
+        } else {
+          textRegion.setConfidence(confidence);
+        }
+        textRegions.add(textRegion);
+      }
+      int[] row = {0};
+      scanRegions(region -> textRegions.get(row[0]++).setRegion(StandardCharsets.UTF_8.decode(region).toString()));
+      row[0] = 0;
+      scanTexts(text -> textRegions.get(row[0]++).setText(StandardCharsets.UTF_8.decode(text).toString()));
+      row[0] = 0;
+      scanPoints(points -> {
+        int[] polygon = new int[points.remaining()];
+        points.get(polygon);
+        textRegions.get(row[0]++).setPoints(polygon);
+      });
+      return textRegions;
+    }
+
+    /**
+     * Get view on column.
+     *
+     * @param column Index of column.
+     * @return View on column.
+     */
+    private ByteBuffer column(final int column) {
+      ByteBuffer view = buffer.duplicate();
+      view.limit(columnOffsets[column + 1]);
+      view.position(columnOffsets[column]);
+      return view.slice();
+    }
+
+    /**
+     * Scan length prefixed strings of column.
+     *
+     * @param column Index of column.
+     * @param consumer Consumer of strings.
+     */
+    private void scanStrings(final int column, final Consumer<ByteBuffer> consumer) {
+      ByteBuffer view = column(column);
+      while (view.hasRemaining()) {
+        int length = view.getInt();
+        ByteBuffer value = view.slice();
+        value.limit(length);
+        consumer.accept(value);
+        view.position(view.position() + length);
+      }
+    }
+  }
+}
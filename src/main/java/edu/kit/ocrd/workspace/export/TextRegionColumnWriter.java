@@ -0,0 +1,348 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.export;
+
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming writer for the columnar binary format of text regions.
+ * <p>
+ * Regions are buffered in blocks of fixed size, so memory is bounded by the
+ * block size. Each block holds its own dictionary for resource ID, page URL
+ * and image URL followed by the columns:
+ * <ul>
+ * <li>resource ID, page URL, image URL: int references to dictionary
+ * <li>order: int
+ * <li>confidence: float
+ * <li>region ID and text: length prefixed UTF-8
+ * <li>points of polygon: number of coordinates followed by the coordinates
+ * as int
+ * </ul>
+ * The file ends with an index of all blocks.
+ */
+public class TextRegionColumnWriter implements Closeable {
+
+  /**
+   * Magic number at start and end of file.
+   */
+  static final int MAGIC = 0x4f435452;
+  /**
+   * Version of file format.
+   */
+  static final int FORMAT_VERSION = 1;
+  /**
+   * Number of columns.
+   */
+  static final int NO_OF_COLUMNS = 8;
+  /**
+   * Column holding resource IDs.
+   */
+  static final int COLUMN_RESOURCE_ID = 0;
+  /**
+   * Column holding page URLs.
+   */
+  static final int COLUMN_PAGE_URL = 1;
+  /**
+   * Column holding image URLs.
+   */
+  static final int COLUMN_IMAGE_URL = 2;
+  /**
+   * Column holding order.
+   */
+  static final int COLUMN_ORDER = 3;
+  /**
+   * Column holding confidence.
+   */
+  static final int COLUMN_CONFIDENCE = 4;
+  /**
+   * Column holding region IDs.
+   */
+  static final int COLUMN_REGION = 5;
+  /**
+   * Column holding texts.
+   */
+  static final int COLUMN_TEXT = 6;
+  /**
+   * Column holding points of polygons.
+   */
+  static final int COLUMN_POINTS = 7;
+  /**
+   * Default number of regions per block.
+   */
+  public static final int DEFAULT_BLOCK_SIZE = 65536;
+  /**
+   * Output stream.
+   */
+  private final DataOutputStream out;
+  /**
+   * Maximum number of regions per block.
+   */
+  private final int blockSize;
+  /**
+   * Dictionary of current block.
+   */
+  private final Map<String, Integer> dictionary = new LinkedHashMap<>();
+  /**
+   * Dictionary columns of current block.
+   */
+  private final int[][] references = new int[3][];
+  /**
+   * Orders of current block.
+   */
+  private final int[] orders;
+  /**
+   * Confidences of current block.
+   */
+  private final float[] confidences;
+  /**
+   * Region IDs of current block.
+   */
+  private final ByteArrayOutputStream regionColumn = new ByteArrayOutputStream();
+  /**
+   * Texts of current block.
+   */
+  private final ByteArrayOutputStream textColumn = new ByteArrayOutputStream();
+  /**
+   * Points of current block.
+   */
+  private final ByteArrayOutputStream pointsColumn = new ByteArrayOutputStream();
+  /**
+   * Offsets of all written blocks.
+   */
+  private final List<long[]> blockIndex = new ArrayList<>();
+  /**
+   * Number of regions in current block.
+   */
+  private int rowCount;
+  /**
+   * Number of bytes written so far.
+   */
+  private long position;
+
+  /**
+   * Create writer with default block size.
+   *
+   * @param file File to write to.
+   * @throws IOException Error creating file.
+   */
+  public TextRegionColumnWriter(final Path file) throws IOException {
+    this(file, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Create writer.
+   *
+   * @param file File to write to.
+   * @param blockSize Maximum number of regions per block.
+   * @throws IOException Error creating file.
+   */
+  public TextRegionColumnWriter(final Path file, final int blockSize) throws IOException {
+    this.blockSize = Math.max(blockSize, 1);
+    for (int column = 0; column < references.length; column++) {
+      references[column] = new int[this.blockSize];
+    }
+    orders = new int[this.blockSize];
+    confidences = new float[this.blockSize];
+    out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+    position = 2 * Integer.BYTES;
+  }
+
+  /**
+   * Append a text region.
+   *
+   * @param textRegion Text region.
+   * @throws IOException Error writing block.
+   */
+  public void write(final TextRegion textRegion) throws IOException {
+    references[COLUMN_RESOURCE_ID][rowCount] = reference(textRegion.getResourceId());
+    references[COLUMN_PAGE_URL][rowCount] = reference(textRegion.getPageUrl());
+    references[COLUMN_IMAGE_URL][rowCount] = reference(textRegion.getImageUrl());
+    orders[rowCount] = textRegion.getOrder() != null ? textRegion.getOrder() : 0;
+    // Missing confidence is stored as NaN.
+    confidences[rowCount] = textRegion.hasConfidence() ? textRegion.getConfidence() : Float.NaN;
+    writeString(regionColumn, textRegion.getRegion());
+    writeString(textColumn, textRegion.getText());
+    writePoints(pointsColumn, textRegion.getPoints());
+    rowCount++;
+    if (rowCount == blockSize) {
+      writeBlock();
+    }
+  }
+
+  /**
+   * Append all text regions.
+   *
+   * @param textRegions Text regions.
+   * @throws IOException Error writing block.
+   */
+  public void writeAll(final Iterable<TextRegion> textRegions) throws IOException {
+    for (TextRegion textRegion : textRegions) {
+      write(textRegion);
+    }
+  }
+
+  /**
+   * Write pending block and index of all blocks.
+   *
+   * @throws IOException Error writing file.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      writeBlock();
+      long indexOffset = position;
+      out.writeInt(blockIndex.size());
+      for (long[] block : blockIndex) {
+        out.writeLong(block[0]);
+        out.writeLong(block[1]);
+      }
+      out.writeLong(indexOffset);
+      out.writeInt(MAGIC);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Write current block.
+   *
+   * @throws IOException Error writing block.
+   */
+  private void writeBlock() throws IOException {
+    if (rowCount == 0) {
+      return;
+    }
+    List<byte[]> dictionaryEntries = new ArrayList<>();
+    int dictionaryLength = 0;
+    for (String entry : dictionary.keySet()) {
+      byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+      dictionaryEntries.add(bytes);
+      dictionaryLength += Integer.BYTES + bytes.length;
+    }
+    int[] columnLengths = new int[NO_OF_COLUMNS];
+    columnLengths[COLUMN_RESOURCE_ID] = rowCount * Integer.BYTES;
+    columnLengths[COLUMN_PAGE_URL] = rowCount * Integer.BYTES;
+    columnLengths[COLUMN_IMAGE_URL] = rowCount * Integer.BYTES;
+    columnLengths[COLUMN_ORDER] = rowCount * Integer.BYTES;
+    columnLengths[COLUMN_CONFIDENCE] = rowCount * Float.BYTES;
+    columnLengths[COLUMN_REGION] = regionColumn.size();
+    columnLengths[COLUMN_TEXT] = textColumn.size();
+    columnLengths[COLUMN_POINTS] = pointsColumn.size();
+    int headerLength = (2 + NO_OF_COLUMNS) * Integer.BYTES;
+    int offset = headerLength + dictionaryLength;
+    out.writeInt(rowCount);
+    out.writeInt(dictionaryEntries.size());
+    for (int column = 0; column < NO_OF_COLUMNS; column++) {
+      out.writeInt(offset);
+      offset += columnLengths[column];
+    }
+    for (byte[] entry : dictionaryEntries) {
+      out.writeInt(entry.length);
+      out.write(entry);
+    }
+    for (int[] column : references) {
+      for (int row = 0; row < rowCount; row++) {
+        out.writeInt(column[row]);
+      }
+    }
+    for (int row = 0; row < rowCount; row++) {
+      out.writeInt(orders[row]);
+    }
+    for (int row = 0; row < rowCount; row++) {
+      out.writeFloat(confidences[row]);
+    }
+    regionColumn.writeTo(out);
+    textColumn.writeTo(out);
+    pointsColumn.writeTo(out);
+    blockIndex.add(new long[]{position, offset});
+    position += offset;
+    rowCount = 0;
+    dictionary.clear();
+    regionColumn.reset();
+    textColumn.reset();
+    pointsColumn.reset();
+  }
+
+  /**
+   * Get reference of value inside dictionary of current block.
+   *
+   * @param value Value.
+   * @return Index inside dictionary.
+   */
+  private int reference(final String value) {
+    String key = value != null ? value : "";
+    Integer index = dictionary.get(key);
+    if (index == null) {
+      index = dictionary.size();
+      dictionary.put(key, index);
+    }
+    return index;
+  }
+
+  /**
+   * Append length prefixed UTF-8 string to column.
+   *
+   * @param column Column.
+   * @param value Value.
+   */
+  private static void writeString(final ByteArrayOutputStream column, final String value) {
+    byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+    int length = bytes.length;
+    writeInt(column, length);
+    column.write(bytes, 0, length);
+  }
+
+  /**
+   * Append length prefixed points to column.
+   *
+   * @param column Column.
+   * @param points Points (may be null).
+   */
+  private static void writePoints(final ByteArrayOutputStream column, final int[] points) {
+    int length = points != null ? points.length : 0;
+    writeInt(column, length);
+    for (int index = 0; index < length; index++) {
+      writeInt(column, points[index]);
+    }
+  }
+
+  /**
+   * Append int to column.
+   *
+   * @param column Column.
+   * @param value Value.
+   */
+  private static void writeInt(final ByteArrayOutputStream column, final int value) {
+    column.write(value >>> 24);
+    column.write(value >>> 16);
+    column.write(value >>> 8);
+    column.write(value);
+  }
+}
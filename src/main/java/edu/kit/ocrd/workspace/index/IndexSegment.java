@@ -0,0 +1,531 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.index;
+
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import edu.kit.ocrd.workspace.index.PostingCodec.Postings;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Immutable, memory mapped segment of the text region index.
+ * <p>
+ * File layout:
+ * <ul>
+ * <li>header: magic, format version, base document ID, number of documents
+ * <li>string table: all distinct resource IDs, page URLs, image URLs and
+ * region IDs
+ * <li>documents: string references, order and confidence of each region
+ * <li>postings: delta/varint encoded posting lists
+ * <li>term dictionary: sorted terms with (long) offset of their postings
+ * <li>footer: offset of term dictionary
+ * </ul>
+ * Offsets are written as long values but a segment is mapped as a single
+ * buffer and is therefore limited to {@link #MAX_SEGMENT_SIZE} bytes. Larger
+ * segments are rejected while writing.
+ */
+final class IndexSegment {
+
+  /**
+   * Magic number of segment files.
+   */
+  static final int MAGIC = 0x4f435244;
+  /**
+   * Version of file format.
+   */
+  static final int FORMAT_VERSION = 1;
+  /**
+   * Maximum size of a segment file in bytes.
+   */
+  static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+  /**
+   * Size of one document entry in bytes.
+   */
+  private static final int DOC_ENTRY_SIZE = 6 * Integer.BYTES;
+  /**
+   * Path to segment file.
+   */
+  private final Path path;
+  /**
+   * Mapped content of segment file.
+   */
+  private final MappedByteBuffer buffer;
+  /**
+   * ID of first document inside segment.
+   */
+  private final int baseDocId;
+  /**
+   * Number of documents inside segment.
+   */
+  private final int numberOfDocs;
+  /**
+   * All strings referenced by documents.
+   */
+  private final String[] strings;
+  /**
+   * Offset of document entries.
+   */
+  private final int docsOffset;
+  /**
+   * Sorted terms.
+   */
+  private final String[] terms;
+  /**
+   * Offsets of postings for each term.
+   */
+  private final int[] postingOffsets;
+
+  /**
+   * Open existing segment file.
+   *
+   * @param path Path to segment file.
+   * @throws IOException Error reading segment.
+   */
+  IndexSegment(final Path path) throws IOException {
+    this.path = path;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > MAX_SEGMENT_SIZE) {
+        throw new IOException("Index segment exceeds maximum size: " + path);
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    int magic = buffer.getInt();
+    int version = buffer.getInt();
+    if (magic != MAGIC || version != FORMAT_VERSION) {
+      throw new IOException("Invalid index segment: " + path);
+    }
+    baseDocId = buffer.getInt();
+    numberOfDocs = buffer.getInt();
+    strings = new String[buffer.getInt()];
+    for (int index = 0; index < strings.length; index++) {
+      strings[index] = readString(buffer);
+    }
+    docsOffset = buffer.position();
+    ByteBuffer dictionary = buffer.duplicate();
+    dictionary.position(toPosition(buffer.getLong(buffer.limit() - Long.BYTES)));
+    terms = new String[dictionary.getInt()];
+    postingOffsets = new int[terms.length];
+    for (int index = 0; index < terms.length; index++) {
+      terms[index] = readString(dictionary);
+      postingOffsets[index] = toPosition(dictionary.getLong());
+    }
+  }
+
+  /**
+   * Get path of segment file.
+   *
+   * @return Path to segment file.
+   */
+  Path getPath() {
+    return path;
+  }
+
+  /**
+   * Get size of segment file.
+   *
+   * @return Size in bytes.
+   */
+  long getSize() {
+    return buffer.capacity();
+  }
+
+  /**
+   * Get ID of first document inside segment.
+   *
+   * @return Base document ID.
+   */
+  int getBaseDocId() {
+    return baseDocId;
+  }
+
+  /**
+   * Get number of documents inside segment.
+   *
+   * @return Number of documents.
+   */
+  int getNumberOfDocs() {
+    return numberOfDocs;
+  }
+
+  /**
+   * Get sorted terms of segment.
+   *
+   * @return Sorted terms.
+   */
+  String[] getTerms() {
+    return terms;
+  }
+
+  /**
+   * Decode postings of given term. Document IDs are local to the segment.
+   *
+   * @param term Term.
+   * @return Postings or null if term is unknown.
+   */
+  Postings getPostings(final String term) {
+    int index = Arrays.binarySearch(terms, term);
+    if (index < 0) {
+      return null;
+    }
+    return getPostings(index);
+  }
+
+  /**
+   * Decode postings of the term at the given index of the dictionary.
+   *
+   * @param termIndex Index of term.
+   * @return Postings.
+   */
+  private Postings getPostings(final int termIndex) {
+    ByteBuffer postings = buffer.duplicate();
+    postings.position(postingOffsets[termIndex]);
+    return PostingCodec.read(postings);
+  }
+
+  /**
+   * Get confidence of a document without decoding the other fields.
+   *
+   * @param localDoc Document ID local to segment.
+   * @return Confidence level.
+   */
+  float getConfidence(final int localDoc) {
+    return buffer.getFloat(docsOffset + localDoc * DOC_ENTRY_SIZE + 5 * Integer.BYTES);
+  }
+
+  /**
+   * Get stored fields of a document.
+   *
+   * @param localDoc Document ID local to segment.
+   * @return Text region without text.
+   */
+  TextRegion getDocument(final int localDoc) {
+    int offset = docsOffset + localDoc * DOC_ENTRY_SIZE;
+    TextRegion textRegion = new TextRegion();
+    textRegion.setResourceId(strings[buffer.getInt(offset)]);
+    textRegion.setPageUrl(strings[buffer.getInt(offset + Integer.BYTES)]);
+    textRegion.setImageUrl(strings[buffer.getInt(offset + 2 * Integer.BYTES)]);
+    textRegion.setRegion(strings[buffer.getInt(offset + 3 * Integer.BYTES)]);
+    textRegion.setOrder(buffer.getInt(offset + 4 * Integer.BYTES));
+    textRegion.setConfidence(getConfidence(localDoc));
+    return textRegion;
+  }
+
+  /**
+   * Write a new segment file.
+   *
+   * @param path Path of segment file.
+   * @param baseDocId ID of first document.
+   * @param documents Stored fields of all documents (text is ignored).
+   * @param postings Postings of all terms with document IDs local to
+   * segment.
+   * @throws IOException Error writing segment.
+   */
+  static void write(final Path path, final int baseDocId, final List<TextRegion> documents, final SortedMap<String, Postings> postings) throws IOException {
+    Map<String, Integer> stringIds = new HashMap<>();
+    List<String> stringTable = new ArrayList<>();
+    int[] docEntries = new int[documents.size() * 5];
+    int entry = 0;
+    for (TextRegion document : documents) {
+      docEntries[entry++] = stringId(document.getResourceId(), stringIds, stringTable);
+      docEntries[entry++] = stringId(document.getPageUrl(), stringIds, stringTable);
+      docEntries[entry++] = stringId(document.getImageUrl(), stringIds, stringTable);
+      docEntries[entry++] = stringId(document.getRegion(), stringIds, stringTable);
+      docEntries[entry++] = document.getOrder() != null ? document.getOrder() : 0;
+    }
+    try (SegmentWriter writer = new SegmentWriter(path, baseDocId, documents.size(), stringTable)) {
+      for (int index = 0; index < documents.size(); index++) {
+        writer.addDocument(docEntries, index * 5, documents.get(index).getConfidence());
+      }
+      for (Map.Entry<String, Postings> termPostings : postings.entrySet()) {
+        writer.addTerm(termPostings.getKey(), termPostings.getValue());
+      }
+    }
+  }
+
+  /**
+   * Merge adjacent segments into a new segment file. Documents are copied
+   * segment by segment and postings term by term, so only the string table
+   * and the postings of a single term are held in memory.
+   *
+   * @param path Path of segment file.
+   * @param sources Segments ordered by base document ID without gaps.
+   * @throws IOException Error writing segment.
+   */
+  static void merge(final Path path, final List<IndexSegment> sources) throws IOException {
+    Map<String, Integer> stringIds = new HashMap<>();
+    List<String> stringTable = new ArrayList<>();
+    int[][] stringMapping = new int[sources.size()][];
+    int numberOfDocs = 0;
+    for (int source = 0; source < sources.size(); source++) {
+      IndexSegment segment = sources.get(source);
+      stringMapping[source] = new int[segment.strings.length];
+      for (int index = 0; index < segment.strings.length; index++) {
+        stringMapping[source][index] = stringId(segment.strings[index], stringIds, stringTable);
+      }
+      numberOfDocs += segment.getNumberOfDocs();
+    }
+    int baseDocId = sources.get(0).getBaseDocId();
+    try (SegmentWriter writer = new SegmentWriter(path, baseDocId, numberOfDocs, stringTable)) {
+      int[] docEntry = new int[5];
+      for (int source = 0; source < sources.size(); source++) {
+        IndexSegment segment = sources.get(source);
+        for (int localDoc = 0; localDoc < segment.getNumberOfDocs(); localDoc++) {
+          int offset = segment.docsOffset + localDoc * DOC_ENTRY_SIZE;
+          for (int field = 0; field < 4; field++) {
+            docEntry[field] = stringMapping[source][segment.buffer.getInt(offset + field * Integer.BYTES)];
+          }
+          docEntry[4] = segment.buffer.getInt(offset + 4 * Integer.BYTES);
+          writer.addDocument(docEntry, 0, segment.getConfidence(localDoc));
+        }
+      }
+      // k-way merge of the sorted term dictionaries
+      int[] termIndices = new int[sources.size()];
+      while (true) {
+        String term = null;
+        for (int source = 0; source < sources.size(); source++) {
+          String[] sourceTerms = sources.get(source).terms;
+          if (termIndices[source] < sourceTerms.length && (term == null || sourceTerms[termIndices[source]].compareTo(term) < 0)) {
+            term = sourceTerms[termIndices[source]];
+          }
+        }
+        if (term == null) {
+          break;
+        }
+        Postings merged = new Postings(1);
+        for (int source = 0; source < sources.size(); source++) {
+          IndexSegment segment = sources.get(source);
+          if (termIndices[source] < segment.terms.length && segment.terms[termIndices[source]].equals(term)) {
+            Postings postings = segment.getPostings(termIndices[source]++);
+            int docOffset = segment.getBaseDocId() - baseDocId;
+            for (int index = 0; index < postings.size; index++) {
+              merged.add(postings.docs[index] + docOffset, postings.positions[index]);
+            }
+          }
+        }
+        writer.addTerm(term, merged);
+      }
+    }
+  }
+
+  /**
+   * Determine index of string inside string table. Unknown strings are
+   * appended.
+   */
+  private static int stringId(final String value, final Map<String, Integer> stringIds, final List<String> stringTable) {
+    String key = value != null ? value : "";
+    Integer id = stringIds.get(key);
+    if (id == null) {
+      id = stringTable.size();
+      stringIds.put(key, id);
+      stringTable.add(key);
+    }
+    return id;
+  }
+
+  /**
+   * Convert offset inside segment file to buffer position.
+   */
+  private static int toPosition(final long offset) throws IOException {
+    if (offset < 0 || offset > Integer.MAX_VALUE) {
+      throw new IOException("Invalid offset inside index segment: " + offset);
+    }
+    return (int) offset;
+  }
+
+  /**
+   * Write length prefixed UTF-8 string.
+   */
+  private static void writeString(final DataOutputStream out, final String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Read length prefixed UTF-8 string.
+   */
+  private static String readString(final ByteBuffer source) {
+    byte[] bytes = new byte[source.getInt()];
+    source.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writer for segment files. Header and string table are written on
+   * creation, documents have to be added before the terms. Term dictionary
+   * and footer are written on close.
+   */
+  private static final class SegmentWriter implements Closeable {
+
+    /**
+     * Path of segment file.
+     */
+    private final Path path;
+    /**
+     * Stream counting all written bytes.
+     */
+    private final PositionOutputStream position;
+    /**
+     * Output stream.
+     */
+    private final DataOutputStream out;
+    /**
+     * Terms in the order they were added.
+     */
+    private final List<String> terms = new ArrayList<>();
+    /**
+     * Offsets of postings for each term.
+     */
+    private long[] offsets = new long[16];
+
+    /**
+     * Create segment file and write header and string table.
+     *
+     * @param path Path of segment file.
+     * @param baseDocId ID of first document.
+     * @param numberOfDocs Number of documents.
+     * @param stringTable All strings referenced by documents.
+     * @throws IOException Error writing segment.
+     */
+    SegmentWriter(final Path path, final int baseDocId, final int numberOfDocs, final List<String> stringTable) throws IOException {
+      this.path = path;
+      position = new PositionOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+      out = new DataOutputStream(position);
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(baseDocId);
+      out.writeInt(numberOfDocs);
+      out.writeInt(stringTable.size());
+      for (String string : stringTable) {
+        writeString(out, string);
+      }
+    }
+
+    /**
+     * Write entry of one document.
+     *
+     * @param docEntries String references and order of documents.
+     * @param start Index of first field of document.
+     * @param confidence Confidence level of document.
+     * @throws IOException Error writing segment.
+     */
+    void addDocument(final int[] docEntries, final int start, final float confidence) throws IOException {
+      for (int field = 0; field < 5; field++) {
+        out.writeInt(docEntries[start + field]);
+      }
+      out.writeFloat(confidence);
+    }
+
+    /**
+     * Write postings of a term. Terms have to be added in ascending order.
+     *
+     * @param term Term.
+     * @param postings Postings with document IDs local to segment.
+     * @throws IOException Error writing segment.
+     */
+    void addTerm(final String term, final Postings postings) throws IOException {
+      if (terms.size() == offsets.length) {
+        offsets = Arrays.copyOf(offsets, offsets.length * 2);
+      }
+      offsets[terms.size()] = position.getPosition();
+      terms.add(term);
+      PostingCodec.write(out, postings);
+    }
+
+    /**
+     * Write term dictionary and footer. The file is removed if it exceeds
+     * the maximum segment size.
+     *
+     * @throws IOException Error writing segment.
+     */
+    @Override
+    public void close() throws IOException {
+      long size;
+      try (DataOutputStream output = out) {
+        long dictionaryOffset = position.getPosition();
+        output.writeInt(terms.size());
+        for (int index = 0; index < terms.size(); index++) {
+          writeString(output, terms.get(index));
+          output.writeLong(offsets[index]);
+        }
+        output.writeLong(dictionaryOffset);
+        size = position.getPosition();
+      }
+      if (size > MAX_SEGMENT_SIZE) {
+        Files.deleteIfExists(path);
+        throw new IOException("Index segment exceeds maximum size of " + MAX_SEGMENT_SIZE + " bytes: " + path);
+      }
+    }
+  }
+
+  /**
+   * Output stream tracking the number of written bytes as long value.
+   */
+  private static final class PositionOutputStream extends FilterOutputStream {
+
+    /**
+     * Number of written bytes.
+     */
+    private long position;
+
+    /**
+     * Constructor.
+     *
+     * @param out Underlying output stream.
+     */
+    PositionOutputStream(final OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      out.write(b);
+      position++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      out.write(b, off, len);
+      position += len;
+    }
+
+    /**
+     * Get number of written bytes.
+     *
+     * @return Position inside stream.
+     */
+    long getPosition() {
+      return position;
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.index;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Encoding and decoding of posting lists. Document IDs and positions are
+ * stored as deltas to their predecessor using variable length integers.
+ */
+final class PostingCodec {
+
+  /**
+   * Utility class.
+   */
+  private PostingCodec() {
+  }
+
+  /**
+   * Write a non negative integer as variable length integer (7 bits per
+   * byte).
+   *
+   * @param out Output stream.
+   * @param value Value to write.
+   * @throws IOException Error writing to stream.
+   */
+  static void writeVInt(final OutputStream out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  /**
+   * Read a variable length integer from the current position of the buffer.
+   *
+   * @param buffer Buffer to read from.
+   * @return Decoded value.
+   */
+  static int readVInt(final ByteBuffer buffer) {
+    byte b = buffer.get();
+    int value = b & 0x7F;
+    for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+      b = buffer.get();
+      value |= (b & 0x7F) << shift;
+    }
+    return value;
+  }
+
+  /**
+   * Encode postings. Layout: number of docs, then for each doc: doc delta,
+   * number of positions, position deltas.
+   *
+   * @param out Output stream.
+   * @param postings Postings to encode.
+   * @throws IOException Error writing to stream.
+   */
+  static void write(final OutputStream out, final Postings postings) throws IOException {
+    writeVInt(out, postings.size);
+    int lastDoc = 0;
+    for (int index = 0; index < postings.size; index++) {
+      int doc = postings.docs[index];
+      writeVInt(out, doc - lastDoc);
+      lastDoc = doc;
+      int[] positions = postings.positions[index];
+      writeVInt(out, positions.length);
+      int lastPosition = 0;
+      for (int position : positions) {
+        writeVInt(out, position - lastPosition);
+        lastPosition = position;
+      }
+    }
+  }
+
+  /**
+   * Decode postings starting at the current position of the buffer.
+   *
+   * @param buffer Buffer holding encoded postings.
+   * @return Decoded postings.
+   */
+  static Postings read(final ByteBuffer buffer) {
+    int size = readVInt(buffer);
+    Postings postings = new Postings(size);
+    int doc = 0;
+    for (int index = 0; index < size; index++) {
+      doc += readVInt(buffer);
+      int[] positions = new int[readVInt(buffer)];
+      int position = 0;
+      for (int posIndex = 0; posIndex < positions.length; posIndex++) {
+        position += readVInt(buffer);
+        positions[posIndex] = position;
+      }
+      postings.add(doc, positions);
+    }
+    return postings;
+  }
+
+  /**
+   * Decoded posting list of one term.
+   */
+  static final class Postings {
+
+    /**
+     * Document IDs in ascending order.
+     */
+    int[] docs;
+    /**
+     * Positions of the term for each document.
+     */
+    int[][] positions;
+    /**
+     * Number of documents.
+     */
+    int size;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity Initial capacity.
+     */
+    Postings(final int capacity) {
+      docs = new int[Math.max(capacity, 1)];
+      positions = new int[docs.length][];
+    }
+
+    /**
+     * Append a document. Documents have to be added in ascending order.
+     *
+     * @param doc Document ID.
+     * @param docPositions Positions of term inside document.
+     */
+    void add(final int doc, final int[] docPositions) {
+      if (size == docs.length) {
+        docs = Arrays.copyOf(docs, size * 2);
+        positions = Arrays.copyOf(positions, size * 2);
+      }
+      docs[size] = doc;
+      positions[size] = docPositions;
+      size++;
+    }
+
+    /**
+     * Find index of given document.
+     *
+     * @param doc Document ID.
+     * @return Index or negative value if document is not listed.
+     */
+    int indexOf(final int doc) {
+      return Arrays.binarySearch(docs, 0, size, doc);
+    }
+  }
+}
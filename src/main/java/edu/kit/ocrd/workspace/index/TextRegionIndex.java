@@ -0,0 +1,523 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.index;
+
+import edu.kit.ocrd.workspace.PageExtractorUtil;
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import edu.kit.ocrd.workspace.index.PostingCodec.Postings;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Embeddable inverted full-text index over text regions extracted by
+ * {@link PageExtractorUtil}.
+ * <p>
+ * Added regions are buffered in memory and written as immutable, memory
+ * mapped segment files on {@link #commit()}. Segments are grouped into
+ * levels by their size (each level is 'merge factor' times larger than the
+ * level below). As soon as 'merge factor' adjacent segments share the same
+ * level only these segments are merged, so each region is rewritten only
+ * once per level. Merged segments never exceed the maximum segment size. The
+ * list of active segments is stored in file 'segments' which is replaced
+ * atomically.
+ */
+public class TextRegionIndex implements Closeable {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(TextRegionIndex.class);
+  /**
+   * Name of the file listing all active segments.
+   */
+  public static final String SEGMENTS_FILE = "segments";
+  /**
+   * Default number of segments triggering a merge.
+   */
+  public static final int DEFAULT_MERGE_FACTOR = 10;
+  /**
+   * Default maximum size of merged segments in bytes.
+   */
+  public static final long DEFAULT_MAX_SEGMENT_SIZE = 1L << 30;
+  /**
+   * Segments up to this size (in bytes) belong to the lowest level.
+   */
+  private static final long LEVEL_FLOOR_SIZE = 64L << 10;
+  /**
+   * Prefix of segment files.
+   */
+  private static final String SEGMENT_PREFIX = "segment_";
+  /**
+   * Suffix of segment files.
+   */
+  private static final String SEGMENT_SUFFIX = ".idx";
+  /**
+   * Directory holding all index files.
+   */
+  private final Path indexDirectory;
+  /**
+   * Number of segments triggering a merge.
+   */
+  private final int mergeFactor;
+  /**
+   * Maximum size of merged segments in bytes.
+   */
+  private final long maxSegmentSize;
+  /**
+   * Active segments ordered by base document ID.
+   */
+  private final List<IndexSegment> segments = new ArrayList<>();
+  /**
+   * Regions added since last commit.
+   */
+  private final List<TextRegion> pendingDocuments = new ArrayList<>();
+  /**
+   * Postings of regions added since last commit.
+   */
+  private final SortedMap<String, Postings> pendingPostings = new TreeMap<>();
+  /**
+   * Number of next segment file.
+   */
+  private int nextSegmentNumber;
+
+  /**
+   * Open or create index inside given directory.
+   *
+   * @param indexDirectory Directory holding all index files.
+   * @param mergeFactor Number of segments triggering a merge.
+   * @param maxSegmentSize Maximum size of merged segments in bytes (at most
+   * 2 GB).
+   * @throws IOException Error reading index.
+   */
+  public TextRegionIndex(final Path indexDirectory, final int mergeFactor, final long maxSegmentSize) throws IOException {
+    this.indexDirectory = indexDirectory;
+    this.mergeFactor = Math.max(mergeFactor, 2);
+    this.maxSegmentSize = Math.min(maxSegmentSize, IndexSegment.MAX_SEGMENT_SIZE);
+    Files.createDirectories(indexDirectory);
+    Path segmentsFile = indexDirectory.resolve(SEGMENTS_FILE);
+    List<String> activeSegments = new ArrayList<>();
+    if (Files.exists(segmentsFile)) {
+      activeSegments = Files.readAllLines(segmentsFile, StandardCharsets.UTF_8);
+    }
+    for (String segmentName : activeSegments) {
+      if (!segmentName.trim().isEmpty()) {
+        segments.add(new IndexSegment(indexDirectory.resolve(segmentName.trim())));
+        nextSegmentNumber = Math.max(nextSegmentNumber, getSegmentNumber(segmentName.trim()) + 1);
+      }
+    }
+    deleteUnusedSegments(activeSegments);
+    LOGGER.debug("Opened index '{}' with {} segment(s).", indexDirectory, segments.size());
+  }
+
+  /**
+   * Open or create index inside given directory.
+   *
+   * @param indexDirectory Directory holding all index files.
+   * @param mergeFactor Number of segments triggering a merge.
+   * @throws IOException Error reading index.
+   */
+  public TextRegionIndex(final Path indexDirectory, final int mergeFactor) throws IOException {
+    this(indexDirectory, mergeFactor, DEFAULT_MAX_SEGMENT_SIZE);
+  }
+
+  /**
+   * Open or create index inside given directory.
+   *
+   * @param indexDirectory Directory holding all index files.
+   * @throws IOException Error reading index.
+   */
+  public TextRegionIndex(final Path indexDirectory) throws IOException {
+    this(indexDirectory, DEFAULT_MERGE_FACTOR);
+  }
+
+  /**
+   * Extract all text regions of a workspace and add them to the index.
+   *
+   * @param metsFile METS file of workspace.
+   * @param resourceId Resource ID of METS document.
+   * @return Number of added regions.
+   * @throws Exception Error extracting text regions.
+   */
+  public int addWorkspace(final File metsFile, final String resourceId) throws Exception {
+    List<TextRegion> textRegions = PageExtractorUtil.extractAllTextRegions(metsFile, resourceId);
+    addTextRegions(textRegions);
+    return textRegions.size();
+  }
+
+  /**
+   * Add text regions to the index. Regions are searchable after next commit.
+   *
+   * @param textRegions Text regions to add.
+   */
+  public synchronized void addTextRegions(final List<TextRegion> textRegions) {
+    for (TextRegion textRegion : textRegions) {
+      int localDoc = pendingDocuments.size();
+      pendingDocuments.add(textRegion);
+      for (Map.Entry<String, List<Integer>> entry : tokenizeWithPositions(textRegion.getText()).entrySet()) {
+        int[] positions = new int[entry.getValue().size()];
+        for (int index = 0; index < positions.length; index++) {
+          positions[index] = entry.getValue().get(index);
+        }
+        Postings postings = pendingPostings.get(entry.getKey());
+        if (postings == null) {
+          postings = new Postings(1);
+          pendingPostings.put(entry.getKey(), postings);
+        }
+        postings.add(localDoc, positions);
+      }
+    }
+  }
+
+  /**
+   * Write all pending regions to a new segment. Merge adjacent segments of
+   * the same level if there are at least 'merge factor' of them.
+   *
+   * @throws IOException Error writing segment.
+   */
+  public synchronized void commit() throws IOException {
+    if (pendingDocuments.isEmpty()) {
+      return;
+    }
+    Path segmentPath = nextSegmentPath();
+    IndexSegment.write(segmentPath, getNumberOfDocuments(), pendingDocuments, pendingPostings);
+    segments.add(new IndexSegment(segmentPath));
+    LOGGER.debug("Wrote segment '{}' with {} region(s) and {} term(s).", segmentPath, pendingDocuments.size(), pendingPostings.size());
+    pendingDocuments.clear();
+    pendingPostings.clear();
+    writeSegmentsFile();
+    int start;
+    while ((start = findMergeCandidates()) >= 0) {
+      merge(start, start + mergeFactor);
+    }
+  }
+
+  /**
+   * Merge all segments into as few segments as the maximum segment size
+   * allows.
+   *
+   * @throws IOException Error writing segment.
+   */
+  public synchronized void merge() throws IOException {
+    int start = 0;
+    while (start < segments.size()) {
+      long size = segments.get(start).getSize();
+      int end = start + 1;
+      while (end < segments.size() && size + segments.get(end).getSize() <= maxSegmentSize) {
+        size += segments.get(end).getSize();
+        end++;
+      }
+      if (end - start > 1) {
+        merge(start, end);
+      }
+      start++;
+    }
+  }
+
+  /**
+   * Find 'merge factor' adjacent segments of the same level. Newer (and
+   * therefore usually smaller) segments are preferred.
+   *
+   * @return Index of first segment or -1 if there is nothing to merge.
+   */
+  private int findMergeCandidates() {
+    for (int start = segments.size() - mergeFactor; start >= 0; start--) {
+      int level = getLevel(segments.get(start).getSize());
+      long size = 0;
+      boolean sameLevel = true;
+      for (int index = start; index < start + mergeFactor && sameLevel; index++) {
+        size += segments.get(index).getSize();
+        sameLevel = getLevel(segments.get(index).getSize()) == level;
+      }
+      if (sameLevel && size <= maxSegmentSize) {
+        return start;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Determine level of a segment. All segments up to the floor size belong
+   * to level 0, each higher level holds segments up to 'merge factor' times
+   * the size of the level below.
+   *
+   * @param size Size of segment in bytes.
+   * @return Level of segment.
+   */
+  private int getLevel(final long size) {
+    int level = 0;
+    for (double limit = LEVEL_FLOOR_SIZE; size > limit; limit *= mergeFactor) {
+      level++;
+    }
+    return level;
+  }
+
+  /**
+   * Replace adjacent segments by one merged segment.
+   *
+   * @param start Index of first segment (inclusive).
+   * @param end Index of last segment (exclusive).
+   * @throws IOException Error writing segment.
+   */
+  private void merge(final int start, final int end) throws IOException {
+    List<IndexSegment> mergedSegments = segments.subList(start, end);
+    LOGGER.debug("Merge {} segments of index '{}'.", mergedSegments.size(), indexDirectory);
+    Path segmentPath = nextSegmentPath();
+    IndexSegment.merge(segmentPath, mergedSegments);
+    List<IndexSegment> oldSegments = new ArrayList<>(mergedSegments);
+    mergedSegments.clear();
+    segments.add(start, new IndexSegment(segmentPath));
+    writeSegmentsFile();
+    for (IndexSegment segment : oldSegments) {
+      Files.deleteIfExists(segment.getPath());
+    }
+  }
+
+  /**
+   * Search for regions containing all terms of the query.
+   *
+   * @param query Query terms.
+   * @param minConfidence Minimum confidence level of regions.
+   * @return Matching regions (without text) in order of indexing.
+   */
+  public synchronized List<TextRegion> search(final String query, final float minConfidence) {
+    return search(tokenize(query), false, minConfidence);
+  }
+
+  /**
+   * Search for regions containing the terms of the phrase in the given order.
+   *
+   * @param phrase Phrase.
+   * @param minConfidence Minimum confidence level of regions.
+   * @return Matching regions (without text) in order of indexing.
+   */
+  public synchronized List<TextRegion> searchPhrase(final String phrase, final float minConfidence) {
+    return search(tokenize(phrase), true, minConfidence);
+  }
+
+  /**
+   * Get number of committed regions.
+   *
+   * @return Number of regions.
+   */
+  public synchronized int getNumberOfDocuments() {
+    int numberOfDocuments = 0;
+    if (!segments.isEmpty()) {
+      IndexSegment last = segments.get(segments.size() - 1);
+      numberOfDocuments = last.getBaseDocId() + last.getNumberOfDocs();
+    }
+    return numberOfDocuments;
+  }
+
+  /**
+   * Get number of active segments.
+   *
+   * @return Number of segments.
+   */
+  public synchronized int getNumberOfSegments() {
+    return segments.size();
+  }
+
+  /**
+   * Commit pending regions and release all segments.
+   *
+   * @throws IOException Error writing segment.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    commit();
+    segments.clear();
+  }
+
+  /**
+   * Search all segments for the given terms.
+   *
+   * @param terms Terms to search for.
+   * @param phrase Terms have to be consecutive.
+   * @param minConfidence Minimum confidence level of regions.
+   * @return Matching regions.
+   */
+  private List<TextRegion> search(final List<String> terms, final boolean phrase, final float minConfidence) {
+    List<TextRegion> hits = new ArrayList<>();
+    if (terms.isEmpty()) {
+      return hits;
+    }
+    for (IndexSegment segment : segments) {
+      Postings[] postings = new Postings[terms.size()];
+      boolean allTermsFound = true;
+      for (int index = 0; index < postings.length && allTermsFound; index++) {
+        postings[index] = segment.getPostings(terms.get(index));
+        allTermsFound = postings[index] != null;
+      }
+      if (!allTermsFound) {
+        continue;
+      }
+      for (int index = 0; index < postings[0].size; index++) {
+        int doc = postings[0].docs[index];
+        if (segment.getConfidence(doc) >= minConfidence && matches(postings, index, doc, phrase)) {
+          hits.add(segment.getDocument(doc));
+        }
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * Test if document contains all terms (at consecutive positions for
+   * phrases).
+   *
+   * @param postings Postings of all terms.
+   * @param firstIndex Index of document inside postings of first term.
+   * @param doc Document ID.
+   * @param phrase Terms have to be consecutive.
+   * @return true if document matches.
+   */
+  private static boolean matches(final Postings[] postings, final int firstIndex, final int doc, final boolean phrase) {
+    int[] termIndices = new int[postings.length];
+    termIndices[0] = firstIndex;
+    for (int term = 1; term < postings.length; term++) {
+      termIndices[term] = postings[term].indexOf(doc);
+      if (termIndices[term] < 0) {
+        return false;
+      }
+    }
+    if (!phrase) {
+      return true;
+    }
+    for (int start : postings[0].positions[firstIndex]) {
+      boolean found = true;
+      for (int term = 1; term < postings.length && found; term++) {
+        found = Arrays.binarySearch(postings[term].positions[termIndices[term]], start + term) >= 0;
+      }
+      if (found) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Split text into lower case terms consisting of letters and digits.
+   *
+   * @param text Text.
+   * @return List of terms.
+   */
+  static List<String> tokenize(final String text) {
+    List<String> terms = new ArrayList<>();
+    if (text == null) {
+      return terms;
+    }
+    int start = -1;
+    for (int index = 0; index <= text.length(); index++) {
+      boolean termChar = index < text.length() && Character.isLetterOrDigit(text.charAt(index));
+      if (termChar && start < 0) {
+        start = index;
+      } else if (!termChar && start >= 0) {
+        terms.add(text.substring(start, index).toLowerCase(Locale.ROOT));
+        start = -1;
+      }
+    }
+    return terms;
+  }
+
+  /**
+   * Tokenize text and collect positions of each term.
+   *
+   * @param text Text.
+   * @return Map of terms to positions.
+   */
+  private static Map<String, List<Integer>> tokenizeWithPositions(final String text) {
+    Map<String, List<Integer>> positions = new LinkedHashMap<>();
+    List<String> terms = tokenize(text);
+    for (int position = 0; position < terms.size(); position++) {
+      positions.computeIfAbsent(terms.get(position), k -> new ArrayList<>()).add(position);
+    }
+    return positions;
+  }
+
+  /**
+   * Determine path of next segment file.
+   *
+   * @return Path of new segment.
+   */
+  private Path nextSegmentPath() {
+    return indexDirectory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, nextSegmentNumber++, SEGMENT_SUFFIX));
+  }
+
+  /**
+   * Replace file listing all active segments atomically.
+   *
+   * @throws IOException Error writing file.
+   */
+  private void writeSegmentsFile() throws IOException {
+    List<String> segmentNames = new ArrayList<>();
+    for (IndexSegment segment : segments) {
+      segmentNames.add(segment.getPath().getFileName().toString());
+    }
+    Path tempFile = indexDirectory.resolve(SEGMENTS_FILE + ".tmp");
+    Files.write(tempFile, segmentNames, StandardCharsets.UTF_8);
+    Files.move(tempFile, indexDirectory.resolve(SEGMENTS_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Remove segment files left over by an interrupted commit or merge.
+   *
+   * @param activeSegments Names of all active segments.
+   * @throws IOException Error deleting files.
+   */
+  private void deleteUnusedSegments(final List<String> activeSegments) throws IOException {
+    Map<String, Path> unused = new HashMap<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(indexDirectory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+      for (Path path : stream) {
+        unused.put(path.getFileName().toString(), path);
+      }
+    }
+    for (String segmentName : activeSegments) {
+      unused.remove(segmentName.trim());
+    }
+    for (Path path : unused.values()) {
+      nextSegmentNumber = Math.max(nextSegmentNumber, getSegmentNumber(path.getFileName().toString()) + 1);
+      LOGGER.debug("Delete unused segment '{}'.", path);
+      Files.delete(path);
+    }
+  }
+
+  /**
+   * Extract number of segment from its file name.
+   *
+   * @param segmentName File name of segment.
+   * @return Number of segment.
+   */
+  private static int getSegmentNumber(final String segmentName) {
+    return Integer.parseInt(segmentName.substring(SEGMENT_PREFIX.length(), segmentName.length() - SEGMENT_SUFFIX.length()));
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for calculating/verifying the checksums of a bag.
+ */
+@Name("edu.kit.ocrd.BagHashing")
+@Label("Bag Hashing")
+@Description("Calculation or verification of the checksums of a BagIt container")
+@Category({"OCR-D", "BagIt"})
+@StackTrace(false)
+public class BagHashingEvent extends Event implements FlightRecorderEvents.BagHashing {
+
+  /**
+   * OCR-D identifier of the bag.
+   */
+  @Label("Resource ID")
+  String resourceId;
+  /**
+   * Root directory of the bag.
+   */
+  @Label("Path")
+  String path;
+  /**
+   * Operation (build or verify).
+   */
+  @Label("Operation")
+  String operation;
+  /**
+   * Size of the payload.
+   */
+  @Label("Size")
+  @DataAmount
+  long size;
+  /**
+   * Number of payload files.
+   */
+  @Label("Node Count")
+  int nodeCount;
+
+  /**
+   * End event and commit it if recording is enabled.
+   *
+   * @param resourceId OCR-D identifier of the bag.
+   * @param path Root directory of the bag.
+   * @param operation Operation (build or verify).
+   * @param size Size of the payload in bytes.
+   * @param nodeCount Number of payload files.
+   */
+  @Override
+  public void complete(final String resourceId, final String path, final String operation, final long size, final int nodeCount) {
+    end();
+    if (shouldCommit()) {
+      this.resourceId = resourceId;
+      this.path = path;
+      this.operation = operation;
+      this.size = size;
+      this.nodeCount = nodeCount;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.metrics;
+
+import java.util.Iterator;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jdom.Document;
+import org.jdom.filter.ElementFilter;
+
+/**
+ * Flight recorder event for parsing an XML document (METS, PAGE or
+ * provenance). The number of elements is only counted if the event is
+ * recorded.
+ */
+@Name("edu.kit.ocrd.DocumentParse")
+@Label("Document Parse")
+@Description("Parsing of an XML document into a JDOM document")
+@Category({"OCR-D", "Extraction"})
+@StackTrace(false)
+public class DocumentParseEvent extends Event implements FlightRecorderEvents.DocumentParse {
+
+  /**
+   * Resource ID of the METS document.
+   */
+  @Label("Resource ID")
+  String resourceId;
+  /**
+   * Path of the parsed file.
+   */
+  @Label("Path")
+  String path;
+  /**
+   * Size of the parsed file.
+   */
+  @Label("Size")
+  @DataAmount
+  long size;
+  /**
+   * Number of elements of the parsed document.
+   */
+  @Label("Node Count")
+  int nodeCount;
+
+  /**
+   * End event and commit it if recording is enabled.
+   *
+   * @param resourceId Resource ID of the METS document (may be null).
+   * @param path Path of the parsed file.
+   * @param size Size of the parsed file in bytes.
+   * @param document Parsed document (may be null if parsing failed).
+   */
+  @Override
+  public void complete(final String resourceId, final String path, final long size, final Document document) {
+    end();
+    if (shouldCommit()) {
+      this.resourceId = resourceId;
+      this.path = path;
+      this.size = size;
+      this.nodeCount = document != null ? countElements(document) : 0;
+      commit();
+    }
+  }
+
+  /**
+   * Count all elements of document.
+   *
+   * @param document Document.
+   * @return Number of elements.
+   */
+  static int countElements(final Document document) {
+    int noOfElements = 0;
+    Iterator iterator = document.getDescendants(new ElementFilter());
+    while (iterator.hasNext()) {
+      iterator.next();
+      noOfElements++;
+    }
+    return noOfElements;
+  }
+}
@@ -0,0 +1,395 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer instrumentation of all extraction stages.
+ * <p>
+ * Meters are registered at the global registry by default. Spring Boot
+ * (actuator) adds its registry to the global registry so that all meters
+ * are exposed via '/actuator/metrics'. As long as no registry is configured
+ * the stages are executed without any measurement.
+ * <p>
+ * Meters:
+ * <ul>
+ * <li>{@value #METRIC_DURATION}: Timer per stage and outcome.</li>
+ * <li>{@value #METRIC_ITEMS}: Counter of extracted items per stage.</li>
+ * <li>{@value #METRIC_FILE_SIZE}: Summary of the size of parsed files
+ * (bytes).</li>
+ * <li>{@value #METRIC_CHECKSUM_BYTES}: Counter of verified payload
+ * (bytes).</li>
+ * <li>{@value #METRIC_CHECKSUM_THROUGHPUT}: Summary of the checksum
+ * throughput (bytes/s).</li>
+ * </ul>
+ */
+public class ExtractionMetrics {
+
+  /**
+   * Name of the timer of all stages.
+   */
+  public static final String METRIC_DURATION = "ocrd.extraction.duration";
+  /**
+   * Name of the counter of extracted items.
+   */
+  public static final String METRIC_ITEMS = "ocrd.extraction.items";
+  /**
+   * Name of the summary of parsed file sizes.
+   */
+  public static final String METRIC_FILE_SIZE = "ocrd.extraction.file.size";
+  /**
+   * Name of the counter of verified payload.
+   */
+  public static final String METRIC_CHECKSUM_BYTES = "ocrd.bagit.checksum.bytes";
+  /**
+   * Name of the summary of the checksum throughput.
+   */
+  public static final String METRIC_CHECKSUM_THROUGHPUT = "ocrd.bagit.checksum.throughput";
+  /**
+   * Name of the counter of lookups in the document cache.
+   */
+  public static final String METRIC_DOCUMENT_CACHE = "ocrd.document.cache";
+  /**
+   * Tag holding the stage.
+   */
+  public static final String TAG_STAGE = "stage";
+  /**
+   * Tag holding the outcome.
+   */
+  public static final String TAG_OUTCOME = "outcome";
+  /**
+   * Outcome of successful stages.
+   */
+  public static final String OUTCOME_SUCCESS = "success";
+  /**
+   * Outcome of failed stages.
+   */
+  public static final String OUTCOME_FAILURE = "failure";
+  /**
+   * Outcome of cache lookups finding a valid entry.
+   */
+  public static final String OUTCOME_HIT = "hit";
+  /**
+   * Outcome of cache lookups without (valid) entry.
+   */
+  public static final String OUTCOME_MISS = "miss";
+  /**
+   * Outcome of entries removed from cache due to its size limit.
+   */
+  public static final String OUTCOME_EVICTION = "eviction";
+  /**
+   * Stage: Parse METS document.
+   */
+  public static final String STAGE_METS_PARSE = "mets.parse";
+  /**
+   * Stage: Extract files from METS.
+   */
+  public static final String STAGE_METS_FILES = "mets.files";
+  /**
+   * Stage: Extract metadata from METS.
+   */
+  public static final String STAGE_METS_METADATA = "mets.metadata";
+  /**
+   * Stage: Extract identifiers from METS.
+   */
+  public static final String STAGE_METS_IDENTIFIER = "mets.identifier";
+  /**
+   * Stage: Extract languages from METS.
+   */
+  public static final String STAGE_METS_LANGUAGE = "mets.language";
+  /**
+   * Stage: Extract classifications from METS.
+   */
+  public static final String STAGE_METS_CLASSIFICATION = "mets.classification";
+  /**
+   * Stage: Extract genres from METS.
+   */
+  public static final String STAGE_METS_GENRE = "mets.genre";
+  /**
+   * Stage: Extract ground truth features from METS.
+   */
+  public static final String STAGE_METS_GROUND_TRUTH = "mets.groundtruth";
+  /**
+   * Stage: Extract PAGE URLs from METS.
+   */
+  public static final String STAGE_METS_PAGE_URLS = "mets.pageurls";
+  /**
+   * Stage: Extract logical structure from METS.
+   */
+  public static final String STAGE_METS_LOGICAL_STRUCTURE = "mets.logicalstructure";
+  /**
+   * Stage: Extract preview of workspace.
+   */
+  public static final String STAGE_METS_PREVIEW = "mets.preview";
+  /**
+   * Stage: Parse one PAGE file.
+   */
+  public static final String STAGE_PAGE_PARSE = "page.parse";
+  /**
+   * Stage: Extract text regions of one PAGE file.
+   */
+  public static final String STAGE_PAGE_TEXT_REGIONS = "page.textregions";
+  /**
+   * Stage: Extract text regions of all PAGE files.
+   */
+  public static final String STAGE_PAGE_ALL_TEXT_REGIONS = "page.alltextregions";
+  /**
+   * Stage: Fetch remote PAGE file.
+   */
+  public static final String STAGE_PAGE_FETCH = "page.fetch";
+  /**
+   * Stage: Stream text elements of PAGE document.
+   */
+  public static final String STAGE_PAGE_STREAM = "page.stream";
+  /**
+   * Stage: Extract workflows from provenance.
+   */
+  public static final String STAGE_PROVENANCE_WORKFLOWS = "provenance.workflows";
+  /**
+   * Stage: Build bag.
+   */
+  public static final String STAGE_BAGIT_BUILD = "bagit.build";
+  /**
+   * Stage: Read bag.
+   */
+  public static final String STAGE_BAGIT_READ = "bagit.read";
+  /**
+   * Stage: Fetch profile and check bag against it.
+   */
+  public static final String STAGE_BAGIT_PROFILE = "bagit.profile";
+  /**
+   * Stage: Verify checksums of bag.
+   */
+  public static final String STAGE_BAGIT_CHECKSUM = "bagit.checksum";
+  /**
+   * Registry used for all meters.
+   */
+  private static volatile MeterRegistry registry = Metrics.globalRegistry;
+
+  /**
+   * Stage which may throw a checked exception.
+   *
+   * @param <T> Result of stage.
+   * @param <E> Exception thrown by stage.
+   */
+  @FunctionalInterface
+  public interface Stage<T, E extends Exception> {
+
+    /**
+     * Execute stage.
+     *
+     * @return Result of stage.
+     * @throws E Error executing stage.
+     */
+    T execute() throws E;
+  }
+
+  /**
+   * Set registry used for all meters. (Default: global registry)
+   *
+   * @param meterRegistry Registry.
+   */
+  public static void setRegistry(final MeterRegistry meterRegistry) {
+    registry = meterRegistry;
+  }
+
+  /**
+   * Get registry used for all meters.
+   *
+   * @return Registry.
+   */
+  public static MeterRegistry getRegistry() {
+    return registry;
+  }
+
+  /**
+   * Is any registry configured? A composite registry without any registry
+   * (e.g. global registry without Spring Boot actuator) is regarded as not
+   * configured.
+   *
+   * @return true if measurements are recorded.
+   */
+  public static boolean isEnabled() {
+    MeterRegistry current = registry;
+    return !(current instanceof CompositeMeterRegistry) || !((CompositeMeterRegistry) current).getRegistries().isEmpty();
+  }
+
+  /**
+   * Execute stage and record its duration and outcome. If the result is a
+   * collection its size is added to the counter of extracted items.
+   *
+   * @param <T> Result of stage.
+   * @param <E> Exception thrown by stage.
+   * @param stage Name of stage.
+   * @param execution Stage to execute.
+   * @return Result of stage.
+   * @throws E Error executing stage.
+   */
+  public static <T, E extends Exception> T record(final String stage, final Stage<T, E> execution) throws E {
+    if (!isEnabled()) {
+      return execution.execute();
+    }
+    Sample sample = start(stage);
+    T result;
+    try {
+      result = execution.execute();
+    } catch (Exception ex) {
+      sample.failure();
+      throw ex;
+    }
+    sample.success();
+    if (result instanceof Collection) {
+      countItems(stage, ((Collection) result).size());
+    }
+    return result;
+  }
+
+  /**
+   * Start measurement of stage. Measurement has to be finished by
+   * {@link Sample#success()} or {@link Sample#failure()}.
+   *
+   * @param stage Name of stage.
+   * @return Sample (does nothing if no registry is configured).
+   */
+  public static Sample start(final String stage) {
+    return isEnabled() ? new Sample(stage, System.nanoTime()) : Sample.DISABLED;
+  }
+
+  /**
+   * Add extracted items of stage.
+   *
+   * @param stage Name of stage.
+   * @param noOfItems Number of extracted items.
+   */
+  public static void countItems(final String stage, final long noOfItems) {
+    if (isEnabled()) {
+      Counter.builder(METRIC_ITEMS).tag(TAG_STAGE, stage).register(registry).increment(noOfItems);
+    }
+  }
+
+  /**
+   * Record size of parsed file.
+   *
+   * @param stage Name of stage.
+   * @param bytes Size of file in bytes.
+   */
+  public static void recordFileSize(final String stage, final long bytes) {
+    if (isEnabled()) {
+      DistributionSummary.builder(METRIC_FILE_SIZE).baseUnit("bytes").tag(TAG_STAGE, stage).register(registry).record(bytes);
+    }
+  }
+
+  /**
+   * Count lookup or eviction of the document cache.
+   *
+   * @param outcome Outcome ({@link #OUTCOME_HIT}, {@link #OUTCOME_MISS} or
+   * {@link #OUTCOME_EVICTION}).
+   */
+  public static void countDocumentCache(final String outcome) {
+    if (isEnabled()) {
+      Counter.builder(METRIC_DOCUMENT_CACHE).tag(TAG_OUTCOME, outcome).register(registry).increment();
+    }
+  }
+
+  /**
+   * Record verified payload and throughput of checksum calculation.
+   *
+   * @param bytes Size of verified payload in bytes.
+   * @param nanos Duration of verification in nanoseconds.
+   */
+  public static void recordChecksumThroughput(final long bytes, final long nanos) {
+    if (isEnabled()) {
+      Counter.builder(METRIC_CHECKSUM_BYTES).baseUnit("bytes").register(registry).increment(bytes);
+      if (nanos > 0) {
+        DistributionSummary.builder(METRIC_CHECKSUM_THROUGHPUT).baseUnit("bytes/s").register(registry)
+                .record(bytes * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+      }
+    }
+  }
+
+  /**
+   * Running measurement of one stage.
+   */
+  public static final class Sample {
+
+    /**
+     * Sample used if no registry is configured.
+     */
+    private static final Sample DISABLED = new Sample(null, 0);
+    /**
+     * Name of stage.
+     */
+    private final String stage;
+    /**
+     * Start time in nanoseconds.
+     */
+    private final long startTime;
+
+    /**
+     * Constructor.
+     *
+     * @param stage Name of stage.
+     * @param startTime Start time in nanoseconds.
+     */
+    private Sample(final String stage, final long startTime) {
+      this.stage = stage;
+      this.startTime = startTime;
+    }
+
+    /**
+     * Get elapsed time since start.
+     *
+     * @return Elapsed time in nanoseconds (0 if disabled).
+     */
+    public long elapsed() {
+      return this == DISABLED ? 0 : System.nanoTime() - startTime;
+    }
+
+    /**
+     * Stop measurement of successful stage.
+     */
+    public void success() {
+      stop(OUTCOME_SUCCESS);
+    }
+
+    /**
+     * Stop measurement of failed stage.
+     */
+    public void failure() {
+      stop(OUTCOME_FAILURE);
+    }
+
+    /**
+     * Stop measurement.
+     *
+     * @param outcome Outcome of stage.
+     */
+    private void stop(final String outcome) {
+      if (this != DISABLED) {
+        Timer.builder(METRIC_DURATION).tag(TAG_STAGE, stage).tag(TAG_OUTCOME, outcome)
+                .register(registry).record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.metrics;
+
+import org.jdom.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Entry point for all flight recorder events. The event classes extend
+ * 'jdk.jfr.Event' which is missing on Java 8 runtimes before 8u262. Events
+ * are therefore only created if this class is available at runtime;
+ * otherwise a no-op implementation is returned and nothing is recorded.
+ */
+public final class FlightRecorderEvents {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(FlightRecorderEvents.class);
+  /**
+   * Flight recorder API is available.
+   */
+  private static final boolean AVAILABLE = isFlightRecorderAvailable();
+
+  /**
+   * Utility class.
+   */
+  private FlightRecorderEvents() {
+  }
+
+  /**
+   * Test if flight recorder events are supported by the runtime.
+   *
+   * @return true if events are recorded while a recording is running.
+   */
+  public static boolean isAvailable() {
+    return AVAILABLE;
+  }
+
+  /**
+   * Begin event for parsing an XML document.
+   *
+   * @return Started event.
+   */
+  public static DocumentParse beginDocumentParse() {
+    return AVAILABLE ? JfrEvents.beginDocumentParse() : NoOpEvent.INSTANCE;
+  }
+
+  /**
+   * Begin event for evaluating an XPath expression on a whole document.
+   *
+   * @return Started event.
+   */
+  public static XPathEvaluation beginXPathEvaluation() {
+    return AVAILABLE ? JfrEvents.beginXPathEvaluation() : NoOpEvent.INSTANCE;
+  }
+
+  /**
+   * Begin event for extracting the text regions of one PAGE file.
+   *
+   * @return Started event.
+   */
+  public static RegionExtraction beginRegionExtraction() {
+    return AVAILABLE ? JfrEvents.beginRegionExtraction() : NoOpEvent.INSTANCE;
+  }
+
+  /**
+   * Begin event for building the provenance graph of a workspace.
+   *
+   * @return Started event.
+   */
+  public static ProvenanceBuild beginProvenanceBuild() {
+    return AVAILABLE ? JfrEvents.beginProvenanceBuild() : NoOpEvent.INSTANCE;
+  }
+
+  /**
+   * Begin event for calculating/verifying the checksums of a bag.
+   *
+   * @return Started event.
+   */
+  public static BagHashing beginBagHashing() {
+    return AVAILABLE ? JfrEvents.beginBagHashing() : NoOpEvent.INSTANCE;
+  }
+
+  /**
+   * Look up the base class of all flight recorder events once.
+   *
+   * @return true if class 'jdk.jfr.Event' is available.
+   */
+  private static boolean isFlightRecorderAvailable() {
+    try {
+      Class.forName("jdk.jfr.Event");
+      return true;
+    } catch (ClassNotFoundException | LinkageError ex) {
+      LOGGER.debug("Flight recorder not available, events are not recorded.");
+      return false;
+    }
+  }
+
+  /**
+   * Event for parsing an XML document (see {@link DocumentParseEvent}).
+   */
+  public interface DocumentParse {
+
+    /**
+     * Test if the event is recorded.
+     *
+     * @return true if event is enabled.
+     */
+    boolean isEnabled();
+
+    /**
+     * End event and commit it if recording is enabled.
+     *
+     * @param resourceId Resource ID of the METS document (may be null).
+     * @param path Path of the parsed file.
+     * @param size Size of the parsed file in bytes.
+     * @param document Parsed document (may be null if parsing failed).
+     */
+    void complete(String resourceId, String path, long size, Document document);
+  }
+
+  /**
+   * Event for evaluating an XPath expression (see
+   * {@link XPathEvaluationEvent}).
+   */
+  public interface XPathEvaluation {
+
+    /**
+     * End event and commit it if recording is enabled.
+     *
+     * @param resourceId Resource ID of the METS document (may be null).
+     * @param path Path (base URI) of the document.
+     * @param expression Evaluated expression.
+     * @param nodeCount Number of selected nodes.
+     */
+    void complete(String resourceId, String path, String expression, int nodeCount);
+  }
+
+  /**
+   * Event for extracting the text regions of one PAGE file (see
+   * {@link RegionExtractionEvent}).
+   */
+  public interface RegionExtraction {
+
+    /**
+     * End event and commit it if recording is enabled.
+     *
+     * @param resourceId Resource ID of the METS document.
+     * @param path Path of the PAGE file.
+     * @param nodeCount Number of text regions inside PAGE file.
+     * @param extractedRegions Number of extracted text regions.
+     */
+    void complete(String resourceId, String path, int nodeCount, int extractedRegions);
+  }
+
+  /**
+   * Event for building the provenance graph (see
+   * {@link ProvenanceBuildEvent}).
+   */
+  public interface ProvenanceBuild {
+
+    /**
+     * End event and commit it if recording is enabled.
+     *
+     * @param resourceId Resource ID of the METS document.
+     * @param path Path (base URI) of the provenance document.
+     * @param nodeCount Number of activities and entities.
+     * @param processors Number of extracted processor records.
+     */
+    void complete(String resourceId, String path, int nodeCount, int processors);
+  }
+
+  /**
+   * Event for calculating/verifying the checksums of a bag (see
+   * {@link BagHashingEvent}).
+   */
+  public interface BagHashing {
+
+    /**
+     * Operation of creating a bag.
+     */
+    String OPERATION_BUILD = "build";
+    /**
+     * Operation of verifying a bag.
+     */
+    String OPERATION_VERIFY = "verify";
+
+    /**
+     * Test if the event is recorded.
+     *
+     * @return true if event is enabled.
+     */
+    boolean isEnabled();
+
+    /**
+     * End event and commit it if recording is enabled.
+     *
+     * @param resourceId OCR-D identifier of the bag.
+     * @param path Root directory of the bag.
+     * @param operation Operation (build or verify).
+     * @param size Size of the payload in bytes.
+     * @param nodeCount Number of payload files.
+     */
+    void complete(String resourceId, String path, String operation, long size, int nodeCount);
+  }
+
+  /**
+   * Creates the flight recorder events. Only loaded if the flight recorder
+   * API is available.
+   */
+  private static final class JfrEvents {
+
+    /**
+     * Utility class.
+     */
+    private JfrEvents() {
+    }
+
+    /**
+     * Begin event for parsing an XML document.
+     *
+     * @return Started event.
+     */
+    static DocumentParse beginDocumentParse() {
+      DocumentParseEvent event = new DocumentParseEvent();
+      event.begin();
+      return event;
+    }
+
+    /**
+     * Begin event for evaluating an XPath expression.
+     *
+     * @return Started event.
+     */
+    static XPathEvaluation beginXPathEvaluation() {
+      XPathEvaluationEvent event = new XPathEvaluationEvent();
+      event.begin();
+      return event;
+    }
+
+    /**
+     * Begin event for extracting the text regions of a PAGE file.
+     *
+     * @return Started event.
+     */
+    static RegionExtraction beginRegionExtraction() {
+      RegionExtractionEvent event = new RegionExtractionEvent();
+      event.begin();
+      return event;
+    }
+
+    /**
+     * Begin event for building the provenance graph.
+     *
+     * @return Started event.
+     */
+    static ProvenanceBuild beginProvenanceBuild() {
+      ProvenanceBuildEvent event = new ProvenanceBuildEvent();
+      event.begin();
+      return event;
+    }
+
+    /**
+     * Begin event for hashing a bag.
+     *
+     * @return Started event.
+     */
+    static BagHashing beginBagHashing() {
+      BagHashingEvent event = new BagHashingEvent();
+      event.begin();
+      return event;
+    }
+  }
+
+  /**
+   * Event doing nothing (flight recorder not available).
+   */
+  private enum NoOpEvent implements DocumentParse, XPathEvaluation, RegionExtraction, ProvenanceBuild, BagHashing {
+    /**
+     * Single instance.
+     */
+    INSTANCE;
+
+    @Override
+    public boolean isEnabled() {
+      return false;
+    }
+
+    @Override
+    public void complete(final String resourceId, final String path, final long size, final Document document) {
+    }
+
+    @Override
+    public void complete(final String resourceId, final String path, final String expression, final int nodeCount) {
+    }
+
+    @Override
+    public void complete(final String resourceId, final String path, final int nodeCount, final int extractedRegions) {
+    }
+
+    @Override
+    public void complete(final String resourceId, final String path, final String operation, final long size, final int nodeCount) {
+    }
+  }
+}
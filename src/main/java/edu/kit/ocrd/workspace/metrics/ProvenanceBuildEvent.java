@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for building the provenance graph (activities and
+ * entities) of a workspace.
+ */
+@Name("edu.kit.ocrd.ProvenanceBuild")
+@Label("Provenance Build")
+@Description("Building of the provenance graph of a workspace")
+@Category({"OCR-D", "Extraction"})
+@StackTrace(false)
+public class ProvenanceBuildEvent extends Event implements FlightRecorderEvents.ProvenanceBuild {
+
+  /**
+   * Resource ID of the METS document.
+   */
+  @Label("Resource ID")
+  String resourceId;
+  /**
+   * Path (base URI) of the provenance document.
+   */
+  @Label("Path")
+  String path;
+  /**
+   * Number of activities and entities of the graph.
+   */
+  @Label("Node Count")
+  int nodeCount;
+  /**
+   * Number of extracted processor records.
+   */
+  @Label("Processors")
+  int processors;
+
+  /**
+   * End event and commit it if recording is enabled.
+   *
+   * @param resourceId Resource ID of the METS document.
+   * @param path Path (base URI) of the provenance document.
+   * @param nodeCount Number of activities and entities.
+   * @param processors Number of extracted processor records.
+   */
+  @Override
+  public void complete(final String resourceId, final String path, final int nodeCount, final int processors) {
+    end();
+    if (shouldCommit()) {
+      this.resourceId = resourceId;
+      this.path = path;
+      this.nodeCount = nodeCount;
+      this.processors = processors;
+      commit();
+    }
+  }
+}
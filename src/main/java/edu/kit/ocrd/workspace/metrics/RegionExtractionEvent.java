@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for extracting the text regions of one PAGE file.
+ */
+@Name("edu.kit.ocrd.RegionExtraction")
+@Label("Region Extraction")
+@Description("Extraction of all text regions of a PAGE file")
+@Category({"OCR-D", "Extraction"})
+@StackTrace(false)
+public class RegionExtractionEvent extends Event implements FlightRecorderEvents.RegionExtraction {
+
+  /**
+   * Resource ID of the METS document.
+   */
+  @Label("Resource ID")
+  String resourceId;
+  /**
+   * Path of the PAGE file.
+   */
+  @Label("Path")
+  String path;
+  /**
+   * Number of text regions inside PAGE file.
+   */
+  @Label("Node Count")
+  int nodeCount;
+  /**
+   * Number of extracted (non empty) text regions.
+   */
+  @Label("Extracted Regions")
+  int extractedRegions;
+
+  /**
+   * End event and commit it if recording is enabled.
+   *
+   * @param resourceId Resource ID of the METS document.
+   * @param path Path of the PAGE file.
+   * @param nodeCount Number of text regions inside PAGE file.
+   * @param extractedRegions Number of extracted text regions.
+   */
+  @Override
+  public void complete(final String resourceId, final String path, final int nodeCount, final int extractedRegions) {
+    end();
+    if (shouldCommit()) {
+      this.resourceId = resourceId;
+      this.path = path;
+      this.nodeCount = nodeCount;
+      this.extractedRegions = extractedRegions;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for evaluating an XPath expression on a document.
+ * Only expressions depending on the size of the document are covered (e.g.
+ * lookups via '//').
+ */
+@Name("edu.kit.ocrd.XPathEvaluation")
+@Label("XPath Evaluation")
+@Description("Evaluation of an XPath expression on a whole document")
+@Category({"OCR-D", "Extraction"})
+@StackTrace(false)
+public class XPathEvaluationEvent extends Event implements FlightRecorderEvents.XPathEvaluation {
+
+  /**
+   * Resource ID of the METS document.
+   */
+  @Label("Resource ID")
+  String resourceId;
+  /**
+   * Path (base URI) of the document.
+   */
+  @Label("Path")
+  String path;
+  /**
+   * Evaluated expression.
+   */
+  @Label("Expression")
+  String expression;
+  /**
+   * Number of selected nodes.
+   */
+  @Label("Node Count")
+  int nodeCount;
+
+  /**
+   * End event and commit it if recording is enabled.
+   *
+   * @param resourceId Resource ID of the METS document (may be null).
+   * @param path Path (base URI) of the document.
+   * @param expression Evaluated expression.
+   * @param nodeCount Number of selected nodes.
+   */
+  @Override
+  public void complete(final String resourceId, final String path, final String expression, final int nodeCount) {
+    end();
+    if (shouldCommit()) {
+      this.resourceId = resourceId;
+      this.path = path;
+      this.expression = expression;
+      this.nodeCount = nodeCount;
+      commit();
+    }
+  }
+}
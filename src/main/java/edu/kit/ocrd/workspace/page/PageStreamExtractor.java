@@ -0,0 +1,544 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.page;
+
+import edu.kit.ocrd.workspace.XmlParserUtil;
+import edu.kit.ocrd.workspace.metrics.ExtractionMetrics;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streaming (StAX) extraction of text from PAGE documents at selectable
+ * granularity (region, line, word or glyph). Unlike
+ * {@link edu.kit.ocrd.workspace.PageExtractorUtil} no DOM is built: only
+ * the state of the currently open elements is held, so memory is
+ * independent of the size of the page.
+ * <p>
+ * For each element of the selected granularity with non-blank text the
+ * first 'TextEquiv/Unicode' and its confidence are emitted together with the
+ * bounding box of its 'Coords' (attribute 'points' or 'Point' elements of
+ * older PAGE versions). The namespace (i.e. the PAGE version) is ignored.
+ */
+public class PageStreamExtractor {
+
+  /**
+   * Granularity of extracted text.
+   */
+  public enum Granularity {
+    /**
+     * Text regions.
+     */
+    REGION("TextRegion"),
+    /**
+     * Text lines.
+     */
+    LINE("TextLine"),
+    /**
+     * Words.
+     */
+    WORD("Word"),
+    /**
+     * Glyphs.
+     */
+    GLYPH("Glyph");
+
+    /**
+     * Local name of PAGE element.
+     */
+    private final String elementName;
+
+    /**
+     * Constructor.
+     *
+     * @param elementName Local name of PAGE element.
+     */
+    Granularity(final String elementName) {
+      this.elementName = elementName;
+    }
+
+    /**
+     * Get local name of PAGE element.
+     *
+     * @return the elementName
+     */
+    public String getElementName() {
+      return elementName;
+    }
+
+    /**
+     * Get granularity of PAGE element.
+     *
+     * @param localName Local name of element.
+     * @return Granularity or null if element holds no text of any
+     * granularity.
+     */
+    static Granularity forElement(final String localName) {
+      for (Granularity granularity : values()) {
+        if (granularity.elementName.equals(localName)) {
+          return granularity;
+        }
+      }
+      return null;
+    }
+  }
+  /**
+   * Element holding text and confidence.
+   */
+  private static final String TEXT_EQUIV = "TextEquiv";
+  /**
+   * Element holding text.
+   */
+  private static final String UNICODE = "Unicode";
+  /**
+   * Element holding coordinates.
+   */
+  private static final String COORDS = "Coords";
+  /**
+   * Element holding one point (PAGE 2010 and older).
+   */
+  private static final String POINT = "Point";
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PageStreamExtractor.class);
+  /**
+   * Shared factory (thread safe after configuration).
+   */
+  private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+  /**
+   * Utility class.
+   */
+  private PageStreamExtractor() {
+  }
+
+  /**
+   * Extract text elements of PAGE file.
+   *
+   * @param pageFile PAGE file.
+   * @param granularity Granularity of text elements.
+   * @param consumer Consumer of all text elements in document order.
+   * @return Number of emitted text elements.
+   * @throws IOException Error reading file or document is not well-formed.
+   */
+  public static int extract(final Path pageFile, final Granularity granularity, final Consumer<PageTextElement> consumer) throws IOException {
+    return extract(pageFile, granularity, consumer, () -> false);
+  }
+
+  /**
+   * Extract text elements of PAGE file until stop condition is met. The
+   * condition is checked before each element, so reading stops within one
+   * element after it is met.
+   *
+   * @param pageFile PAGE file.
+   * @param granularity Granularity of text elements.
+   * @param consumer Consumer of text elements in document order.
+   * @param stop Stop condition (e.g. a deadline).
+   * @return Number of emitted text elements.
+   * @throws IOException Error reading file or document is not well-formed.
+   */
+  public static int extract(final Path pageFile, final Granularity granularity, final Consumer<PageTextElement> consumer,
+          final BooleanSupplier stop) throws IOException {
+    ExtractionMetrics.Sample sample = ExtractionMetrics.start(ExtractionMetrics.STAGE_PAGE_STREAM);
+    try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(pageFile), XmlParserUtil.BUFFER_SIZE)) {
+      int noOfElements = extract(inputStream, granularity, consumer, stop);
+      sample.success();
+      ExtractionMetrics.countItems(ExtractionMetrics.STAGE_PAGE_STREAM, noOfElements);
+      return noOfElements;
+    } catch (IOException | RuntimeException ex) {
+      sample.failure();
+      throw ex;
+    }
+  }
+
+  /**
+   * Extract text elements of PAGE file into a list. Memory depends on the
+   * number of text elements; prefer
+   * {@link #extract(Path, Granularity, Consumer)} for large pages.
+   *
+   * @param pageFile PAGE file.
+   * @param granularity Granularity of text elements.
+   * @return All text elements in document order.
+   * @throws IOException Error reading file or document is not well-formed.
+   */
+  public static List<PageTextElement> extract(final Path pageFile, final Granularity granularity) throws IOException {
+    List<PageTextElement> textElements = new ArrayList<>();
+    extract(pageFile, granularity, textElements::add);
+    return textElements;
+  }
+
+  /**
+   * Extract text elements of PAGE document. The stream is not closed.
+   *
+   * @param inputStream Stream containing PAGE document.
+   * @param granularity Granularity of text elements.
+   * @param consumer Consumer of all text elements in document order.
+   * @return Number of emitted text elements.
+   * @throws IOException Error reading stream or document is not
+   * well-formed.
+   */
+  public static int extract(final InputStream inputStream, final Granularity granularity, final Consumer<PageTextElement> consumer) throws IOException {
+    return extract(inputStream, granularity, consumer, () -> false);
+  }
+
+  /**
+   * Extract text elements of PAGE document until stop condition is met. The
+   * stream is not closed.
+   *
+   * @param inputStream Stream containing PAGE document.
+   * @param granularity Granularity of text elements.
+   * @param consumer Consumer of text elements in document order.
+   * @param stop Stop condition checked before each element.
+   * @return Number of emitted text elements.
+   * @throws IOException Error reading stream or document is not
+   * well-formed.
+   */
+  public static int extract(final InputStream inputStream, final Granularity granularity, final Consumer<PageTextElement> consumer,
+          final BooleanSupplier stop) throws IOException {
+    try {
+      XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(inputStream);
+      try {
+        return extract(reader, granularity, consumer, stop);
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException ex) {
+      throw new IOException(ex.getMessage(), ex);
+    }
+  }
+
+  /**
+   * Extract text elements from stream reader.
+   *
+   * @param reader Stream reader.
+   * @param granularity Granularity of text elements.
+   * @param consumer Consumer of text elements.
+   * @param stop Stop condition checked before each element.
+   * @return Number of emitted text elements.
+   * @throws XMLStreamException Error parsing document.
+   */
+  private static int extract(final XMLStreamReader reader, final Granularity granularity, final Consumer<PageTextElement> consumer,
+          final BooleanSupplier stop) throws XMLStreamException {
+    // Frames of open elements of tracked granularity (reused per nesting level).
+    List<Frame> frames = new ArrayList<>();
+    int noOfFrames = 0;
+    int noOfTopLevelElements = 0;
+    int noOfElements = 0;
+    int depth = 0;
+    while (reader.hasNext()) {
+      int event = reader.next();
+      Frame top = noOfFrames > 0 ? frames.get(noOfFrames - 1) : null;
+      switch (event) {
+        case XMLStreamConstants.START_ELEMENT:
+          if (stop.getAsBoolean()) {
+            LOGGER.trace("Stopped after {} text element(s) of granularity {}", noOfElements, granularity);
+            return noOfElements;
+          }
+          depth++;
+          String localName = reader.getLocalName();
+          Granularity level = Granularity.forElement(localName);
+          if (level != null && level.ordinal() <= granularity.ordinal()) {
+            if (noOfFrames == frames.size()) {
+              frames.add(new Frame());
+            }
+            Frame frame = frames.get(noOfFrames++);
+            frame.open(level, depth, reader.getAttributeValue(null, "id"), top != null ? top.noOfChildren++ : noOfTopLevelElements++, top);
+          } else if (top != null && depth == top.depth + 1) {
+            if (TEXT_EQUIV.equals(localName) && !top.hasTextEquiv) {
+              top.hasTextEquiv = true;
+              top.inTextEquiv = true;
+              top.confidence = parseConfidence(reader.getAttributeValue(null, "conf"));
+            } else if (COORDS.equals(localName)) {
+              top.inCoords = true;
+              String points = reader.getAttributeValue(null, "points");
+              if (points != null) {
+                top.addPoints(points);
+              }
+            }
+          } else if (top != null && depth == top.depth + 2) {
+            if (top.inTextEquiv && UNICODE.equals(localName)) {
+              top.inUnicode = true;
+            } else if (top.inCoords && POINT.equals(localName)) {
+              top.addPoint(parseInt(reader.getAttributeValue(null, "x")), parseInt(reader.getAttributeValue(null, "y")));
+            }
+          }
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+          if (top != null && top.inUnicode) {
+            top.text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+          }
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          if (top != null) {
+            if (depth == top.depth + 2) {
+              top.inUnicode = false;
+            } else if (depth == top.depth + 1) {
+              top.inTextEquiv = false;
+              top.inCoords = false;
+            } else if (depth == top.depth) {
+              noOfFrames--;
+              if (top.level == granularity && top.hasText()) {
+                consumer.accept(top.toTextElement());
+                noOfElements++;
+              }
+            }
+          }
+          depth--;
+          break;
+        default:
+          break;
+      }
+    }
+    LOGGER.trace("Extracted {} text element(s) of granularity {}", noOfElements, granularity);
+    return noOfElements;
+  }
+
+  /**
+   * Parse confidence.
+   *
+   * @param value Value of attribute 'conf' (may be null).
+   * @return Confidence or NaN if not available.
+   */
+  private static float parseConfidence(final String value) {
+    if (value == null) {
+      return Float.NaN;
+    }
+    try {
+      return Float.parseFloat(value);
+    } catch (NumberFormatException ex) {
+      LOGGER.debug("Invalid confidence '{}'", value);
+      return Float.NaN;
+    }
+  }
+
+  /**
+   * Parse coordinate.
+   *
+   * @param value Value of coordinate (may be null).
+   * @return Coordinate or -1 if not available.
+   */
+  private static int parseInt(final String value) {
+    if (value == null) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException ex) {
+      LOGGER.debug("Invalid coordinate '{}'", value);
+      return -1;
+    }
+  }
+
+  /**
+   * Create factory for namespace aware parsing without DTDs.
+   *
+   * @return Factory.
+   */
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    return factory;
+  }
+
+  /**
+   * State of one open element of tracked granularity.
+   */
+  private static final class Frame {
+
+    /**
+     * Granularity of element.
+     */
+    private Granularity level;
+    /**
+     * Depth of element.
+     */
+    private int depth;
+    /**
+     * ID of element.
+     */
+    private String id;
+    /**
+     * ID of enclosing region.
+     */
+    private String regionId;
+    /**
+     * ID of enclosing line.
+     */
+    private String lineId;
+    /**
+     * Index inside parent.
+     */
+    private int index;
+    /**
+     * Number of tracked child elements.
+     */
+    private int noOfChildren;
+    /**
+     * First 'TextEquiv' already found?
+     */
+    private boolean hasTextEquiv;
+    /**
+     * Inside first 'TextEquiv'?
+     */
+    private boolean inTextEquiv;
+    /**
+     * Inside 'Unicode' of first 'TextEquiv'?
+     */
+    private boolean inUnicode;
+    /**
+     * Inside 'Coords'?
+     */
+    private boolean inCoords;
+    /**
+     * Confidence of text.
+     */
+    private float confidence;
+    /**
+     * Text (buffer reused for all elements of this nesting level).
+     */
+    private final StringBuilder text = new StringBuilder();
+    /**
+     * Bounding box.
+     */
+    private int minX;
+    /**
+     * Bounding box.
+     */
+    private int minY;
+    /**
+     * Bounding box.
+     */
+    private int maxX;
+    /**
+     * Bounding box.
+     */
+    private int maxY;
+
+    /**
+     * Reset frame for new element.
+     *
+     * @param elementLevel Granularity of element.
+     * @param elementDepth Depth of element.
+     * @param elementId ID of element.
+     * @param elementIndex Index inside parent.
+     * @param parent Frame of parent element (may be null).
+     */
+    void open(final Granularity elementLevel, final int elementDepth, final String elementId, final int elementIndex, final Frame parent) {
+      level = elementLevel;
+      depth = elementDepth;
+      id = elementId;
+      index = elementIndex;
+      regionId = elementLevel == Granularity.REGION ? elementId : parent != null ? parent.regionId : null;
+      if (elementLevel == Granularity.REGION) {
+        lineId = null;
+      } else {
+        lineId = elementLevel == Granularity.LINE ? elementId : parent != null ? parent.lineId : null;
+      }
+      noOfChildren = 0;
+      hasTextEquiv = false;
+      inTextEquiv = false;
+      inUnicode = false;
+      inCoords = false;
+      confidence = Float.NaN;
+      text.setLength(0);
+      minX = Integer.MAX_VALUE;
+      minY = Integer.MAX_VALUE;
+      maxX = -1;
+      maxY = -1;
+    }
+
+    /**
+     * Add points of attribute 'points' (e.g. '1,2 3,4') to bounding box.
+     *
+     * @param points Points.
+     */
+    void addPoints(final String points) {
+      int length = points.length();
+      int position = 0;
+      while (position < length) {
+        while (position < length && points.charAt(position) == ' ') {
+          position++;
+        }
+        int separator = points.indexOf(',', position);
+        if (separator < 0) {
+          break;
+        }
+        int end = points.indexOf(' ', separator);
+        if (end < 0) {
+          end = length;
+        }
+        addPoint(parseInt(points.substring(position, separator)), parseInt(points.substring(separator + 1, end)));
+        position = end;
+      }
+    }
+
+    /**
+     * Add point to bounding box.
+     *
+     * @param x X coordinate (ignored if negative).
+     * @param y Y coordinate (ignored if negative).
+     */
+    void addPoint(final int x, final int y) {
+      if (x >= 0 && y >= 0) {
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+      }
+    }
+
+    /**
+     * Has element non-blank text?
+     *
+     * @return true if text is not blank.
+     */
+    boolean hasText() {
+      for (int position = 0; position < text.length(); position++) {
+        if (!Character.isWhitespace(text.charAt(position))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Create record of element.
+     *
+     * @return Text element.
+     */
+    PageTextElement toTextElement() {
+      boolean hasBounds = maxX >= 0;
+      return new PageTextElement(level, id, regionId, lineId, index, confidence, text.toString(),
+              hasBounds ? minX : -1, hasBounds ? minY : -1, maxX, maxY);
+    }
+  }
+}
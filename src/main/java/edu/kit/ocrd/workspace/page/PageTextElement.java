@@ -0,0 +1,213 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.page;
+
+/**
+ * Text of one element (region, line, word or glyph) of a PAGE document as
+ * emitted by {@link PageStreamExtractor}. Immutable.
+ */
+public final class PageTextElement {
+
+  /**
+   * Granularity of element.
+   */
+  private final PageStreamExtractor.Granularity granularity;
+  /**
+   * ID of element.
+   */
+  private final String id;
+  /**
+   * ID of enclosing text region.
+   */
+  private final String regionId;
+  /**
+   * ID of enclosing text line (null for regions).
+   */
+  private final String lineId;
+  /**
+   * Index of element inside its parent of the same granularity (0-based).
+   */
+  private final int index;
+  /**
+   * Confidence of text (NaN if not given).
+   */
+  private final float confidence;
+  /**
+   * Text of element.
+   */
+  private final String text;
+  /**
+   * Bounding box: minimal x.
+   */
+  private final int minX;
+  /**
+   * Bounding box: minimal y.
+   */
+  private final int minY;
+  /**
+   * Bounding box: maximal x.
+   */
+  private final int maxX;
+  /**
+   * Bounding box: maximal y.
+   */
+  private final int maxY;
+
+  /**
+   * Constructor.
+   *
+   * @param granularity Granularity of element.
+   * @param id ID of element.
+   * @param regionId ID of enclosing text region.
+   * @param lineId ID of enclosing text line (null for regions).
+   * @param index Index of element inside its parent.
+   * @param confidence Confidence of text (NaN if not given).
+   * @param text Text of element.
+   * @param minX Minimal x of bounding box (-1 if element has no coordinates).
+   * @param minY Minimal y of bounding box (-1 if element has no coordinates).
+   * @param maxX Maximal x of bounding box (-1 if element has no coordinates).
+   * @param maxY Maximal y of bounding box (-1 if element has no coordinates).
+   */
+  PageTextElement(final PageStreamExtractor.Granularity granularity, final String id, final String regionId, final String lineId,
+          final int index, final float confidence, final String text, final int minX, final int minY, final int maxX, final int maxY) {
+    this.granularity = granularity;
+    this.id = id;
+    this.regionId = regionId;
+    this.lineId = lineId;
+    this.index = index;
+    this.confidence = confidence;
+    this.text = text;
+    this.minX = minX;
+    this.minY = minY;
+    this.maxX = maxX;
+    this.maxY = maxY;
+  }
+
+  /**
+   * Get granularity of element.
+   *
+   * @return the granularity
+   */
+  public PageStreamExtractor.Granularity getGranularity() {
+    return granularity;
+  }
+
+  /**
+   * Get ID of element.
+   *
+   * @return the id
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Get ID of enclosing text region (ID of element itself for regions).
+   *
+   * @return the regionId
+   */
+  public String getRegionId() {
+    return regionId;
+  }
+
+  /**
+   * Get ID of enclosing text line (ID of element itself for lines).
+   *
+   * @return the lineId (null for regions)
+   */
+  public String getLineId() {
+    return lineId;
+  }
+
+  /**
+   * Get index of element inside its parent (e.g. index of word inside
+   * line).
+   *
+   * @return the index (0-based)
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * Get confidence of text.
+   *
+   * @return the confidence (NaN if not given)
+   */
+  public float getConfidence() {
+    return confidence;
+  }
+
+  /**
+   * Is confidence of text given?
+   *
+   * @return true if confidence is available.
+   */
+  public boolean hasConfidence() {
+    return !Float.isNaN(confidence);
+  }
+
+  /**
+   * Get text of element.
+   *
+   * @return the text
+   */
+  public String getText() {
+    return text;
+  }
+
+  /**
+   * Get minimal x of bounding box.
+   *
+   * @return the minX (-1 if element has no coordinates)
+   */
+  public int getMinX() {
+    return minX;
+  }
+
+  /**
+   * Get minimal y of bounding box.
+   *
+   * @return the minY (-1 if element has no coordinates)
+   */
+  public int getMinY() {
+    return minY;
+  }
+
+  /**
+   * Get maximal x of bounding box.
+   *
+   * @return the maxX (-1 if element has no coordinates)
+   */
+  public int getMaxX() {
+    return maxX;
+  }
+
+  /**
+   * Get maximal y of bounding box.
+   *
+   * @return the maxY (-1 if element has no coordinates)
+   */
+  public int getMaxY() {
+    return maxY;
+  }
+
+  @Override
+  public String toString() {
+    return granularity + "[id=" + id + ", regionId=" + regionId + ", lineId=" + lineId + ", index=" + index
+            + ", confidence=" + confidence + ", bounds=" + minX + "," + minY + "," + maxX + "," + maxY + ", text=" + text + "]";
+  }
+}
@@ -0,0 +1,572 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.pipeline;
+
+import com.github.jscancella.domain.Bag;
+import com.github.jscancella.reader.BagReader;
+import edu.kit.ocrd.workspace.BagItUtil;
+import edu.kit.ocrd.workspace.MetsDocumentUtil;
+import edu.kit.ocrd.workspace.PageExtractorUtil;
+import edu.kit.ocrd.workspace.WorkspaceSession;
+import edu.kit.ocrd.workspace.XmlParserUtil;
+import edu.kit.ocrd.workspace.cache.ExtractionCache;
+import edu.kit.ocrd.workspace.provenance.ProvenanceUtil;
+import edu.kit.ocrd.workspace.stats.ConfidenceStatisticsCollector;
+import edu.kit.ocrd.workspace.stats.ProcessorPerformanceAggregator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.apache.commons.io.FileUtils;
+import org.jdom.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pipeline ingesting directories of bags (zipped or unzipped). Each bag
+ * passes the stages
+ * <ol>
+ * <li>unzip</li>
+ * <li>validate (read bag and verify checksums/profile)</li>
+ * <li>parse METS (files and metadata)</li>
+ * <li>extract provenance</li>
+ * <li>extract text regions (all fileGrps, selected fileGrps or final OCR
+ * output only)</li>
+ * <li>persist</li>
+ * </ol>
+ * Each stage has its own parallelism, so hashing (I/O bound) and parsing (CPU
+ * bound) overlap. A slow sink blocks the preceding stages instead of
+ * buffering the whole corpus. Optionally the processor latencies of all
+ * persisted bags are merged into a corpus wide rollup after each run.
+ */
+public class BagIngestPipeline {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(BagIngestPipeline.class);
+  /**
+   * Stage extracting zipped bags.
+   */
+  public static final String STAGE_UNZIP = "unzip";
+  /**
+   * Stage reading and validating bags.
+   */
+  public static final String STAGE_VALIDATE = "validate";
+  /**
+   * Stage parsing METS.
+   */
+  public static final String STAGE_METS = "mets";
+  /**
+   * Stage extracting text regions.
+   */
+  public static final String STAGE_TEXT = "text";
+  /**
+   * Stage extracting provenance.
+   */
+  public static final String STAGE_PROVENANCE = "provenance";
+  /**
+   * Stage persisting results.
+   */
+  public static final String STAGE_PERSIST = "persist";
+  /**
+   * Location of provenance document inside bag.
+   */
+  public static final String PROVENANCE_LOCATION = WorkspaceSession.PROVENANCE_LOCATION;
+  /**
+   * Suffix of zipped bags.
+   */
+  private static final String ZIP_SUFFIX = ".zip";
+  /**
+   * Sink persisting results.
+   */
+  private final IngestSink sink;
+  /**
+   * Parallelism of all stages.
+   */
+  private final Map<String, Integer> parallelism = new HashMap<>();
+  /**
+   * Capacity of the queue in front of each stage.
+   */
+  private int queueCapacity = Pipeline.DEFAULT_QUEUE_CAPACITY;
+  /**
+   * Directory for extracting zipped bags.
+   */
+  private Path workDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+  /**
+   * Validate bags (checksums and profile).
+   */
+  private boolean validation = true;
+  /**
+   * Version of the extractor recorded with each result.
+   */
+  private String extractorVersion = getDefaultExtractorVersion();
+  /**
+   * Determines resource ID of bag by its source (may be null).
+   */
+  private Function<Path, String> resourceIdResolver;
+  /**
+   * Cache for extracted text regions (may be null).
+   */
+  private ExtractionCache extractionCache;
+  /**
+   * USE of fileGrps for text extraction (empty for all fileGrps).
+   */
+  private List<String> fileGrps = new ArrayList<>();
+  /**
+   * Extract text of final OCR output only.
+   */
+  private boolean finalOcrOutput = false;
+  /**
+   * Threshold for low confidence (NaN if no confidence statistics are
+   * collected).
+   */
+  private float lowConfidenceThreshold = Float.NaN;
+  /**
+   * Rollup file for processor latencies (may be null).
+   */
+  private Path processorRollupFile;
+  /**
+   * Aggregates processor latencies of persisted bags until the end of the
+   * run.
+   */
+  private final ProcessorPerformanceAggregator processorAggregator = new ProcessorPerformanceAggregator();
+
+  /**
+   * Constructor.
+   *
+   * @param sink Sink persisting results.
+   */
+  public BagIngestPipeline(final IngestSink sink) {
+    this.sink = sink;
+    int noOfProcessors = Runtime.getRuntime().availableProcessors();
+    parallelism.put(STAGE_UNZIP, 1);
+    parallelism.put(STAGE_VALIDATE, 2);
+    parallelism.put(STAGE_METS, Math.max(1, noOfProcessors / 2));
+    parallelism.put(STAGE_TEXT, noOfProcessors);
+    parallelism.put(STAGE_PROVENANCE, 1);
+    parallelism.put(STAGE_PERSIST, 1);
+  }
+
+  /**
+   * Set number of threads of stage.
+   *
+   * @param stage Name of stage.
+   * @param noOfThreads Number of threads (at least 1).
+   * @return Pipeline.
+   */
+  public BagIngestPipeline withParallelism(final String stage, final int noOfThreads) {
+    if (!parallelism.containsKey(stage)) {
+      throw new IllegalArgumentException("Unknown stage '" + stage + "'!");
+    }
+    if (noOfThreads < 1) {
+      throw new IllegalArgumentException("Parallelism of stage '" + stage + "' has to be at least 1!");
+    }
+    parallelism.put(stage, noOfThreads);
+    return this;
+  }
+
+  /**
+   * Set capacity of the queue in front of each stage.
+   *
+   * @param capacity Capacity (at least 1).
+   * @return Pipeline.
+   */
+  public BagIngestPipeline withQueueCapacity(final int capacity) {
+    queueCapacity = capacity;
+    return this;
+  }
+
+  /**
+   * Set directory for extracting zipped bags. Extracted bags are removed
+   * after persisting them or if they failed.
+   *
+   * @param directory Directory.
+   * @return Pipeline.
+   */
+  public BagIngestPipeline withWorkDirectory(final Path directory) {
+    workDirectory = directory;
+    return this;
+  }
+
+  /**
+   * Enable/disable validation of bags. Without validation bags are read
+   * without verifying checksums and profile (e.g. for trusted bags).
+   *
+   * @param validate Validate bags.
+   * @return Pipeline.
+   */
+  public BagIngestPipeline withValidation(final boolean validate) {
+    validation = validate;
+    return this;
+  }
+
+  /**
+   * Set version of the extractor recorded with each result. (Default:
+   * version of this library)
+   *
+   * @param version Version of the extractor.
+   * @return Pipeline.
+   */
+  public BagIngestPipeline withExtractorVersion(final String version) {
+    extractorVersion = version;
+    return this;
+  }
+
+  /**
+   * Set resolver determining the resource ID of a bag by its source (e.g.
+   * for already registered bags). If there is no resolver or the resolver
+   * returns null, the OCR-D identifier of the bag is used.
+   *
+   * @param resolver Resolver.
+   * @return Pipeline.
+   */
+  public BagIngestPipeline withResourceIdResolver(final Function<Path, String> resolver) {
+    resourceIdResolver = resolver;
+    return this;
+  }
+
+  /**
+   * Set cache for extracted text regions. PAGE files with the same checksum
+   * in the payload manifest are parsed only once. (Default: no cache)
+   *
+   * @param cache Cache.
+   * @return Pipeline.
+   */
+  public BagIngestPipeline withExtractionCache(final ExtractionCache cache) {
+    extractionCache = cache;
+    return this;
+  }
+
+  /**
+   * Restrict text extraction to PAGE files inside the given fileGrps.
+   * (Default: all fileGrps)
+   *
+   * @param uses USE of fileGrps.
+   * @return Pipeline.
+   */
+  public BagIngestPipeline withFileGrps(final String... uses) {
+    fileGrps = Arrays.asList(uses);
+    return this;
+  }
+
+  /**
+   * Restrict text extraction to the final OCR output, i.e. the PAGE fileGrp
+   * written by the last processor according to the provenance. This
+   * overrides fileGrps set via {@link #withFileGrps(String...)}. (Default:
+   * false)
+   *
+   * @param finalOnly Extract final OCR output only.
+   * @return Pipeline.
+   */
+  public BagIngestPipeline withFinalOcrOutput(final boolean finalOnly) {
+    finalOcrOutput = finalOnly;
+    return this;
+  }
+
+  /**
+   * Collect confidence statistics per page, fileGrp and workspace of the
+   * selected PAGE files (see {@link IngestItem#getConfidenceStatistics()} and
+   * {@link PageExtractorUtil#collectConfidenceStatistics(Document, List, String, java.util.Collection, float)}).
+   * (Default: not collected)
+   *
+   * @param threshold Text regions with a confidence below this threshold are
+   * regarded as low confidence (NaN for not collecting statistics).
+   * @return Pipeline.
+   */
+  public BagIngestPipeline withConfidenceStatistics(final float threshold) {
+    lowConfidenceThreshold = threshold;
+    return this;
+  }
+
+  /**
+   * Merge the processor latencies of all persisted bags into the given
+   * rollup file at the end of each run (see
+   * {@link ProcessorPerformanceAggregator#flush(Path)}). Bags ingested again
+   * are counted again. (Default: no rollup)
+   *
+   * @param rollupFile Rollup file (null for no rollup).
+   * @return Pipeline.
+   */
+  public BagIngestPipeline withProcessorRollup(final Path rollupFile) {
+    processorRollupFile = rollupFile;
+    return this;
+  }
+
+  /**
+   * Get version of the extractor recorded with each result.
+   *
+   * @return Version of the extractor.
+   */
+  public String getExtractorVersion() {
+    return extractorVersion;
+  }
+
+  /**
+   * Ingest all bags (zip files or directories) inside directory.
+   *
+   * @param directory Directory containing bags.
+   * @return Report of run.
+   * @throws IOException Error reading directory.
+   * @throws InterruptedException Ingest was interrupted.
+   */
+  public PipelineReport ingest(final Path directory) throws IOException, InterruptedException {
+    try (DirectoryStream<Path> bags = Files.newDirectoryStream(directory,
+            entry -> Files.isDirectory(entry) || entry.getFileName().toString().endsWith(ZIP_SUFFIX))) {
+      return ingest(bags);
+    }
+  }
+
+  /**
+   * Ingest all bags (zip files or directories).
+   *
+   * @param bags Bags.
+   * @return Report of run.
+   * @throws InterruptedException Ingest was interrupted.
+   */
+  public PipelineReport ingest(final Iterable<Path> bags) throws InterruptedException {
+    Pipeline<Path, IngestItem> pipeline = Pipeline.<Path>builder()
+            .withQueueCapacity(queueCapacity)
+            .stage(STAGE_UNZIP, parallelism.get(STAGE_UNZIP), this::unzip)
+            .stage(STAGE_VALIDATE, parallelism.get(STAGE_VALIDATE), this::readBag)
+            .stage(STAGE_METS, parallelism.get(STAGE_METS), BagIngestPipeline::parseMets)
+            .stage(STAGE_PROVENANCE, parallelism.get(STAGE_PROVENANCE), BagIngestPipeline::extractProvenance)
+            .stage(STAGE_TEXT, parallelism.get(STAGE_TEXT), this::extractText)
+            .stage(STAGE_PERSIST, parallelism.get(STAGE_PERSIST), this::persist)
+            .build();
+    PipelineReport report = pipeline.run(bags);
+    // Remove extracted bags of failed items.
+    for (PipelineReport.Failure failure : report.getFailures()) {
+      if (failure.getItem() instanceof IngestItem && ((IngestItem) failure.getItem()).getExtractedDirectory() != null) {
+        FileUtils.deleteQuietly(((IngestItem) failure.getItem()).getExtractedDirectory().toFile());
+      }
+    }
+    if (processorRollupFile != null) {
+      try {
+        processorAggregator.flush(processorRollupFile);
+      } catch (IOException ex) {
+        LOGGER.error("Error updating processor rollup '{}'!", processorRollupFile, ex);
+      }
+    }
+    LOGGER.info("Ingest finished: {}", report);
+    return report;
+  }
+
+  /**
+   * Extract zipped bag to work directory. Directories are passed as is.
+   *
+   * @param source Zip file or directory.
+   * @return Item.
+   * @throws IOException Error extracting zip file.
+   */
+  IngestItem unzip(final Path source) throws IOException {
+    IngestItem item = new IngestItem(source);
+    item.setExtractorVersion(extractorVersion);
+    if (Files.isDirectory(source)) {
+      item.setBagDirectory(source);
+    } else {
+      String name = source.getFileName().toString();
+      Path targetDir = Files.createTempDirectory(workDirectory, name.substring(0, name.length() - ZIP_SUFFIX.length()) + "_");
+      try {
+        unzip(source, targetDir);
+      } catch (IOException | RuntimeException ex) {
+        FileUtils.deleteDirectory(targetDir.toFile());
+        throw ex;
+      }
+      item.setExtractedDirectory(targetDir);
+      item.setBagDirectory(findBagRoot(targetDir));
+    }
+    return item;
+  }
+
+  /**
+   * Read bag, determine resource ID and METS file.
+   *
+   * @param item Item.
+   * @return Item.
+   * @throws Exception Bag is not valid.
+   */
+  IngestItem readBag(final IngestItem item) throws Exception {
+    Bag bag = validation ? BagItUtil.readBag(item.getBagDirectory()) : BagReader.read(item.getBagDirectory());
+    item.setBag(bag);
+    String resourceId = resourceIdResolver != null ? resourceIdResolver.apply(item.getSource()) : null;
+    item.setResourceId(resourceId != null ? resourceId : BagItUtil.getOcrdIdentifierOfBag(bag));
+    item.setMetsFile(item.getBagDirectory().resolve(BagItUtil.getPathToMets(bag)));
+    return item;
+  }
+
+  /**
+   * Parse METS and extract files and metadata.
+   *
+   * @param item Item.
+   * @return Item.
+   * @throws Exception Error parsing METS.
+   */
+  static IngestItem parseMets(final IngestItem item) throws Exception {
+    Document metsDocument = XmlParserUtil.getDocument(item.getMetsFile(), item.getResourceId());
+    item.setMetsDocument(metsDocument);
+    item.setMetsFiles(MetsDocumentUtil.extractMetsFiles(metsDocument, item.getResourceId(), 1));
+    item.setMetsProperties(MetsDocumentUtil.extractMetadataFromMets(metsDocument, item.getResourceId()));
+    return item;
+  }
+
+  /**
+   * Extract provenance if bag contains a provenance document.
+   *
+   * @param item Item.
+   * @return Item.
+   * @throws Exception Error parsing provenance.
+   */
+  static IngestItem extractProvenance(final IngestItem item) throws Exception {
+    Path provenanceFile = item.getBagDirectory().resolve(PROVENANCE_LOCATION);
+    if (Files.exists(provenanceFile)) {
+      Document provDocument = XmlParserUtil.getDocument(provenanceFile, item.getResourceId());
+      item.setProvenanceMetadata(ProvenanceUtil.extractWorkflows(provDocument, item.getMetsDocument(), item.getResourceId()));
+    } else {
+      LOGGER.debug("No provenance found for '{}'", item.getResourceId());
+      item.setProvenanceMetadata(new ArrayList<>());
+    }
+    return item;
+  }
+
+  /**
+   * Extract text regions of all selected PAGE files. The METS document is
+   * released afterwards.
+   *
+   * @param item Item.
+   * @return Item.
+   * @throws Exception Error parsing PAGE files.
+   */
+  IngestItem extractText(final IngestItem item) throws Exception {
+    List<String> selectedFileGrps = fileGrps;
+    if (finalOcrOutput) {
+      String fileGrp = PageExtractorUtil.selectFinalOcrFileGrp(item.getMetsDocument(), item.getProvenanceMetadata());
+      selectedFileGrps = fileGrp != null ? Collections.singletonList(fileGrp) : null;
+    }
+    Path basePath = item.getMetsFile().getParent();
+    if (selectedFileGrps == null) {
+      // No PAGE files at all.
+      item.setTextRegions(new ArrayList<>());
+    } else if (extractionCache != null) {
+      item.setTextRegions(extractionCache.extractAllTextRegions(item.getBag(), item.getMetsDocument(), basePath, item.getResourceId(), selectedFileGrps));
+    } else {
+      item.setTextRegions(PageExtractorUtil.extractAllTextRegions(item.getMetsDocument(), basePath, item.getResourceId(), selectedFileGrps));
+    }
+    if (!Float.isNaN(lowConfidenceThreshold)) {
+      // Statistics are built from the extracted (or cached) text regions.
+      if (selectedFileGrps == null) {
+        item.setConfidenceStatistics(new ConfidenceStatisticsCollector(lowConfidenceThreshold).getStatistics(item.getResourceId()));
+      } else {
+        item.setConfidenceStatistics(PageExtractorUtil.collectConfidenceStatistics(item.getMetsDocument(), item.getTextRegions(), item.getResourceId(),
+                selectedFileGrps, lowConfidenceThreshold));
+      }
+    }
+    item.setMetsDocument(null);
+    return item;
+  }
+
+  /**
+   * Persist item and remove extracted bag. The processor latencies of
+   * persisted items are added to the rollup.
+   *
+   * @param item Item.
+   * @return Item.
+   * @throws Exception Error persisting item.
+   */
+  IngestItem persist(final IngestItem item) throws Exception {
+    try {
+      sink.persist(item);
+      if (processorRollupFile != null && item.getProvenanceMetadata() != null) {
+        processorAggregator.add(item.getProvenanceMetadata());
+      }
+    } finally {
+      if (item.getExtractedDirectory() != null) {
+        FileUtils.deleteQuietly(item.getExtractedDirectory().toFile());
+      }
+    }
+    return item;
+  }
+
+  /**
+   * Get version of this library.
+   *
+   * @return Version or 'unknown' if not available.
+   */
+  private static String getDefaultExtractorVersion() {
+    String version = BagIngestPipeline.class.getPackage().getImplementationVersion();
+    return version != null ? version : "unknown";
+  }
+
+  /**
+   * Extract zip file to directory.
+   *
+   * @param zipFile Zip file.
+   * @param targetDir Target directory.
+   * @throws IOException Error extracting file or invalid entry.
+   */
+  private static void unzip(final Path zipFile, final Path targetDir) throws IOException {
+    Path normalizedTarget = targetDir.toAbsolutePath().normalize();
+    try (InputStream inputStream = Files.newInputStream(zipFile);
+            ZipInputStream zipStream = new ZipInputStream(inputStream)) {
+      ZipEntry entry;
+      while ((entry = zipStream.getNextEntry()) != null) {
+        Path target = normalizedTarget.resolve(entry.getName()).normalize();
+        if (!target.startsWith(normalizedTarget)) {
+          throw new IOException("Entry '" + entry.getName() + "' is outside of target directory!");
+        }
+        if (entry.isDirectory()) {
+          Files.createDirectories(target);
+        } else {
+          Files.createDirectories(target.getParent());
+          Files.copy(zipStream, target);
+        }
+      }
+    }
+  }
+
+  /**
+   * Determine root directory of extracted bag. Zip files may contain the
+   * bag directly or a single directory containing the bag.
+   *
+   * @param directory Directory of extracted zip file.
+   * @return Root directory of bag.
+   * @throws IOException Error listing directory.
+   */
+  private static Path findBagRoot(final Path directory) throws IOException {
+    if (Files.exists(directory.resolve("bagit.txt"))) {
+      return directory;
+    }
+    List<Path> entries = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      stream.forEach(entries::add);
+    }
+    if (entries.size() == 1 && Files.isDirectory(entries.get(0))) {
+      return entries.get(0);
+    }
+    return directory;
+  }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.pipeline;
+
+import edu.kit.ocrd.workspace.entity.ZippedBagit;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Driver re-extracting the metadata of all archived bags, e.g. after an
+ * update of the extractor.
+ * <ul>
+ * <li>Bags are sharded by the hash of their OCR-D identifier. Several
+ * processes (on one or more nodes sharing the checkpoint directory) may run
+ * at once; each shard is processed by the holder of its file lease.</li>
+ * <li>Each completed bag is recorded in an append-only checkpoint log
+ * together with the version of the extractor. Bags already extracted with
+ * the current extractor version are skipped, so an aborted run resumes
+ * where it stopped.</li>
+ * </ul>
+ * The corpus is iterated once per acquired shard and therefore has to be
+ * iterable several times.
+ */
+public class BulkReextraction {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(BulkReextraction.class);
+  /**
+   * Default duration of leases in milliseconds.
+   */
+  public static final long DEFAULT_LEASE_DURATION = TimeUnit.MINUTES.toMillis(5);
+  /**
+   * Prefix of lease files.
+   */
+  private static final String LEASE_PREFIX = "shard-";
+  /**
+   * Suffix of lease files.
+   */
+  private static final String LEASE_SUFFIX = ".lease";
+  /**
+   * Directory containing checkpoint logs and leases.
+   */
+  private final Path checkpointDirectory;
+  /**
+   * Number of shards.
+   */
+  private final int noOfShards;
+  /**
+   * Sink persisting results.
+   */
+  private final IngestSink sink;
+  /**
+   * Pipeline extracting bags.
+   */
+  private final BagIngestPipeline pipeline;
+  /**
+   * All bags currently inside pipeline.
+   */
+  private final Map<Path, ZippedBagit> pendingBags = new ConcurrentHashMap<>();
+  /**
+   * Owner of leases and checkpoint log.
+   */
+  private String owner = ManagementFactory.getRuntimeMXBean().getName();
+  /**
+   * Duration of leases in milliseconds.
+   */
+  private long leaseDuration = DEFAULT_LEASE_DURATION;
+  /**
+   * Checkpoint log (only available while running).
+   */
+  private CheckpointLog checkpointLog;
+
+  /**
+   * Constructor.
+   *
+   * @param checkpointDirectory Directory containing checkpoint logs and
+   * leases (shared by all processes).
+   * @param noOfShards Number of shards (should be the same for all processes
+   * and at least the number of processes).
+   * @param extractorVersion Version of the extractor (null for the default
+   * version of the pipeline).
+   * @param sink Sink persisting results.
+   */
+  public BulkReextraction(final Path checkpointDirectory, final int noOfShards, final String extractorVersion, final IngestSink sink) {
+    if (noOfShards < 1) {
+      throw new IllegalArgumentException("Number of shards has to be at least 1!");
+    }
+    this.checkpointDirectory = checkpointDirectory;
+    this.noOfShards = noOfShards;
+    this.sink = sink;
+    pipeline = new BagIngestPipeline(this::persist)
+            .withResourceIdResolver(source -> {
+              ZippedBagit bagit = pendingBags.get(source);
+              return bagit != null ? bagit.getResourceId() : null;
+            });
+    if (extractorVersion != null) {
+      pipeline.withExtractorVersion(extractorVersion);
+    }
+  }
+
+  /**
+   * Set owner of leases and checkpoint log. (Default: name of JVM, e.g.
+   * 'pid@host')
+   *
+   * @param owner Owner (has to be unique for all processes).
+   * @return Driver.
+   */
+  public BulkReextraction withOwner(final String owner) {
+    this.owner = owner;
+    return this;
+  }
+
+  /**
+   * Set duration of leases. Leases are renewed after a third of the
+   * duration.
+   *
+   * @param duration Duration in milliseconds.
+   * @return Driver.
+   */
+  public BulkReextraction withLeaseDuration(final long duration) {
+    leaseDuration = duration;
+    return this;
+  }
+
+  /**
+   * Get pipeline extracting bags, e.g. for setting parallelism.
+   *
+   * @return Pipeline.
+   */
+  public BagIngestPipeline getPipeline() {
+    return pipeline;
+  }
+
+  /**
+   * Get shard of bag.
+   *
+   * @param ocrdIdentifier OCR-D identifier of bag.
+   * @param noOfShards Number of shards.
+   * @return Index of shard.
+   */
+  public static int getShard(final String ocrdIdentifier, final int noOfShards) {
+    // String.hashCode is specified and therefore identical for all JVMs.
+    return Math.floorMod(ocrdIdentifier.hashCode(), noOfShards);
+  }
+
+  /**
+   * Re-extract all outdated bags of all shards which are not held by other
+   * processes.
+   *
+   * @param corpus All archived bags.
+   * @return Reports of all processed shards.
+   * @throws IOException Error accessing checkpoint directory.
+   * @throws InterruptedException Re-extraction was interrupted.
+   */
+  public Map<Integer, PipelineReport> run(final Iterable<ZippedBagit> corpus) throws IOException, InterruptedException {
+    Map<Integer, PipelineReport> reports = new LinkedHashMap<>();
+    ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor();
+    try (CheckpointLog log = new CheckpointLog(checkpointDirectory, owner)) {
+      checkpointLog = log;
+      // Start with different shards to reduce contention between processes.
+      int firstShard = getShard(owner, noOfShards);
+      for (int index = 0; index < noOfShards; index++) {
+        int shard = (firstShard + index) % noOfShards;
+        try (FileLease lease = FileLease.tryAcquire(checkpointDirectory.resolve(LEASE_PREFIX + shard + LEASE_SUFFIX), owner, leaseDuration)) {
+          if (lease == null) {
+            LOGGER.info("Shard {} is processed by another process.", shard);
+            continue;
+          }
+          // Include progress of other processes.
+          log.reload();
+          long period = Math.max(1, leaseDuration / 3);
+          ScheduledFuture<?> renewal = heartbeat.scheduleAtFixedRate(lease::renew, period, period, TimeUnit.MILLISECONDS);
+          try {
+            LOGGER.info("Re-extract shard {} of {}.", shard, noOfShards);
+            PipelineReport report = pipeline.ingest(() -> new OutdatedBagIterator(corpus.iterator(), shard, lease));
+            reports.put(shard, report);
+          } finally {
+            renewal.cancel(false);
+            pendingBags.clear();
+          }
+        }
+      }
+    } finally {
+      checkpointLog = null;
+      heartbeat.shutdownNow();
+    }
+    return reports;
+  }
+
+  /**
+   * Persist result and record bag in checkpoint log.
+   *
+   * @param item Extracted bag.
+   * @throws Exception Error persisting result.
+   */
+  private void persist(final IngestItem item) throws Exception {
+    ZippedBagit bagit = pendingBags.remove(item.getSource());
+    if (bagit == null) {
+      throw new IllegalStateException("No pending bag for '" + item.getSource() + "'!");
+    }
+    sink.persist(item);
+    checkpointLog.markCompleted(bagit.getOcrdIdentifier(), bagit.getVersion(), item.getExtractorVersion());
+  }
+
+  /**
+   * Convert URL of zipped bag to path.
+   *
+   * @param url URL or path of zipped bag.
+   * @return Path.
+   */
+  private static Path toPath(final String url) {
+    return url.startsWith("file:") ? Paths.get(URI.create(url)) : Paths.get(url);
+  }
+
+  /**
+   * Iterator selecting all outdated bags of one shard. Iteration stops if
+   * the lease of the shard is lost.
+   */
+  private final class OutdatedBagIterator implements Iterator<Path> {
+
+    /**
+     * All archived bags.
+     */
+    private final Iterator<ZippedBagit> corpus;
+    /**
+     * Index of shard.
+     */
+    private final int shard;
+    /**
+     * Lease of shard.
+     */
+    private final FileLease lease;
+    /**
+     * Next outdated bag.
+     */
+    private Path next;
+
+    /**
+     * Constructor.
+     *
+     * @param corpus All archived bags.
+     * @param shard Index of shard.
+     * @param lease Lease of shard.
+     */
+    OutdatedBagIterator(final Iterator<ZippedBagit> corpus, final int shard, final FileLease lease) {
+      this.corpus = corpus;
+      this.shard = shard;
+      this.lease = lease;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && lease.isValid() && corpus.hasNext()) {
+        ZippedBagit bagit = corpus.next();
+        if (getShard(bagit.getOcrdIdentifier(), noOfShards) == shard
+                && !checkpointLog.isCompleted(bagit.getOcrdIdentifier(), bagit.getVersion(), pipeline.getExtractorVersion())) {
+          next = toPath(bagit.getUrl());
+          pendingBags.put(next, bagit);
+        }
+      }
+      if (next != null && !lease.isValid()) {
+        LOGGER.warn("Lease of shard {} lost, stop re-extraction of shard.", shard);
+        pendingBags.remove(next);
+        next = null;
+      }
+      return next != null;
+    }
+
+    @Override
+    public Path next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Path result = next;
+      next = null;
+      return result;
+    }
+  }
+}
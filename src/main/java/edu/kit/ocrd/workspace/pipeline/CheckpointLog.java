@@ -0,0 +1,227 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.pipeline;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of completed bags. Each process writes its own log file
+ * '&lt;owner&gt;.log' inside the checkpoint directory, so there are never
+ * concurrent writers of one file. On (re)load the logs of all processes are
+ * read. A line is written and flushed per completed bag:
+ * <pre>
+ * &lt;ocrdIdentifier&gt;\t&lt;version&gt;\t&lt;extractorVersion&gt;\t&lt;timestamp&gt;
+ * </pre>
+ * Incomplete lines (e.g. after a crash) are ignored.
+ */
+public class CheckpointLog implements Closeable {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(CheckpointLog.class);
+  /**
+   * Suffix of log files.
+   */
+  public static final String LOG_SUFFIX = ".log";
+  /**
+   * Separator of fields.
+   */
+  private static final char SEPARATOR = '\t';
+  /**
+   * Number of fields per line.
+   */
+  private static final int NO_OF_FIELDS = 4;
+  /**
+   * Directory containing all logs.
+   */
+  private final Path directory;
+  /**
+   * Log file of this process.
+   */
+  private final Path logFile;
+  /**
+   * Writer of log file.
+   */
+  private final BufferedWriter writer;
+  /**
+   * Keys of all completed bags.
+   */
+  private final Set<String> completed = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Open log of owner and load logs of all processes.
+   *
+   * @param directory Checkpoint directory.
+   * @param owner Owner of log (has to be unique for all processes).
+   * @throws IOException Error reading/creating logs.
+   */
+  public CheckpointLog(final Path directory, final String owner) throws IOException {
+    this.directory = Files.createDirectories(directory);
+    logFile = directory.resolve(owner.replaceAll("[^A-Za-z0-9._-]", "_") + LOG_SUFFIX);
+    reload();
+    writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    if (endsWithIncompleteLine(logFile)) {
+      // Terminate line written partially before a crash.
+      writer.append('\n');
+      writer.flush();
+    }
+  }
+
+  /**
+   * Reload logs of all processes.
+   *
+   * @throws IOException Error reading logs.
+   */
+  public final void reload() throws IOException {
+    try (DirectoryStream<Path> logs = Files.newDirectoryStream(directory, "*" + LOG_SUFFIX)) {
+      for (Path log : logs) {
+        load(log);
+      }
+    }
+    LOGGER.debug("Checkpoint log contains {} completed bag(s).", completed.size());
+  }
+
+  /**
+   * Is bag already extracted with given extractor version?
+   *
+   * @param ocrdIdentifier OCR-D identifier of bag.
+   * @param version Version of bag.
+   * @param extractorVersion Version of extractor.
+   * @return true if bag is up to date.
+   */
+  public boolean isCompleted(final String ocrdIdentifier, final int version, final String extractorVersion) {
+    return completed.contains(getKey(encode(ocrdIdentifier), Integer.toString(version), encode(extractorVersion)));
+  }
+
+  /**
+   * Mark bag as completed. The entry is flushed immediately.
+   *
+   * @param ocrdIdentifier OCR-D identifier of bag.
+   * @param version Version of bag.
+   * @param extractorVersion Version of extractor.
+   * @throws IOException Error writing log.
+   */
+  public synchronized void markCompleted(final String ocrdIdentifier, final int version, final String extractorVersion) throws IOException {
+    String identifier = encode(ocrdIdentifier);
+    String extractor = encode(extractorVersion);
+    writer.append(identifier).append(SEPARATOR).append(Integer.toString(version)).append(SEPARATOR)
+            .append(extractor).append(SEPARATOR).append(Long.toString(System.currentTimeMillis())).append('\n');
+    writer.flush();
+    completed.add(getKey(identifier, Integer.toString(version), extractor));
+  }
+
+  /**
+   * Get number of completed bags.
+   *
+   * @return Number of completed bags (all versions).
+   */
+  public int getNumberOfCompletedBags() {
+    return completed.size();
+  }
+
+  /**
+   * Get log file of this process.
+   *
+   * @return Log file.
+   */
+  public Path getLogFile() {
+    return logFile;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    writer.close();
+  }
+
+  /**
+   * Load entries of log file.
+   *
+   * @param log Log file.
+   * @throws IOException Error reading file.
+   */
+  private void load(final Path log) throws IOException {
+    List<String> lines = Files.readAllLines(log, StandardCharsets.UTF_8);
+    for (String line : lines) {
+      String[] fields = line.split(String.valueOf(SEPARATOR));
+      if (fields.length == NO_OF_FIELDS) {
+        completed.add(getKey(fields[0], fields[1], fields[2]));
+      } else if (!line.isEmpty()) {
+        LOGGER.warn("Ignore invalid line in '{}': '{}'", log, line);
+      }
+    }
+  }
+
+  /**
+   * Test if last line of file isn't terminated.
+   *
+   * @param file File.
+   * @return true if file is not empty and doesn't end with a line break.
+   * @throws IOException Error reading file.
+   */
+  private static boolean endsWithIncompleteLine(final Path file) throws IOException {
+    try (SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.READ)) {
+      if (channel.size() == 0) {
+        return false;
+      }
+      ByteBuffer lastByte = ByteBuffer.allocate(1);
+      channel.position(channel.size() - 1).read(lastByte);
+      return lastByte.get(0) != '\n';
+    }
+  }
+
+  /**
+   * Get key of entry.
+   *
+   * @param ocrdIdentifier Encoded OCR-D identifier.
+   * @param version Version of bag.
+   * @param extractorVersion Encoded version of extractor.
+   * @return Key.
+   */
+  private static String getKey(final String ocrdIdentifier, final String version, final String extractorVersion) {
+    return ocrdIdentifier + SEPARATOR + version + SEPARATOR + extractorVersion;
+  }
+
+  /**
+   * Encode value, so it doesn't contain any separator or line break.
+   *
+   * @param value Value.
+   * @return Encoded value.
+   */
+  private static String encode(final String value) {
+    try {
+      return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
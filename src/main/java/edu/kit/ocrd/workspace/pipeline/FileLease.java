@@ -0,0 +1,293 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.pipeline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Time limited lease based on a file shared by all processes (e.g. on a
+ * network file system). The file contains a unique token of the holder and
+ * the expiry date. An expired lease may be taken over by any other process.
+ * The holder has to renew the lease before it expires and has to stop
+ * working if renewal fails. (Clocks of all nodes should be synchronized.)
+ * <p>
+ * Acquisition, take over, renewal and release check and change the lease
+ * file while holding a file lock on a lock file next to it, so a free or
+ * expired lease is acquired by exactly one process.
+ */
+public class FileLease implements Closeable {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileLease.class);
+  /**
+   * Suffix of lock file next to the lease file.
+   */
+  private static final String LOCK_SUFFIX = ".lock";
+  /**
+   * Serializes access to lease files inside this JVM (file locks are held
+   * per JVM).
+   */
+  private static final Object LOCK = new Object();
+  /**
+   * Lease file.
+   */
+  private final Path leaseFile;
+  /**
+   * Unique token of this lease.
+   */
+  private final String token;
+  /**
+   * Duration of lease in milliseconds.
+   */
+  private final long duration;
+  /**
+   * Lease is held.
+   */
+  private volatile boolean valid = true;
+
+  /**
+   * Constructor.
+   *
+   * @param leaseFile Lease file.
+   * @param token Unique token of this lease.
+   * @param duration Duration of lease in milliseconds.
+   */
+  private FileLease(final Path leaseFile, final String token, final long duration) {
+    this.leaseFile = leaseFile;
+    this.token = token;
+    this.duration = duration;
+  }
+
+  /**
+   * Try to acquire lease.
+   *
+   * @param leaseFile Lease file.
+   * @param owner Owner of lease (for information only).
+   * @param duration Duration of lease in milliseconds.
+   * @return Lease or null if lease is held by another process.
+   * @throws IOException Error accessing lease file.
+   */
+  public static FileLease tryAcquire(final Path leaseFile, final String owner, final long duration) throws IOException {
+    String token = owner + "/" + UUID.randomUUID();
+    // Check and create or replace are done while holding the lock, so only
+    // one of several processes sees the lease as free or expired.
+    return withLock(leaseFile, () -> {
+      String[] current = read(leaseFile);
+      if (current == null) {
+        if (!create(leaseFile, token, duration)) {
+          LOGGER.debug("Lease '{}' already exists.", leaseFile);
+          return null;
+        }
+        LOGGER.debug("Lease '{}' acquired by '{}'.", leaseFile, token);
+        return new FileLease(leaseFile, token, duration);
+      }
+      if (Long.parseLong(current[1]) >= System.currentTimeMillis()) {
+        LOGGER.debug("Lease '{}' is held by '{}'.", leaseFile, current[0]);
+        return null;
+      }
+      replace(leaseFile, token, duration);
+      LOGGER.info("Expired lease '{}' taken over by '{}'.", leaseFile, token);
+      return new FileLease(leaseFile, token, duration);
+    });
+  }
+
+  /**
+   * Renew lease. If the lease was taken over by another process it's no
+   * longer valid.
+   *
+   * @return true if lease is still held.
+   */
+  public synchronized boolean renew() {
+    if (!valid) {
+      return false;
+    }
+    try {
+      valid = withLock(leaseFile, () -> {
+        String[] current = read(leaseFile);
+        if (current == null || !token.equals(current[0])) {
+          LOGGER.warn("Lease '{}' lost!", leaseFile);
+          return false;
+        }
+        replace(leaseFile, token, duration);
+        return true;
+      });
+    } catch (IOException | RuntimeException ex) {
+      LOGGER.warn("Error renewing lease '{}'!", leaseFile, ex);
+      valid = false;
+    }
+    return valid;
+  }
+
+  /**
+   * Is lease still held?
+   *
+   * @return true if lease is held.
+   */
+  public boolean isValid() {
+    return valid;
+  }
+
+  /**
+   * Get duration of lease.
+   *
+   * @return Duration in milliseconds.
+   */
+  public long getDuration() {
+    return duration;
+  }
+
+  /**
+   * Release lease. The lease file is only removed if it's still held.
+   *
+   * @throws IOException Error removing lease file.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (valid) {
+      valid = false;
+      withLock(leaseFile, () -> {
+        String[] current = read(leaseFile);
+        if (current != null && token.equals(current[0])) {
+          Files.deleteIfExists(leaseFile);
+          LOGGER.debug("Lease '{}' released.", leaseFile);
+        }
+        return null;
+      });
+    }
+  }
+
+  /**
+   * Execute action while holding the lock of the lease file. The lock is a
+   * file lock on a lock file next to the lease file (held per JVM) combined
+   * with a lock serializing all threads of this JVM.
+   *
+   * @param <T> Type of result.
+   * @param leaseFile Lease file.
+   * @param action Action.
+   * @return Result of action.
+   * @throws IOException Error locking or error of action.
+   */
+  private static <T> T withLock(final Path leaseFile, final LockedAction<T> action) throws IOException {
+    Path lockFile = leaseFile.resolveSibling(leaseFile.getFileName() + LOCK_SUFFIX);
+    synchronized (LOCK) {
+      try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+              FileLock lock = channel.lock()) {
+        return action.execute();
+      }
+    }
+  }
+
+  /**
+   * Create lease file atomically by linking a complete temporary file.
+   *
+   * @param leaseFile Lease file.
+   * @param token Token of holder.
+   * @param duration Duration of lease in milliseconds.
+   * @return true if lease file was created, false if it already exists.
+   * @throws IOException Error writing file.
+   */
+  private static boolean create(final Path leaseFile, final String token, final long duration) throws IOException {
+    Path tempFile = writeTempFile(leaseFile, token, duration);
+    try {
+      Files.createLink(leaseFile, tempFile);
+      return true;
+    } catch (FileAlreadyExistsException ex) {
+      return false;
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  /**
+   * Replace content of lease file atomically.
+   *
+   * @param leaseFile Lease file.
+   * @param token Token of holder.
+   * @param duration Duration of lease in milliseconds.
+   * @throws IOException Error writing file.
+   */
+  private static void replace(final Path leaseFile, final String token, final long duration) throws IOException {
+    Files.move(writeTempFile(leaseFile, token, duration), leaseFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Write content of lease file to a temporary file next to the lease file.
+   *
+   * @param leaseFile Lease file.
+   * @param token Token of holder.
+   * @param duration Duration of lease in milliseconds.
+   * @return Temporary file.
+   * @throws IOException Error writing file.
+   */
+  private static Path writeTempFile(final Path leaseFile, final String token, final long duration) throws IOException {
+    Path tempFile = Files.createTempFile(leaseFile.toAbsolutePath().getParent(), leaseFile.getFileName().toString(), ".tmp");
+    String content = token + "\n" + (System.currentTimeMillis() + duration) + "\n";
+    return Files.write(tempFile, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Read lease file.
+   *
+   * @param leaseFile Lease file.
+   * @return Token and expiry date or null if there is no (valid) lease file.
+   * @throws IOException Error reading file.
+   */
+  private static String[] read(final Path leaseFile) throws IOException {
+    try {
+      List<String> lines = Files.readAllLines(leaseFile, StandardCharsets.UTF_8);
+      if (lines.size() >= 2 && lines.get(1).matches("\\d+")) {
+        return new String[]{lines.get(0), lines.get(1)};
+      }
+      // Lease file is corrupt (e.g. crash while creating it).
+      return new String[]{"", "0"};
+    } catch (NoSuchFileException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Action executed while holding the lock of the lease file.
+   *
+   * @param <T> Type of result.
+   */
+  @FunctionalInterface
+  private interface LockedAction<T> {
+
+    /**
+     * Execute action.
+     *
+     * @return Result.
+     * @throws IOException Error accessing lease file.
+     */
+    T execute() throws IOException;
+  }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.pipeline;
+
+import com.github.jscancella.domain.Bag;
+import edu.kit.ocrd.workspace.entity.ConfidenceStatistics;
+import edu.kit.ocrd.workspace.entity.MetsFile;
+import edu.kit.ocrd.workspace.entity.MetsProperties;
+import edu.kit.ocrd.workspace.entity.ProvenanceMetadata;
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import java.nio.file.Path;
+import java.util.List;
+import org.jdom.Document;
+
+/**
+ * One bag passing the stages of the {@link BagIngestPipeline}. Each stage
+ * adds its results.
+ */
+public class IngestItem {
+
+  /**
+   * Source of bag (zip file or directory).
+   */
+  private final Path source;
+  /**
+   * Root directory of bag.
+   */
+  private Path bagDirectory;
+  /**
+   * Temporary directory the bag was extracted to (null if bag wasn't
+   * zipped).
+   */
+  private Path extractedDirectory;
+  /**
+   * Version of the extractor.
+   */
+  private String extractorVersion;
+  /**
+   * Bag.
+   */
+  private Bag bag;
+  /**
+   * Resource ID (OCR-D identifier of bag).
+   */
+  private String resourceId;
+  /**
+   * METS file.
+   */
+  private Path metsFile;
+  /**
+   * Parsed METS document (released after extraction of provenance).
+   */
+  private Document metsDocument;
+  /**
+   * All files referenced by METS.
+   */
+  private List<MetsFile> metsFiles;
+  /**
+   * Metadata of METS.
+   */
+  private MetsProperties metsProperties;
+  /**
+   * All text regions.
+   */
+  private List<TextRegion> textRegions;
+  /**
+   * Provenance of all processors.
+   */
+  private List<ProvenanceMetadata> provenanceMetadata;
+  /**
+   * Confidence statistics of workspace, fileGrps and pages (null if not
+   * collected).
+   */
+  private List<ConfidenceStatistics> confidenceStatistics;
+
+  /**
+   * Constructor.
+   *
+   * @param source Source of bag (zip file or directory).
+   */
+  public IngestItem(final Path source) {
+    this.source = source;
+  }
+
+  /**
+   * Get source of bag.
+   *
+   * @return the source
+   */
+  public Path getSource() {
+    return source;
+  }
+
+  /**
+   * Get root directory of bag.
+   *
+   * @return the bagDirectory
+   */
+  public Path getBagDirectory() {
+    return bagDirectory;
+  }
+
+  /**
+   * Set root directory of bag.
+   *
+   * @param bagDirectory the bagDirectory to set
+   */
+  public void setBagDirectory(final Path bagDirectory) {
+    this.bagDirectory = bagDirectory;
+  }
+
+  /**
+   * Get temporary directory the bag was extracted to.
+   *
+   * @return the extractedDirectory (null if bag wasn't zipped)
+   */
+  public Path getExtractedDirectory() {
+    return extractedDirectory;
+  }
+
+  /**
+   * Set temporary directory the bag was extracted to.
+   *
+   * @param extractedDirectory the extractedDirectory to set
+   */
+  public void setExtractedDirectory(final Path extractedDirectory) {
+    this.extractedDirectory = extractedDirectory;
+  }
+
+  /**
+   * Get version of the extractor.
+   *
+   * @return the extractorVersion
+   */
+  public String getExtractorVersion() {
+    return extractorVersion;
+  }
+
+  /**
+   * Set version of the extractor.
+   *
+   * @param extractorVersion the extractorVersion to set
+   */
+  public void setExtractorVersion(final String extractorVersion) {
+    this.extractorVersion = extractorVersion;
+  }
+
+  /**
+   * Get bag.
+   *
+   * @return the bag
+   */
+  public Bag getBag() {
+    return bag;
+  }
+
+  /**
+   * Set bag.
+   *
+   * @param bag the bag to set
+   */
+  public void setBag(final Bag bag) {
+    this.bag = bag;
+  }
+
+  /**
+   * Get resource ID.
+   *
+   * @return the resourceId
+   */
+  public String getResourceId() {
+    return resourceId;
+  }
+
+  /**
+   * Set resource ID.
+   *
+   * @param resourceId the resourceId to set
+   */
+  public void setResourceId(final String resourceId) {
+    this.resourceId = resourceId;
+  }
+
+  /**
+   * Get METS file.
+   *
+   * @return the metsFile
+   */
+  public Path getMetsFile() {
+    return metsFile;
+  }
+
+  /**
+   * Set METS file.
+   *
+   * @param metsFile the metsFile to set
+   */
+  public void setMetsFile(final Path metsFile) {
+    this.metsFile = metsFile;
+  }
+
+  /**
+   * Get parsed METS document.
+   *
+   * @return the metsDocument (null after extraction of text regions)
+   */
+  public Document getMetsDocument() {
+    return metsDocument;
+  }
+
+  /**
+   * Set parsed METS document.
+   *
+   * @param metsDocument the metsDocument to set
+   */
+  public void setMetsDocument(final Document metsDocument) {
+    this.metsDocument = metsDocument;
+  }
+
+  /**
+   * Get all files referenced by METS.
+   *
+   * @return the metsFiles
+   */
+  public List<MetsFile> getMetsFiles() {
+    return metsFiles;
+  }
+
+  /**
+   * Set all files referenced by METS.
+   *
+   * @param metsFiles the metsFiles to set
+   */
+  public void setMetsFiles(final List<MetsFile> metsFiles) {
+    this.metsFiles = metsFiles;
+  }
+
+  /**
+   * Get metadata of METS.
+   *
+   * @return the metsProperties
+   */
+  public MetsProperties getMetsProperties() {
+    return metsProperties;
+  }
+
+  /**
+   * Set metadata of METS.
+   *
+   * @param metsProperties the metsProperties to set
+   */
+  public void setMetsProperties(final MetsProperties metsProperties) {
+    this.metsProperties = metsProperties;
+  }
+
+  /**
+   * Get all text regions.
+   *
+   * @return the textRegions
+   */
+  public List<TextRegion> getTextRegions() {
+    return textRegions;
+  }
+
+  /**
+   * Set all text regions.
+   *
+   * @param textRegions the textRegions to set
+   */
+  public void setTextRegions(final List<TextRegion> textRegions) {
+    this.textRegions = textRegions;
+  }
+
+  /**
+   * Get provenance of all processors.
+   *
+   * @return the provenanceMetadata
+   */
+  public List<ProvenanceMetadata> getProvenanceMetadata() {
+    return provenanceMetadata;
+  }
+
+  /**
+   * Set provenance of all processors.
+   *
+   * @param provenanceMetadata the provenanceMetadata to set
+   */
+  public void setProvenanceMetadata(final List<ProvenanceMetadata> provenanceMetadata) {
+    this.provenanceMetadata = provenanceMetadata;
+  }
+
+  /**
+   * Get confidence statistics of workspace, fileGrps and pages.
+   *
+   * @return the confidenceStatistics (null if not collected)
+   */
+  public List<ConfidenceStatistics> getConfidenceStatistics() {
+    return confidenceStatistics;
+  }
+
+  /**
+   * Set confidence statistics of workspace, fileGrps and pages.
+   *
+   * @param confidenceStatistics the confidenceStatistics to set
+   */
+  public void setConfidenceStatistics(final List<ConfidenceStatistics> confidenceStatistics) {
+    this.confidenceStatistics = confidenceStatistics;
+  }
+
+  @Override
+  public String toString() {
+    return source.toString();
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.pipeline;
+
+/**
+ * Final stage of {@link BagIngestPipeline} persisting the extracted metadata
+ * of one bag. The sink may be called by several threads at once.
+ */
+@FunctionalInterface
+public interface IngestSink {
+
+  /**
+   * Persist all extracted metadata of bag.
+   *
+   * @param item Bag with all extracted metadata.
+   * @throws Exception Error persisting metadata.
+   */
+  void persist(IngestItem item) throws Exception;
+}
@@ -0,0 +1,463 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pipeline of stages connected by bounded queues. Every stage is executed by
+ * its own threads, so I/O bound and CPU bound stages overlap. If a stage is
+ * slower than its predecessors the queue in front of it fills up and the
+ * predecessors (and finally the source) block until there is free space
+ * again. Therefore the number of items inside the pipeline is bounded by the
+ * capacity of the queues and the parallelism of the stages.
+ * <p>
+ * Items failing in one stage are dropped and reported, all other items are
+ * processed anyway.
+ *
+ * <pre>
+ * Pipeline&lt;Path, Bag&gt; pipeline = Pipeline.&lt;Path&gt;builder()
+ *         .stage("read", 4, BagItUtil::readBag)
+ *         .stage("persist", 1, bag -&gt; store(bag))
+ *         .build();
+ * PipelineReport report = pipeline.run(paths);
+ * </pre>
+ *
+ * @param <I> Input of pipeline.
+ * @param <O> Output of pipeline.
+ */
+public class Pipeline<I, O> {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(Pipeline.class);
+  /**
+   * Default capacity of the queue in front of each stage.
+   */
+  public static final int DEFAULT_QUEUE_CAPACITY = 16;
+  /**
+   * Marker signaling the end of input.
+   */
+  private static final Object END_OF_INPUT = new Object();
+  /**
+   * All stages in order.
+   */
+  private final List<StageDefinition> stages;
+  /**
+   * Capacity of the queue in front of each stage.
+   */
+  private final int queueCapacity;
+
+  /**
+   * Constructor.
+   *
+   * @param stages All stages in order.
+   * @param queueCapacity Capacity of the queue in front of each stage.
+   */
+  private Pipeline(final List<StageDefinition> stages, final int queueCapacity) {
+    this.stages = Collections.unmodifiableList(new ArrayList<>(stages));
+    this.queueCapacity = queueCapacity;
+  }
+
+  /**
+   * Create builder for pipeline.
+   *
+   * @param <T> Input of pipeline.
+   * @return Builder without any stage.
+   */
+  public static <T> Builder<T, T> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * Get names of all stages.
+   *
+   * @return Names in order of the pipeline.
+   */
+  public List<String> getStageNames() {
+    List<String> names = new ArrayList<>();
+    for (StageDefinition stage : stages) {
+      names.add(stage.name);
+    }
+    return names;
+  }
+
+  /**
+   * Pass all items through the pipeline. The output of the last stage is
+   * dropped.
+   *
+   * @param source Source of items. The source is read by the calling thread
+   * and only as fast as the pipeline processes the items.
+   * @return Report of run.
+   * @throws InterruptedException Calling thread was interrupted. All stages
+   * are stopped.
+   */
+  public PipelineReport run(final Iterable<? extends I> source) throws InterruptedException {
+    return run(source, null);
+  }
+
+  /**
+   * Pass all items through the pipeline.
+   *
+   * @param source Source of items. The source is read by the calling thread
+   * and only as fast as the pipeline processes the items.
+   * @param output Consumer of the output of the last stage (may be null). The
+   * consumer is called by the threads of the last stage.
+   * @return Report of run.
+   * @throws InterruptedException Calling thread was interrupted. All stages
+   * are stopped.
+   */
+  public PipelineReport run(final Iterable<? extends I> source, final Consumer<? super O> output) throws InterruptedException {
+    long startTime = System.nanoTime();
+    Run run = new Run(output);
+    int noOfThreads = 0;
+    for (StageDefinition stage : stages) {
+      noOfThreads += stage.parallelism;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(noOfThreads, new StageThreadFactory());
+    long noOfItems = 0;
+    try {
+      for (int index = 0; index < stages.size(); index++) {
+        for (int thread = 0; thread < stages.get(index).parallelism; thread++) {
+          executor.execute(new Worker(run, index));
+        }
+      }
+      try {
+        for (I item : source) {
+          run.queues.get(0).put(item);
+          noOfItems++;
+        }
+      } finally {
+        run.finish(0);
+      }
+      executor.shutdown();
+      while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        LOGGER.debug("Waiting for pipeline to finish...");
+      }
+    } finally {
+      // Only active if source failed or calling thread was interrupted.
+      executor.shutdownNow();
+    }
+    List<PipelineReport.StageStatistics> statistics = new ArrayList<>();
+    for (int index = 0; index < stages.size(); index++) {
+      StageDefinition stage = stages.get(index);
+      StageRuntime runtime = run.runtimes.get(index);
+      statistics.add(new PipelineReport.StageStatistics(stage.name, stage.parallelism, runtime.processed.sum(),
+              runtime.failed.sum(), runtime.busyTime.sum(), runtime.blockedTime.sum()));
+    }
+    return new PipelineReport(statistics, new ArrayList<>(run.failures), noOfItems, run.completed.sum(), System.nanoTime() - startTime);
+  }
+
+  /**
+   * Builder of pipelines.
+   *
+   * @param <T> Input of pipeline.
+   * @param <C> Output of the last stage added so far.
+   */
+  public static final class Builder<T, C> {
+
+    /**
+     * All stages in order.
+     */
+    private final List<StageDefinition> stages = new ArrayList<>();
+    /**
+     * Capacity of the queue in front of each stage.
+     */
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+    /**
+     * Constructor.
+     */
+    private Builder() {
+    }
+
+    /**
+     * Set capacity of the queue in front of each stage.
+     *
+     * @param capacity Capacity (at least 1).
+     * @return Builder.
+     */
+    public Builder<T, C> withQueueCapacity(final int capacity) {
+      if (capacity < 1) {
+        throw new IllegalArgumentException("Capacity of queues has to be at least 1!");
+      }
+      queueCapacity = capacity;
+      return this;
+    }
+
+    /**
+     * Append stage.
+     *
+     * @param <N> Output of stage.
+     * @param name Name of stage.
+     * @param parallelism Number of threads executing the stage (at least 1).
+     * @param stage Stage.
+     * @return Builder.
+     */
+    @SuppressWarnings("unchecked")
+    public <N> Builder<T, N> stage(final String name, final int parallelism, final PipelineStage<? super C, ? extends N> stage) {
+      if (parallelism < 1) {
+        throw new IllegalArgumentException("Parallelism of stage '" + name + "' has to be at least 1!");
+      }
+      stages.add(new StageDefinition(name, parallelism, (PipelineStage<Object, Object>) stage));
+      return (Builder<T, N>) this;
+    }
+
+    /**
+     * Build pipeline.
+     *
+     * @return Pipeline.
+     */
+    public Pipeline<T, C> build() {
+      if (stages.isEmpty()) {
+        throw new IllegalStateException("Pipeline contains no stage!");
+      }
+      return new Pipeline<>(stages, queueCapacity);
+    }
+  }
+
+  /**
+   * Definition of one stage.
+   */
+  private static final class StageDefinition {
+
+    /**
+     * Name of stage.
+     */
+    private final String name;
+    /**
+     * Number of threads.
+     */
+    private final int parallelism;
+    /**
+     * Stage.
+     */
+    private final PipelineStage<Object, Object> stage;
+
+    /**
+     * Constructor.
+     *
+     * @param name Name of stage.
+     * @param parallelism Number of threads.
+     * @param stage Stage.
+     */
+    StageDefinition(final String name, final int parallelism, final PipelineStage<Object, Object> stage) {
+      this.name = name;
+      this.parallelism = parallelism;
+      this.stage = stage;
+    }
+  }
+
+  /**
+   * State of one stage during a run.
+   */
+  private static final class StageRuntime {
+
+    /**
+     * Number of threads still running.
+     */
+    private final AtomicInteger activeWorkers;
+    /**
+     * Number of successfully processed items.
+     */
+    private final LongAdder processed = new LongAdder();
+    /**
+     * Number of failed items.
+     */
+    private final LongAdder failed = new LongAdder();
+    /**
+     * Time spent for processing in nanoseconds.
+     */
+    private final LongAdder busyTime = new LongAdder();
+    /**
+     * Time spent waiting for the next stage in nanoseconds.
+     */
+    private final LongAdder blockedTime = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism Number of threads.
+     */
+    StageRuntime(final int parallelism) {
+      activeWorkers = new AtomicInteger(parallelism);
+    }
+  }
+
+  /**
+   * State of one run.
+   */
+  private final class Run {
+
+    /**
+     * Queues in front of each stage.
+     */
+    private final List<BlockingQueue<Object>> queues = new ArrayList<>();
+    /**
+     * State of each stage.
+     */
+    private final List<StageRuntime> runtimes = new ArrayList<>();
+    /**
+     * All failures.
+     */
+    private final ConcurrentLinkedQueue<PipelineReport.Failure> failures = new ConcurrentLinkedQueue<>();
+    /**
+     * Number of items which passed all stages.
+     */
+    private final LongAdder completed = new LongAdder();
+    /**
+     * Consumer of output (may be null).
+     */
+    private final Consumer<? super O> output;
+
+    /**
+     * Constructor.
+     *
+     * @param output Consumer of output (may be null).
+     */
+    Run(final Consumer<? super O> output) {
+      this.output = output;
+      for (StageDefinition stage : stages) {
+        queues.add(new ArrayBlockingQueue<>(queueCapacity));
+        runtimes.add(new StageRuntime(stage.parallelism));
+      }
+    }
+
+    /**
+     * Signal end of input to all threads of stage.
+     *
+     * @param stage Index of stage.
+     * @throws InterruptedException Interrupted while waiting for free space.
+     */
+    void finish(final int stage) throws InterruptedException {
+      for (int thread = 0; thread < stages.get(stage).parallelism; thread++) {
+        queues.get(stage).put(END_OF_INPUT);
+      }
+    }
+  }
+
+  /**
+   * Thread executing one stage.
+   */
+  private final class Worker implements Runnable {
+
+    /**
+     * State of run.
+     */
+    private final Run run;
+    /**
+     * Index of stage.
+     */
+    private final int index;
+
+    /**
+     * Constructor.
+     *
+     * @param run State of run.
+     * @param index Index of stage.
+     */
+    Worker(final Run run, final int index) {
+      this.run = run;
+      this.index = index;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void run() {
+      StageDefinition stage = stages.get(index);
+      StageRuntime runtime = run.runtimes.get(index);
+      BlockingQueue<Object> queue = run.queues.get(index);
+      BlockingQueue<Object> nextQueue = index + 1 < stages.size() ? run.queues.get(index + 1) : null;
+      try {
+        Object item;
+        while ((item = queue.take()) != END_OF_INPUT) {
+          long startTime = System.nanoTime();
+          Object result;
+          try {
+            result = stage.stage.process(item);
+            if (result != null && nextQueue == null && run.output != null) {
+              run.output.accept((O) result);
+            }
+          } catch (InterruptedException ex) {
+            throw ex;
+          } catch (Exception ex) {
+            LOGGER.warn("Stage '{}' failed for '{}'!", stage.name, item, ex);
+            runtime.failed.increment();
+            run.failures.add(new PipelineReport.Failure(stage.name, item, ex));
+            continue;
+          } finally {
+            runtime.busyTime.add(System.nanoTime() - startTime);
+          }
+          runtime.processed.increment();
+          if (result != null) {
+            if (nextQueue != null) {
+              long blockedSince = System.nanoTime();
+              nextQueue.put(result);
+              runtime.blockedTime.add(System.nanoTime() - blockedSince);
+            } else {
+              run.completed.increment();
+            }
+          }
+        }
+      } catch (InterruptedException ex) {
+        LOGGER.debug("Stage '{}' interrupted!", stage.name);
+        Thread.currentThread().interrupt();
+      } finally {
+        // The last thread of the stage signals end of input to the next stage.
+        if (runtime.activeWorkers.decrementAndGet() == 0 && nextQueue != null && !Thread.currentThread().isInterrupted()) {
+          try {
+            run.finish(index + 1);
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Factory naming the threads of the pipeline.
+   */
+  private static final class StageThreadFactory implements ThreadFactory {
+
+    /**
+     * Number of created threads.
+     */
+    private final AtomicInteger noOfThreads = new AtomicInteger();
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+      Thread thread = new Thread(runnable, "pipeline-" + noOfThreads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report of one run of a {@link Pipeline} containing statistics of all stages
+ * and all failed items.
+ */
+public class PipelineReport {
+
+  /**
+   * Statistics of all stages in order of the pipeline.
+   */
+  private final Map<String, StageStatistics> statistics = new LinkedHashMap<>();
+  /**
+   * All failed items.
+   */
+  private final List<Failure> failures;
+  /**
+   * Number of items read from source.
+   */
+  private final long noOfItems;
+  /**
+   * Number of items which passed all stages.
+   */
+  private final long noOfCompletedItems;
+  /**
+   * Duration of run in nanoseconds.
+   */
+  private final long duration;
+
+  /**
+   * Constructor.
+   *
+   * @param statistics Statistics of all stages.
+   * @param failures All failed items.
+   * @param noOfItems Number of items read from source.
+   * @param noOfCompletedItems Number of items which passed all stages.
+   * @param duration Duration of run in nanoseconds.
+   */
+  PipelineReport(final List<StageStatistics> statistics, final List<Failure> failures, final long noOfItems, final long noOfCompletedItems, final long duration) {
+    for (StageStatistics stage : statistics) {
+      this.statistics.put(stage.getName(), stage);
+    }
+    this.failures = Collections.unmodifiableList(new ArrayList<>(failures));
+    this.noOfItems = noOfItems;
+    this.noOfCompletedItems = noOfCompletedItems;
+    this.duration = duration;
+  }
+
+  /**
+   * Get statistics of all stages.
+   *
+   * @return Statistics in order of the pipeline.
+   */
+  public List<StageStatistics> getStatistics() {
+    return new ArrayList<>(statistics.values());
+  }
+
+  /**
+   * Get statistics of stage.
+   *
+   * @param stage Name of stage.
+   * @return Statistics or null if there is no such stage.
+   */
+  public StageStatistics getStatistics(final String stage) {
+    return statistics.get(stage);
+  }
+
+  /**
+   * Get all failed items.
+   *
+   * @return the failures
+   */
+  public List<Failure> getFailures() {
+    return failures;
+  }
+
+  /**
+   * Get number of items read from source.
+   *
+   * @return the number of items
+   */
+  public long getNumberOfItems() {
+    return noOfItems;
+  }
+
+  /**
+   * Get number of items which passed all stages.
+   *
+   * @return the number of completed items
+   */
+  public long getNumberOfCompletedItems() {
+    return noOfCompletedItems;
+  }
+
+  /**
+   * Get duration of run.
+   *
+   * @return Duration in milliseconds.
+   */
+  public long getDuration() {
+    return TimeUnit.NANOSECONDS.toMillis(duration);
+  }
+
+  /**
+   * Did all items pass the pipeline without errors?
+   *
+   * @return true if no item failed.
+   */
+  public boolean isSuccessful() {
+    return failures.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("Processed ").append(noOfCompletedItems).append(" of ").append(noOfItems).append(" item(s) in ").append(getDuration()).append(" ms");
+    for (StageStatistics stage : statistics.values()) {
+      builder.append("\n").append(stage);
+    }
+    for (Failure failure : failures) {
+      builder.append("\n").append(failure);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Statistics of one stage.
+   */
+  public static final class StageStatistics {
+
+    /**
+     * Name of stage.
+     */
+    private final String name;
+    /**
+     * Number of threads.
+     */
+    private final int parallelism;
+    /**
+     * Number of successfully processed items.
+     */
+    private final long noOfProcessedItems;
+    /**
+     * Number of failed items.
+     */
+    private final long noOfFailedItems;
+    /**
+     * Time spent for processing items (sum of all threads) in nanoseconds.
+     */
+    private final long busyTime;
+    /**
+     * Time spent waiting for a free slot in the queue of the next stage in
+     * nanoseconds.
+     */
+    private final long blockedTime;
+
+    /**
+     * Constructor.
+     *
+     * @param name Name of stage.
+     * @param parallelism Number of threads.
+     * @param noOfProcessedItems Number of successfully processed items.
+     * @param noOfFailedItems Number of failed items.
+     * @param busyTime Time spent for processing items in nanoseconds.
+     * @param blockedTime Time spent waiting for the next stage in
+     * nanoseconds.
+     */
+    StageStatistics(final String name, final int parallelism, final long noOfProcessedItems, final long noOfFailedItems, final long busyTime, final long blockedTime) {
+      this.name = name;
+      this.parallelism = parallelism;
+      this.noOfProcessedItems = noOfProcessedItems;
+      this.noOfFailedItems = noOfFailedItems;
+      this.busyTime = busyTime;
+      this.blockedTime = blockedTime;
+    }
+
+    /**
+     * Get name of stage.
+     *
+     * @return the name
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Get number of threads.
+     *
+     * @return the parallelism
+     */
+    public int getParallelism() {
+      return parallelism;
+    }
+
+    /**
+     * Get number of successfully processed items.
+     *
+     * @return the number of processed items
+     */
+    public long getNumberOfProcessedItems() {
+      return noOfProcessedItems;
+    }
+
+    /**
+     * Get number of failed items.
+     *
+     * @return the number of failed items
+     */
+    public long getNumberOfFailedItems() {
+      return noOfFailedItems;
+    }
+
+    /**
+     * Get time spent for processing items (sum of all threads).
+     *
+     * @return Busy time in milliseconds.
+     */
+    public long getBusyTime() {
+      return TimeUnit.NANOSECONDS.toMillis(busyTime);
+    }
+
+    /**
+     * Get time spent waiting for the next stage (backpressure).
+     *
+     * @return Blocked time in milliseconds.
+     */
+    public long getBlockedTime() {
+      return TimeUnit.NANOSECONDS.toMillis(blockedTime);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s (x%d): %d processed, %d failed, busy %d ms, blocked %d ms",
+              name, parallelism, noOfProcessedItems, noOfFailedItems, getBusyTime(), getBlockedTime());
+    }
+  }
+
+  /**
+   * Item which failed in one stage.
+   */
+  public static final class Failure {
+
+    /**
+     * Name of stage.
+     */
+    private final String stage;
+    /**
+     * Input of the failed stage.
+     */
+    private final Object item;
+    /**
+     * Cause of failure.
+     */
+    private final Exception cause;
+
+    /**
+     * Constructor.
+     *
+     * @param stage Name of stage.
+     * @param item Input of the failed stage.
+     * @param cause Cause of failure.
+     */
+    Failure(final String stage, final Object item, final Exception cause) {
+      this.stage = stage;
+      this.item = item;
+      this.cause = cause;
+    }
+
+    /**
+     * Get name of failed stage.
+     *
+     * @return the stage
+     */
+    public String getStage() {
+      return stage;
+    }
+
+    /**
+     * Get input of the failed stage.
+     *
+     * @return the item
+     */
+    public Object getItem() {
+      return item;
+    }
+
+    /**
+     * Get cause of failure.
+     *
+     * @return the cause
+     */
+    public Exception getCause() {
+      return cause;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s failed for '%s': %s", stage, item, cause);
+    }
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.pipeline;
+
+/**
+ * One stage of a {@link Pipeline}. A stage may be executed by several
+ * threads at once and therefore has to be thread safe.
+ *
+ * @param <I> Input of stage.
+ * @param <O> Output of stage.
+ */
+@FunctionalInterface
+public interface PipelineStage<I, O> {
+
+  /**
+   * Process one item.
+   *
+   * @param item Item to process.
+   * @return Processed item or null if item should not be passed to the next
+   * stage.
+   * @throws Exception Error processing item. The item is dropped and the
+   * error is reported.
+   */
+  O process(I item) throws Exception;
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.preview;
+
+/**
+ * One physical page of a workspace preview.
+ */
+public class PreviewPage {
+
+  /**
+   * ID of the page div.
+   */
+  private String pageId;
+  /**
+   * ORDER of the page (-1 if not available).
+   */
+  private int order = -1;
+  /**
+   * USE of fileGrp of PAGE file (null if no text was extracted).
+   */
+  private String fileGrp;
+  /**
+   * 'URL' of PAGE file (null if no text was extracted).
+   */
+  private String pageUrl;
+  /**
+   * Text of all text regions separated by line breaks (null if no text was
+   * extracted).
+   */
+  private String text;
+  /**
+   * Number of text regions.
+   */
+  private int noOfTextRegions;
+  /**
+   * Text of whole page extracted.
+   */
+  private boolean textComplete;
+
+  /**
+   * Get ID of the page div.
+   *
+   * @return the pageId
+   */
+  public String getPageId() {
+    return pageId;
+  }
+
+  /**
+   * Set ID of the page div.
+   *
+   * @param pageId the pageId to set
+   */
+  public void setPageId(String pageId) {
+    this.pageId = pageId;
+  }
+
+  /**
+   * Get ORDER of the page.
+   *
+   * @return the order (-1 if not available)
+   */
+  public int getOrder() {
+    return order;
+  }
+
+  /**
+   * Set ORDER of the page.
+   *
+   * @param order the order to set
+   */
+  public void setOrder(int order) {
+    this.order = order;
+  }
+
+  /**
+   * Get USE of fileGrp of PAGE file.
+   *
+   * @return the fileGrp (null if no text was extracted)
+   */
+  public String getFileGrp() {
+    return fileGrp;
+  }
+
+  /**
+   * Set USE of fileGrp of PAGE file.
+   *
+   * @param fileGrp the fileGrp to set
+   */
+  public void setFileGrp(String fileGrp) {
+    this.fileGrp = fileGrp;
+  }
+
+  /**
+   * Get 'URL' of PAGE file.
+   *
+   * @return the pageUrl (null if no text was extracted)
+   */
+  public String getPageUrl() {
+    return pageUrl;
+  }
+
+  /**
+   * Set 'URL' of PAGE file.
+   *
+   * @param pageUrl the pageUrl to set
+   */
+  public void setPageUrl(String pageUrl) {
+    this.pageUrl = pageUrl;
+  }
+
+  /**
+   * Get text of all text regions separated by line breaks.
+   *
+   * @return the text (null if no text was extracted)
+   */
+  public String getText() {
+    return text;
+  }
+
+  /**
+   * Set text of all text regions.
+   *
+   * @param text the text to set
+   */
+  public void setText(String text) {
+    this.text = text;
+  }
+
+  /**
+   * Get number of text regions.
+   *
+   * @return the noOfTextRegions
+   */
+  public int getNoOfTextRegions() {
+    return noOfTextRegions;
+  }
+
+  /**
+   * Set number of text regions.
+   *
+   * @param noOfTextRegions the noOfTextRegions to set
+   */
+  public void setNoOfTextRegions(int noOfTextRegions) {
+    this.noOfTextRegions = noOfTextRegions;
+  }
+
+  /**
+   * Test if text of whole page was extracted.
+   *
+   * @return true if text is complete.
+   */
+  public boolean isTextComplete() {
+    return textComplete;
+  }
+
+  /**
+   * Set if text of whole page was extracted.
+   *
+   * @param textComplete the textComplete to set
+   */
+  public void setTextComplete(boolean textComplete) {
+    this.textComplete = textComplete;
+  }
+
+  @Override
+  public String toString() {
+    return "PreviewPage[pageId=" + pageId + ", order=" + order + ", fileGrp=" + fileGrp + ", pageUrl=" + pageUrl
+            + ", noOfTextRegions=" + noOfTextRegions + ", textComplete=" + textComplete + "]";
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.preview;
+
+import edu.kit.ocrd.workspace.entity.MetsProperties;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Preview of a workspace: bibliographic metadata, number of pages and the
+ * text of the first pages. A preview is partial if it covers less than
+ * requested, i.e. the metadata is incomplete, the time budget was exceeded
+ * or fewer pages than requested hold complete text. (An estimated number of
+ * pages is reported by {@link #isNoOfPagesExact()}.)
+ */
+public class WorkspacePreview {
+
+  /**
+   * Resource ID of METS document.
+   */
+  private String resourceId;
+  /**
+   * Metadata read from the first MODS section.
+   */
+  private MetsProperties metadata;
+  /**
+   * All metadata fields of the first MODS section were read.
+   */
+  private boolean metadataComplete;
+  /**
+   * Number of pages counted or estimated.
+   */
+  private int noOfPages;
+  /**
+   * Number of pages counted from the whole physical structMap.
+   */
+  private boolean noOfPagesExact;
+  /**
+   * First pages.
+   */
+  private List<PreviewPage> pages = new ArrayList<>();
+  /**
+   * Extraction was stopped due to the time budget.
+   */
+  private boolean timeBudgetExceeded;
+  /**
+   * Preview covers less than requested.
+   */
+  private boolean partial;
+  /**
+   * Duration of extraction in milliseconds.
+   */
+  private long duration;
+
+  /**
+   * Get resource ID of METS document.
+   *
+   * @return the resourceId
+   */
+  public String getResourceId() {
+    return resourceId;
+  }
+
+  /**
+   * Set resource ID of METS document.
+   *
+   * @param resourceId the resourceId to set
+   */
+  public void setResourceId(String resourceId) {
+    this.resourceId = resourceId;
+  }
+
+  /**
+   * Get metadata (title, sub title, year, license, author, publisher,
+   * physical description, PPN and number of pages).
+   *
+   * @return the metadata
+   */
+  public MetsProperties getMetadata() {
+    return metadata;
+  }
+
+  /**
+   * Set metadata.
+   *
+   * @param metadata the metadata to set
+   */
+  public void setMetadata(MetsProperties metadata) {
+    this.metadata = metadata;
+  }
+
+  /**
+   * Test if all metadata fields were read.
+   *
+   * @return true if metadata is complete.
+   */
+  public boolean isMetadataComplete() {
+    return metadataComplete;
+  }
+
+  /**
+   * Set if all metadata fields were read.
+   *
+   * @param metadataComplete the metadataComplete to set
+   */
+  public void setMetadataComplete(boolean metadataComplete) {
+    this.metadataComplete = metadataComplete;
+  }
+
+  /**
+   * Get number of pages.
+   *
+   * @return the noOfPages (estimated if {@link #isNoOfPagesExact()} is
+   * false)
+   */
+  public int getNoOfPages() {
+    return noOfPages;
+  }
+
+  /**
+   * Set number of pages.
+   *
+   * @param noOfPages the noOfPages to set
+   */
+  public void setNoOfPages(int noOfPages) {
+    this.noOfPages = noOfPages;
+  }
+
+  /**
+   * Test if number of pages was counted from the whole physical structMap.
+   *
+   * @return true if number of pages is exact.
+   */
+  public boolean isNoOfPagesExact() {
+    return noOfPagesExact;
+  }
+
+  /**
+   * Set if number of pages is exact.
+   *
+   * @param noOfPagesExact the noOfPagesExact to set
+   */
+  public void setNoOfPagesExact(boolean noOfPagesExact) {
+    this.noOfPagesExact = noOfPagesExact;
+  }
+
+  /**
+   * Get first pages in document order.
+   *
+   * @return the pages
+   */
+  public List<PreviewPage> getPages() {
+    return pages;
+  }
+
+  /**
+   * Set first pages.
+   *
+   * @param pages the pages to set
+   */
+  public void setPages(List<PreviewPage> pages) {
+    this.pages = pages;
+  }
+
+  /**
+   * Test if extraction was stopped due to the time budget.
+   *
+   * @return true if time budget was exceeded.
+   */
+  public boolean isTimeBudgetExceeded() {
+    return timeBudgetExceeded;
+  }
+
+  /**
+   * Set if extraction was stopped due to the time budget.
+   *
+   * @param timeBudgetExceeded the timeBudgetExceeded to set
+   */
+  public void setTimeBudgetExceeded(boolean timeBudgetExceeded) {
+    this.timeBudgetExceeded = timeBudgetExceeded;
+  }
+
+  /**
+   * Test if preview covers less than requested.
+   *
+   * @return true if preview is partial.
+   */
+  public boolean isPartial() {
+    return partial;
+  }
+
+  /**
+   * Set if preview covers less than requested.
+   *
+   * @param partial the partial to set
+   */
+  public void setPartial(boolean partial) {
+    this.partial = partial;
+  }
+
+  /**
+   * Get duration of extraction.
+   *
+   * @return the duration in milliseconds
+   */
+  public long getDuration() {
+    return duration;
+  }
+
+  /**
+   * Set duration of extraction.
+   *
+   * @param duration the duration to set
+   */
+  public void setDuration(long duration) {
+    this.duration = duration;
+  }
+
+  @Override
+  public String toString() {
+    return "WorkspacePreview[resourceId=" + resourceId + ", noOfPages=" + noOfPages + ", noOfPagesExact=" + noOfPagesExact
+            + ", pages=" + pages.size() + ", metadataComplete=" + metadataComplete + ", timeBudgetExceeded=" + timeBudgetExceeded
+            + ", partial=" + partial + ", duration=" + duration + "]";
+  }
+}
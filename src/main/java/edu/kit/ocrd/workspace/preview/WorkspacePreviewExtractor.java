@@ -0,0 +1,729 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.preview;
+
+import edu.kit.ocrd.workspace.MetsDocumentUtil;
+import edu.kit.ocrd.workspace.WorkspaceSession;
+import edu.kit.ocrd.workspace.XmlParserUtil;
+import edu.kit.ocrd.workspace.entity.MetsProperties;
+import edu.kit.ocrd.workspace.metrics.ExtractionMetrics;
+import edu.kit.ocrd.workspace.page.PageStreamExtractor;
+import edu.kit.ocrd.workspace.page.PageStreamExtractor.Granularity;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fast extraction of a workspace preview with bounded work. The METS
+ * document is streamed (StAX) only until the first MODS section, the file
+ * section and the first pages of the physical structMap are read; the rest
+ * of the document is never parsed. Text is extracted from the PAGE files of
+ * the first pages only.
+ * <p>
+ * The whole extraction runs under a time budget. If the budget is exceeded
+ * extraction stops and the preview holds everything read so far. If the
+ * physical structMap is not read completely, the number of pages is
+ * estimated by the largest fileGrp. In both cases the preview is marked as
+ * partial.
+ */
+public class WorkspacePreviewExtractor {
+
+  /**
+   * Default number of pages read from the physical structMap.
+   */
+  public static final int DEFAULT_MAX_PAGES = 10;
+  /**
+   * Default number of PAGE files text is extracted from.
+   */
+  public static final int DEFAULT_MAX_PAGE_FILES = 3;
+  /**
+   * Default time budget in milliseconds.
+   */
+  public static final long DEFAULT_TIME_BUDGET = 200;
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(WorkspacePreviewExtractor.class);
+  /**
+   * METS namespace.
+   */
+  private static final String METS_NAMESPACE = "http://www.loc.gov/METS/";
+  /**
+   * MODS namespace.
+   */
+  private static final String MODS_NAMESPACE = "http://www.loc.gov/mods/v3";
+  /**
+   * XLink namespace.
+   */
+  private static final String XLINK_NAMESPACE = "http://www.w3.org/1999/xlink";
+  /**
+   * Shared factory (thread safe after configuration).
+   */
+  private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+  /**
+   * Number of pages read from the physical structMap.
+   */
+  private int maxPages = DEFAULT_MAX_PAGES;
+  /**
+   * Number of PAGE files text is extracted from.
+   */
+  private int maxPageFiles = DEFAULT_MAX_PAGE_FILES;
+  /**
+   * Time budget in nanoseconds.
+   */
+  private long timeBudget = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TIME_BUDGET);
+  /**
+   * Preferred fileGrps of PAGE files (empty for the last fileGrp).
+   */
+  private final List<String> fileGrps = new ArrayList<>();
+
+  /**
+   * Set number of pages read from the physical structMap. (Default:
+   * {@link #DEFAULT_MAX_PAGES})
+   *
+   * @param noOfPages Number of pages.
+   * @return Extractor.
+   */
+  public WorkspacePreviewExtractor withMaxPages(final int noOfPages) {
+    if (noOfPages < 0) {
+      throw new IllegalArgumentException("Number of pages must not be negative!");
+    }
+    maxPages = noOfPages;
+    return this;
+  }
+
+  /**
+   * Set number of PAGE files text is extracted from. Only files of the
+   * pages read from the physical structMap are used. (Default:
+   * {@link #DEFAULT_MAX_PAGE_FILES})
+   *
+   * @param noOfPageFiles Number of PAGE files.
+   * @return Extractor.
+   */
+  public WorkspacePreviewExtractor withMaxPageFiles(final int noOfPageFiles) {
+    if (noOfPageFiles < 0) {
+      throw new IllegalArgumentException("Number of PAGE files must not be negative!");
+    }
+    maxPageFiles = noOfPageFiles;
+    return this;
+  }
+
+  /**
+   * Set time budget of the whole extraction. (Default:
+   * {@link #DEFAULT_TIME_BUDGET} ms)
+   *
+   * @param budget Time budget.
+   * @param unit Unit of budget.
+   * @return Extractor.
+   */
+  public WorkspacePreviewExtractor withTimeBudget(final long budget, final TimeUnit unit) {
+    if (budget <= 0) {
+      throw new IllegalArgumentException("Time budget has to be positive!");
+    }
+    timeBudget = unit.toNanos(budget);
+    return this;
+  }
+
+  /**
+   * Set preferred fileGrps of PAGE files. For each page the PAGE file of the
+   * first given fileGrp is used. (Default: the last fileGrp containing PAGE
+   * files in document order, i.e. usually the latest processing step)
+   *
+   * @param uses USE of fileGrps (null or empty for default).
+   * @return Extractor.
+   */
+  public WorkspacePreviewExtractor withFileGrps(final Collection<String> uses) {
+    fileGrps.clear();
+    if (uses != null) {
+      fileGrps.addAll(uses);
+    }
+    return this;
+  }
+
+  /**
+   * Extract preview of workspace.
+   *
+   * @param metsFile METS file.
+   * @param resourceId Resource ID of METS document.
+   * @return Preview.
+   * @throws IOException Error reading METS file or METS document is not
+   * well-formed.
+   */
+  public WorkspacePreview extract(final Path metsFile, final String resourceId) throws IOException {
+    return extract(new WorkspaceSession(metsFile, resourceId));
+  }
+
+  /**
+   * Extract preview of workspace. The METS document of the session is not
+   * parsed.
+   *
+   * @param session Session of workspace.
+   * @return Preview.
+   * @throws IOException Error reading METS file or METS document is not
+   * well-formed.
+   */
+  public WorkspacePreview extract(final WorkspaceSession session) throws IOException {
+    long start = System.nanoTime();
+    long deadline = start + timeBudget;
+    BooleanSupplier expired = () -> System.nanoTime() - deadline > 0;
+    ExtractionMetrics.Sample sample = ExtractionMetrics.start(ExtractionMetrics.STAGE_METS_PREVIEW);
+    try {
+      MetsScanner scanner = new MetsScanner(maxPages);
+      boolean timeBudgetExceeded;
+      try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(session.getMetsFile()), XmlParserUtil.BUFFER_SIZE)) {
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(inputStream);
+        try {
+          timeBudgetExceeded = !scanner.scan(reader, expired);
+        } finally {
+          reader.close();
+        }
+      } catch (XMLStreamException ex) {
+        throw new IOException(ex.getMessage(), ex);
+      }
+      if (!timeBudgetExceeded) {
+        timeBudgetExceeded = !extractText(session, scanner, expired);
+      }
+      WorkspacePreview preview = new WorkspacePreview();
+      preview.setResourceId(session.getResourceId());
+      int noOfPages = scanner.noOfPages;
+      if (!scanner.physicalMapRead) {
+        for (int noOfFiles : scanner.noOfFilesPerFileGrp.values()) {
+          noOfPages = Math.max(noOfPages, noOfFiles);
+        }
+      }
+      scanner.metadata.setResourceId(session.getResourceId());
+      scanner.metadata.setNoOfPages(noOfPages);
+      preview.setMetadata(scanner.metadata);
+      preview.setMetadataComplete(scanner.metadataRead);
+      preview.setNoOfPages(noOfPages);
+      preview.setNoOfPagesExact(scanner.physicalMapRead);
+      preview.setPages(scanner.pages);
+      preview.setTimeBudgetExceeded(timeBudgetExceeded);
+      int noOfPagesWithPageFile = 0;
+      int noOfCompletePages = 0;
+      for (int index = 0; index < scanner.pages.size(); index++) {
+        if (selectPageFile(scanner, scanner.fileIdsOfPages.get(index)) != null) {
+          noOfPagesWithPageFile++;
+        }
+        if (scanner.pages.get(index).isTextComplete()) {
+          noOfCompletePages++;
+        }
+      }
+      // Partial if less than requested is covered. (An estimated number of
+      // pages is reported by noOfPagesExact.)
+      preview.setPartial(timeBudgetExceeded || !scanner.metadataRead || noOfCompletePages < Math.min(maxPageFiles, noOfPagesWithPageFile));
+      preview.setDuration(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      if (timeBudgetExceeded) {
+        LOGGER.warn("Time budget of {} ms exceeded for preview of '{}'", TimeUnit.NANOSECONDS.toMillis(timeBudget), session.getMetsFile());
+      }
+      LOGGER.debug("Extracted {}", preview);
+      sample.success();
+      return preview;
+    } catch (IOException | RuntimeException ex) {
+      sample.failure();
+      throw ex;
+    }
+  }
+
+  /**
+   * Extract text of the first pages.
+   *
+   * @param session Session of workspace.
+   * @param scanner Scanner holding the pages and PAGE files.
+   * @param expired Deadline of time budget.
+   * @return false if time budget was exceeded.
+   */
+  private boolean extractText(final WorkspaceSession session, final MetsScanner scanner, final BooleanSupplier expired) {
+    int noOfPageFiles = 0;
+    for (int index = 0; index < scanner.pages.size() && noOfPageFiles < maxPageFiles; index++) {
+      String[] pageFile = selectPageFile(scanner, scanner.fileIdsOfPages.get(index));
+      if (pageFile == null) {
+        continue;
+      }
+      if (expired.getAsBoolean()) {
+        return false;
+      }
+      noOfPageFiles++;
+      PreviewPage page = scanner.pages.get(index);
+      page.setFileGrp(pageFile[0]);
+      page.setPageUrl(pageFile[1]);
+      StringBuilder text = new StringBuilder();
+      try {
+        int noOfTextRegions = PageStreamExtractor.extract(session.resolve(pageFile[1]), Granularity.REGION, element -> {
+          if (text.length() > 0) {
+            text.append('\n');
+          }
+          text.append(element.getText());
+        }, expired);
+        page.setText(text.toString());
+        page.setNoOfTextRegions(noOfTextRegions);
+        if (expired.getAsBoolean()) {
+          return false;
+        }
+        page.setTextComplete(true);
+      } catch (IOException | IllegalArgumentException ex) {
+        LOGGER.warn("Error extracting text of PAGE file '{}': {}", pageFile[1], ex.getMessage());
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Select PAGE file of page.
+   *
+   * @param scanner Scanner holding the PAGE files.
+   * @param fileIds IDs of all files of page.
+   * @return USE of fileGrp and 'URL' of PAGE file or null if page has no
+   * PAGE file.
+   */
+  private String[] selectPageFile(final MetsScanner scanner, final List<String> fileIds) {
+    String[] selected = null;
+    int selectedRank = Integer.MAX_VALUE;
+    for (String fileId : fileIds) {
+      String[] pageFile = scanner.pageFiles.get(fileId);
+      if (pageFile == null) {
+        continue;
+      }
+      int rank;
+      if (fileGrps.isEmpty()) {
+        // Later fileGrps first.
+        rank = -scanner.pageFileGrps.indexOf(pageFile[0]);
+      } else {
+        rank = fileGrps.indexOf(pageFile[0]);
+        if (rank < 0) {
+          continue;
+        }
+      }
+      if (rank < selectedRank) {
+        selected = pageFile;
+        selectedRank = rank;
+      }
+    }
+    return selected;
+  }
+
+  /**
+   * Create factory for namespace aware parsing without DTDs.
+   *
+   * @return Factory.
+   */
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    return factory;
+  }
+
+  /**
+   * State of a bounded scan of a METS document. Relies on the order of the
+   * sections defined by the METS schema (dmdSec, amdSec, fileSec, structMap,
+   * structLink) to decide when metadata and files are read completely.
+   */
+  private static final class MetsScanner {
+
+    /**
+     * Number of pages to read.
+     */
+    private final int maxPages;
+    /**
+     * Metadata of first MODS section.
+     */
+    private final MetsProperties metadata = new MetsProperties();
+    /**
+     * Non blank access conditions (license).
+     */
+    private final List<String> licenses = new ArrayList<>();
+    /**
+     * Names of metadata fields already read.
+     */
+    private final Set<String> readFields = new HashSet<>();
+    /**
+     * PAGE files (ID -&gt; {USE of fileGrp, 'URL'}).
+     */
+    private final Map<String, String[]> pageFiles = new HashMap<>();
+    /**
+     * USE of fileGrps containing PAGE files in document order.
+     */
+    private final List<String> pageFileGrps = new ArrayList<>();
+    /**
+     * Number of files per fileGrp (USE -&gt; number).
+     */
+    private final Map<String, Integer> noOfFilesPerFileGrp = new HashMap<>();
+    /**
+     * First pages.
+     */
+    private final List<PreviewPage> pages = new ArrayList<>();
+    /**
+     * IDs of files of first pages.
+     */
+    private final List<List<String>> fileIdsOfPages = new ArrayList<>();
+    /**
+     * No more metadata will follow.
+     */
+    private boolean metadataRead;
+    /**
+     * No more files will follow.
+     */
+    private boolean filesRead;
+    /**
+     * First pages are read.
+     */
+    private boolean pagesRead;
+    /**
+     * Physical structMap was read completely.
+     */
+    private boolean physicalMapRead;
+    /**
+     * Number of pages found.
+     */
+    private int noOfPages;
+    /**
+     * Depth of current element (root element has depth 1).
+     */
+    private int depth;
+    /**
+     * Depth of first MODS element while it is open (0 otherwise).
+     */
+    private int modsDepth;
+    /**
+     * Local name of the current child of the MODS element.
+     */
+    private String modsChild;
+    /**
+     * Name of the metadata field currently read (null otherwise).
+     */
+    private String field;
+    /**
+     * Depth of element holding the metadata field.
+     */
+    private int fieldDepth;
+    /**
+     * Value of the metadata field currently read.
+     */
+    private final StringBuilder value = new StringBuilder();
+    /**
+     * USE of current fileGrp.
+     */
+    private String fileGrp;
+    /**
+     * ID of current PAGE file (null otherwise).
+     */
+    private String pageFileId;
+    /**
+     * Depth of physical structMap while it is open (0 otherwise).
+     */
+    private int physicalDepth;
+    /**
+     * IDs of files of the current page (null if page is not previewed).
+     */
+    private List<String> fileIds;
+
+    /**
+     * Constructor.
+     *
+     * @param maxPages Number of pages to read.
+     */
+    private MetsScanner(final int maxPages) {
+      this.maxPages = maxPages;
+    }
+
+    /**
+     * Scan METS document until metadata, files and the first pages are read.
+     *
+     * @param reader Stream reader.
+     * @param expired Deadline of time budget.
+     * @return false if time budget was exceeded.
+     * @throws XMLStreamException Error parsing document.
+     */
+    private boolean scan(final XMLStreamReader reader, final BooleanSupplier expired) throws XMLStreamException {
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            if (expired.getAsBoolean()) {
+              setLicense();
+              return false;
+            }
+            depth++;
+            startElement(reader);
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+            if (field != null) {
+              value.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            endElement(reader);
+            depth--;
+            break;
+          default:
+            break;
+        }
+        if (metadataRead && filesRead && pagesRead) {
+          LOGGER.trace("Stop reading METS after {} page(s)", noOfPages);
+          setLicense();
+          return true;
+        }
+      }
+      metadataRead = true;
+      physicalMapRead = true;
+      setLicense();
+      return true;
+    }
+
+    /**
+     * Handle start of element.
+     *
+     * @param reader Stream reader positioned at start element.
+     */
+    private void startElement(final XMLStreamReader reader) {
+      String namespace = reader.getNamespaceURI();
+      String localName = reader.getLocalName();
+      if (MODS_NAMESPACE.equals(namespace)) {
+        if (modsDepth == 0 && !metadataRead && "mods".equals(localName)) {
+          modsDepth = depth;
+        } else if (modsDepth > 0 && depth == modsDepth + 1) {
+          modsChild = localName;
+          startField("accessCondition".equals(localName) ? localName : null);
+        } else if (modsDepth > 0 && depth == modsDepth + 2) {
+          startField(getField(modsChild, localName));
+        }
+        return;
+      }
+      if (!METS_NAMESPACE.equals(namespace)) {
+        return;
+      }
+      if (depth == 2) {
+        // Sections following the dmdSecs resp. the fileSec.
+        if (!"metsHdr".equals(localName) && !"dmdSec".equals(localName)) {
+          metadataRead = true;
+        }
+        if ("structMap".equals(localName) || "structLink".equals(localName) || "behaviorSec".equals(localName)) {
+          filesRead = true;
+        }
+      }
+      switch (localName) {
+        case "fileGrp":
+          fileGrp = reader.getAttributeValue(null, "USE");
+          break;
+        case "file":
+          noOfFilesPerFileGrp.merge(String.valueOf(fileGrp), 1, Integer::sum);
+          pageFileId = MetsDocumentUtil.PAGE_MIMETYPE.equals(reader.getAttributeValue(null, "MIMETYPE")) ? reader.getAttributeValue(null, "ID") : null;
+          break;
+        case "FLocat":
+          if (pageFileId != null && !pageFiles.containsKey(pageFileId)) {
+            pageFiles.put(pageFileId, new String[]{fileGrp, reader.getAttributeValue(XLINK_NAMESPACE, "href")});
+            if (!pageFileGrps.contains(fileGrp)) {
+              pageFileGrps.add(fileGrp);
+            }
+          }
+          break;
+        case "structMap":
+          if (depth == 2 && !physicalMapRead && "PHYSICAL".equals(reader.getAttributeValue(null, "TYPE"))) {
+            physicalDepth = depth;
+          }
+          break;
+        case "div":
+          if (physicalDepth > 0 && depth == physicalDepth + 2) {
+            startPage(reader);
+          }
+          break;
+        case "fptr":
+          if (fileIds != null && depth == physicalDepth + 3) {
+            fileIds.add(reader.getAttributeValue(null, "FILEID"));
+          }
+          break;
+        default:
+          break;
+      }
+    }
+
+    /**
+     * Handle end of element.
+     *
+     * @param reader Stream reader positioned at end element.
+     */
+    private void endElement(final XMLStreamReader reader) {
+      String namespace = reader.getNamespaceURI();
+      String localName = reader.getLocalName();
+      if (MODS_NAMESPACE.equals(namespace)) {
+        if (field != null && depth == fieldDepth) {
+          setField(field, value.toString().trim());
+          field = null;
+        }
+        if (depth == modsDepth) {
+          modsDepth = 0;
+          metadataRead = true;
+        }
+        return;
+      }
+      if (!METS_NAMESPACE.equals(namespace)) {
+        return;
+      }
+      switch (localName) {
+        case "fileSec":
+          filesRead = true;
+          break;
+        case "file":
+          pageFileId = null;
+          break;
+        case "div":
+          if (physicalDepth > 0 && depth == physicalDepth + 2) {
+            fileIds = null;
+          }
+          break;
+        case "structMap":
+          if (depth == physicalDepth) {
+            physicalDepth = 0;
+            physicalMapRead = true;
+            pagesRead = true;
+          }
+          break;
+        default:
+          break;
+      }
+    }
+
+    /**
+     * Handle start of page div.
+     *
+     * @param reader Stream reader positioned at page div.
+     */
+    private void startPage(final XMLStreamReader reader) {
+      if (noOfPages == maxPages) {
+        pagesRead = true;
+      }
+      noOfPages++;
+      if (pages.size() < maxPages) {
+        PreviewPage page = new PreviewPage();
+        page.setPageId(reader.getAttributeValue(null, "ID"));
+        try {
+          page.setOrder(Integer.parseInt(reader.getAttributeValue(null, "ORDER")));
+        } catch (NumberFormatException ex) {
+          LOGGER.trace("Page '{}' has no valid ORDER", page.getPageId());
+        }
+        pages.add(page);
+        fileIds = new ArrayList<>();
+        fileIdsOfPages.add(fileIds);
+      }
+    }
+
+    /**
+     * Start reading value of metadata field.
+     *
+     * @param name Name of field (null if element holds no field).
+     */
+    private void startField(final String name) {
+      field = name;
+      fieldDepth = depth;
+      value.setLength(0);
+    }
+
+    /**
+     * Get name of metadata field of MODS element.
+     *
+     * @param parent Local name of child of MODS element.
+     * @param localName Local name of grandchild of MODS element.
+     * @return Name of field or null if element holds no field.
+     */
+    private static String getField(final String parent, final String localName) {
+      String name = parent + "/" + localName;
+      switch (name) {
+        case "titleInfo/title":
+        case "titleInfo/subTitle":
+        case "originInfo/dateIssued":
+        case "originInfo/publisher":
+        case "name/displayForm":
+        case "physicalDescription/extent":
+        case "recordInfo/recordIdentifier":
+          return name;
+        default:
+          return null;
+      }
+    }
+
+    /**
+     * Set metadata field unless already set (first value wins like for the
+     * full extraction).
+     *
+     * @param name Name of field.
+     * @param fieldValue Value of field.
+     */
+    private void setField(final String name, final String fieldValue) {
+      if ("accessCondition".equals(name)) {
+        if (!fieldValue.isEmpty()) {
+          licenses.add(fieldValue);
+        }
+        return;
+      }
+      if (!readFields.add(name)) {
+        return;
+      }
+      switch (name) {
+        case "titleInfo/title":
+          metadata.setTitle(fieldValue);
+          break;
+        case "titleInfo/subTitle":
+          metadata.setSubTitle(fieldValue);
+          break;
+        case "originInfo/dateIssued":
+          metadata.setYear(fieldValue);
+          break;
+        case "originInfo/publisher":
+          metadata.setPublisher(fieldValue);
+          break;
+        case "name/displayForm":
+          metadata.setAuthor(fieldValue);
+          break;
+        case "physicalDescription/extent":
+          metadata.setPhysicalDescription(fieldValue);
+          break;
+        case "recordInfo/recordIdentifier":
+          metadata.setPpn(fieldValue);
+          break;
+        default:
+          break;
+      }
+    }
+
+    /**
+     * Set license from all access conditions read so far.
+     */
+    private void setLicense() {
+      if (!licenses.isEmpty()) {
+        metadata.setLicense(String.join(", ", licenses));
+      }
+    }
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.provenance;
+
+import java.util.Date;
+
+/**
+ * One processor run of a workflow. Times are stored as epoch milliseconds
+ * ({@link ProvenanceWorkflow#NO_TIME} if not available) and fileGrps as
+ * indexes into the fileGrp table of the workflow
+ * ({@link ProvenanceWorkflow#getFileGrp(int)}). Immutable.
+ */
+public class ProvenanceProcessor {
+
+  /**
+   * ID of the processor activity.
+   */
+  private final String id;
+  /**
+   * Label of the processor (name and version).
+   */
+  private final String label;
+  /**
+   * Start time (epoch milliseconds).
+   */
+  private final long startTime;
+  /**
+   * End time (epoch milliseconds).
+   */
+  private final long endTime;
+  /**
+   * Content of parameter file (may be null).
+   */
+  private final String parameterFile;
+  /**
+   * Indexes of input fileGrps.
+   */
+  private final int[] inputFileGrps;
+  /**
+   * Indexes of output fileGrps.
+   */
+  private final int[] outputFileGrps;
+
+  /**
+   * Constructor.
+   *
+   * @param id ID of the processor activity.
+   * @param label Label of the processor.
+   * @param startTime Start time (epoch milliseconds).
+   * @param endTime End time (epoch milliseconds).
+   * @param parameterFile Content of parameter file (may be null).
+   * @param inputFileGrps Indexes of input fileGrps.
+   * @param outputFileGrps Indexes of output fileGrps.
+   */
+  ProvenanceProcessor(final String id, final String label, final long startTime, final long endTime, final String parameterFile,
+          final int[] inputFileGrps, final int[] outputFileGrps) {
+    this.id = id;
+    this.label = label;
+    this.startTime = startTime;
+    this.endTime = endTime;
+    this.parameterFile = parameterFile;
+    this.inputFileGrps = inputFileGrps;
+    this.outputFileGrps = outputFileGrps;
+  }
+
+  /**
+   * Get ID of the processor activity.
+   *
+   * @return ID.
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Get label of the processor containing name and version.
+   *
+   * @return Label.
+   */
+  public String getLabel() {
+    return label;
+  }
+
+  /**
+   * Get start time.
+   *
+   * @return Epoch milliseconds or {@link ProvenanceWorkflow#NO_TIME}.
+   */
+  public long getStartTime() {
+    return startTime;
+  }
+
+  /**
+   * Get end time.
+   *
+   * @return Epoch milliseconds or {@link ProvenanceWorkflow#NO_TIME}.
+   */
+  public long getEndTime() {
+    return endTime;
+  }
+
+  /**
+   * Get start date.
+   *
+   * @return Start date or null if not available.
+   */
+  public Date getStartDate() {
+    return ProvenanceWorkflow.toDate(startTime);
+  }
+
+  /**
+   * Get duration in seconds (rounded).
+   *
+   * @return Duration or 0 if start or end time is not available.
+   */
+  public long getDuration() {
+    return ProvenanceWorkflow.getDuration(startTime, endTime);
+  }
+
+  /**
+   * Get content of parameter file.
+   *
+   * @return Content or null if processor has no parameter file.
+   */
+  public String getParameterFile() {
+    return parameterFile;
+  }
+
+  /**
+   * Get indexes of input fileGrps. (Do not modify the array.)
+   *
+   * @return Indexes into the fileGrp table of the workflow.
+   */
+  public int[] getInputFileGrps() {
+    return inputFileGrps;
+  }
+
+  /**
+   * Get indexes of output fileGrps. (Do not modify the array.)
+   *
+   * @return Indexes into the fileGrp table of the workflow.
+   */
+  public int[] getOutputFileGrps() {
+    return outputFileGrps;
+  }
+
+  @Override
+  public String toString() {
+    return "ProvenanceProcessor[id=" + id + ", label=" + label + ", startTime=" + startTime + ", endTime=" + endTime + "]";
+  }
+}
@@ -16,16 +16,23 @@
 package edu.kit.ocrd.workspace.provenance;
 
 import edu.kit.ocrd.workspace.MetsUtil;
+import edu.kit.ocrd.workspace.WorkspaceSession;
 import edu.kit.ocrd.workspace.entity.ProvenanceMetadata;
+import edu.kit.ocrd.workspace.metrics.ExtractionMetrics;
+import edu.kit.ocrd.workspace.metrics.FlightRecorderEvents;
+import edu.kit.ocrd.workspace.metrics.FlightRecorderEvents.ProvenanceBuild;
+import edu.kit.ocrd.workspace.metrics.FlightRecorderEvents.XPathEvaluation;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import org.fzk.tools.xml.JaxenUtil;
 import org.jdom.Document;
 import org.jdom.Element;
@@ -72,6 +79,27 @@ public class ProvenanceUtil {
    * All entities of type 'ocrd:parameter__file'.
    */
   Map<String, ProvenanceEntity> parameterFileEntities;
+  /**
+   * USE of all referenced fileGrps (shared by all workflows).
+   */
+  String[] fileGrpTable;
+  /**
+   * Index of fileGrps inside table (USE -&gt; index).
+   */
+  Map<String, Integer> fileGrpIndexes = new HashMap<>();
+  /**
+   * Processors started by workflows (ID of workflow -&gt; IDs of processors).
+   */
+  Map<String, List<String>> startedProcessors;
+  /**
+   * Entities used by processors (ID of processor -&gt; IDs of entities).
+   */
+  Map<String, List<String>> usedEntities;
+  /**
+   * Entities generated by processors (ID of processor -&gt; IDs of
+   * entities).
+   */
+  Map<String, List<String>> generatedEntities;
 
   private ProvenanceUtil(final Document provDocument, final Document metsDocument) {
     this.provDocument = provDocument;
@@ -79,10 +107,20 @@ public class ProvenanceUtil {
     processorActivities = extractActivities("ocrd:processor");
     referencedFileEntities = extractEntities("ocrd:mets__referencedFileGroup");
     parameterFileEntities = extractEntities("ocrd:parameter__file");
-    List<String> allFileIds = new ArrayList<>();
+    Set<String> allFileGrps = new TreeSet<>();
     for (ProvenanceEntity item : referencedFileEntities.values()) {
-      allFileIds.add(item.getValue());
+      if (item.getValue() != null) {
+        allFileGrps.add(item.getValue());
+      }
+    }
+    fileGrpTable = allFileGrps.toArray(new String[allFileGrps.size()]);
+    for (int index = 0; index < fileGrpTable.length; index++) {
+      fileGrpIndexes.put(fileGrpTable[index], index);
     }
+    // Resolve all relations at once instead of one query per processor.
+    startedProcessors = extractRelations("wasStartedBy", "activity", "trigger");
+    usedEntities = extractRelations("used", "activity", "entity");
+    generatedEntities = extractRelations("wasGeneratedBy", "activity", "entity");
   }
 
   /**
@@ -95,73 +133,221 @@ public class ProvenanceUtil {
    * @return List with all found files.
    */
   public static List<ProvenanceMetadata> extractWorkflows(final Document provDocument, final Document metsDocument, final String resourceId) throws Exception {
-    LOGGER.info("Extract provenance metadata from METS ocrd_provenance.xml");
-    List<ProvenanceMetadata> provenanceMetadataList = new ArrayList<>();
-    ProvenanceUtil provUtil = new ProvenanceUtil(provDocument, metsDocument);
-    Map<String, ProvenanceActivity> extractWorkflows = provUtil.extractActivities("ocrd:workflow");
-    LOGGER.debug("Found {} workflows in provenance document!", extractWorkflows.size());
-    ProvenanceMetadata provenanceMetadata = new ProvenanceMetadata();
-    for (ProvenanceActivity workflow : extractWorkflows.values()) {
-      provenanceMetadata.setResourceId(resourceId);
-      provenanceMetadata.setWorkflowId(workflow.getId());
-      provenanceMetadata.setStartWorkflow(workflow.getStartDate());
-      provenanceMetadata.setDurationWorkflow(provUtil.getDuration(workflow.getStartDate(), workflow.getEndDate()));
+    return ProvenanceWorkflow.toProvenanceMetadata(extractProvenanceWorkflows(provDocument, metsDocument, resourceId));
+  }
+
+  /**
+   * Extract provenance metadata of workspace. The METS document is parsed
+   * only once per session.
+   *
+   * @param session Session of workspace.
+   *
+   * @return List with all found files (empty if workspace has no
+   * provenance).
+   */
+  public static List<ProvenanceMetadata> extractWorkflows(final WorkspaceSession session) throws Exception {
+    return ProvenanceWorkflow.toProvenanceMetadata(extractProvenanceWorkflows(session));
+  }
+
+  /**
+   * Extract normalized provenance (one record per workflow holding its
+   * processor runs) from provenance and METS document.
+   *
+   * @param provDocument Provenance document.
+   * @param metsDocument METS document.
+   * @param resourceId Resource ID of METS document.
+   *
+   * @return List with all workflows.
+   */
+  public static List<ProvenanceWorkflow> extractProvenanceWorkflows(final Document provDocument, final Document metsDocument, final String resourceId) throws Exception {
+    return ExtractionMetrics.record(ExtractionMetrics.STAGE_PROVENANCE_WORKFLOWS, () -> {
+      LOGGER.info("Extract provenance metadata from METS ocrd_provenance.xml");
+      List<ProvenanceWorkflow> workflows = new ArrayList<>();
+      ProvenanceBuild event = FlightRecorderEvents.beginProvenanceBuild();
+      ProvenanceUtil provUtil = new ProvenanceUtil(provDocument, metsDocument);
+      Map<String, ProvenanceActivity> extractWorkflows = provUtil.extractActivities("ocrd:workflow");
+      LOGGER.debug("Found {} workflows in provenance document!", extractWorkflows.size());
+      int noOfProcessors = 0;
+      for (ProvenanceActivity workflow : extractWorkflows.values()) {
+        ProvenanceWorkflow provenanceWorkflow = new ProvenanceWorkflow(resourceId, workflow.getId(), toTime(workflow.getStartDate()),
+                toTime(workflow.getEndDate()), provUtil.fileGrpTable, provUtil.extractProcessorsForWorkflow(workflow.getId()));
+        noOfProcessors += provenanceWorkflow.getProcessors().size();
+        workflows.add(provenanceWorkflow);
+      }
+      event.complete(resourceId, provDocument.getBaseURI(),
+              extractWorkflows.size() + provUtil.processorActivities.size() + provUtil.referencedFileEntities.size() + provUtil.parameterFileEntities.size(),
+              noOfProcessors);
+
+      return workflows;
+    });
+  }
+
+  /**
+   * Extract normalized provenance of workspace. The METS document is parsed
+   * only once per session.
+   *
+   * @param session Session of workspace.
+   *
+   * @return List with all workflows (empty if workspace has no provenance).
+   */
+  public static List<ProvenanceWorkflow> extractProvenanceWorkflows(final WorkspaceSession session) throws Exception {
+    Document provDocument = session.getProvenanceDocument();
+    if (provDocument == null) {
+      LOGGER.debug("No provenance found for '{}'", session.getResourceId());
+      return new ArrayList<>();
+    }
+    return extractProvenanceWorkflows(provDocument, session.getMetsDocument(), session.getResourceId());
+  }
 
-      provenanceMetadataList.addAll(provUtil.extractProcessorsForWorkflow(provenanceMetadata));
+  /**
+   * Split fileGrps as stored in provenance metadata (e.g. '[OCR-D-IMG,
+   * OCR-D-SEG]').
+   *
+   * @param fileGrps FileGrps as string.
+   * @return List with USE of all fileGrps.
+   */
+  public static List<String> getFileGrps(final String fileGrps) {
+    List<String> fileGrpList = new ArrayList<>();
+    if (fileGrps != null) {
+      for (String use : fileGrps.replaceAll("^\\[|\\]$", "").split(",")) {
+        if (!use.trim().isEmpty()) {
+          fileGrpList.add(use.trim());
+        }
+      }
     }
+    return fileGrpList;
+  }
 
-    return provenanceMetadataList;
+  /**
+   * Determine the output fileGrp of the last processor out of the given
+   * candidates (e.g. all fileGrps containing PAGE files). If the last
+   * processor writes several candidates, the one listed last in candidates
+   * wins.
+   *
+   * @param provenanceMetadata Provenance metadata of all processors.
+   * @param candidates USE of all candidate fileGrps.
+   * @return USE of fileGrp or null if no processor writes any candidate.
+   */
+  public static String getFinalOutputFileGrp(final List<ProvenanceMetadata> provenanceMetadata, final List<String> candidates) {
+    String finalFileGrp = null;
+    long finalEnd = Long.MIN_VALUE;
+    int finalIndex = -1;
+    for (ProvenanceMetadata processor : provenanceMetadata) {
+      long end = Long.MIN_VALUE;
+      if (processor.getStartProcessor() != null) {
+        long duration = processor.getDurationProcessor() != null ? processor.getDurationProcessor() : 0l;
+        end = processor.getStartProcessor().getTime() + duration * 1000l;
+      }
+      for (String use : getFileGrps(processor.getOutputFileGrps())) {
+        int index = candidates.indexOf(use);
+        if (index >= 0 && (end > finalEnd || (end == finalEnd && index > finalIndex))) {
+          finalFileGrp = use;
+          finalEnd = end;
+          finalIndex = index;
+        }
+      }
+    }
+    LOGGER.debug("Final output fileGrp: '{}'", finalFileGrp);
+    return finalFileGrp;
   }
 
   /**
-   * Extract processor metadata from provenance document for given workflow.
+   * Extract processor runs from provenance document for given workflow.
    *
-   * @param provMetadata provenance metadata of workflow.
-   * @return List with all found files.
+   * @param workflowId ID of workflow activity.
+   * @return List with all processors of workflow.
    */
-  private List<ProvenanceMetadata> extractProcessorsForWorkflow(final ProvenanceMetadata provMetadata) {
-    LOGGER.info("Extract processor metadata for workflow id '{}' from METS ocrd_provenance.xml", provMetadata.getWorkflowId());
-    List<ProvenanceMetadata> provenanceMetadata = new ArrayList<>();
-    String[] processorIds = JaxenUtil.getAttributesValues(provDocument, "//prov:wasStartedBy/prov:activity[@prov:ref='" + provMetadata.getWorkflowId() + "']/../prov:trigger/@prov:ref", namespaces);
-    LOGGER.debug("Found '{}' processor for workflow.", processorIds.length);
+  private List<ProvenanceProcessor> extractProcessorsForWorkflow(final String workflowId) {
+    LOGGER.info("Extract processor metadata for workflow id '{}' from METS ocrd_provenance.xml", workflowId);
+    List<ProvenanceProcessor> processors = new ArrayList<>();
+    List<String> processorIds = getReferences(startedProcessors, workflowId);
+    LOGGER.debug("Found '{}' processor for workflow.", processorIds.size());
     for (String id : processorIds) {
       ProvenanceActivity processor = processorActivities.get(id);
-      ProvenanceMetadata processorMetadata = (ProvenanceMetadata) provMetadata.clone();
-      processorMetadata.setProcessorLabel(processor.getLabel());
-      processorMetadata.setStartProcessor(processor.getStartDate());
-      processorMetadata.setDurationProcessor(getDuration(processor.getStartDate(), processor.getEndDate()));
+      if (processor == null) {
+        LOGGER.warn("Unknown processor '{}' in workflow '{}'!", id, workflowId);
+        continue;
+      }
       // Add content of parameter file if available
-      String[] list = JaxenUtil.getAttributesValues(provDocument, "//prov:used[./prov:activity/@prov:ref='" + id + "']/prov:entity/@prov:ref", namespaces);
-      for (String parameterId : list) {
-        if (parameterFileEntities.keySet().contains(parameterId)) {
-          processorMetadata.setParameterFile(parameterFileEntities.get(parameterId).getValue());
+      String parameterFile = null;
+      List<String> usedIds = getReferences(usedEntities, id);
+      for (String parameterId : usedIds) {
+        if (parameterFileEntities.containsKey(parameterId)) {
+          parameterFile = parameterFileEntities.get(parameterId).getValue();
           // only one parameter file per processor.
           break;
         }
       }
-      // Add input filegrps 
-      String[] usedIds = JaxenUtil.getAttributesValues(provDocument, "//prov:used[./prov:activity/@prov:ref='" + id + "']/prov:entity/@prov:ref", namespaces);
-      Set<String> inputGroups = new HashSet<>();
-      for (String fileId : usedIds) {
-        ProvenanceEntity referencedFile = referencedFileEntities.get(fileId);
-        if (referencedFile != null) {
-          inputGroups.add(referencedFile.getValue());
-        }
+      processors.add(new ProvenanceProcessor(id, processor.getLabel(), toTime(processor.getStartDate()), toTime(processor.getEndDate()),
+              parameterFile, getFileGrpIndexes(usedIds), getFileGrpIndexes(getReferences(generatedEntities, id))));
+    }
+    return processors;
+  }
+
+  /**
+   * Map referenced fileGrp entities to indexes of the fileGrp table. Other
+   * entities are ignored. The order is the same as in former provenance
+   * metadata (iteration order of a hash set).
+   *
+   * @param entityIds IDs of referenced entities.
+   * @return Indexes of fileGrps.
+   */
+  private int[] getFileGrpIndexes(final List<String> entityIds) {
+    Set<String> fileGrps = new HashSet<>();
+    for (String fileId : entityIds) {
+      ProvenanceEntity referencedFile = referencedFileEntities.get(fileId);
+      if (referencedFile != null && referencedFile.getValue() != null) {
+        fileGrps.add(referencedFile.getValue());
       }
-      processorMetadata.setInputFileGrps(inputGroups.toString());
-      // Add output filegrps 
-      String[] wasGeneratedIds = JaxenUtil.getAttributesValues(provDocument, "//prov:wasGeneratedBy[./prov:activity/@prov:ref='" + id + "']/prov:entity/@prov:ref", namespaces);
-      Set<String> outputGroups = new HashSet<>();
-      for (String fileId : wasGeneratedIds) {
-        ProvenanceEntity referencedFile = referencedFileEntities.get(fileId);
-        if (referencedFile != null) {
-          outputGroups.add(referencedFile.getValue());
+    }
+    int[] indexes = new int[fileGrps.size()];
+    int index = 0;
+    for (String use : fileGrps) {
+      indexes[index++] = fileGrpIndexes.get(use);
+    }
+    return indexes;
+  }
+
+  /**
+   * Collect references of all relations of a given type (e.g. 'prov:used')
+   * in one pass over the document.
+   *
+   * @param relation Name of relation element.
+   * @param source Name of element holding the referencing activity.
+   * @param target Name of element(s) holding the referenced nodes.
+   * @return Map with referenced nodes per activity (ID of activity -&gt; IDs
+   * of referenced nodes).
+   */
+  private Map<String, List<String>> extractRelations(final String relation, final String source, final String target) {
+    Map<String, List<String>> relations = new HashMap<>();
+    Namespace prov = namespaces[0];
+    List nodes = JaxenUtil.getNodes(provDocument, "//prov:" + relation, namespaces);
+    for (Object relationNode : nodes) {
+      Element relationElement = (Element) relationNode;
+      for (Object sourceNode : relationElement.getChildren(source, prov)) {
+        String sourceId = ((Element) sourceNode).getAttributeValue("ref", prov);
+        for (Object targetNode : relationElement.getChildren(target, prov)) {
+          String targetId = ((Element) targetNode).getAttributeValue("ref", prov);
+          if (sourceId != null && targetId != null) {
+            relations.computeIfAbsent(sourceId, id -> new ArrayList<>()).add(targetId);
+          }
         }
       }
-      processorMetadata.setOutputFileGrps(outputGroups.toString());
-      provenanceMetadata.add(processorMetadata);
     }
-    return provenanceMetadata;
+    LOGGER.debug("Found {} activities with relation '{}'", relations.size(), relation);
+    return relations;
+  }
+
+  /**
+   * Get references of activity.
+   *
+   * @param relations Relations (ID of activity -&gt; IDs of referenced nodes).
+   * @param activityId ID of activity.
+   * @return IDs of referenced nodes (maybe empty).
+   */
+  private static List<String> getReferences(final Map<String, List<String>> relations, final String activityId) {
+    List<String> references = relations.get(activityId);
+    return references != null ? references : Collections.emptyList();
   }
 
   /**
@@ -246,25 +432,22 @@ public class ProvenanceUtil {
     LOGGER.info("Create mapping fileID to file group from METS ocrd_provenance.xml");
     Map<String, String> fileMap = new HashMap<>();
     for (String fileId : fileIdList) {
-      String fileGrp = JaxenUtil.getAttributeValue(metsDocument, "//mets:file[@ID='" + fileId + "']/../@USE", MetsUtil.getNamespaces());
+      String fileGrpPath = "//mets:file[@ID='" + fileId + "']/../@USE";
+      XPathEvaluation event = FlightRecorderEvents.beginXPathEvaluation();
+      String fileGrp = JaxenUtil.getAttributeValue(metsDocument, fileGrpPath, MetsUtil.getNamespaces());
+      event.complete(null, metsDocument.getBaseURI(), fileGrpPath, fileGrp != null ? 1 : 0);
       fileMap.put(fileId, fileGrp);
     }
     return fileMap;
   }
 
   /**
-   * Calculate duration in [s] between 2 dates
+   * Convert date to epoch milliseconds.
    *
-   * @param startDate startDate of duration.
-   * @param endDate end date of duration.
-   * @return duration in [s]
+   * @param date Date (may be null).
+   * @return Epoch milliseconds or {@link ProvenanceWorkflow#NO_TIME}.
    */
-  private Long getDuration(Date startDate, Date endDate) {
-    Long duration = 0l;
-    if ((startDate != null) && (endDate != null)) {
-      duration = startDate.getTime() - endDate.getTime();
-      duration = (Math.abs(duration) + 500l) / 1000l;
-    }
-    return duration;
+  private static long toTime(final Date date) {
+    return date != null ? date.getTime() : ProvenanceWorkflow.NO_TIME;
   }
 }
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.provenance;
+
+import edu.kit.ocrd.workspace.entity.ProvenanceMetadata;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Normalized provenance of one workflow: the workflow level fields are held
+ * once for all processor runs and the fileGrps are interned in a table
+ * shared by all workflows of a provenance document. Use
+ * {@link #toProvenanceMetadata()} for the denormalized rows (one per
+ * processor run). Immutable.
+ */
+public class ProvenanceWorkflow {
+
+  /**
+   * Time not available.
+   */
+  public static final long NO_TIME = Long.MIN_VALUE;
+  /**
+   * Resource ID of METS document.
+   */
+  private final String resourceId;
+  /**
+   * ID of the workflow activity.
+   */
+  private final String workflowId;
+  /**
+   * Start time (epoch milliseconds).
+   */
+  private final long startTime;
+  /**
+   * End time (epoch milliseconds).
+   */
+  private final long endTime;
+  /**
+   * USE of all fileGrps (index -&gt; USE).
+   */
+  private final String[] fileGrps;
+  /**
+   * All processor runs.
+   */
+  private final List<ProvenanceProcessor> processors;
+
+  /**
+   * Constructor.
+   *
+   * @param resourceId Resource ID of METS document.
+   * @param workflowId ID of the workflow activity.
+   * @param startTime Start time (epoch milliseconds).
+   * @param endTime End time (epoch milliseconds).
+   * @param fileGrps USE of all fileGrps referenced by the processors.
+   * @param processors All processor runs.
+   */
+  ProvenanceWorkflow(final String resourceId, final String workflowId, final long startTime, final long endTime,
+          final String[] fileGrps, final List<ProvenanceProcessor> processors) {
+    this.resourceId = resourceId;
+    this.workflowId = workflowId;
+    this.startTime = startTime;
+    this.endTime = endTime;
+    this.fileGrps = fileGrps;
+    this.processors = Collections.unmodifiableList(processors);
+  }
+
+  /**
+   * Get resource ID of METS document.
+   *
+   * @return Resource ID.
+   */
+  public String getResourceId() {
+    return resourceId;
+  }
+
+  /**
+   * Get ID of the workflow activity.
+   *
+   * @return ID.
+   */
+  public String getWorkflowId() {
+    return workflowId;
+  }
+
+  /**
+   * Get start time.
+   *
+   * @return Epoch milliseconds or {@link #NO_TIME}.
+   */
+  public long getStartTime() {
+    return startTime;
+  }
+
+  /**
+   * Get end time.
+   *
+   * @return Epoch milliseconds or {@link #NO_TIME}.
+   */
+  public long getEndTime() {
+    return endTime;
+  }
+
+  /**
+   * Get duration in seconds (rounded).
+   *
+   * @return Duration or 0 if start or end time is not available.
+   */
+  public long getDuration() {
+    return getDuration(startTime, endTime);
+  }
+
+  /**
+   * Get number of fileGrps in table.
+   *
+   * @return Number of fileGrps.
+   */
+  public int getNoOfFileGrps() {
+    return fileGrps.length;
+  }
+
+  /**
+   * Get USE of fileGrp.
+   *
+   * @param index Index of fileGrp (see
+   * {@link ProvenanceProcessor#getInputFileGrps()}).
+   * @return USE of fileGrp.
+   */
+  public String getFileGrp(final int index) {
+    return fileGrps[index];
+  }
+
+  /**
+   * Get all processor runs in order of the provenance document.
+   *
+   * @return Unmodifiable list of processors.
+   */
+  public List<ProvenanceProcessor> getProcessors() {
+    return processors;
+  }
+
+  /**
+   * Create denormalized provenance metadata (one row per processor run
+   * including the workflow fields) for existing consumers.
+   *
+   * @return List with one row per processor.
+   */
+  public List<ProvenanceMetadata> toProvenanceMetadata() {
+    List<ProvenanceMetadata> rows = new ArrayList<>(processors.size());
+    Date startWorkflow = toDate(startTime);
+    Long durationWorkflow = getDuration();
+    for (ProvenanceProcessor processor : processors) {
+      ProvenanceMetadata row = new ProvenanceMetadata();
+      row.setResourceId(resourceId);
+      row.setWorkflowId(workflowId);
+      row.setStartWorkflow(startWorkflow);
+      row.setDurationWorkflow(durationWorkflow);
+      row.setProcessorLabel(processor.getLabel());
+      row.setStartProcessor(processor.getStartDate());
+      row.setDurationProcessor(processor.getDuration());
+      row.setParameterFile(processor.getParameterFile());
+      row.setInputFileGrps(formatFileGrps(processor.getInputFileGrps()));
+      row.setOutputFileGrps(formatFileGrps(processor.getOutputFileGrps()));
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  /**
+   * Create denormalized provenance metadata of all workflows.
+   *
+   * @param workflows Workflows.
+   * @return List with one row per processor.
+   */
+  public static List<ProvenanceMetadata> toProvenanceMetadata(final List<ProvenanceWorkflow> workflows) {
+    List<ProvenanceMetadata> rows = new ArrayList<>();
+    for (ProvenanceWorkflow workflow : workflows) {
+      rows.addAll(workflow.toProvenanceMetadata());
+    }
+    return rows;
+  }
+
+  @Override
+  public String toString() {
+    return "ProvenanceWorkflow[resourceId=" + resourceId + ", workflowId=" + workflowId + ", startTime=" + startTime
+            + ", endTime=" + endTime + ", processors=" + processors.size() + "]";
+  }
+
+  /**
+   * Format fileGrps as stored in provenance metadata (e.g. '[OCR-D-IMG,
+   * OCR-D-SEG]', see {@link ProvenanceUtil#getFileGrps(String)}).
+   *
+   * @param indexes Indexes of fileGrps.
+   * @return FileGrps as string.
+   */
+  private String formatFileGrps(final int[] indexes) {
+    StringBuilder builder = new StringBuilder("[");
+    for (int index = 0; index < indexes.length; index++) {
+      if (index > 0) {
+        builder.append(", ");
+      }
+      builder.append(fileGrps[indexes[index]]);
+    }
+    return builder.append(']').toString();
+  }
+
+  /**
+   * Convert epoch milliseconds to date.
+   *
+   * @param time Epoch milliseconds or {@link #NO_TIME}.
+   * @return Date or null.
+   */
+  static Date toDate(final long time) {
+    return time != NO_TIME ? new Date(time) : null;
+  }
+
+  /**
+   * Calculate duration in [s] between 2 times.
+   *
+   * @param startTime Start time (epoch milliseconds).
+   * @param endTime End time (epoch milliseconds).
+   * @return Duration in [s] (0 if one of the times is not available).
+   */
+  static long getDuration(final long startTime, final long endTime) {
+    if (startTime == NO_TIME || endTime == NO_TIME) {
+      return 0L;
+    }
+    return (Math.abs(endTime - startTime) + 500L) / 1000L;
+  }
+}
@@ -0,0 +1,397 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.remote;
+
+import edu.kit.ocrd.workspace.metrics.ExtractionMetrics;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Asynchronous download of remote (http/https) PAGE files into a local disk
+ * cache.
+ * <p>
+ * Downloads run on a fixed pool of threads. Connections are reused via the
+ * keep-alive pool of the JDK, the number of parallel connections per host is
+ * limited. Cached files are keyed by their URL and revalidated with the ETag
+ * of the last download ('If-None-Match'), so unchanged files are not
+ * transferred again. Files served without ETag are downloaded on each fetch.
+ * Concurrent fetches of the same URL share one download.
+ */
+public class RemotePageFetcher implements Closeable {
+
+  /**
+   * Default number of download threads.
+   */
+  public static final int DEFAULT_NO_OF_THREADS = 8;
+  /**
+   * Default maximum number of parallel connections per host.
+   */
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 4;
+  /**
+   * Default timeout for connecting in milliseconds.
+   */
+  public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+  /**
+   * Default timeout for reading in milliseconds.
+   */
+  public static final int DEFAULT_READ_TIMEOUT = 30000;
+  /**
+   * Suffix of cached files.
+   */
+  private static final String CONTENT_SUFFIX = ".xml";
+  /**
+   * Suffix of files holding the ETag of cached files.
+   */
+  private static final String ETAG_SUFFIX = ".etag";
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(RemotePageFetcher.class);
+  /**
+   * Counter for naming threads.
+   */
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+  /**
+   * Directory of disk cache.
+   */
+  private final Path cacheDirectory;
+  /**
+   * Threads downloading files.
+   */
+  private final ExecutorService executor;
+  /**
+   * Limits of parallel connections (host -&gt; limit).
+   */
+  private final Map<String, Semaphore> hostLimits = new ConcurrentHashMap<>();
+  /**
+   * Running downloads (URL -&gt; download).
+   */
+  private final Map<String, CompletableFuture<Path>> pending = new ConcurrentHashMap<>();
+  /**
+   * Maximum number of parallel connections per host.
+   */
+  private int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+  /**
+   * Timeout for connecting in milliseconds.
+   */
+  private int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+  /**
+   * Timeout for reading in milliseconds.
+   */
+  private int readTimeout = DEFAULT_READ_TIMEOUT;
+  /**
+   * Socket factory for HTTPS connections (null for default).
+   */
+  private SSLSocketFactory sslSocketFactory;
+  /**
+   * Number of downloaded files.
+   */
+  private final AtomicLong noOfDownloads = new AtomicLong();
+  /**
+   * Number of cached files confirmed by server.
+   */
+  private final AtomicLong noOfNotModified = new AtomicLong();
+
+  /**
+   * Constructor with default number of threads.
+   *
+   * @param cacheDirectory Directory of disk cache.
+   * @throws IOException Error creating directory.
+   */
+  public RemotePageFetcher(final Path cacheDirectory) throws IOException {
+    this(cacheDirectory, DEFAULT_NO_OF_THREADS);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param cacheDirectory Directory of disk cache.
+   * @param noOfThreads Number of download threads.
+   * @throws IOException Error creating directory.
+   */
+  public RemotePageFetcher(final Path cacheDirectory, final int noOfThreads) throws IOException {
+    if (noOfThreads < 1) {
+      throw new IllegalArgumentException("Number of threads has to be positive!");
+    }
+    this.cacheDirectory = Files.createDirectories(cacheDirectory);
+    executor = Executors.newFixedThreadPool(noOfThreads, runnable -> {
+      Thread thread = new Thread(runnable, "page-fetch-" + THREAD_COUNTER.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Set maximum number of parallel connections per host. Has to be set
+   * before the first fetch.
+   *
+   * @param maxConnections Maximum number of connections.
+   * @return Fetcher.
+   */
+  public RemotePageFetcher withMaxConnectionsPerHost(final int maxConnections) {
+    if (maxConnections < 1) {
+      throw new IllegalArgumentException("Maximum number of connections has to be positive!");
+    }
+    maxConnectionsPerHost = maxConnections;
+    return this;
+  }
+
+  /**
+   * Set timeouts.
+   *
+   * @param connectTimeoutMs Timeout for connecting in milliseconds.
+   * @param readTimeoutMs Timeout for reading in milliseconds.
+   * @return Fetcher.
+   */
+  public RemotePageFetcher withTimeouts(final int connectTimeoutMs, final int readTimeoutMs) {
+    connectTimeout = connectTimeoutMs;
+    readTimeout = readTimeoutMs;
+    return this;
+  }
+
+  /**
+   * Set socket factory for HTTPS connections (e.g. for own trust stores).
+   *
+   * @param socketFactory Socket factory.
+   * @return Fetcher.
+   */
+  public RemotePageFetcher withSslSocketFactory(final SSLSocketFactory socketFactory) {
+    sslSocketFactory = socketFactory;
+    return this;
+  }
+
+  /**
+   * Test if 'URL' of file references a remote file.
+   *
+   * @param url 'URL' of file.
+   * @return true if URL starts with 'http://' or 'https://'.
+   */
+  public static boolean isRemote(final String url) {
+    return url.startsWith("http://") || url.startsWith("https://");
+  }
+
+  /**
+   * Fetch remote file asynchronously.
+   *
+   * @param url URL of file.
+   * @return Future holding the local copy of the file.
+   */
+  public CompletableFuture<Path> fetch(final String url) {
+    CompletableFuture<Path> download = pending.computeIfAbsent(url, key -> CompletableFuture.supplyAsync(() -> {
+      try {
+        return download(key);
+      } catch (IOException ex) {
+        throw new CompletionException(ex);
+      }
+    }, executor));
+    // Register outside of computeIfAbsent: a download which is already
+    // finished runs the callback immediately.
+    download.whenComplete((file, error) -> pending.remove(url, download));
+    return download;
+  }
+
+  /**
+   * Get number of downloaded files.
+   *
+   * @return Number of downloads.
+   */
+  public long getNumberOfDownloads() {
+    return noOfDownloads.get();
+  }
+
+  /**
+   * Get number of cached files which were confirmed by the server (HTTP
+   * 304).
+   *
+   * @return Number of confirmed files.
+   */
+  public long getNumberOfNotModified() {
+    return noOfNotModified.get();
+  }
+
+  /**
+   * Stop all download threads. Running downloads are interrupted.
+   */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Download file if not cached or modified.
+   *
+   * @param url URL of file.
+   * @return Local copy of file.
+   * @throws IOException Error downloading file.
+   */
+  private Path download(final String url) throws IOException {
+    URL remoteUrl = new URL(url);
+    String host = remoteUrl.getProtocol() + "://" + remoteUrl.getAuthority();
+    Semaphore limit = hostLimits.computeIfAbsent(host, key -> new Semaphore(maxConnectionsPerHost, true));
+    try {
+      limit.acquire();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for connection to '" + host + "'!");
+    }
+    ExtractionMetrics.Sample sample = ExtractionMetrics.start(ExtractionMetrics.STAGE_PAGE_FETCH);
+    try {
+      Path file = download(remoteUrl);
+      sample.success();
+      return file;
+    } catch (IOException | RuntimeException ex) {
+      sample.failure();
+      throw ex;
+    } finally {
+      limit.release();
+    }
+  }
+
+  /**
+   * Download file if not cached or modified.
+   *
+   * @param url URL of file.
+   * @return Local copy of file.
+   * @throws IOException Error downloading file.
+   */
+  private Path download(final URL url) throws IOException {
+    String key = getKey(url.toString());
+    Path file = cacheDirectory.resolve(key + CONTENT_SUFFIX);
+    Path etagFile = cacheDirectory.resolve(key + ETAG_SUFFIX);
+    String etag = null;
+    if (Files.exists(file) && Files.exists(etagFile)) {
+      etag = new String(Files.readAllBytes(etagFile), StandardCharsets.UTF_8);
+    }
+    HttpURLConnection connection = openConnection(url);
+    if (etag != null) {
+      connection.setRequestProperty("If-None-Match", etag);
+    }
+    int status = connection.getResponseCode();
+    if (status == HttpURLConnection.HTTP_NOT_MODIFIED && etag != null) {
+      drain(connection);
+      noOfNotModified.incrementAndGet();
+      LOGGER.trace("Not modified: '{}'", url);
+      return file;
+    }
+    if (status != HttpURLConnection.HTTP_OK) {
+      drain(connection);
+      throw new IOException("Error fetching '" + url + "': HTTP " + status);
+    }
+    Path tempFile = Files.createTempFile(cacheDirectory, key, ".tmp");
+    try {
+      try (InputStream inputStream = connection.getInputStream()) {
+        Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+      if (ExtractionMetrics.isEnabled()) {
+        ExtractionMetrics.recordFileSize(ExtractionMetrics.STAGE_PAGE_FETCH, Files.size(tempFile));
+      }
+      // Remove old ETag first, so a stale ETag never belongs to new content.
+      Files.deleteIfExists(etagFile);
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+    String newEtag = connection.getHeaderField("ETag");
+    if (newEtag != null) {
+      Path tempEtagFile = Files.createTempFile(cacheDirectory, key, ".tmp");
+      Files.write(tempEtagFile, newEtag.getBytes(StandardCharsets.UTF_8));
+      Files.move(tempEtagFile, etagFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    noOfDownloads.incrementAndGet();
+    LOGGER.debug("Downloaded '{}' (ETag: {})", url, newEtag);
+    return file;
+  }
+
+  /**
+   * Open connection with configured timeouts.
+   *
+   * @param url URL.
+   * @return Connection.
+   * @throws IOException Error opening connection or no HTTP URL.
+   */
+  private HttpURLConnection openConnection(final URL url) throws IOException {
+    URLConnection connection = url.openConnection();
+    if (!(connection instanceof HttpURLConnection)) {
+      throw new IOException("Not an HTTP URL: '" + url + "'");
+    }
+    if (sslSocketFactory != null && connection instanceof HttpsURLConnection) {
+      ((HttpsURLConnection) connection).setSSLSocketFactory(sslSocketFactory);
+    }
+    connection.setConnectTimeout(connectTimeout);
+    connection.setReadTimeout(readTimeout);
+    connection.setRequestProperty("Accept", "application/xml, text/xml, */*");
+    return (HttpURLConnection) connection;
+  }
+
+  /**
+   * Read and close response, so the connection may be reused.
+   *
+   * @param connection Connection.
+   */
+  private static void drain(final HttpURLConnection connection) {
+    try (InputStream inputStream = connection.getErrorStream() != null ? connection.getErrorStream() : connection.getInputStream()) {
+      byte[] buffer = new byte[4096];
+      while (inputStream.read(buffer) >= 0) {
+        // Skip content.
+      }
+    } catch (IOException ex) {
+      LOGGER.trace("Error reading response of '{}'", connection.getURL(), ex);
+    }
+  }
+
+  /**
+   * Get key of URL inside cache.
+   *
+   * @param url URL.
+   * @return SHA-256 of URL as hex string.
+   */
+  private static String getKey(final String url) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+      StringBuilder key = new StringBuilder();
+      for (byte value : digest) {
+        key.append(String.format("%02x", value));
+      }
+      return key.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.spatial;
+
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Static spatial index of the text regions of one page (packed R-tree). The
+ * bounding boxes of the regions are sorted along a Hilbert curve and packed
+ * bottom up into nodes of {@link #NODE_SIZE} entries, so the tree is stored
+ * in two flat int arrays and can be written next to the regions and read
+ * again without rebuilding it.
+ * <p>
+ * Items are the indexes of the regions inside the list the index was built
+ * from. Regions without coordinates are not indexed. Immutable and thread
+ * safe.
+ */
+public class PageSpatialIndex {
+
+  /**
+   * Number of entries per node.
+   */
+  public static final int NODE_SIZE = 16;
+  /**
+   * Magic number of serialized index.
+   */
+  static final int MAGIC = 0x4f435349;
+  /**
+   * Version of serialization format.
+   */
+  static final int FORMAT_VERSION = 1;
+  /**
+   * Order of Hilbert curve (bits per dimension).
+   */
+  private static final int HILBERT_ORDER = 15;
+  /**
+   * Empty result.
+   */
+  private static final int[] NO_ITEMS = new int[0];
+  /**
+   * Number of indexed items (leaves).
+   */
+  private final int noOfItems;
+  /**
+   * Boxes of all nodes (minX, minY, maxX, maxY per node). Leaves come first,
+   * the root is the last node.
+   */
+  private final int[] boxes;
+  /**
+   * Item of each leaf or position of first child of each inner node.
+   */
+  private final int[] indices;
+  /**
+   * End of each level (in number of nodes, leaves first).
+   */
+  private final int[] levelBounds;
+
+  /**
+   * Constructor.
+   *
+   * @param noOfItems Number of indexed items.
+   * @param boxes Boxes of all nodes.
+   * @param indices Items of leaves or first child of inner nodes.
+   */
+  private PageSpatialIndex(final int noOfItems, final int[] boxes, final int[] indices) {
+    this.noOfItems = noOfItems;
+    this.boxes = boxes;
+    this.indices = indices;
+    this.levelBounds = computeLevelBounds(noOfItems);
+    if (boxes.length != 4 * getNoOfNodes(levelBounds) || indices.length != getNoOfNodes(levelBounds)) {
+      throw new IllegalArgumentException("Invalid size of spatial index!");
+    }
+  }
+
+  /**
+   * Build index of text regions of one page.
+   *
+   * @param textRegions Text regions of page.
+   * @return Index (items are the indexes inside the given list).
+   */
+  public static PageSpatialIndex build(final List<TextRegion> textRegions) {
+    int[] itemBoxes = new int[4 * textRegions.size()];
+    int[] items = new int[textRegions.size()];
+    int noOfItems = 0;
+    for (int index = 0; index < textRegions.size(); index++) {
+      TextRegion textRegion = textRegions.get(index);
+      if (textRegion.hasCoordinates()) {
+        itemBoxes[4 * noOfItems] = textRegion.getMinX();
+        itemBoxes[4 * noOfItems + 1] = textRegion.getMinY();
+        itemBoxes[4 * noOfItems + 2] = textRegion.getMaxX();
+        itemBoxes[4 * noOfItems + 3] = textRegion.getMaxY();
+        items[noOfItems++] = index;
+      }
+    }
+    return build(Arrays.copyOf(itemBoxes, 4 * noOfItems), Arrays.copyOf(items, noOfItems));
+  }
+
+  /**
+   * Build index of bounding boxes.
+   *
+   * @param itemBoxes Boxes of all items (minX, minY, maxX, maxY per item).
+   * @param items Items (e.g. indexes of regions).
+   * @return Index.
+   */
+  public static PageSpatialIndex build(final int[] itemBoxes, final int[] items) {
+    int noOfItems = items.length;
+    if (itemBoxes.length != 4 * noOfItems) {
+      throw new IllegalArgumentException("Expected 4 coordinates per item!");
+    }
+    int[] levelBounds = computeLevelBounds(noOfItems);
+    int noOfNodes = getNoOfNodes(levelBounds);
+    int[] boxes = new int[4 * noOfNodes];
+    int[] indices = new int[noOfNodes];
+    if (noOfItems == 0) {
+      return new PageSpatialIndex(0, boxes, indices);
+    }
+    // Sort items along Hilbert curve of their centers.
+    int minX = Integer.MAX_VALUE;
+    int minY = Integer.MAX_VALUE;
+    int maxX = Integer.MIN_VALUE;
+    int maxY = Integer.MIN_VALUE;
+    for (int item = 0; item < noOfItems; item++) {
+      minX = Math.min(minX, itemBoxes[4 * item]);
+      minY = Math.min(minY, itemBoxes[4 * item + 1]);
+      maxX = Math.max(maxX, itemBoxes[4 * item + 2]);
+      maxY = Math.max(maxY, itemBoxes[4 * item + 3]);
+    }
+    double scale = (1 << HILBERT_ORDER) - 1;
+    double width = Math.max(1, (long) maxX - minX);
+    double height = Math.max(1, (long) maxY - minY);
+    long[] keys = new long[noOfItems];
+    for (int item = 0; item < noOfItems; item++) {
+      double centerX = ((long) itemBoxes[4 * item] + itemBoxes[4 * item + 2]) / 2.0;
+      double centerY = ((long) itemBoxes[4 * item + 1] + itemBoxes[4 * item + 3]) / 2.0;
+      long hilbert = getHilbertValue((int) (scale * (centerX - minX) / width), (int) (scale * (centerY - minY) / height));
+      keys[item] = (hilbert << 32) | item;
+    }
+    Arrays.sort(keys);
+    for (int leaf = 0; leaf < noOfItems; leaf++) {
+      int item = (int) keys[leaf];
+      System.arraycopy(itemBoxes, 4 * item, boxes, 4 * leaf, 4);
+      indices[leaf] = items[item];
+    }
+    // Pack nodes of each level into their parents.
+    int position = 0;
+    int parent = noOfItems;
+    for (int level = 0; level < levelBounds.length - 1; level++) {
+      int end = levelBounds[level];
+      while (position < end) {
+        int firstChild = position;
+        int[] box = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+        for (int child = 0; child < NODE_SIZE && position < end; child++, position++) {
+          box[0] = Math.min(box[0], boxes[4 * position]);
+          box[1] = Math.min(box[1], boxes[4 * position + 1]);
+          box[2] = Math.max(box[2], boxes[4 * position + 2]);
+          box[3] = Math.max(box[3], boxes[4 * position + 3]);
+        }
+        System.arraycopy(box, 0, boxes, 4 * parent, 4);
+        indices[parent++] = firstChild;
+      }
+    }
+    return new PageSpatialIndex(noOfItems, boxes, indices);
+  }
+
+  /**
+   * Get number of indexed items.
+   *
+   * @return Number of items.
+   */
+  public int getNoOfItems() {
+    return noOfItems;
+  }
+
+  /**
+   * Find all items whose bounding box intersects the given viewport.
+   *
+   * @param minX Minimal x of viewport.
+   * @param minY Minimal y of viewport.
+   * @param maxX Maximal x of viewport.
+   * @param maxY Maximal y of viewport.
+   * @return Items in ascending order.
+   */
+  public int[] search(final int minX, final int minY, final int maxX, final int maxY) {
+    if (noOfItems == 0) {
+      return NO_ITEMS;
+    }
+    int[] result = new int[Math.min(noOfItems, 16)];
+    int size = 0;
+    int[] stack = new int[2 * levelBounds.length * NODE_SIZE];
+    int stackSize = 0;
+    int node = indices.length - 1;
+    int level = levelBounds.length - 1;
+    while (true) {
+      int end = Math.min(node + NODE_SIZE, levelBounds[level]);
+      for (int position = node; position < end; position++) {
+        if (boxes[4 * position + 2] < minX || boxes[4 * position + 3] < minY
+                || boxes[4 * position] > maxX || boxes[4 * position + 1] > maxY) {
+          continue;
+        }
+        if (position < noOfItems) {
+          if (size == result.length) {
+            result = Arrays.copyOf(result, 2 * size);
+          }
+          result[size++] = indices[position];
+        } else {
+          if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, 2 * stackSize);
+          }
+          stack[stackSize++] = indices[position];
+          stack[stackSize++] = level - 1;
+        }
+      }
+      if (stackSize == 0) {
+        break;
+      }
+      level = stack[--stackSize];
+      node = stack[--stackSize];
+    }
+    int[] items = Arrays.copyOf(result, size);
+    Arrays.sort(items);
+    return items;
+  }
+
+  /**
+   * Find all items whose bounding box contains the given point.
+   *
+   * @param x X coordinate.
+   * @param y Y coordinate.
+   * @return Items in ascending order.
+   */
+  public int[] search(final int x, final int y) {
+    return search(x, y, x, y);
+  }
+
+  /**
+   * Find all text regions whose polygon contains the given point. The
+   * candidates found via their bounding boxes are tested against their
+   * polygons.
+   *
+   * @param textRegions Text regions the index was built from.
+   * @param x X coordinate.
+   * @param y Y coordinate.
+   * @return Indexes of text regions in ascending order.
+   */
+  public int[] hitTest(final List<TextRegion> textRegions, final int x, final int y) {
+    int[] candidates = search(x, y);
+    int size = 0;
+    for (int candidate : candidates) {
+      if (PolygonUtil.contains(textRegions.get(candidate).getPoints(), x, y)) {
+        candidates[size++] = candidate;
+      }
+    }
+    return Arrays.copyOf(candidates, size);
+  }
+
+  /**
+   * Write index.
+   *
+   * @param out Output.
+   * @throws IOException Error writing index.
+   */
+  public void write(final DataOutput out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+    out.writeInt(noOfItems);
+    for (int value : boxes) {
+      out.writeInt(value);
+    }
+    for (int value : indices) {
+      out.writeInt(value);
+    }
+  }
+
+  /**
+   * Read index written by {@link #write(DataOutput)}.
+   *
+   * @param in Input.
+   * @return Index.
+   * @throws IOException Error reading index or invalid format.
+   */
+  public static PageSpatialIndex read(final DataInput in) throws IOException {
+    if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+      throw new IOException("Invalid spatial index!");
+    }
+    int noOfItems = in.readInt();
+    if (noOfItems < 0) {
+      throw new IOException("Invalid number of items: " + noOfItems);
+    }
+    int noOfNodes = getNoOfNodes(computeLevelBounds(noOfItems));
+    int[] boxes = new int[4 * noOfNodes];
+    for (int index = 0; index < boxes.length; index++) {
+      boxes[index] = in.readInt();
+    }
+    int[] indices = new int[noOfNodes];
+    for (int index = 0; index < indices.length; index++) {
+      indices[index] = in.readInt();
+    }
+    return new PageSpatialIndex(noOfItems, boxes, indices);
+  }
+
+  /**
+   * Compute end of each level (leaves first).
+   *
+   * @param noOfItems Number of items.
+   * @return End of each level in number of nodes.
+   */
+  private static int[] computeLevelBounds(final int noOfItems) {
+    int[] bounds = new int[8];
+    int size = 0;
+    int count = noOfItems;
+    int noOfNodes = noOfItems;
+    bounds[size++] = noOfNodes;
+    if (noOfItems == 0) {
+      return Arrays.copyOf(bounds, size);
+    }
+    do {
+      count = (count + NODE_SIZE - 1) / NODE_SIZE;
+      noOfNodes += count;
+      if (size == bounds.length) {
+        bounds = Arrays.copyOf(bounds, 2 * size);
+      }
+      bounds[size++] = noOfNodes;
+    } while (count != 1);
+    return Arrays.copyOf(bounds, size);
+  }
+
+  /**
+   * Get number of all nodes.
+   *
+   * @param levelBounds End of each level.
+   * @return Number of nodes.
+   */
+  private static int getNoOfNodes(final int[] levelBounds) {
+    return levelBounds[levelBounds.length - 1];
+  }
+
+  /**
+   * Get position of point on Hilbert curve.
+   *
+   * @param x X in [0, 2^HILBERT_ORDER).
+   * @param y Y in [0, 2^HILBERT_ORDER).
+   * @return Position on curve.
+   */
+  static long getHilbertValue(final int x, final int y) {
+    int n = 1 << HILBERT_ORDER;
+    int currentX = x;
+    int currentY = y;
+    long value = 0;
+    for (int s = n / 2; s > 0; s /= 2) {
+      int rx = (currentX & s) > 0 ? 1 : 0;
+      int ry = (currentY & s) > 0 ? 1 : 0;
+      value += (long) s * s * ((3 * rx) ^ ry);
+      // Rotate quadrant.
+      if (ry == 0) {
+        if (rx == 1) {
+          currentX = n - 1 - currentX;
+          currentY = n - 1 - currentY;
+        }
+        int swap = currentX;
+        currentX = currentY;
+        currentY = swap;
+      }
+    }
+    return value;
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.spatial;
+
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility handling polygons of PAGE 'Coords'. Polygons are stored as
+ * primitive arrays of alternating x and y coordinates (x0, y0, x1, y1, ...).
+ */
+public class PolygonUtil {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PolygonUtil.class);
+  /**
+   * Empty polygon.
+   */
+  public static final int[] NO_POINTS = new int[0];
+
+  /**
+   * Parse value of attribute 'points' (e.g. '1,2 3,4 5,6'). Invalid or
+   * negative coordinates are skipped.
+   *
+   * @param points Points (may be null).
+   * @return Polygon (empty if there are no valid points).
+   */
+  public static int[] parsePoints(final String points) {
+    if (points == null) {
+      return NO_POINTS;
+    }
+    int[] polygon = new int[16];
+    int size = 0;
+    int length = points.length();
+    int position = 0;
+    while (position < length) {
+      while (position < length && Character.isWhitespace(points.charAt(position))) {
+        position++;
+      }
+      int end = position;
+      while (end < length && !Character.isWhitespace(points.charAt(end))) {
+        end++;
+      }
+      int separator = points.indexOf(',', position);
+      if (separator > position && separator < end - 1) {
+        int x = parseCoordinate(points, position, separator);
+        int y = parseCoordinate(points, separator + 1, end);
+        if (x >= 0 && y >= 0) {
+          if (size == polygon.length) {
+            polygon = Arrays.copyOf(polygon, size * 2);
+          }
+          polygon[size++] = x;
+          polygon[size++] = y;
+        }
+      }
+      position = end;
+    }
+    return size > 0 ? Arrays.copyOf(polygon, size) : NO_POINTS;
+  }
+
+  /**
+   * Format polygon as value of attribute 'points'.
+   *
+   * @param polygon Polygon.
+   * @return Points (e.g. '1,2 3,4 5,6').
+   */
+  public static String formatPoints(final int[] polygon) {
+    StringBuilder builder = new StringBuilder();
+    for (int index = 0; index + 1 < polygon.length; index += 2) {
+      if (index > 0) {
+        builder.append(' ');
+      }
+      builder.append(polygon[index]).append(',').append(polygon[index + 1]);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Determine bounding box of polygon.
+   *
+   * @param polygon Polygon.
+   * @return Bounding box (minX, minY, maxX, maxY) or -1 for all values if
+   * polygon is empty.
+   */
+  public static int[] getBoundingBox(final int[] polygon) {
+    if (polygon.length < 2) {
+      return new int[]{-1, -1, -1, -1};
+    }
+    int[] box = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+    for (int index = 0; index + 1 < polygon.length; index += 2) {
+      box[0] = Math.min(box[0], polygon[index]);
+      box[1] = Math.min(box[1], polygon[index + 1]);
+      box[2] = Math.max(box[2], polygon[index]);
+      box[3] = Math.max(box[3], polygon[index + 1]);
+    }
+    return box;
+  }
+
+  /**
+   * Test if point is inside polygon (even-odd rule). Points on the border
+   * are inside. Polygons with less than 3 points are treated as their
+   * bounding box.
+   *
+   * @param polygon Polygon.
+   * @param x X coordinate of point.
+   * @param y Y coordinate of point.
+   * @return true if point is inside.
+   */
+  public static boolean contains(final int[] polygon, final int x, final int y) {
+    int noOfPoints = polygon.length / 2;
+    if (noOfPoints < 3) {
+      int[] box = getBoundingBox(polygon);
+      return noOfPoints > 0 && x >= box[0] && x <= box[2] && y >= box[1] && y <= box[3];
+    }
+    boolean inside = false;
+    for (int current = 0, previous = noOfPoints - 1; current < noOfPoints; previous = current++) {
+      long x1 = polygon[2 * previous];
+      long y1 = polygon[2 * previous + 1];
+      long x2 = polygon[2 * current];
+      long y2 = polygon[2 * current + 1];
+      if (isOnSegment(x1, y1, x2, y2, x, y)) {
+        return true;
+      }
+      if ((y1 > y) != (y2 > y)) {
+        // x coordinate of intersection compared without division.
+        long cross = (x2 - x1) * (y - y1) - (x - x1) * (y2 - y1);
+        if ((cross > 0) == (y2 > y1)) {
+          inside = !inside;
+        }
+      }
+    }
+    return inside;
+  }
+
+  /**
+   * Test if point lies on segment.
+   *
+   * @param x1 X of start.
+   * @param y1 Y of start.
+   * @param x2 X of end.
+   * @param y2 Y of end.
+   * @param x X of point.
+   * @param y Y of point.
+   * @return true if point is on segment.
+   */
+  private static boolean isOnSegment(final long x1, final long y1, final long x2, final long y2, final long x, final long y) {
+    return (x2 - x1) * (y - y1) == (x - x1) * (y2 - y1)
+            && x >= Math.min(x1, x2) && x <= Math.max(x1, x2) && y >= Math.min(y1, y2) && y <= Math.max(y1, y2);
+  }
+
+  /**
+   * Parse non negative integer coordinate.
+   *
+   * @param value String holding coordinate.
+   * @param start Start of coordinate.
+   * @param end End of coordinate (exclusive).
+   * @return Coordinate or -1 if invalid.
+   */
+  private static int parseCoordinate(final String value, final int start, final int end) {
+    try {
+      return Integer.parseInt(value.substring(start, end));
+    } catch (NumberFormatException ex) {
+      LOGGER.debug("Invalid coordinate '{}'", value.substring(start, end));
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.stats;
+
+import edu.kit.ocrd.workspace.entity.ConfidenceStatistics;
+
+/**
+ * Fixed memory histogram of confidences in [0, 1]. Percentiles are
+ * interpolated linearly inside the bins, so their error is at most the width
+ * of one bin (1 / {@link #NO_OF_BINS}). Not thread safe.
+ */
+public class ConfidenceHistogram {
+
+  /**
+   * Number of bins.
+   */
+  public static final int NO_OF_BINS = 100;
+  /**
+   * Number of confidences per bin.
+   */
+  private final long[] bins = new long[NO_OF_BINS];
+  /**
+   * Threshold for low confidence.
+   */
+  private final float lowConfidenceThreshold;
+  /**
+   * Number of confidences.
+   */
+  private long count = 0;
+  /**
+   * Sum of all confidences.
+   */
+  private double sum = 0;
+  /**
+   * Number of text elements without confidence.
+   */
+  private long noOfMissingConfidences = 0;
+  /**
+   * Number of characters of all text elements.
+   */
+  private long noOfCharacters = 0;
+  /**
+   * Number of characters of text elements below threshold.
+   */
+  private long noOfLowConfidenceCharacters = 0;
+
+  /**
+   * Constructor.
+   *
+   * @param lowConfidenceThreshold Text elements with a confidence below this
+   * threshold are regarded as low confidence.
+   */
+  public ConfidenceHistogram(final float lowConfidenceThreshold) {
+    this.lowConfidenceThreshold = lowConfidenceThreshold;
+  }
+
+  /**
+   * Add confidence of one text element.
+   *
+   * @param confidence Confidence (NaN if not available; values are clamped
+   * to [0, 1]).
+   * @param noOfChars Number of characters of the text element.
+   */
+  public void add(final float confidence, final int noOfChars) {
+    noOfCharacters += noOfChars;
+    if (Float.isNaN(confidence)) {
+      noOfMissingConfidences++;
+      return;
+    }
+    float value = Math.min(1.0f, Math.max(0.0f, confidence));
+    bins[Math.min(NO_OF_BINS - 1, (int) (value * NO_OF_BINS))]++;
+    count++;
+    sum += value;
+    if (value < lowConfidenceThreshold) {
+      noOfLowConfidenceCharacters += noOfChars;
+    }
+  }
+
+  /**
+   * Add all confidences of other histogram.
+   *
+   * @param other Histogram with same threshold.
+   */
+  public void merge(final ConfidenceHistogram other) {
+    if (other.lowConfidenceThreshold != lowConfidenceThreshold) {
+      throw new IllegalArgumentException("Histograms with different thresholds can't be merged!");
+    }
+    for (int index = 0; index < NO_OF_BINS; index++) {
+      bins[index] += other.bins[index];
+    }
+    count += other.count;
+    sum += other.sum;
+    noOfMissingConfidences += other.noOfMissingConfidences;
+    noOfCharacters += other.noOfCharacters;
+    noOfLowConfidenceCharacters += other.noOfLowConfidenceCharacters;
+  }
+
+  /**
+   * Get number of confidences.
+   *
+   * @return Number of confidences.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Get mean of all confidences.
+   *
+   * @return Mean or NaN if histogram is empty.
+   */
+  public float getMean() {
+    return count > 0 ? (float) (sum / count) : Float.NaN;
+  }
+
+  /**
+   * Get percentile of confidences.
+   *
+   * @param percentile Percentile in [0, 1] (e.g. 0.5 for the median).
+   * @return Estimated value or NaN if histogram is empty.
+   */
+  public float getPercentile(final double percentile) {
+    if (count == 0) {
+      return Float.NaN;
+    }
+    double rank = percentile * count;
+    long cumulated = 0;
+    for (int index = 0; index < NO_OF_BINS; index++) {
+      long binCount = bins[index];
+      if (binCount > 0 && cumulated + binCount >= rank) {
+        double fraction = (rank - cumulated) / binCount;
+        return (float) ((index + Math.max(0.0, fraction)) / NO_OF_BINS);
+      }
+      cumulated += binCount;
+    }
+    return 1.0f;
+  }
+
+  /**
+   * Get number of characters of all text elements.
+   *
+   * @return Number of characters.
+   */
+  public long getNoOfCharacters() {
+    return noOfCharacters;
+  }
+
+  /**
+   * Get number of characters of text elements below the threshold.
+   *
+   * @return Number of characters.
+   */
+  public long getNoOfLowConfidenceCharacters() {
+    return noOfLowConfidenceCharacters;
+  }
+
+  /**
+   * Get number of text elements without confidence.
+   *
+   * @return Number of text elements.
+   */
+  public long getNoOfMissingConfidences() {
+    return noOfMissingConfidences;
+  }
+
+  /**
+   * Create summary of histogram.
+   *
+   * @param scope Scope of summary.
+   * @param fileGrp USE of fileGrp (may be null).
+   * @param pageUrl 'URL' of page file (may be null).
+   * @return Summary.
+   */
+  public ConfidenceStatistics toStatistics(final String scope, final String fileGrp, final String pageUrl) {
+    ConfidenceStatistics statistics = new ConfidenceStatistics();
+    statistics.setScope(scope);
+    statistics.setFileGrp(fileGrp);
+    statistics.setPageUrl(pageUrl);
+    statistics.setCount(count);
+    statistics.setNoOfMissingConfidences(noOfMissingConfidences);
+    statistics.setMean(getMean());
+    statistics.setP10(getPercentile(0.1));
+    statistics.setP50(getPercentile(0.5));
+    statistics.setP90(getPercentile(0.9));
+    statistics.setNoOfCharacters(noOfCharacters);
+    statistics.setNoOfLowConfidenceCharacters(noOfLowConfidenceCharacters);
+    statistics.setLowConfidenceThreshold(lowConfidenceThreshold);
+    return statistics;
+  }
+
+  /**
+   * Remove all confidences.
+   */
+  public void clear() {
+    for (int index = 0; index < NO_OF_BINS; index++) {
+      bins[index] = 0;
+    }
+    count = 0;
+    sum = 0;
+    noOfMissingConfidences = 0;
+    noOfCharacters = 0;
+    noOfLowConfidenceCharacters = 0;
+  }
+}
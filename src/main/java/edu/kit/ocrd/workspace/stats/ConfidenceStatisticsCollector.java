@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.stats;
+
+import edu.kit.ocrd.workspace.entity.ConfidenceStatistics;
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects confidence statistics per page, per fileGrp and for the whole
+ * workspace while text elements are extracted. Only one histogram per
+ * fileGrp, one for the workspace and one for the current page are held; the
+ * statistics of finished pages are kept as summaries. No text is stored.
+ * Not thread safe.
+ */
+public class ConfidenceStatisticsCollector {
+
+  /**
+   * Default threshold for low confidence.
+   */
+  public static final float DEFAULT_LOW_CONFIDENCE_THRESHOLD = 0.5f;
+  /**
+   * Threshold for low confidence.
+   */
+  private final float lowConfidenceThreshold;
+  /**
+   * Histogram of workspace.
+   */
+  private final ConfidenceHistogram workspace;
+  /**
+   * Histograms of fileGrps (USE -&gt; histogram).
+   */
+  private final Map<String, ConfidenceHistogram> fileGrps = new LinkedHashMap<>();
+  /**
+   * Histogram of current page (reused for all pages).
+   */
+  private final ConfidenceHistogram page;
+  /**
+   * Summaries of finished pages.
+   */
+  private final List<ConfidenceStatistics> pages = new ArrayList<>();
+  /**
+   * FileGrp of current page.
+   */
+  private String currentFileGrp;
+  /**
+   * 'URL' of current page (null if no page is started).
+   */
+  private String currentPageUrl;
+
+  /**
+   * Constructor using {@link #DEFAULT_LOW_CONFIDENCE_THRESHOLD}.
+   */
+  public ConfidenceStatisticsCollector() {
+    this(DEFAULT_LOW_CONFIDENCE_THRESHOLD);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param lowConfidenceThreshold Text elements with a confidence below this
+   * threshold are regarded as low confidence.
+   */
+  public ConfidenceStatisticsCollector(final float lowConfidenceThreshold) {
+    this.lowConfidenceThreshold = lowConfidenceThreshold;
+    workspace = new ConfidenceHistogram(lowConfidenceThreshold);
+    page = new ConfidenceHistogram(lowConfidenceThreshold);
+  }
+
+  /**
+   * Collect statistics of already extracted text regions. Consecutive
+   * regions of the same page are regarded as one page. Regions without
+   * confidence (see {@link TextRegion#hasConfidence()}) are counted as
+   * missing confidences.
+   *
+   * @param textRegions Text regions.
+   * @param fileGrpOfPage Mapping of page 'URL' to USE of fileGrp.
+   * @param lowConfidenceThreshold Threshold for low confidence.
+   * @return Statistics of workspace, all fileGrps and all pages.
+   */
+  public static List<ConfidenceStatistics> collect(final List<TextRegion> textRegions, final Map<String, String> fileGrpOfPage,
+          final float lowConfidenceThreshold) {
+    ConfidenceStatisticsCollector collector = new ConfidenceStatisticsCollector(lowConfidenceThreshold);
+    String resourceId = null;
+    for (TextRegion textRegion : textRegions) {
+      if (!textRegion.getPageUrl().equals(collector.currentPageUrl)) {
+        collector.startPage(fileGrpOfPage.get(textRegion.getPageUrl()), textRegion.getPageUrl());
+      }
+      collector.add(textRegion.hasConfidence() ? textRegion.getConfidence() : Float.NaN, textRegion.getText());
+      resourceId = textRegion.getResourceId();
+    }
+    return collector.getStatistics(resourceId);
+  }
+
+  /**
+   * Start next page. The previous page is finished.
+   *
+   * @param fileGrp USE of fileGrp of page (may be null).
+   * @param pageUrl 'URL' of page file.
+   */
+  public void startPage(final String fileGrp, final String pageUrl) {
+    finishPage();
+    currentFileGrp = fileGrp;
+    currentPageUrl = pageUrl;
+  }
+
+  /**
+   * Add text element of current page.
+   *
+   * @param confidence Confidence of text (NaN if not available).
+   * @param text Text of element.
+   */
+  public void add(final float confidence, final String text) {
+    if (currentPageUrl == null) {
+      throw new IllegalStateException("No page started!");
+    }
+    page.add(confidence, countCharacters(text));
+  }
+
+  /**
+   * Finish current page and get all statistics: workspace first, then all
+   * fileGrps and all pages in the order they were started.
+   *
+   * @param resourceId Resource ID of METS document set to all statistics.
+   * @return Statistics.
+   */
+  public List<ConfidenceStatistics> getStatistics(final String resourceId) {
+    finishPage();
+    List<ConfidenceStatistics> statistics = new ArrayList<>();
+    statistics.add(workspace.toStatistics(ConfidenceStatistics.SCOPE_WORKSPACE, null, null));
+    for (Map.Entry<String, ConfidenceHistogram> entry : fileGrps.entrySet()) {
+      statistics.add(entry.getValue().toStatistics(ConfidenceStatistics.SCOPE_FILE_GRP, entry.getKey(), null));
+    }
+    statistics.addAll(pages);
+    for (ConfidenceStatistics item : statistics) {
+      item.setResourceId(resourceId);
+    }
+    return statistics;
+  }
+
+  /**
+   * Count characters of text ignoring whitespaces.
+   *
+   * @param text Text (may be null).
+   * @return Number of characters (code points).
+   */
+  static int countCharacters(final String text) {
+    if (text == null) {
+      return 0;
+    }
+    return (int) text.codePoints().filter(codePoint -> !Character.isWhitespace(codePoint)).count();
+  }
+
+  /**
+   * Summarize current page and add it to fileGrp and workspace.
+   */
+  private void finishPage() {
+    if (currentPageUrl == null) {
+      return;
+    }
+    pages.add(page.toStatistics(ConfidenceStatistics.SCOPE_PAGE, currentFileGrp, currentPageUrl));
+    workspace.merge(page);
+    if (currentFileGrp != null) {
+      fileGrps.computeIfAbsent(currentFileGrp, use -> new ConfidenceHistogram(lowConfidenceThreshold)).merge(page);
+    }
+    page.clear();
+    currentPageUrl = null;
+    currentFileGrp = null;
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.stats;
+
+import java.util.Arrays;
+
+/**
+ * Fixed memory histogram of latencies (non negative long values, e.g.
+ * milliseconds) with log-linear buckets as used by HDR histograms: values
+ * below {@link #NO_OF_EXACT_VALUES} are counted exactly, above each power of
+ * two is split into {@link #SUB_BUCKETS_PER_OCTAVE} buckets, so the relative
+ * error of percentiles is below 1/{@link #SUB_BUCKETS_PER_OCTAVE}. Values
+ * above {@link #MAX_VALUE} are counted as {@link #MAX_VALUE}.
+ * <p>
+ * Histograms are mergeable: merging histograms of several nodes gives the
+ * same result as recording all values in one histogram. Not thread safe.
+ */
+public class LatencyHistogram {
+
+  /**
+   * Number of sub buckets per power of two.
+   */
+  public static final int SUB_BUCKETS_PER_OCTAVE = 64;
+  /**
+   * Values counted exactly (0 ... NO_OF_EXACT_VALUES - 1).
+   */
+  public static final int NO_OF_EXACT_VALUES = 2 * SUB_BUCKETS_PER_OCTAVE;
+  /**
+   * Highest trackable value (about 34 years in milliseconds).
+   */
+  public static final long MAX_VALUE = (1L << 40) - 1;
+  /**
+   * Bits of the exact values.
+   */
+  private static final int EXACT_BITS = Long.numberOfTrailingZeros(NO_OF_EXACT_VALUES);
+  /**
+   * Number of buckets.
+   */
+  static final int NO_OF_BUCKETS = getBucketIndex(MAX_VALUE) + 1;
+  /**
+   * Counts per bucket.
+   */
+  private final long[] counts = new long[NO_OF_BUCKETS];
+  /**
+   * Number of values.
+   */
+  private long count = 0;
+  /**
+   * Sum of all values.
+   */
+  private long sum = 0;
+  /**
+   * Minimum of all values.
+   */
+  private long min = Long.MAX_VALUE;
+  /**
+   * Maximum of all values.
+   */
+  private long max = Long.MIN_VALUE;
+
+  /**
+   * Record one value.
+   *
+   * @param value Value (negative values are counted as 0).
+   */
+  public void record(final long value) {
+    long clamped = Math.min(MAX_VALUE, Math.max(0, value));
+    counts[getBucketIndex(clamped)]++;
+    count++;
+    sum += clamped;
+    min = Math.min(min, clamped);
+    max = Math.max(max, clamped);
+  }
+
+  /**
+   * Add all values of other histogram.
+   *
+   * @param other Histogram.
+   */
+  public void merge(final LatencyHistogram other) {
+    if (other.count == 0) {
+      return;
+    }
+    for (int index = 0; index < NO_OF_BUCKETS; index++) {
+      counts[index] += other.counts[index];
+    }
+    count += other.count;
+    sum += other.sum;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  /**
+   * Get number of values.
+   *
+   * @return Number of values.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Get sum of all values.
+   *
+   * @return Sum.
+   */
+  public long getSum() {
+    return sum;
+  }
+
+  /**
+   * Get minimum of all values.
+   *
+   * @return Minimum (0 if histogram is empty).
+   */
+  public long getMin() {
+    return count > 0 ? min : 0;
+  }
+
+  /**
+   * Get maximum of all values.
+   *
+   * @return Maximum (0 if histogram is empty).
+   */
+  public long getMax() {
+    return count > 0 ? max : 0;
+  }
+
+  /**
+   * Get mean of all values.
+   *
+   * @return Mean (NaN if histogram is empty).
+   */
+  public double getMean() {
+    return count > 0 ? (double) sum / count : Double.NaN;
+  }
+
+  /**
+   * Get value at percentile. The value is the middle of the bucket holding
+   * the percentile limited to minimum and maximum.
+   *
+   * @param percentile Percentile in [0, 100] (e.g. 99 for p99).
+   * @return Value (0 if histogram is empty).
+   */
+  public long getValueAtPercentile(final double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * count));
+    long cumulated = 0;
+    for (int index = 0; index < NO_OF_BUCKETS; index++) {
+      cumulated += counts[index];
+      if (cumulated >= rank) {
+        long middle = getLowestValue(index) + (getHighestValue(index) - getLowestValue(index)) / 2;
+        return Math.min(max, Math.max(min, middle));
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Get indexes of all non empty buckets (sparse representation for
+   * persisting the histogram).
+   *
+   * @return Ascending indexes.
+   */
+  public int[] getBucketIndexes() {
+    int[] indexes = new int[NO_OF_BUCKETS];
+    int size = 0;
+    for (int index = 0; index < NO_OF_BUCKETS; index++) {
+      if (counts[index] > 0) {
+        indexes[size++] = index;
+      }
+    }
+    return Arrays.copyOf(indexes, size);
+  }
+
+  /**
+   * Get counts of the given buckets.
+   *
+   * @param indexes Indexes of buckets (see {@link #getBucketIndexes()}).
+   * @return Counts.
+   */
+  public long[] getBucketCounts(final int[] indexes) {
+    long[] bucketCounts = new long[indexes.length];
+    for (int index = 0; index < indexes.length; index++) {
+      bucketCounts[index] = counts[indexes[index]];
+    }
+    return bucketCounts;
+  }
+
+  /**
+   * Restore histogram from its sparse representation.
+   *
+   * @param indexes Indexes of non empty buckets.
+   * @param bucketCounts Counts of buckets.
+   * @param sum Sum of all values.
+   * @param min Minimum of all values.
+   * @param max Maximum of all values.
+   * @return Histogram.
+   */
+  public static LatencyHistogram restore(final int[] indexes, final long[] bucketCounts, final long sum, final long min, final long max) {
+    if (indexes.length != bucketCounts.length) {
+      throw new IllegalArgumentException("Number of indexes and counts differ!");
+    }
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int index = 0; index < indexes.length; index++) {
+      if (indexes[index] < 0 || indexes[index] >= NO_OF_BUCKETS || bucketCounts[index] < 0) {
+        throw new IllegalArgumentException("Invalid bucket " + indexes[index] + ": " + bucketCounts[index]);
+      }
+      histogram.counts[indexes[index]] += bucketCounts[index];
+      histogram.count += bucketCounts[index];
+    }
+    if (histogram.count > 0) {
+      histogram.sum = sum;
+      histogram.min = min;
+      histogram.max = max;
+    }
+    return histogram;
+  }
+
+  /**
+   * Get index of bucket holding value.
+   *
+   * @param value Value in [0, MAX_VALUE].
+   * @return Index of bucket.
+   */
+  static int getBucketIndex(final long value) {
+    if (value < NO_OF_EXACT_VALUES) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - EXACT_BITS + 1;
+    int subBucket = (int) (value >>> shift) - SUB_BUCKETS_PER_OCTAVE;
+    return NO_OF_EXACT_VALUES + (shift - 1) * SUB_BUCKETS_PER_OCTAVE + subBucket;
+  }
+
+  /**
+   * Get lowest value of bucket.
+   *
+   * @param index Index of bucket.
+   * @return Lowest value.
+   */
+  static long getLowestValue(final int index) {
+    if (index < NO_OF_EXACT_VALUES) {
+      return index;
+    }
+    int shift = (index - NO_OF_EXACT_VALUES) / SUB_BUCKETS_PER_OCTAVE + 1;
+    long subBucket = (index - NO_OF_EXACT_VALUES) % SUB_BUCKETS_PER_OCTAVE + SUB_BUCKETS_PER_OCTAVE;
+    return subBucket << shift;
+  }
+
+  /**
+   * Get highest value of bucket.
+   *
+   * @param index Index of bucket.
+   * @return Highest value.
+   */
+  static long getHighestValue(final int index) {
+    if (index < NO_OF_EXACT_VALUES) {
+      return index;
+    }
+    int shift = (index - NO_OF_EXACT_VALUES) / SUB_BUCKETS_PER_OCTAVE + 1;
+    return getLowestValue(index) + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.stats;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.kit.ocrd.workspace.entity.ProcessorLatency;
+import edu.kit.ocrd.workspace.entity.ProcessorPerformanceRollup;
+import edu.kit.ocrd.workspace.entity.ProvenanceMetadata;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Folds the provenance of ingested workspaces into one latency histogram per
+ * processor. Only the histograms (fixed memory per processor) are held, so
+ * the rollup is updated incrementally instead of being recomputed from all
+ * provenance documents. Rollups of several nodes are merged via
+ * {@link #merge(ProcessorPerformanceRollup)} or by flushing them to the same
+ * rollup file. Thread safe.
+ */
+public class ProcessorPerformanceAggregator {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProcessorPerformanceAggregator.class);
+  /**
+   * Mapper for reading/writing rollup files.
+   */
+  private static final ObjectMapper MAPPER = new ObjectMapper()
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  /**
+   * Suffix of lock file next to the rollup file.
+   */
+  private static final String LOCK_SUFFIX = ".lock";
+  /**
+   * Serializes flushes inside this JVM (file locks are held per JVM).
+   */
+  private static final Object FLUSH_LOCK = new Object();
+  /**
+   * Histograms per processor (label of processor -&gt; latencies in
+   * milliseconds).
+   */
+  private final Map<String, LatencyHistogram> histograms = new TreeMap<>();
+  /**
+   * Number of added workspaces.
+   */
+  private long noOfWorkspaces = 0;
+  /**
+   * Number of added processor runs.
+   */
+  private long noOfProcessorRuns = 0;
+
+  /**
+   * Add provenance of one workspace. Rows without label or duration of the
+   * processor are ignored.
+   *
+   * @param provenance Provenance of workspace (one row per processor run).
+   * @return Number of added processor runs.
+   */
+  public synchronized int add(final List<ProvenanceMetadata> provenance) {
+    int noOfRuns = 0;
+    for (ProvenanceMetadata row : provenance) {
+      if (row.getProcessorLabel() == null || row.getDurationProcessor() == null) {
+        LOGGER.trace("Skip processor run without label or duration: {}", row);
+        continue;
+      }
+      // Durations of provenance are in seconds.
+      histograms.computeIfAbsent(row.getProcessorLabel(), label -> new LatencyHistogram()).record(row.getDurationProcessor() * 1000L);
+      noOfRuns++;
+    }
+    noOfWorkspaces++;
+    noOfProcessorRuns += noOfRuns;
+    return noOfRuns;
+  }
+
+  /**
+   * Add rollup (e.g. of another node).
+   *
+   * @param rollup Rollup.
+   */
+  public synchronized void merge(final ProcessorPerformanceRollup rollup) {
+    for (Map.Entry<String, ProcessorLatency> entry : rollup.getProcessors().entrySet()) {
+      ProcessorLatency latency = entry.getValue();
+      LatencyHistogram histogram = LatencyHistogram.restore(latency.getBucketIndexes(), latency.getBucketCounts(),
+              latency.getSum(), latency.getMin(), latency.getMax());
+      histograms.computeIfAbsent(entry.getKey(), label -> new LatencyHistogram()).merge(histogram);
+    }
+    noOfWorkspaces += rollup.getNoOfWorkspaces();
+    noOfProcessorRuns += rollup.getNoOfProcessorRuns();
+  }
+
+  /**
+   * Create rollup of all added workspaces.
+   *
+   * @return Rollup.
+   */
+  public synchronized ProcessorPerformanceRollup toRollup() {
+    ProcessorPerformanceRollup rollup = new ProcessorPerformanceRollup();
+    rollup.setNoOfWorkspaces(noOfWorkspaces);
+    rollup.setNoOfProcessorRuns(noOfProcessorRuns);
+    rollup.setLastUpdate(new Date());
+    for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+      rollup.getProcessors().put(entry.getKey(), toLatency(entry.getValue()));
+    }
+    return rollup;
+  }
+
+  /**
+   * Get number of added workspaces.
+   *
+   * @return Number of workspaces.
+   */
+  public synchronized long getNumberOfWorkspaces() {
+    return noOfWorkspaces;
+  }
+
+  /**
+   * Get number of added processor runs.
+   *
+   * @return Number of processor runs.
+   */
+  public synchronized long getNumberOfProcessorRuns() {
+    return noOfProcessorRuns;
+  }
+
+  /**
+   * Remove all added workspaces.
+   */
+  public synchronized void clear() {
+    histograms.clear();
+    noOfWorkspaces = 0;
+    noOfProcessorRuns = 0;
+  }
+
+  /**
+   * Merge all added workspaces into the rollup file and clear this
+   * aggregator afterwards, so nothing is counted twice. Concurrent flushes
+   * (also of other processes) are serialized by a lock file next to the
+   * rollup file. The rollup file is replaced atomically.
+   *
+   * @param rollupFile Rollup file (JSON).
+   * @return Updated rollup.
+   * @throws IOException Error reading/writing rollup file.
+   */
+  public ProcessorPerformanceRollup flush(final Path rollupFile) throws IOException {
+    Path file = rollupFile.toAbsolutePath();
+    Files.createDirectories(file.getParent());
+    Path lockFile = file.resolveSibling(file.getFileName() + LOCK_SUFFIX);
+    synchronized (FLUSH_LOCK) {
+      try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+              FileLock lock = channel.lock()) {
+        ProcessorPerformanceAggregator merged = new ProcessorPerformanceAggregator();
+        ProcessorPerformanceRollup existing = read(file);
+        if (existing != null) {
+          merged.merge(existing);
+        }
+        ProcessorPerformanceRollup rollup;
+        synchronized (this) {
+          merged.merge(toRollup());
+          rollup = merged.toRollup();
+          write(file, rollup);
+          clear();
+        }
+        LOGGER.debug("Rollup '{}' updated: {} workspaces, {} processor runs.", file, rollup.getNoOfWorkspaces(), rollup.getNoOfProcessorRuns());
+        return rollup;
+      }
+    }
+  }
+
+  /**
+   * Read rollup file.
+   *
+   * @param rollupFile Rollup file (JSON).
+   * @return Rollup or null if file doesn't exist.
+   * @throws IOException Error reading file.
+   */
+  public static ProcessorPerformanceRollup read(final Path rollupFile) throws IOException {
+    try (InputStream inputStream = Files.newInputStream(rollupFile)) {
+      return MAPPER.readValue(inputStream, ProcessorPerformanceRollup.class);
+    } catch (NoSuchFileException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Write rollup to a temporary file and move it to the rollup file, so
+   * readers never see incomplete files.
+   *
+   * @param rollupFile Rollup file.
+   * @param rollup Rollup.
+   * @throws IOException Error writing file.
+   */
+  private static void write(final Path rollupFile, final ProcessorPerformanceRollup rollup) throws IOException {
+    Path tempFile = Files.createTempFile(rollupFile.getParent(), rollupFile.getFileName().toString(), ".tmp");
+    try {
+      try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+        MAPPER.writeValue(outputStream, rollup);
+      }
+      Files.move(tempFile, rollupFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  /**
+   * Summarize histogram.
+   *
+   * @param histogram Histogram.
+   * @return Summary including the non empty buckets.
+   */
+  private static ProcessorLatency toLatency(final LatencyHistogram histogram) {
+    ProcessorLatency latency = new ProcessorLatency();
+    latency.setCount(histogram.getCount());
+    latency.setSum(histogram.getSum());
+    latency.setMin(histogram.getMin());
+    latency.setMax(histogram.getMax());
+    latency.setMean(histogram.getMean());
+    latency.setP50(histogram.getValueAtPercentile(50));
+    latency.setP90(histogram.getValueAtPercentile(90));
+    latency.setP99(histogram.getValueAtPercentile(99));
+    int[] indexes = histogram.getBucketIndexes();
+    latency.setBucketIndexes(indexes);
+    latency.setBucketCounts(histogram.getBucketCounts(indexes));
+    return latency;
+  }
+}
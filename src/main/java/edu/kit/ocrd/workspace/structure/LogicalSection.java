@@ -0,0 +1,222 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.structure;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One div of the logical structMap (e.g. a chapter or an article) with the
+ * range of physical pages it spans. The range covers all pages linked to the
+ * section or to one of its descendants via structLink. Pages are given as
+ * indexes into the physical page sequence
+ * ({@link LogicalStructure#getPageId(int)}). Immutable after extraction.
+ */
+public class LogicalSection {
+
+  /**
+   * Page index if section is not linked to any page.
+   */
+  public static final int NO_PAGE = -1;
+  /**
+   * Position of section in document order (pre-order).
+   */
+  private final int index;
+  /**
+   * ID of the div.
+   */
+  private final String id;
+  /**
+   * TYPE of the div (e.g. 'chapter').
+   */
+  private final String type;
+  /**
+   * LABEL of the div (may be null).
+   */
+  private final String label;
+  /**
+   * DMDID of the div (may be null).
+   */
+  private final String dmdId;
+  /**
+   * Parent section (null for top level sections).
+   */
+  private final LogicalSection parent;
+  /**
+   * Depth of section (0 for top level sections).
+   */
+  private final int depth;
+  /**
+   * Child sections in document order.
+   */
+  private final List<LogicalSection> children = new ArrayList<>();
+  /**
+   * Index of first page.
+   */
+  private int firstPage = NO_PAGE;
+  /**
+   * Index of last page.
+   */
+  private int lastPage = NO_PAGE;
+
+  /**
+   * Constructor.
+   *
+   * @param index Position of section in document order.
+   * @param id ID of the div.
+   * @param type TYPE of the div.
+   * @param label LABEL of the div.
+   * @param dmdId DMDID of the div.
+   * @param parent Parent section (null for top level sections).
+   */
+  LogicalSection(final int index, final String id, final String type, final String label, final String dmdId, final LogicalSection parent) {
+    this.index = index;
+    this.id = id;
+    this.type = type;
+    this.label = label;
+    this.dmdId = dmdId;
+    this.parent = parent;
+    if (parent != null) {
+      depth = parent.depth + 1;
+      parent.children.add(this);
+    } else {
+      depth = 0;
+    }
+  }
+
+  /**
+   * Get position of section in document order. Ancestors always have a
+   * lower position than their descendants.
+   *
+   * @return Position.
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * Get ID of the div.
+   *
+   * @return ID (may be null).
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Get TYPE of the div.
+   *
+   * @return Type (may be null).
+   */
+  public String getType() {
+    return type;
+  }
+
+  /**
+   * Get LABEL of the div.
+   *
+   * @return Label (may be null).
+   */
+  public String getLabel() {
+    return label;
+  }
+
+  /**
+   * Get DMDID of the div.
+   *
+   * @return DMDID (may be null).
+   */
+  public String getDmdId() {
+    return dmdId;
+  }
+
+  /**
+   * Get parent section.
+   *
+   * @return Parent (null for top level sections).
+   */
+  public LogicalSection getParent() {
+    return parent;
+  }
+
+  /**
+   * Get depth of section.
+   *
+   * @return Depth (0 for top level sections).
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * Get child sections.
+   *
+   * @return Unmodifiable list of children in document order.
+   */
+  public List<LogicalSection> getChildren() {
+    return Collections.unmodifiableList(children);
+  }
+
+  /**
+   * Test if section is linked to at least one page.
+   *
+   * @return true if section has pages.
+   */
+  public boolean hasPages() {
+    return firstPage != NO_PAGE;
+  }
+
+  /**
+   * Get index of first page.
+   *
+   * @return Index ({@link #NO_PAGE} if section has no pages).
+   */
+  public int getFirstPage() {
+    return firstPage;
+  }
+
+  /**
+   * Get index of last page.
+   *
+   * @return Index ({@link #NO_PAGE} if section has no pages).
+   */
+  public int getLastPage() {
+    return lastPage;
+  }
+
+  /**
+   * Extend page range of section.
+   *
+   * @param first Index of first page.
+   * @param last Index of last page.
+   */
+  void addPages(final int first, final int last) {
+    if (firstPage == NO_PAGE) {
+      firstPage = first;
+      lastPage = last;
+    } else {
+      firstPage = Math.min(firstPage, first);
+      lastPage = Math.max(lastPage, last);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "LogicalSection[id=" + id + ", type=" + type + ", label=" + label + ", depth=" + depth
+            + ", pages=" + firstPage + "-" + lastPage + "]";
+  }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.structure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Logical structure of a METS document: the tree of logical sections and the
+ * physical page sequence they are linked to.
+ * <p>
+ * The page ranges of all sections are held in a static interval index
+ * (sections sorted by first page plus a tree with the maximum last page of
+ * each subtree), so the k sections containing a page are found in
+ * O((k + 1) log n) and the pages of a section in O(1) after looking up its
+ * ID.
+ * Immutable and thread safe.
+ */
+public class LogicalStructure {
+
+  /**
+   * IDs of physical pages in page order.
+   */
+  private final String[] pageIds;
+  /**
+   * Index of each physical page (ID -&gt; index).
+   */
+  private final Map<String, Integer> pageIndexes = new HashMap<>();
+  /**
+   * All sections in document order.
+   */
+  private final List<LogicalSection> sections;
+  /**
+   * Top level sections.
+   */
+  private final List<LogicalSection> rootSections = new ArrayList<>();
+  /**
+   * Sections with ID (ID -&gt; section).
+   */
+  private final Map<String, LogicalSection> sectionsById = new HashMap<>();
+  /**
+   * Sections with pages sorted by first page (and document order).
+   */
+  private final LogicalSection[] intervals;
+  /**
+   * First page of each interval (ascending).
+   */
+  private final int[] starts;
+  /**
+   * Number of leaves of the max tree (power of two).
+   */
+  private final int noOfLeaves;
+  /**
+   * Maximum last page of each subtree (implicit binary tree, root at 1,
+   * leaves starting at {@link #noOfLeaves}).
+   */
+  private final int[] maxEnds;
+
+  /**
+   * Constructor.
+   *
+   * @param pageIds IDs of physical pages in page order.
+   * @param sections All sections in document order with their page ranges.
+   */
+  LogicalStructure(final String[] pageIds, final List<LogicalSection> sections) {
+    this.pageIds = pageIds;
+    this.sections = sections;
+    for (int index = 0; index < pageIds.length; index++) {
+      pageIndexes.putIfAbsent(pageIds[index], index);
+    }
+    List<LogicalSection> withPages = new ArrayList<>();
+    for (LogicalSection section : sections) {
+      if (section.getParent() == null) {
+        rootSections.add(section);
+      }
+      if (section.getId() != null) {
+        sectionsById.putIfAbsent(section.getId(), section);
+      }
+      if (section.hasPages()) {
+        withPages.add(section);
+      }
+    }
+    // Stable sort keeps ancestors in front of descendants with same first page.
+    withPages.sort((first, second) -> Integer.compare(first.getFirstPage(), second.getFirstPage()));
+    intervals = withPages.toArray(new LogicalSection[withPages.size()]);
+    starts = new int[intervals.length];
+    int leaves = 1;
+    while (leaves < intervals.length) {
+      leaves <<= 1;
+    }
+    noOfLeaves = leaves;
+    maxEnds = new int[2 * noOfLeaves];
+    Arrays.fill(maxEnds, LogicalSection.NO_PAGE);
+    for (int index = 0; index < intervals.length; index++) {
+      starts[index] = intervals[index].getFirstPage();
+      maxEnds[noOfLeaves + index] = intervals[index].getLastPage();
+    }
+    for (int node = noOfLeaves - 1; node > 0; node--) {
+      maxEnds[node] = Math.max(maxEnds[2 * node], maxEnds[2 * node + 1]);
+    }
+  }
+
+  /**
+   * Get number of physical pages.
+   *
+   * @return Number of pages.
+   */
+  public int getNoOfPages() {
+    return pageIds.length;
+  }
+
+  /**
+   * Get ID of physical page.
+   *
+   * @param pageIndex Index of page in page order.
+   * @return ID of the page div.
+   */
+  public String getPageId(final int pageIndex) {
+    return pageIds[pageIndex];
+  }
+
+  /**
+   * Get index of physical page.
+   *
+   * @param pageId ID of the page div.
+   * @return Index of page in page order (-1 if page is unknown).
+   */
+  public int getPageIndex(final String pageId) {
+    Integer index = pageIndexes.get(pageId);
+    return index != null ? index : -1;
+  }
+
+  /**
+   * Get all sections in document order.
+   *
+   * @return Unmodifiable list of sections.
+   */
+  public List<LogicalSection> getSections() {
+    return Collections.unmodifiableList(sections);
+  }
+
+  /**
+   * Get top level sections.
+   *
+   * @return Unmodifiable list of sections.
+   */
+  public List<LogicalSection> getRootSections() {
+    return Collections.unmodifiableList(rootSections);
+  }
+
+  /**
+   * Get section by ID.
+   *
+   * @param sectionId ID of the div.
+   * @return Section or null if there is no section with this ID.
+   */
+  public LogicalSection getSection(final String sectionId) {
+    return sectionsById.get(sectionId);
+  }
+
+  /**
+   * Get IDs of all pages spanned by section.
+   *
+   * @param section Section.
+   * @return Unmodifiable list of page IDs in page order (empty if section has
+   * no pages).
+   */
+  public List<String> getPageIds(final LogicalSection section) {
+    if (!section.hasPages()) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(Arrays.asList(pageIds).subList(section.getFirstPage(), section.getLastPage() + 1));
+  }
+
+  /**
+   * Get IDs of all pages spanned by section.
+   *
+   * @param sectionId ID of the div.
+   * @return Unmodifiable list of page IDs in page order (empty if section is
+   * unknown or has no pages).
+   */
+  public List<String> getPageIds(final String sectionId) {
+    LogicalSection section = getSection(sectionId);
+    return section != null ? getPageIds(section) : Collections.emptyList();
+  }
+
+  /**
+   * Get all sections spanning the page.
+   *
+   * @param pageIndex Index of page in page order.
+   * @return Sections in document order, so enclosing sections come before
+   * the sections they contain.
+   */
+  public List<LogicalSection> getSections(final int pageIndex) {
+    List<LogicalSection> result = new ArrayList<>();
+    // Only intervals starting at or before the page may contain it.
+    int noOfCandidates = upperBound(pageIndex);
+    if (noOfCandidates > 0) {
+      collect(1, 0, noOfLeaves, noOfCandidates, pageIndex, result);
+      result.sort((first, second) -> Integer.compare(first.getIndex(), second.getIndex()));
+    }
+    return result;
+  }
+
+  /**
+   * Get all sections spanning the page.
+   *
+   * @param pageId ID of the page div.
+   * @return Sections in document order (empty if page is unknown).
+   */
+  public List<LogicalSection> getSections(final String pageId) {
+    int pageIndex = getPageIndex(pageId);
+    return pageIndex >= 0 ? getSections(pageIndex) : Collections.emptyList();
+  }
+
+  /**
+   * Get innermost section spanning the page.
+   *
+   * @param pageIndex Index of page in page order.
+   * @return Section or null if page belongs to no section.
+   */
+  public LogicalSection getInnermostSection(final int pageIndex) {
+    List<LogicalSection> result = getSections(pageIndex);
+    LogicalSection innermost = null;
+    for (LogicalSection section : result) {
+      if (innermost == null || section.getDepth() > innermost.getDepth()) {
+        innermost = section;
+      }
+    }
+    return innermost;
+  }
+
+  /**
+   * Get number of intervals starting at or before page.
+   *
+   * @param pageIndex Index of page.
+   * @return Number of intervals.
+   */
+  private int upperBound(final int pageIndex) {
+    int low = 0;
+    int high = starts.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (starts[middle] <= pageIndex) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Collect all intervals of subtree ending at or after page.
+   *
+   * @param node Node of max tree.
+   * @param from First interval covered by node.
+   * @param to Interval after last interval covered by node.
+   * @param noOfCandidates Number of intervals starting at or before page.
+   * @param pageIndex Index of page.
+   * @param result List collecting the sections.
+   */
+  private void collect(final int node, final int from, final int to, final int noOfCandidates, final int pageIndex,
+          final List<LogicalSection> result) {
+    if (from >= noOfCandidates || maxEnds[node] < pageIndex) {
+      return;
+    }
+    if (node >= noOfLeaves) {
+      result.add(intervals[from]);
+      return;
+    }
+    int middle = (from + to) >>> 1;
+    collect(2 * node, from, middle, noOfCandidates, pageIndex, result);
+    collect(2 * node + 1, middle, to, noOfCandidates, pageIndex, result);
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.structure;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.Namespace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Extracts the logical structure of a METS document. The logical structMap,
+ * the physical structMap and the structLink section are read in one pass
+ * over the children of the root element without any XPath evaluation, so
+ * the costs grow linearly with the number of divs and links.
+ */
+public class LogicalStructureUtil {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(LogicalStructureUtil.class);
+  /**
+   * METS namespace.
+   */
+  private static final Namespace METS = Namespace.getNamespace("mets", "http://www.loc.gov/METS/");
+  /**
+   * XLink namespace.
+   */
+  private static final Namespace XLINK = Namespace.getNamespace("xlink", "http://www.w3.org/1999/xlink");
+  /**
+   * TYPE of logical structMap.
+   */
+  private static final String TYPE_LOGICAL = "LOGICAL";
+  /**
+   * TYPE of physical structMap.
+   */
+  private static final String TYPE_PHYSICAL = "PHYSICAL";
+  /**
+   * TYPE of page divs.
+   */
+  private static final String TYPE_PAGE = "page";
+
+  /**
+   * Extract logical structure from METS document. Pages are the page divs of
+   * the first physical structMap sorted by their ORDER attribute (document
+   * order if any page has no valid ORDER). A link to the enclosing div of
+   * the physical structMap spans all pages. Links to unknown divs are
+   * ignored.
+   *
+   * @param metsDocument METS document.
+   * @return Logical structure.
+   */
+  public static LogicalStructure extractLogicalStructure(final Document metsDocument) {
+    Element root = metsDocument.getRootElement();
+    List<Element> logicalDivs = new ArrayList<>();
+    Element physicalMap = null;
+    List<Element> smLinks = new ArrayList<>();
+    for (Object child : root.getChildren()) {
+      Element element = (Element) child;
+      if (!METS.getURI().equals(element.getNamespaceURI())) {
+        continue;
+      }
+      if ("structMap".equals(element.getName())) {
+        String type = element.getAttributeValue("TYPE");
+        if (TYPE_LOGICAL.equals(type)) {
+          logicalDivs.addAll(getDivs(element));
+        } else if (TYPE_PHYSICAL.equals(type) && physicalMap == null) {
+          physicalMap = element;
+        }
+      } else if ("structLink".equals(element.getName())) {
+        for (Object link : element.getChildren("smLink", METS)) {
+          smLinks.add((Element) link);
+        }
+      }
+    }
+    // Page ranges of physical divs (ID -> {first, last}).
+    Map<String, int[]> physicalRanges = new HashMap<>();
+    String[] pageIds = extractPages(physicalMap, physicalRanges);
+    List<LogicalSection> sections = new ArrayList<>();
+    for (Element div : logicalDivs) {
+      addSection(div, null, sections);
+    }
+    Map<String, LogicalSection> sectionsById = new HashMap<>();
+    for (LogicalSection section : sections) {
+      if (section.getId() != null) {
+        sectionsById.putIfAbsent(section.getId(), section);
+      }
+    }
+    int noOfIgnoredLinks = 0;
+    for (Element link : smLinks) {
+      LogicalSection section = sectionsById.get(link.getAttributeValue("from", XLINK));
+      int[] range = physicalRanges.get(link.getAttributeValue("to", XLINK));
+      if (section != null && range != null) {
+        section.addPages(range[0], range[1]);
+      } else {
+        noOfIgnoredLinks++;
+      }
+    }
+    if (noOfIgnoredLinks > 0) {
+      LOGGER.warn("Ignored {} of {} structLink(s) referencing unknown divs!", noOfIgnoredLinks, smLinks.size());
+    }
+    // Children follow their parents, so going backwards passes complete ranges upwards.
+    for (int index = sections.size() - 1; index >= 0; index--) {
+      LogicalSection section = sections.get(index);
+      if (section.hasPages() && section.getParent() != null) {
+        section.getParent().addPages(section.getFirstPage(), section.getLastPage());
+      }
+    }
+    LOGGER.debug("Found {} logical section(s), {} page(s) and {} structLink(s)", sections.size(), pageIds.length, smLinks.size());
+    return new LogicalStructure(pageIds, sections);
+  }
+
+  /**
+   * Add section and all its descendants in document order.
+   *
+   * @param div Logical div.
+   * @param parent Parent section (null for top level divs).
+   * @param sections List collecting all sections.
+   */
+  private static void addSection(final Element div, final LogicalSection parent, final List<LogicalSection> sections) {
+    LogicalSection section = new LogicalSection(sections.size(), div.getAttributeValue("ID"), div.getAttributeValue("TYPE"),
+            div.getAttributeValue("LABEL"), div.getAttributeValue("DMDID"), parent);
+    sections.add(section);
+    for (Element child : getDivs(div)) {
+      addSection(child, section, sections);
+    }
+  }
+
+  /**
+   * Extract IDs of all pages in page order and the page range of each
+   * physical div.
+   *
+   * @param physicalMap Physical structMap (may be null).
+   * @param physicalRanges Map collecting the page ranges (ID -&gt; {first,
+   * last}).
+   * @return IDs of pages.
+   */
+  private static String[] extractPages(final Element physicalMap, final Map<String, int[]> physicalRanges) {
+    if (physicalMap == null) {
+      return new String[0];
+    }
+    List<Element> sequences = getDivs(physicalMap);
+    List<Element> pages = new ArrayList<>();
+    for (Element sequence : sequences) {
+      for (Element div : getDivs(sequence)) {
+        if (TYPE_PAGE.equals(div.getAttributeValue("TYPE"))) {
+          pages.add(div);
+        }
+      }
+    }
+    sortByOrder(pages);
+    String[] pageIds = new String[pages.size()];
+    for (int index = 0; index < pageIds.length; index++) {
+      pageIds[index] = pages.get(index).getAttributeValue("ID");
+      if (pageIds[index] != null) {
+        physicalRanges.putIfAbsent(pageIds[index], new int[]{index, index});
+      }
+    }
+    Map<Element, Integer> pageIndices = new IdentityHashMap<>();
+    for (int index = 0; index < pageIds.length; index++) {
+      pageIndices.put(pages.get(index), index);
+    }
+    // Range of a sequence spans the first and last of its own pages.
+    for (Element sequence : sequences) {
+      String id = sequence.getAttributeValue("ID");
+      int[] range = null;
+      for (Element div : getDivs(sequence)) {
+        Integer index = pageIndices.get(div);
+        if (index != null) {
+          if (range == null) {
+            range = new int[]{index, index};
+          } else {
+            range[0] = Math.min(range[0], index);
+            range[1] = Math.max(range[1], index);
+          }
+        }
+      }
+      if (id != null && range != null) {
+        physicalRanges.putIfAbsent(id, range);
+      }
+    }
+    return pageIds;
+  }
+
+  /**
+   * Sort page divs by their ORDER attribute. The order is kept if any div
+   * has no valid ORDER.
+   *
+   * @param pages Page divs in document order.
+   */
+  private static void sortByOrder(final List<Element> pages) {
+    Map<Element, Integer> orders = new HashMap<>();
+    for (Element page : pages) {
+      try {
+        orders.put(page, Integer.valueOf(page.getAttributeValue("ORDER")));
+      } catch (NumberFormatException ex) {
+        LOGGER.debug("Page '{}' has no valid ORDER, keep document order", page.getAttributeValue("ID"));
+        return;
+      }
+    }
+    pages.sort((first, second) -> Integer.compare(orders.get(first), orders.get(second)));
+  }
+
+  /**
+   * Get child divs of element.
+   *
+   * @param element Element.
+   * @return Child divs in document order.
+   */
+  private static List<Element> getDivs(final Element element) {
+    List<Element> divs = new ArrayList<>();
+    for (Object child : element.getChildren("div", METS)) {
+      divs.add((Element) child);
+    }
+    return divs;
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import edu.kit.ocrd.workspace.MetsDocumentUtil;
+import edu.kit.ocrd.workspace.XmlParserUtil;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jdom.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stage validating all PAGE files of a workspace against their XSD before
+ * extraction. Files are validated in parallel on a work stealing pool and
+ * streamed (StAX) without building a DOM. All errors are collected in one
+ * report. In fail fast mode validation stops after the first invalid file.
+ */
+public class PageValidationStage {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PageValidationStage.class);
+  /**
+   * Maximum number of files validated by one task without splitting.
+   */
+  private static final int THRESHOLD = 4;
+  /**
+   * Registry holding compiled XSDs.
+   */
+  private final SchemaRegistry registry;
+  /**
+   * Pool executing validation.
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * Constructor using common pool.
+   *
+   * @param registry Registry holding compiled XSDs.
+   */
+  public PageValidationStage(final SchemaRegistry registry) {
+    this(registry, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param registry Registry holding compiled XSDs.
+   * @param pool Pool executing validation.
+   */
+  public PageValidationStage(final SchemaRegistry registry, final ForkJoinPool pool) {
+    this.registry = registry;
+    this.pool = pool;
+  }
+
+  /**
+   * Validate all PAGE files referenced by METS file. Remote files are
+   * ignored.
+   *
+   * @param metsFile METS file.
+   * @param failFast Stop after first invalid file.
+   *
+   * @return Report containing results of all validated files.
+   * @throws Exception Error parsing METS file.
+   */
+  public ValidationReport validateWorkspace(final File metsFile, final boolean failFast) throws Exception {
+    Document metsDocument = XmlParserUtil.getDocument(metsFile);
+    Path basePath = metsFile.toPath().getParent();
+    List<Path> pageFiles = new ArrayList<>();
+    for (String pageUrl : MetsDocumentUtil.extractPageUrls(metsDocument)) {
+      if (pageUrl.startsWith("http://") || pageUrl.startsWith("https://")) {
+        LOGGER.debug("Ignore remote PAGE file '{}'", pageUrl);
+      } else {
+        pageFiles.add(basePath.resolve(pageUrl));
+      }
+    }
+    return validate(pageFiles, failFast);
+  }
+
+  /**
+   * Validate all given files.
+   *
+   * @param files XML files.
+   * @param failFast Stop after first invalid file.
+   *
+   * @return Report containing results of all validated files (in the order
+   * of the given files).
+   */
+  public ValidationReport validate(final List<Path> files, final boolean failFast) {
+    ValidationResult[] results = new ValidationResult[files.size()];
+    pool.invoke(new ValidationTask(files, results, 0, files.size(), failFast, new AtomicBoolean()));
+    List<ValidationResult> validatedFiles = new ArrayList<>();
+    for (ValidationResult result : results) {
+      if (result != null) {
+        validatedFiles.add(result);
+      }
+    }
+    ValidationReport report = new ValidationReport(validatedFiles, files.size());
+    if (!report.isValid()) {
+      LOGGER.warn(report.toString());
+    }
+    return report;
+  }
+
+  /**
+   * Task validating a range of files. Ranges are split recursively so that
+   * idle workers can steal them.
+   */
+  private final class ValidationTask extends RecursiveAction {
+
+    /**
+     * XML files.
+     */
+    private final List<Path> files;
+    /**
+     * Results (indexed like files).
+     */
+    private final ValidationResult[] results;
+    /**
+     * First index (inclusive).
+     */
+    private final int start;
+    /**
+     * Last index (exclusive).
+     */
+    private final int end;
+    /**
+     * Stop after first invalid file.
+     */
+    private final boolean failFast;
+    /**
+     * Set if an invalid file was found.
+     */
+    private final AtomicBoolean failed;
+
+    /**
+     * Constructor.
+     *
+     * @param files XML files.
+     * @param results Results (indexed like files).
+     * @param start First index (inclusive).
+     * @param end Last index (exclusive).
+     * @param failFast Stop after first invalid file.
+     * @param failed Set if an invalid file was found.
+     */
+    ValidationTask(final List<Path> files, final ValidationResult[] results, final int start, final int end,
+            final boolean failFast, final AtomicBoolean failed) {
+      this.files = files;
+      this.results = results;
+      this.start = start;
+      this.end = end;
+      this.failFast = failFast;
+      this.failed = failed;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start > THRESHOLD) {
+        int middle = (start + end) >>> 1;
+        invokeAll(new ValidationTask(files, results, start, middle, failFast, failed),
+                new ValidationTask(files, results, middle, end, failFast, failed));
+      } else {
+        for (int index = start; index < end; index++) {
+          if (failFast && failed.get()) {
+            return;
+          }
+          results[index] = registry.validateQuietly(files.get(index));
+          if (!results[index].isValid()) {
+            failed.set(true);
+          }
+        }
+      }
+    }
+  }
+}
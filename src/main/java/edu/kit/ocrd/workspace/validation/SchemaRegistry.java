@@ -0,0 +1,314 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import edu.kit.ocrd.workspace.XmlParserUtil;
+import edu.kit.ocrd.workspace.XmlSnifferUtil;
+import edu.kit.ocrd.workspace.entity.XmlSchemaDefinition;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stax.StAXSource;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+/**
+ * Registry compiling each registered XSD ({@link XmlSchemaDefinition}) only
+ * once into a thread safe {@link Schema}. The schema for a document is
+ * selected by the namespace of its root element which is determined without
+ * parsing the whole document.
+ * <p>
+ * Compiled schemas are held in a bounded LRU cache. Rarely used schemas are
+ * evicted and compiled again from their definition on demand. Validators
+ * are not thread safe, therefore each thread holds its own validator per
+ * compiled schema.
+ */
+public class SchemaRegistry {
+
+  /**
+   * Default maximum number of compiled schemas.
+   */
+  public static final int DEFAULT_MAX_SCHEMAS = 16;
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(SchemaRegistry.class);
+  /**
+   * All registered definitions (namespace -&gt; definition).
+   */
+  private final Map<String, XmlSchemaDefinition> definitions = new ConcurrentHashMap<>();
+  /**
+   * Compiled schemas in access order (namespace -&gt; schema).
+   */
+  private final Map<String, CompiledSchema> compiledSchemas;
+  /**
+   * Number of compilations.
+   */
+  private final AtomicLong noOfCompilations = new AtomicLong();
+
+  /**
+   * Constructor with default maximum number of compiled schemas.
+   */
+  public SchemaRegistry() {
+    this(DEFAULT_MAX_SCHEMAS);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxSchemas Maximum number of compiled schemas held in memory.
+   */
+  public SchemaRegistry(final int maxSchemas) {
+    if (maxSchemas < 1) {
+      throw new IllegalArgumentException("Maximum number of schemas has to be positive!");
+    }
+    compiledSchemas = new LinkedHashMap<String, CompiledSchema>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, CompiledSchema> eldest) {
+        boolean evict = size() > maxSchemas;
+        if (evict) {
+          LOGGER.debug("Evict compiled schema '{}'", eldest.getKey());
+        }
+        return evict;
+      }
+    };
+  }
+
+  /**
+   * Register XSD. An already registered XSD with the same namespace is
+   * replaced.
+   *
+   * @param definition Definition of XSD.
+   */
+  public void register(final XmlSchemaDefinition definition) {
+    definitions.put(definition.getNamespace(), definition);
+    synchronized (compiledSchemas) {
+      compiledSchemas.remove(definition.getNamespace());
+    }
+  }
+
+  /**
+   * Register all XSDs.
+   *
+   * @param allDefinitions Definitions of XSDs.
+   */
+  public void registerAll(final Collection<XmlSchemaDefinition> allDefinitions) {
+    for (XmlSchemaDefinition definition : allDefinitions) {
+      register(definition);
+    }
+  }
+
+  /**
+   * Is there a registered XSD for given namespace?
+   *
+   * @param namespace Namespace.
+   * @return true if XSD is registered.
+   */
+  public boolean isRegistered(final String namespace) {
+    return definitions.containsKey(namespace);
+  }
+
+  /**
+   * Get compiled schema for given namespace. Schema is compiled if not
+   * already cached.
+   *
+   * @param namespace Target namespace of XSD.
+   * @return Compiled schema.
+   * @throws SAXException No XSD registered for namespace or XSD is invalid.
+   */
+  public Schema getSchema(final String namespace) throws SAXException {
+    return getCompiledSchema(namespace).schema;
+  }
+
+  /**
+   * Validate XML file against the XSD registered for the namespace of its
+   * root element. The file is streamed (StAX) only once: the namespace is
+   * taken from the root element and validation continues on the same reader.
+   *
+   * @param path XML file.
+   * @return Result of validation.
+   * @throws IOException Error reading file.
+   */
+  public ValidationResult validate(final Path path) throws IOException {
+    String namespace = null;
+    try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(path), XmlParserUtil.BUFFER_SIZE)) {
+      XMLStreamReader reader = XmlSnifferUtil.openAtRootElement(inputStream, path.toUri().toString());
+      try {
+        namespace = reader.getNamespaceURI() != null ? reader.getNamespaceURI() : "";
+        getCompiledSchema(namespace).getValidator().validate(new StAXSource(reader));
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException | SAXException ex) {
+      return ValidationResult.invalid(path, namespace, ex.getMessage());
+    }
+    return ValidationResult.valid(path, namespace);
+  }
+
+  /**
+   * Validate all XML files in parallel. Errors reading a file are reported
+   * as invalid result.
+   *
+   * @param paths XML files.
+   * @return Results in the same order as the given files.
+   */
+  public List<ValidationResult> validateAll(final Collection<Path> paths) {
+    return paths.parallelStream().map(this::validateQuietly).collect(Collectors.toList());
+  }
+
+  /**
+   * Validate XML file. Errors reading the file are reported as invalid
+   * result.
+   *
+   * @param path XML file.
+   * @return Result of validation.
+   */
+  public ValidationResult validateQuietly(final Path path) {
+    try {
+      return validate(path);
+    } catch (IOException ex) {
+      LOGGER.error("Error reading file '{}'", path, ex);
+      return ValidationResult.invalid(path, null, ex.getMessage());
+    }
+  }
+
+  /**
+   * Get number of compiled schemas currently held in memory.
+   *
+   * @return Number of cached schemas.
+   */
+  public int getNumberOfCachedSchemas() {
+    synchronized (compiledSchemas) {
+      return compiledSchemas.size();
+    }
+  }
+
+  /**
+   * Get number of compilations since creation of registry.
+   *
+   * @return Number of compilations.
+   */
+  public long getNumberOfCompilations() {
+    return noOfCompilations.get();
+  }
+
+  /**
+   * Get compiled schema from cache or compile it.
+   *
+   * @param namespace Target namespace of XSD.
+   * @return Compiled schema.
+   * @throws SAXException No XSD registered for namespace or XSD is invalid.
+   */
+  private CompiledSchema getCompiledSchema(final String namespace) throws SAXException {
+    CompiledSchema compiledSchema;
+    synchronized (compiledSchemas) {
+      compiledSchema = compiledSchemas.get(namespace);
+    }
+    if (compiledSchema == null) {
+      XmlSchemaDefinition definition = definitions.get(namespace);
+      if (definition == null) {
+        throw new SAXException("No XSD registered for namespace '" + namespace + "'!");
+      }
+      // Lock only the definition so that different schemas may be compiled
+      // concurrently while each schema is compiled only once.
+      synchronized (definition) {
+        synchronized (compiledSchemas) {
+          compiledSchema = compiledSchemas.get(namespace);
+        }
+        if (compiledSchema == null) {
+          compiledSchema = new CompiledSchema(compile(definition));
+          synchronized (compiledSchemas) {
+            // Don't cache schema of a definition replaced in the meantime.
+            if (definitions.get(namespace) == definition) {
+              compiledSchemas.put(namespace, compiledSchema);
+            }
+          }
+        }
+      }
+    }
+    return compiledSchema;
+  }
+
+  /**
+   * Compile XSD.
+   *
+   * @param definition Definition of XSD.
+   * @return Compiled schema.
+   * @throws SAXException XSD is invalid.
+   */
+  private Schema compile(final XmlSchemaDefinition definition) throws SAXException {
+    LOGGER.debug("Compile XSD for namespace '{}'", definition.getNamespace());
+    noOfCompilations.incrementAndGet();
+    SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+    StreamSource source = new StreamSource(new StringReader(definition.getXsdFile()), definition.getNamespace());
+    return factory.newSchema(source);
+  }
+
+  /**
+   * Compiled schema with one validator per thread.
+   */
+  private static final class CompiledSchema {
+
+    /**
+     * Compiled (thread safe) schema.
+     */
+    private final Schema schema;
+    /**
+     * Validator of the current thread. (Entries of other threads are released
+     * together with this instance after eviction.)
+     */
+    private final ThreadLocal<Validator> validator;
+
+    /**
+     * Constructor.
+     *
+     * @param schema Compiled schema.
+     */
+    CompiledSchema(final Schema schema) {
+      this.schema = schema;
+      validator = ThreadLocal.withInitial(schema::newValidator);
+    }
+
+    /**
+     * Get validator of the current thread.
+     *
+     * @return Validator.
+     */
+    Validator getValidator() {
+      Validator threadValidator = validator.get();
+      threadValidator.reset();
+      return threadValidator;
+    }
+  }
+}
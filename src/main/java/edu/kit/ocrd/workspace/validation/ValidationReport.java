@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Report collecting the validation results of all files of a workspace.
+ */
+public class ValidationReport {
+
+  /**
+   * Results of all validated files.
+   */
+  private final List<ValidationResult> results;
+  /**
+   * Number of files which should be validated.
+   */
+  private final int noOfFiles;
+
+  /**
+   * Constructor.
+   *
+   * @param results Results of all validated files.
+   * @param noOfFiles Number of files which should be validated.
+   */
+  public ValidationReport(final List<ValidationResult> results, final int noOfFiles) {
+    this.results = Collections.unmodifiableList(new ArrayList<>(results));
+    this.noOfFiles = noOfFiles;
+  }
+
+  /**
+   * Get results of all validated files.
+   *
+   * @return the results
+   */
+  public List<ValidationResult> getResults() {
+    return results;
+  }
+
+  /**
+   * Get results of all invalid files.
+   *
+   * @return the invalid results
+   */
+  public List<ValidationResult> getErrors() {
+    List<ValidationResult> errors = new ArrayList<>();
+    for (ValidationResult result : results) {
+      if (!result.isValid()) {
+        errors.add(result);
+      }
+    }
+    return errors;
+  }
+
+  /**
+   * Get number of files which should be validated.
+   *
+   * @return the number of files
+   */
+  public int getNumberOfFiles() {
+    return noOfFiles;
+  }
+
+  /**
+   * Are all files validated? (Validation may be aborted in fail fast mode.)
+   *
+   * @return true if all files were validated.
+   */
+  public boolean isComplete() {
+    return results.size() == noOfFiles;
+  }
+
+  /**
+   * Are all files validated and valid?
+   *
+   * @return true if workspace is valid.
+   */
+  public boolean isValid() {
+    return isComplete() && getErrors().isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("Validated ").append(results.size()).append(" of ").append(noOfFiles).append(" file(s)");
+    List<ValidationResult> errors = getErrors();
+    builder.append(", ").append(errors.size()).append(" invalid");
+    for (ValidationResult error : errors) {
+      builder.append("\n").append(error.getPath()).append(": ").append(error.getMessage());
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import java.nio.file.Path;
+
+/**
+ * Result of validating one XML file against its registered schema.
+ */
+public class ValidationResult {
+
+  /**
+   * Validated file.
+   */
+  private final Path path;
+  /**
+   * Namespace of the root element.
+   */
+  private final String namespace;
+  /**
+   * Is file valid?
+   */
+  private final boolean valid;
+  /**
+   * Error message if file is invalid.
+   */
+  private final String message;
+
+  /**
+   * Constructor setting all attributes.
+   *
+   * @param path Validated file.
+   * @param namespace Namespace of the root element (may be null if unknown).
+   * @param valid Is file valid?
+   * @param message Error message if file is invalid.
+   */
+  public ValidationResult(final Path path, final String namespace, final boolean valid, final String message) {
+    this.path = path;
+    this.namespace = namespace;
+    this.valid = valid;
+    this.message = message;
+  }
+
+  /**
+   * Create result for a valid file.
+   *
+   * @param path Validated file.
+   * @param namespace Namespace of the root element.
+   * @return Result.
+   */
+  public static ValidationResult valid(final Path path, final String namespace) {
+    return new ValidationResult(path, namespace, true, null);
+  }
+
+  /**
+   * Create result for an invalid file.
+   *
+   * @param path Validated file.
+   * @param namespace Namespace of the root element (may be null if unknown).
+   * @param message Error message.
+   * @return Result.
+   */
+  public static ValidationResult invalid(final Path path, final String namespace, final String message) {
+    return new ValidationResult(path, namespace, false, message);
+  }
+
+  /**
+   * Get validated file.
+   *
+   * @return the path
+   */
+  public Path getPath() {
+    return path;
+  }
+
+  /**
+   * Get namespace of the root element.
+   *
+   * @return the namespace (null if unknown)
+   */
+  public String getNamespace() {
+    return namespace;
+  }
+
+  /**
+   * Is file valid?
+   *
+   * @return true if file is valid.
+   */
+  public boolean isValid() {
+    return valid;
+  }
+
+  /**
+   * Get error message.
+   *
+   * @return the message (null if valid)
+   */
+  public String getMessage() {
+    return message;
+  }
+
+  @Override
+  public String toString() {
+    return "ValidationResult{" + "path=" + path + ", namespace=" + namespace + ", valid=" + valid + ", message=" + message + '}';
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.dao;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for MetsMetadataJsonWriter.
+ */
+public class MetsMetadataJsonWriterTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  public MetsMetadataJsonWriterTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  private static MetsMetadata createMetsMetadata(int noOfPages) {
+    MetsMetadata metsMetadata = new MetsMetadata();
+    metsMetadata.setTitle("Grundriss der \"Psychologie\"");
+    metsMetadata.setAuthor("Wilhelm Wundt");
+    metsMetadata.setYear("1896");
+    metsMetadata.setLanguage(Arrays.asList("deu"));
+    metsMetadata.setGenre(new ArrayList<>());
+    metsMetadata.setNoOfPages(noOfPages);
+    metsMetadata.getModsIdentifier().add(new ModsIdentifier("purl", "http://www.deutschestextarchiv.de/wundt_grundriss_1896"));
+    metsMetadata.getModsIdentifier().add(new ModsIdentifier("dtaid", "16196"));
+    for (int page = 0; page < noOfPages; page++) {
+      PageFeatures pageFeatures = new PageFeatures();
+      pageFeatures.setPageId("PHYS_" + page);
+      pageFeatures.setOrder(page % 2 == 0 ? page : null);
+      pageFeatures.setNoOfImages(page % 3);
+      pageFeatures.setFeatures(Arrays.asList("granularity/physical/document-related/region", "font/typeface/fraktur"));
+      metsMetadata.getPages().add(pageFeatures);
+    }
+    return metsMetadata;
+  }
+
+  /**
+   * Test of write method, of class MetsMetadataJsonWriter.
+   */
+  @Test
+  public void testWriteEqualsReflectiveSerialization() throws IOException {
+    System.out.println("write");
+    MetsMetadata metsMetadata = createMetsMetadata(4);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MetsMetadataJsonWriter.write(out, metsMetadata);
+    String expResult = objectMapper.writeValueAsString(metsMetadata);
+    assertEquals(objectMapper.readTree(expResult), objectMapper.readTree(out.toByteArray()));
+    out.reset();
+    MetsMetadataJsonWriter.write(out, new MetsMetadata());
+    expResult = objectMapper.writeValueAsString(new MetsMetadata());
+    assertEquals(objectMapper.readTree(expResult), objectMapper.readTree(out.toByteArray()));
+  }
+
+  /**
+   * Test of writeNdjson method, of class MetsMetadataJsonWriter.
+   */
+  @Test
+  public void testWriteNdjson() throws IOException {
+    System.out.println("writeNdjson");
+    List<MetsMetadata> corpus = new ArrayList<>();
+    for (int index = 1; index <= 3; index++) {
+      corpus.add(createMetsMetadata(index));
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MetsMetadataJsonWriter.writeNdjson(out, corpus);
+    String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+    assertEquals(3, lines.length);
+    for (int index = 0; index < lines.length; index++) {
+      assertEquals(objectMapper.valueToTree(corpus.get(index)), objectMapper.readTree(lines[index]));
+    }
+  }
+}
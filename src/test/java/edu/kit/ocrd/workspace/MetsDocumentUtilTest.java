@@ -24,13 +24,17 @@ import edu.kit.ocrd.workspace.entity.MetsFile;
 import edu.kit.ocrd.workspace.entity.MetsIdentifier;
 import edu.kit.ocrd.workspace.entity.MetsProperties;
 import edu.kit.ocrd.workspace.entity.PageMetadata;
+import edu.kit.ocrd.workspace.structure.LogicalSection;
+import edu.kit.ocrd.workspace.structure.LogicalStructure;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.fzk.tools.xml.JaxenUtil;
 import org.jdom.Document;
+import org.jdom.Element;
 import org.jdom.Namespace;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -184,4 +188,54 @@ public class MetsDocumentUtilTest {
     assertEquals("Grundriss der Psychologie", metsMetadata.getTitle());
     assertEquals("1896", metsMetadata.getYear());
   }
+  /**
+   * Test of extractPageUrls method with selected fileGrps.
+   */
+  @Test
+  public void testExtractPageUrlsOfFileGrps() throws Exception {
+    System.out.println("extractPageUrls(fileGrps)");
+    Document document = JaxenUtil.getDocument(new File("src/test/resources/all/data/mets.xml"));
+    List<String> result = MetsDocumentUtil.extractPageUrls(document, Arrays.asList("OCR-D-OCR-TESSEROCR-FRAKTUR", "OCR-D-SEG-LINE"));
+    assertEquals(2, result.size());
+    assertTrue(result.get(0).startsWith("OCR-D-OCR-TESSEROCR-FRAKTUR/"));
+    assertTrue(result.get(1).startsWith("OCR-D-SEG-LINE/"));
+    assertTrue(MetsDocumentUtil.extractPageUrls(document, Arrays.asList("OCR-D-IMG")).isEmpty());
+    assertEquals(MetsDocumentUtil.extractPageUrls(document), MetsDocumentUtil.extractPageUrls(document, null));
+    // USE is not interpreted as XPath.
+    Element fileGrp = (Element) JaxenUtil.getNodes(document, "//mets:fileGrp[@USE='OCR-D-SEG-LINE']", MetsDocumentUtil.getNamespaces()).get(0);
+    fileGrp.setAttribute("USE", "OCR-D-SEG-LINE' or @USE='OCR-D-OCR-TESSEROCR-FRAKTUR");
+    assertTrue(MetsDocumentUtil.extractPageUrls(document, Arrays.asList("OCR-D-SEG-LINE")).isEmpty());
+    result = MetsDocumentUtil.extractPageUrls(document, Arrays.asList("OCR-D-SEG-LINE' or @USE='OCR-D-OCR-TESSEROCR-FRAKTUR"));
+    assertEquals(1, result.size());
+    assertTrue(result.get(0).startsWith("OCR-D-SEG-LINE/"));
+  }
+
+  /**
+   * Test of extractPageFileGrps method, of class MetsDocumentUtil.
+   */
+  @Test
+  public void testExtractPageFileGrps() throws Exception {
+    System.out.println("extractPageFileGrps");
+    Document document = JaxenUtil.getDocument(new File("src/test/resources/all/data/mets.xml"));
+    List<String> result = MetsDocumentUtil.extractPageFileGrps(document);
+    assertEquals(Arrays.asList("OCR-D-GT-SEG-PAGE", "OCR-D-GT-SEG-BLOCK", "OCR-D-IMG-BIN-OCROPY",
+            "OCR-D-SEG-REGION", "OCR-D-SEG-LINE", "OCR-D-OCR-TESSEROCR-FRAKTUR"), result);
+  }
+
+  /**
+   * Test of extractLogicalStructure method, of class MetsDocumentUtil.
+   */
+  @Test
+  public void testExtractLogicalStructure() throws Exception {
+    System.out.println("extractLogicalStructure");
+    Document document = JaxenUtil.getDocument(new File("src/test/resources/mets/complete_mets.xml"));
+    LogicalStructure result = MetsDocumentUtil.extractLogicalStructure(document);
+    assertEquals(4, result.getNoOfPages());
+    assertEquals(2, result.getSections().size());
+    LogicalSection chapter = result.getSection("loc_d1e401");
+    assertEquals("Chapter", chapter.getType());
+    assertEquals(Arrays.asList("phys_0001", "phys_0002", "phys_0003", "phys_0004"), result.getPageIds(chapter));
+    assertEquals(chapter, result.getInnermostSection(result.getPageIndex("phys_0003")));
+    assertEquals(Arrays.asList(result.getSection("loc_0001"), chapter), result.getSections("phys_0002"));
+  }
 }
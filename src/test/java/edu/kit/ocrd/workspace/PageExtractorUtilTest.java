@@ -5,11 +5,22 @@
  */
 package edu.kit.ocrd.workspace;
 
+import edu.kit.ocrd.workspace.entity.ConfidenceStatistics;
+import edu.kit.ocrd.workspace.entity.ProvenanceMetadata;
 import edu.kit.ocrd.workspace.entity.TextRegion;
+import edu.kit.ocrd.workspace.generator.WorkspaceGenerator;
 import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.Namespace;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -88,6 +99,141 @@ public class PageExtractorUtilTest {
     }
   }
 
+  /**
+   * Test of extractTextRegions method with coordinates.
+   */
+  @Test
+  public void testExtractTextRegionsCoordinates() throws Exception {
+    System.out.println("extractTextRegions coordinates");
+    File pageFile = new File("src/test/resources/all/data/OCR-D-OCR-TESSEROCR-FRAKTUR/OCR-D-OCR-TESSEROCR-FRAKTUR_0001.xml");
+    List<TextRegion> result = PageExtractorUtil.extractTextRegions(pageFile, "page.xml", "resourceId");
+    TextRegion first = result.get(0);
+    assertEquals("region0000", first.getRegion());
+    assertTrue(first.hasCoordinates());
+    assertArrayEquals(new int[]{620, 575, 1182, 575, 1182, 654, 620, 654}, first.getPoints());
+    assertEquals(620, first.getMinX());
+    assertEquals(575, first.getMinY());
+    assertEquals(1182, first.getMaxX());
+    assertEquals(654, first.getMaxY());
+    for (TextRegion textRegion : result) {
+      assertTrue(textRegion.hasCoordinates());
+      assertTrue(textRegion.getMinX() <= textRegion.getMaxX());
+    }
+    // Older PAGE versions use 'Point' elements.
+    Namespace namespace = Namespace.getNamespace("page", "http://schema.primaresearch.org/PAGE/gts/pagecontent/2010-03-19");
+    Element region = new Element("TextRegion", namespace);
+    Element coords = new Element("Coords", namespace);
+    coords.addContent(new Element("Point", namespace).setAttribute("x", "5").setAttribute("y", "6"));
+    coords.addContent(new Element("Point", namespace).setAttribute("x", "15").setAttribute("y", "26"));
+    region.addContent(coords);
+    assertArrayEquals(new int[]{5, 6, 15, 26}, PageExtractorUtil.extractPoints(region, namespace));
+    assertEquals(0, PageExtractorUtil.extractPoints(new Element("TextRegion", namespace), namespace).length);
+  }
+
+  /**
+   * Test of extractAllTextRegions method with selected fileGrps.
+   */
+  @Test
+  public void testExtractAllTextRegionsOfFileGrps() throws Exception {
+    System.out.println("extractAllTextRegions(fileGrps)");
+    File metsFile = new File("src/test/resources/text/mets.xml");
+    String resourceId = "resourceId";
+    List<TextRegion> result = PageExtractorUtil.extractAllTextRegions(metsFile, resourceId, Arrays.asList("OCR-D-OCR-TESSEROCR"));
+    assertEquals(53, result.size());
+    for (TextRegion textRegion : result) {
+      assertTrue(textRegion.getPageUrl().startsWith("OCR-D-OCR-TESSEROCR/"));
+    }
+    // Segmentation only
+    result = PageExtractorUtil.extractAllTextRegions(metsFile, resourceId, Arrays.asList("OCR-D-SEG-REGION", "OCR-D-SEG-LINE"));
+    assertTrue(result.isEmpty());
+    assertTrue(PageExtractorUtil.extractAllTextRegions(metsFile, resourceId, Arrays.asList("UNKNOWN")).isEmpty());
+    assertEquals(53, PageExtractorUtil.extractAllTextRegions(metsFile, resourceId, new ArrayList<>()).size());
+  }
+
+  /**
+   * Test of extractConfidenceStatistics method, of class PageExtractorUtil.
+   */
+  @Test
+  public void testExtractConfidenceStatistics() throws Exception {
+    System.out.println("extractConfidenceStatistics");
+    File metsFile = new File("src/test/resources/text/mets.xml");
+    WorkspaceSession session = new WorkspaceSession(metsFile.toPath(), "resourceId");
+    List<TextRegion> textRegions = PageExtractorUtil.extractAllTextRegions(session, Arrays.asList("OCR-D-OCR-TESSEROCR"));
+    List<ConfidenceStatistics> result = PageExtractorUtil.extractConfidenceStatistics(session, null, 0.5f);
+    ConfidenceStatistics workspace = result.get(0);
+    assertEquals(ConfidenceStatistics.SCOPE_WORKSPACE, workspace.getScope());
+    // Regions without confidence.
+    assertEquals(0, workspace.getCount());
+    assertEquals(textRegions.size(), workspace.getNoOfMissingConfidences());
+    assertTrue(Float.isNaN(workspace.getMean()));
+    // All 3 PAGE fileGrps; segmentation contains no text.
+    assertEquals(ConfidenceStatistics.SCOPE_FILE_GRP, result.get(1).getScope());
+    assertEquals(0, result.get(1).getNoOfMissingConfidences());
+    assertEquals("OCR-D-OCR-TESSEROCR", result.get(3).getFileGrp());
+    assertEquals(textRegions.size(), result.get(3).getNoOfMissingConfidences());
+    assertEquals(ConfidenceStatistics.SCOPE_PAGE, result.get(4).getScope());
+
+    Path tempDir = Files.createTempDirectory("pageExtractorUtilTest_");
+    try {
+      Path workspaceDir = new WorkspaceGenerator().withPages(4).withFileGrps(2).withRegions(5).generateBag(tempDir.resolve("bag"), "id").resolve("data");
+      session = new WorkspaceSession(workspaceDir.resolve(WorkspaceGenerator.METS_FILE), "id");
+      textRegions = PageExtractorUtil.extractAllTextRegions(session);
+      result = PageExtractorUtil.extractConfidenceStatistics(session, null, 0.75f);
+      // Workspace, 1 fileGrp, 4 pages
+      assertEquals(1 + 1 + 4, result.size());
+      workspace = result.get(0);
+      assertEquals(textRegions.size(), workspace.getCount());
+      double sum = 0;
+      long noOfLowConfidenceCharacters = 0;
+      for (TextRegion textRegion : textRegions) {
+        sum += textRegion.getConfidence();
+        if (textRegion.getConfidence() < 0.75f) {
+          noOfLowConfidenceCharacters += textRegion.getText().replaceAll("\\s", "").length();
+        }
+      }
+      assertEquals((float) (sum / textRegions.size()), workspace.getMean(), 1e-5f);
+      assertEquals(noOfLowConfidenceCharacters, workspace.getNoOfLowConfidenceCharacters());
+      assertTrue(workspace.getP10() <= workspace.getP50());
+      assertTrue(workspace.getP50() <= workspace.getP90());
+      assertEquals(5, result.get(2).getCount());
+    } finally {
+      FileUtils.deleteDirectory(tempDir.toFile());
+    }
+  }
+
+  /**
+   * Test of extractFinalTextRegions method, of class PageExtractorUtil.
+   */
+  @Test
+  public void testExtractFinalTextRegions() throws Exception {
+    System.out.println("extractFinalTextRegions");
+    File metsFile = new File("src/test/resources/text/mets.xml");
+    File provFile = new File("src/test/resources/provenance/ocrd_provenance.xml");
+    String resourceId = "resourceId";
+    List<TextRegion> expResult = PageExtractorUtil.extractAllTextRegions(metsFile, resourceId, Arrays.asList("OCR-D-OCR-TESSEROCR"));
+    List<TextRegion> result = PageExtractorUtil.extractFinalTextRegions(metsFile, provFile, resourceId);
+    assertEquals(expResult.size(), result.size());
+    // Without provenance the last fileGrp is selected.
+    result = PageExtractorUtil.extractFinalTextRegions(metsFile, null, resourceId);
+    assertEquals(expResult.size(), result.size());
+  }
+
+  /**
+   * Test of selectFinalOcrFileGrp method, of class PageExtractorUtil.
+   */
+  @Test
+  public void testSelectFinalOcrFileGrp() throws Exception {
+    System.out.println("selectFinalOcrFileGrp");
+    Document metsDocument = XmlParserUtil.getDocument(new File("src/test/resources/all/data/mets.xml"));
+    assertEquals("OCR-D-OCR-TESSEROCR-FRAKTUR", PageExtractorUtil.selectFinalOcrFileGrp(metsDocument, new ArrayList<>()));
+    ProvenanceMetadata processor = new ProvenanceMetadata();
+    processor.setStartProcessor(new Date());
+    processor.setOutputFileGrps("[OCR-D-SEG-LINE]");
+    assertEquals("OCR-D-SEG-LINE", PageExtractorUtil.selectFinalOcrFileGrp(metsDocument, Arrays.asList(processor)));
+    metsDocument = XmlParserUtil.getDocument("<mets:mets xmlns:mets='http://www.loc.gov/METS/'/>");
+    assertNull(PageExtractorUtil.selectFinalOcrFileGrp(metsDocument, new ArrayList<>()));
+  }
+
   /**
    * Test of main method, of class PageExtractorUtil.
    */
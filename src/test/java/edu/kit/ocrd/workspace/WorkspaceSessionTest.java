@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import com.github.jscancella.domain.Bag;
+import com.github.jscancella.reader.BagReader;
+import edu.kit.ocrd.workspace.entity.MetsFile;
+import edu.kit.ocrd.workspace.entity.MetsProperties;
+import edu.kit.ocrd.workspace.entity.ProvenanceMetadata;
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import edu.kit.ocrd.workspace.generator.WorkspaceGenerator;
+import edu.kit.ocrd.workspace.metrics.ExtractionMetrics;
+import edu.kit.ocrd.workspace.provenance.ProvenanceUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for WorkspaceSession.
+ */
+public class WorkspaceSessionTest {
+
+  private static final Path METS_FILE = Paths.get("src/test/resources/all/data/mets.xml");
+
+  private static final Path PROVENANCE_FILE = Paths.get("src/test/resources/all/metadata/ocrd_provenance.xml");
+
+  private MeterRegistry defaultRegistry;
+
+  private SimpleMeterRegistry registry;
+
+  public WorkspaceSessionTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+    defaultRegistry = ExtractionMetrics.getRegistry();
+    registry = new SimpleMeterRegistry();
+    ExtractionMetrics.setRegistry(registry);
+  }
+
+  @After
+  public void tearDown() {
+    ExtractionMetrics.setRegistry(defaultRegistry);
+  }
+
+  /**
+   * Test of getMetsDocument method, of class WorkspaceSession.
+   */
+  @Test
+  public void testGetMetsDocument() throws Exception {
+    System.out.println("getMetsDocument");
+    WorkspaceSession instance = new WorkspaceSession(METS_FILE, "resourceId");
+    assertEquals(0, instance.getNumberOfMetsParses());
+    assertSame(instance.getMetsDocument(), instance.getMetsDocument());
+    assertEquals(1, instance.getNumberOfMetsParses());
+    instance.release();
+    assertNotNull(instance.getMetsDocument());
+    assertEquals(2, instance.getNumberOfMetsParses());
+  }
+
+  /**
+   * Test that all extractors share one METS parse per session.
+   */
+  @Test
+  public void testSingleMetsParse() throws Exception {
+    System.out.println("single METS parse");
+    String resourceId = "resourceId";
+    WorkspaceSession instance = new WorkspaceSession(METS_FILE, resourceId).withProvenanceFile(PROVENANCE_FILE);
+    List<MetsFile> metsFiles = MetsDocumentUtil.extractMetsFiles(instance, 1);
+    MetsProperties properties = MetsDocumentUtil.extractMetadataFromMets(instance);
+    List<ProvenanceMetadata> provenance = ProvenanceUtil.extractWorkflows(instance);
+    List<TextRegion> textRegions = PageExtractorUtil.extractAllTextRegions(instance);
+    List<TextRegion> finalTextRegions = PageExtractorUtil.extractFinalTextRegions(instance);
+
+    assertEquals(MetsDocumentUtil.extractMetsFiles(XmlParserUtil.getDocument(METS_FILE), resourceId, 1).size(), metsFiles.size());
+    assertNotNull(properties.getTitle());
+    assertFalse(provenance.isEmpty());
+    assertEquals(PageExtractorUtil.extractAllTextRegions(METS_FILE.toFile(), resourceId).size(), textRegions.size());
+    assertEquals(5, finalTextRegions.size());
+    assertEquals(1, instance.getNumberOfMetsParses());
+    Timer timer = registry.find(ExtractionMetrics.METRIC_DURATION)
+            .tags(ExtractionMetrics.TAG_STAGE, ExtractionMetrics.STAGE_METS_PARSE, ExtractionMetrics.TAG_OUTCOME, ExtractionMetrics.OUTCOME_SUCCESS).timer();
+    // One parse by session and one by the File based reference extraction.
+    assertEquals(2, timer.count());
+  }
+
+  /**
+   * Test of extractWorkflows method without provenance.
+   */
+  @Test
+  public void testWithoutProvenance() throws Exception {
+    System.out.println("without provenance");
+    WorkspaceSession instance = new WorkspaceSession(METS_FILE, "resourceId");
+    assertFalse(instance.hasProvenance());
+    assertNull(instance.getProvenanceDocument());
+    assertTrue(ProvenanceUtil.extractWorkflows(instance).isEmpty());
+    assertEquals(0, instance.getNumberOfMetsParses());
+    // Last PAGE fileGrp is selected.
+    assertEquals(5, PageExtractorUtil.extractFinalTextRegions(instance).size());
+  }
+
+  /**
+   * Test of resolve method, of class WorkspaceSession.
+   */
+  @Test
+  public void testResolve() {
+    System.out.println("resolve");
+    WorkspaceSession instance = new WorkspaceSession(METS_FILE, "resourceId");
+    Path root = METS_FILE.toAbsolutePath().getParent();
+    assertEquals(root, instance.getWorkspaceRoot());
+    assertEquals(root.resolve("OCR-D-IMG/page.tif"), instance.resolve("OCR-D-IMG/page.tif"));
+    assertEquals(root.resolve("OCR-D-IMG/page.tif"), instance.resolve("./OCR-D-GT/../OCR-D-IMG/page.tif"));
+  }
+
+  /**
+   * Test of resolve method with path outside of workspace.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testResolveOutsideWorkspace() {
+    System.out.println("resolve outside workspace");
+    new WorkspaceSession(METS_FILE, "resourceId").resolve("../metadata/ocrd_provenance.xml");
+  }
+
+  /**
+   * Test of fromBag method, of class WorkspaceSession.
+   */
+  @Test
+  public void testFromBag() throws Exception {
+    System.out.println("fromBag");
+    Path tempDir = Files.createTempDirectory("workspaceSessionTest_");
+    try {
+      Bag bag = BagReader.read(new WorkspaceGenerator().withPages(2).withFileGrps(3).withRegions(2).generateBag(tempDir.resolve("bag"), "id"));
+      WorkspaceSession instance = WorkspaceSession.fromBag(bag, "id");
+      assertEquals(bag.getRootDir().resolve("data").resolve(WorkspaceGenerator.METS_FILE).toAbsolutePath().normalize(), instance.getMetsFile());
+      assertEquals(bag.getRootDir().resolve(WorkspaceSession.PROVENANCE_LOCATION), instance.getProvenanceFile());
+      assertEquals(2 * 2 * 2, PageExtractorUtil.extractAllTextRegions(instance).size());
+      assertEquals(2 * 2, MetsDocumentUtil.extractPageUrls(instance, null).size());
+      assertEquals(1, instance.getNumberOfMetsParses());
+    } finally {
+      FileUtils.deleteDirectory(tempDir.toFile());
+    }
+  }
+}
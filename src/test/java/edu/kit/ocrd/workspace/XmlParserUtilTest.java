@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.jdom.Document;
+import org.jdom.JDOMException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for XmlParserUtil.
+ */
+public class XmlParserUtilTest {
+
+  public XmlParserUtilTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of getDocument method, of class XmlParserUtil.
+   */
+  @Test
+  public void testGetDocumentFromFile() throws Exception {
+    System.out.println("getDocument(File)");
+    File metsFile = new File("src/test/resources/all/data/mets.xml");
+    Document result = XmlParserUtil.getDocument(metsFile);
+    assertEquals("mets", result.getRootElement().getName());
+    assertEquals("http://www.loc.gov/METS/", result.getRootElement().getNamespaceURI());
+    // Parse again with reused parser.
+    result = XmlParserUtil.getDocument(metsFile.toPath());
+    assertEquals("mets", result.getRootElement().getName());
+  }
+
+  /**
+   * Test of getDocument method, of class XmlParserUtil.
+   */
+  @Test
+  public void testGetDocumentFromStringAndStream() throws Exception {
+    System.out.println("getDocument(String/InputStream)");
+    String xml = "<a xmlns='http://example.org'><b>text</b></a>";
+    Document result = XmlParserUtil.getDocument(xml);
+    assertEquals("text", result.getRootElement().getValue());
+    result = XmlParserUtil.getDocument(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    assertEquals("a", result.getRootElement().getName());
+  }
+
+  /**
+   * Test that external entities are not resolved.
+   */
+  @Test
+  public void testExternalEntitiesAreIgnored() throws Exception {
+    System.out.println("external entities");
+    Path secret = Files.createTempFile("secret_", ".txt");
+    try {
+      Files.write(secret, "secret".getBytes(StandardCharsets.UTF_8));
+      String xml = "<?xml version='1.0'?><!DOCTYPE a [<!ENTITY xxe SYSTEM '" + secret.toUri() + "'>]><a>&xxe;</a>";
+      Document result = XmlParserUtil.getDocument(xml);
+      assertFalse(result.getRootElement().getValue().contains("secret"));
+    } finally {
+      Files.delete(secret);
+    }
+  }
+
+  /**
+   * Test of getDocument method with invalid document.
+   */
+  @Test(expected = JDOMException.class)
+  public void testGetDocumentInvalid() throws Exception {
+    System.out.println("getDocument(invalid)");
+    XmlParserUtil.getDocument("<a><b></a>");
+  }
+
+  /**
+   * Test parsing from multiple threads.
+   */
+  @Test
+  public void testGetDocumentParallel() throws Exception {
+    System.out.println("getDocument parallel");
+    File pageFile = new File("src/test/resources/all/data/OCR-D-OCR-TESSEROCR-FRAKTUR/OCR-D-OCR-TESSEROCR-FRAKTUR_0001.xml");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Document>> results = new ArrayList<>();
+      for (int index = 0; index < 20; index++) {
+        results.add(executor.submit(() -> XmlParserUtil.getDocument(pageFile)));
+      }
+      for (Future<Document> result : results) {
+        assertEquals("PcGts", result.get().getRootElement().getName());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
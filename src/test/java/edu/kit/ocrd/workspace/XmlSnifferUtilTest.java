@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for XmlSnifferUtil.
+ */
+public class XmlSnifferUtilTest {
+
+  public XmlSnifferUtilTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of sniff method, of class XmlSnifferUtil.
+   */
+  @Test
+  public void testSniffXsd() throws IOException {
+    System.out.println("sniff(Path) XSD");
+    XmlSnifferUtil.RootElement result = XmlSnifferUtil.sniff(Paths.get("src/test/resources/xsd/2018.xsd"));
+    assertTrue(result.isXmlSchema());
+    assertEquals("schema", result.getLocalName());
+    assertEquals(XmlSnifferUtil.XML_SCHEMA_NAMESPACE, result.getNamespace());
+    assertEquals("http://schema.primaresearch.org/PAGE/gts/pagecontent/2018-07-15", result.getTargetNamespace());
+    assertNotNull(result.toString());
+  }
+
+  /**
+   * Test of sniff method, of class XmlSnifferUtil.
+   */
+  @Test
+  public void testSniffMetsAndPage() throws IOException {
+    System.out.println("sniff(Path) METS/PAGE");
+    XmlSnifferUtil.RootElement result = XmlSnifferUtil.sniff(Paths.get("src/test/resources/all/data/mets.xml"));
+    assertFalse(result.isXmlSchema());
+    assertEquals("mets", result.getLocalName());
+    assertEquals("http://www.loc.gov/METS/", result.getNamespace());
+    assertNull(result.getTargetNamespace());
+    result = XmlSnifferUtil.sniff(Paths.get("src/test/resources/all/data/OCR-D-OCR-TESSEROCR-FRAKTUR/OCR-D-OCR-TESSEROCR-FRAKTUR_0001.xml"));
+    assertEquals("PcGts", result.getLocalName());
+    assertTrue(result.getNamespace().startsWith("http://schema.primaresearch.org/PAGE/gts/pagecontent/"));
+  }
+
+  /**
+   * Test of sniff method, of class XmlSnifferUtil.
+   */
+  @Test
+  public void testSniffStringAndStream() throws IOException {
+    System.out.println("sniff(String/InputStream)");
+    String xml = "<?xml version='1.0'?><!-- comment --><x:a xmlns:x='http://example.org' version='1.1'><b/></x:a>";
+    XmlSnifferUtil.RootElement result = XmlSnifferUtil.sniff(xml);
+    assertEquals("http://example.org", result.getNamespace());
+    assertEquals("a", result.getLocalName());
+    assertEquals("1.1", result.getVersion());
+    result = XmlSnifferUtil.sniff(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    assertEquals("a", result.getLocalName());
+    // Rest of document is not parsed.
+    result = XmlSnifferUtil.sniff("<a>not well formed<b></a>");
+    assertEquals("", result.getNamespace());
+  }
+
+  /**
+   * Test of sniff method with document without element.
+   */
+  @Test(expected = IOException.class)
+  public void testSniffWithoutElement() throws IOException {
+    System.out.println("sniff(no element)");
+    XmlSnifferUtil.sniff("<?xml version='1.0'?><!-- comment -->");
+  }
+}
@@ -17,8 +17,11 @@ package edu.kit.ocrd.workspace;
 
 import edu.kit.ocrd.workspace.XsdUtil;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.nio.file.Paths;
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -78,6 +81,55 @@ public class XsdUtilTest {
     assertEquals(expResult, result);
   }
 
+  /**
+   * Test of getNamespaceAndVersionFromXsd method, of class XsdUtil.
+   */
+  @Test
+  public void testGetNamespaceAndVersionFromXsdPath() {
+    System.out.println("getNamespaceAndVersionFromXsd(Path)");
+    XsdUtil instance = new XsdUtil();
+    String expResult = "http://schema.primaresearch.org/PAGE/gts/pagecontent/2018-07-15";
+    String result = instance.getNamespaceAndVersionFromXsd(Paths.get("src/test/resources/xsd/2018.xsd"));
+    assertEquals(expResult, result);
+    instance = new XsdUtil();
+    result = instance.getNamespaceAndVersionFromXsd(Paths.get("src/test/resources/xsd/invalid.xsd"));
+    assertEquals(XsdUtil.NO_NAMESPACE_DEFINED, result);
+    instance = new XsdUtil();
+    result = instance.getNamespaceAndVersionFromXsd(Paths.get("src/test/resources/xsd/doesNotExist.xsd"));
+    assertEquals(XsdUtil.NO_NAMESPACE_DEFINED, result);
+  }
+
+  /**
+   * Test of getNamespaceAndVersionFromXsd method reusing one instance.
+   */
+  @Test
+  public void testGetNamespaceAndVersionFromXsdReused() {
+    System.out.println("getNamespaceAndVersionFromXsd (reused instance)");
+    XsdUtil instance = new XsdUtil();
+    String expResult = "http://schema.primaresearch.org/PAGE/gts/pagecontent/2018-07-15";
+    assertEquals(expResult, instance.getNamespaceAndVersionFromXsd(Paths.get("src/test/resources/xsd/2018.xsd")));
+    assertEquals(XsdUtil.NO_NAMESPACE_DEFINED, instance.getNamespaceAndVersionFromXsd(Paths.get("src/test/resources/xsd/invalid.xsd")));
+    assertEquals(XsdUtil.NO_NAMESPACE_DEFINED, instance.getNamespace());
+    assertEquals(expResult, instance.getNamespaceAndVersionFromXsd(Paths.get("src/test/resources/xsd/2018.xsd")));
+    assertEquals(XsdUtil.NO_NAMESPACE_DEFINED, instance.getNamespaceAndVersionFromXsd(Paths.get("src/test/resources/xsd/doesNotExist.xsd")));
+    assertEquals(XsdUtil.NO_NAMESPACE_DEFINED, instance.getNamespace());
+  }
+
+  /**
+   * Test of getNamespaceAndVersionFromXsd method, of class XsdUtil.
+   */
+  @Test
+  public void testGetNamespaceAndVersionFromXsdStream() throws IOException {
+    System.out.println("getNamespaceAndVersionFromXsd(InputStream)");
+    XsdUtil instance = new XsdUtil();
+    String expResult = "http://schema.primaresearch.org/PAGE/gts/pagecontent/2018-07-15";
+    try (InputStream inputStream = new FileInputStream("src/test/resources/xsd/2018.xsd")) {
+      String result = instance.getNamespaceAndVersionFromXsd(inputStream);
+      assertEquals(expResult, result);
+    }
+    assertEquals(expResult, instance.getNamespace());
+  }
+
   /**
    * Test of getNamespace method, of class XsdUtil.
    */
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.cache;
+
+import edu.kit.ocrd.workspace.MetsDocumentUtil;
+import edu.kit.ocrd.workspace.PageExtractorUtil;
+import edu.kit.ocrd.workspace.XmlParserUtil;
+import edu.kit.ocrd.workspace.metrics.ExtractionMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import org.apache.commons.io.FileUtils;
+import org.jdom.Document;
+import org.jdom.Element;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for DocumentCache.
+ */
+public class DocumentCacheTest {
+
+  private static final Path METS_FILE = Paths.get("src/test/resources/all/data/mets.xml");
+
+  private Path tempDir;
+
+  private DocumentCache defaultCache;
+
+  private MeterRegistry defaultRegistry;
+
+  private SimpleMeterRegistry registry;
+
+  public DocumentCacheTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("documentCacheTest_");
+    defaultCache = DocumentCache.getDefault();
+    defaultRegistry = ExtractionMetrics.getRegistry();
+    registry = new SimpleMeterRegistry();
+    ExtractionMetrics.setRegistry(registry);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    DocumentCache.setDefault(defaultCache);
+    ExtractionMetrics.setRegistry(defaultRegistry);
+    FileUtils.deleteDirectory(tempDir.toFile());
+  }
+
+  /**
+   * Test of getDocument method, of class DocumentCache.
+   */
+  @Test
+  public void testGetDocument() throws Exception {
+    System.out.println("getDocument");
+    DocumentCache instance = new DocumentCache(DocumentCache.DEFAULT_MAX_WEIGHT);
+    Document result = instance.getDocument(METS_FILE, "resourceId");
+    assertSame(result, instance.getDocument(METS_FILE.toAbsolutePath(), "resourceId"));
+    assertSame(result, instance.getDocument(Paths.get("src/test/../test/resources/all/data/mets.xml"), null));
+    assertEquals(1, instance.getNumberOfMisses());
+    assertEquals(2, instance.getNumberOfHits());
+    assertEquals(1, instance.size());
+    assertTrue(instance.getWeight() > 0);
+    assertEquals(2.0, registry.find(ExtractionMetrics.METRIC_DOCUMENT_CACHE).tags(ExtractionMetrics.TAG_OUTCOME, ExtractionMetrics.OUTCOME_HIT).counter().count(), 0.0);
+    assertEquals(1.0, registry.find(ExtractionMetrics.METRIC_DOCUMENT_CACHE).tags(ExtractionMetrics.TAG_OUTCOME, ExtractionMetrics.OUTCOME_MISS).counter().count(), 0.0);
+  }
+
+  /**
+   * Test of getDocument method with modified file.
+   */
+  @Test
+  public void testGetDocumentModified() throws Exception {
+    System.out.println("getDocument modified");
+    Path file = tempDir.resolve("test.xml");
+    Files.write(file, "<a><b/></a>".getBytes(StandardCharsets.UTF_8));
+    FileTime lastModified = Files.getLastModifiedTime(file);
+    DocumentCache instance = new DocumentCache(DocumentCache.DEFAULT_MAX_WEIGHT);
+    assertEquals("b", getFirstChild(instance.getDocument(file, null)));
+    // Same size, other modification time.
+    Files.write(file, "<a><c/></a>".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified.toMillis() + 1000));
+    assertEquals("c", getFirstChild(instance.getDocument(file, null)));
+    // Same modification time, other size.
+    lastModified = Files.getLastModifiedTime(file);
+    Files.write(file, "<a><dd/></a>".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, lastModified);
+    assertEquals("dd", getFirstChild(instance.getDocument(file, null)));
+    assertEquals(3, instance.getNumberOfMisses());
+    assertEquals(0, instance.getNumberOfHits());
+    assertEquals(1, instance.size());
+  }
+
+  /**
+   * Test of getDocument method with checksum.
+   */
+  @Test
+  public void testGetDocumentChecksum() throws Exception {
+    System.out.println("getDocument checksum");
+    Path file = tempDir.resolve("test.xml");
+    Files.write(file, "<a><b/></a>".getBytes(StandardCharsets.UTF_8));
+    DocumentCache instance = new DocumentCache(DocumentCache.DEFAULT_MAX_WEIGHT);
+    Document result = instance.getDocument(file, null, "sha512:1");
+    // Touching file doesn't invalidate document with checksum.
+    Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+    assertSame(result, instance.getDocument(file, null, "sha512:1"));
+    assertNotSame(result, instance.getDocument(file, null, "sha512:2"));
+    assertEquals(2, instance.getNumberOfMisses());
+    instance.invalidate(file);
+    assertEquals(0, instance.size());
+    assertEquals(0, instance.getWeight());
+  }
+
+  /**
+   * Test eviction of least recently used documents.
+   */
+  @Test
+  public void testEviction() throws Exception {
+    System.out.println("eviction");
+    Path first = tempDir.resolve("first.xml");
+    Path second = tempDir.resolve("second.xml");
+    Path third = tempDir.resolve("third.xml");
+    for (Path file : new Path[]{first, second, third}) {
+      Files.write(file, "<a><b x='1'/>text</a>".getBytes(StandardCharsets.UTF_8));
+    }
+    long weight = DocumentCache.estimateWeight(XmlParserUtil.getDocument(first));
+    DocumentCache instance = new DocumentCache(2 * weight);
+    Document firstDocument = instance.getDocument(first, null);
+    instance.getDocument(second, null);
+    // Access first document so second one is least recently used.
+    assertSame(firstDocument, instance.getDocument(first, null));
+    instance.getDocument(third, null);
+    assertEquals(2, instance.size());
+    assertEquals(2 * weight, instance.getWeight());
+    assertEquals(1, instance.getNumberOfEvictions());
+    assertSame(firstDocument, instance.getDocument(first, null));
+    instance.getDocument(second, null);
+    assertEquals(4, instance.getNumberOfMisses());
+    assertEquals(2, instance.getNumberOfEvictions());
+    assertEquals(2.0, registry.find(ExtractionMetrics.METRIC_DOCUMENT_CACHE).tags(ExtractionMetrics.TAG_OUTCOME, ExtractionMetrics.OUTCOME_EVICTION).counter().count(), 0.0);
+  }
+
+  /**
+   * Test of getDocument method with disabled cache.
+   */
+  @Test
+  public void testDisabled() throws Exception {
+    System.out.println("disabled");
+    DocumentCache instance = new DocumentCache(0);
+    assertNotSame(instance.getDocument(METS_FILE, null), instance.getDocument(METS_FILE, null));
+    assertEquals(2, instance.getNumberOfMisses());
+    assertEquals(0, instance.size());
+  }
+
+  /**
+   * Test of estimateWeight method, of class DocumentCache.
+   */
+  @Test
+  public void testEstimateWeight() throws Exception {
+    System.out.println("estimateWeight");
+    long small = DocumentCache.estimateWeight(XmlParserUtil.getDocument("<a/>"));
+    long withAttribute = DocumentCache.estimateWeight(XmlParserUtil.getDocument("<a b='value'/>"));
+    long withText = DocumentCache.estimateWeight(XmlParserUtil.getDocument("<a>value</a>"));
+    assertTrue(small > 0);
+    assertTrue(withAttribute > small);
+    assertTrue(withText > small);
+    assertTrue(DocumentCache.estimateWeight(XmlParserUtil.getDocument(METS_FILE)) > Files.size(METS_FILE));
+  }
+
+  /**
+   * Test of constructor with invalid size.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSize() {
+    System.out.println("invalid size");
+    new DocumentCache(-1);
+  }
+
+  /**
+   * Test usage of default cache by MetsDocumentUtil and PageExtractorUtil.
+   */
+  @Test
+  public void testDefaultCache() throws Exception {
+    System.out.println("default cache");
+    DocumentCache instance = new DocumentCache(DocumentCache.DEFAULT_MAX_WEIGHT);
+    DocumentCache.setDefault(instance);
+    int noOfPageUrls = MetsDocumentUtil.extractPageUrls(METS_FILE, null).size();
+    assertEquals(1, instance.getNumberOfMisses());
+    MetsDocumentUtil.extractMetsFiles(METS_FILE, "resourceId", 1);
+    MetsDocumentUtil.extractMetadataFromMets(METS_FILE, "resourceId");
+    assertEquals(1, instance.getNumberOfMisses());
+    assertEquals(2, instance.getNumberOfHits());
+    // Only the METS document is cached while extracting all PAGE files.
+    PageExtractorUtil.extractAllTextRegions(METS_FILE.toFile(), "resourceId");
+    PageExtractorUtil.extractAllTextRegions(METS_FILE.toFile(), "resourceId");
+    assertEquals(1, instance.getNumberOfMisses());
+    assertEquals(2 + 1 + 1, instance.getNumberOfHits());
+    assertEquals(1, instance.size());
+    assertTrue(noOfPageUrls > 0);
+    String pageUrl = MetsDocumentUtil.extractPageUrls(METS_FILE, null).get(0);
+    PageExtractorUtil.extractTextRegions(METS_FILE.getParent(), pageUrl, "resourceId");
+    PageExtractorUtil.extractTextRegions(METS_FILE.getParent(), pageUrl, "resourceId");
+    assertEquals(2, instance.getNumberOfMisses());
+    assertEquals(2, instance.size());
+    // Parsing is recorded on cache misses only.
+    assertEquals(1, registry.find(ExtractionMetrics.METRIC_DURATION).tags(ExtractionMetrics.TAG_STAGE, ExtractionMetrics.STAGE_METS_PARSE).timer().count());
+    assertEquals(2 * noOfPageUrls + 1, registry.find(ExtractionMetrics.METRIC_DURATION).tags(ExtractionMetrics.TAG_STAGE, ExtractionMetrics.STAGE_PAGE_PARSE).timer().count());
+  }
+
+  private static String getFirstChild(final Document document) {
+    return ((Element) document.getRootElement().getChildren().get(0)).getName();
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.cache;
+
+import com.github.jscancella.domain.Bag;
+import com.github.jscancella.reader.BagReader;
+import edu.kit.ocrd.dao.MetsMetadata;
+import edu.kit.ocrd.workspace.PageExtractorUtil;
+import edu.kit.ocrd.workspace.XmlParserUtil;
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import edu.kit.ocrd.workspace.generator.WorkspaceGenerator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.jdom.Document;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for ExtractionCache.
+ */
+public class ExtractionCacheTest {
+
+  private static final int NO_OF_PAGES = 3;
+
+  private static final int NO_OF_FILE_GRPS = 3;
+
+  private Path tempDir;
+
+  public ExtractionCacheTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("extractionCacheTest_");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(tempDir.toFile());
+  }
+
+  /**
+   * Test of extractAllTextRegions method, of class ExtractionCache.
+   */
+  @Test
+  public void testExtractAllTextRegions() throws Exception {
+    System.out.println("extractAllTextRegions");
+    WorkspaceGenerator generator = new WorkspaceGenerator().withPages(NO_OF_PAGES).withFileGrps(NO_OF_FILE_GRPS).withRegions(2);
+    Bag first = BagReader.read(generator.generateBag(tempDir.resolve("first"), "id_1"));
+    Bag second = BagReader.read(generator.generateBag(tempDir.resolve("second"), "id_2"));
+    Path cacheDir = tempDir.resolve("cache");
+    ExtractionCache instance = new ExtractionCache(cacheDir, ExtractionCache.DEFAULT_MAX_ENTRIES);
+
+    List<TextRegion> result = extractAllTextRegions(instance, first, "id_1");
+    Path metsFile = first.getRootDir().resolve("data").resolve(WorkspaceGenerator.METS_FILE);
+    List<TextRegion> expected = PageExtractorUtil.extractAllTextRegions(metsFile.toFile(), "id_1");
+    assertTextRegionsEquals(expected, result);
+    assertEquals(NO_OF_PAGES * (NO_OF_FILE_GRPS - 1), instance.getNumberOfMisses());
+    assertEquals(0, instance.getNumberOfMemoryHits());
+
+    // Same content in other bag is not parsed again.
+    result = extractAllTextRegions(instance, second, "id_2");
+    assertEquals(NO_OF_PAGES * (NO_OF_FILE_GRPS - 1), instance.getNumberOfMisses());
+    assertEquals(NO_OF_PAGES * (NO_OF_FILE_GRPS - 1), instance.getNumberOfMemoryHits());
+    for (TextRegion textRegion : result) {
+      assertEquals("id_2", textRegion.getResourceId());
+    }
+
+    // New cache reads results from disk.
+    ExtractionCache diskCache = new ExtractionCache(cacheDir, ExtractionCache.DEFAULT_MAX_ENTRIES);
+    result = extractAllTextRegions(diskCache, second, "id_2");
+    assertEquals(0, diskCache.getNumberOfMisses());
+    assertEquals(NO_OF_PAGES * (NO_OF_FILE_GRPS - 1), diskCache.getNumberOfDiskHits());
+    expected = PageExtractorUtil.extractAllTextRegions(second.getRootDir().resolve("data").resolve(WorkspaceGenerator.METS_FILE).toFile(), "id_2");
+    assertTextRegionsEquals(expected, result);
+  }
+
+  /**
+   * Test of extractTextRegions method with modified file.
+   */
+  @Test
+  public void testExtractTextRegionsModifiedContent() throws Exception {
+    System.out.println("extractTextRegions modified content");
+    WorkspaceGenerator generator = new WorkspaceGenerator().withPages(1).withFileGrps(2).withRegions(2);
+    Bag first = BagReader.read(generator.generateBag(tempDir.resolve("first"), "id_1"));
+    Bag second = BagReader.read(generator.withRegions(3).generateBag(tempDir.resolve("second"), "id_2"));
+    ExtractionCache instance = new ExtractionCache(1);
+    String pageUrl = WorkspaceGenerator.getPageUrl(1, 1);
+    List<TextRegion> result = instance.extractTextRegions(ExtractionCache.getChecksums(first), first.getRootDir().resolve("data"), pageUrl, "id_1");
+    assertEquals(2, result.size());
+    result = instance.extractTextRegions(ExtractionCache.getChecksums(second), second.getRootDir().resolve("data"), pageUrl, "id_2");
+    assertEquals(3, result.size());
+    assertEquals(2, instance.getNumberOfMisses());
+    assertEquals(1, instance.size());
+    // File without checksum is not cached.
+    result = instance.extractTextRegions(ExtractionCache.getChecksums(first), second.getRootDir().resolve("data"), pageUrl, "id_2");
+    assertEquals(3, result.size());
+    assertEquals(2, instance.getNumberOfMisses());
+    assertEquals(0, instance.getNumberOfMemoryHits());
+  }
+
+  /**
+   * Test of getMetsMetadata method, of class ExtractionCache.
+   */
+  @Test
+  public void testGetMetsMetadata() throws Exception {
+    System.out.println("getMetsMetadata");
+    WorkspaceGenerator generator = new WorkspaceGenerator().withPages(2).withFileGrps(2);
+    Bag first = BagReader.read(generator.generateBag(tempDir.resolve("first"), "id_1"));
+    Bag second = BagReader.read(generator.generateBag(tempDir.resolve("second"), "id_2"));
+    Path cacheDir = tempDir.resolve("cache");
+    ExtractionCache instance = new ExtractionCache(cacheDir, 2);
+    MetsMetadata result = instance.getMetsMetadata(first, first.getRootDir().resolve("data").resolve(WorkspaceGenerator.METS_FILE));
+    assertEquals(WorkspaceGenerator.TITLE, result.getTitle());
+    assertSame(result, instance.getMetsMetadata(second, second.getRootDir().resolve("data").resolve(WorkspaceGenerator.METS_FILE)));
+    assertEquals(1, instance.getNumberOfMisses());
+
+    ExtractionCache diskCache = new ExtractionCache(cacheDir, 2);
+    MetsMetadata cached = diskCache.getMetsMetadata(second, second.getRootDir().resolve("data").resolve(WorkspaceGenerator.METS_FILE));
+    assertEquals(1, diskCache.getNumberOfDiskHits());
+    assertEquals(result.getTitle(), cached.getTitle());
+    assertEquals(result.getNoOfPages(), cached.getNoOfPages());
+    assertEquals(result.getModsIdentifier().size(), cached.getModsIdentifier().size());
+    assertEquals(result.getModsIdentifier().get(0).getIdentifier(), cached.getModsIdentifier().get(0).getIdentifier());
+  }
+
+  /**
+   * Test of constructor with invalid size.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSize() {
+    System.out.println("invalid size");
+    new ExtractionCache(0);
+  }
+
+  /**
+   * Test of getChecksums method, of class ExtractionCache.
+   */
+  @Test
+  public void testGetChecksums() throws Exception {
+    System.out.println("getChecksums");
+    Bag bag = BagReader.read(new WorkspaceGenerator().withPages(1).withFileGrps(2).generateBag(tempDir.resolve("bag"), "id"));
+    Map<Path, String> result = ExtractionCache.getChecksums(bag);
+    String checksum = result.get(bag.getRootDir().resolve("data").resolve(WorkspaceGenerator.METS_FILE).toAbsolutePath());
+    assertNotNull(checksum);
+    assertTrue(checksum.startsWith(ExtractionCache.PREFERRED_ALGORITHM + ":"));
+    assertEquals(ExtractionCache.PREFERRED_ALGORITHM.length() + 1 + 128, checksum.length());
+  }
+
+  private static List<TextRegion> extractAllTextRegions(final ExtractionCache cache, final Bag bag, final String resourceId) throws Exception {
+    Path basePath = bag.getRootDir().resolve("data");
+    Document metsDocument = XmlParserUtil.getDocument(basePath.resolve(WorkspaceGenerator.METS_FILE));
+    return cache.extractAllTextRegions(bag, metsDocument, basePath, resourceId);
+  }
+
+  private static void assertTextRegionsEquals(final List<TextRegion> expected, final List<TextRegion> result) {
+    assertEquals(expected.size(), result.size());
+    for (int index = 0; index < expected.size(); index++) {
+      assertEquals(expected.get(index).getResourceId(), result.get(index).getResourceId());
+      assertEquals(expected.get(index).getPageUrl(), result.get(index).getPageUrl());
+      assertEquals(expected.get(index).getImageUrl(), result.get(index).getImageUrl());
+      assertEquals(expected.get(index).getRegion(), result.get(index).getRegion());
+      assertEquals(expected.get(index).getOrder(), result.get(index).getOrder());
+      assertEquals(expected.get(index).getConfidence(), result.get(index).getConfidence(), 0.0f);
+      assertEquals(expected.get(index).getText(), result.get(index).getText());
+    }
+  }
+}
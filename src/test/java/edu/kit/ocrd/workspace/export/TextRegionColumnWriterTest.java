@@ -0,0 +1,165 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.export;
+
+import edu.kit.ocrd.workspace.PageExtractorUtil;
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import java.io.File;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for TextRegionColumnWriter and TextRegionColumnReader.
+ */
+public class TextRegionColumnWriterTest {
+
+  private Path file;
+
+  public TextRegionColumnWriterTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    file = Files.createTempFile("textRegions_", ".bin");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  private static List<TextRegion> createTextRegions(int noOfRegions) {
+    List<TextRegion> textRegions = new ArrayList<>();
+    for (int index = 0; index < noOfRegions; index++) {
+      TextRegion textRegion = new TextRegion();
+      textRegion.setResourceId("resource_" + (index / 10));
+      textRegion.setPageUrl("OCR-D-OCR/page_" + (index / 5) + ".xml");
+      textRegion.setImageUrl("OCR-D-IMG/page_" + (index / 5) + ".jpg");
+      textRegion.setRegion("region" + index);
+      textRegion.setOrder(index % 5);
+      textRegion.setConfidence(index / (float) noOfRegions);
+      textRegion.setText("Größe ſein " + index);
+      if (index % 2 == 0) {
+        textRegion.setPoints(new int[]{index, 10, index + 100, 10, index + 100, 50});
+      }
+      textRegions.add(textRegion);
+    }
+    return textRegions;
+  }
+
+  /**
+   * Test writing and reading all columns.
+   */
+  @Test
+  public void testWriteAndReadAll() throws IOException {
+    System.out.println("writeAll/readAll");
+    List<TextRegion> expResult = createTextRegions(25);
+    try (TextRegionColumnWriter writer = new TextRegionColumnWriter(file, 10)) {
+      writer.writeAll(expResult);
+    }
+    try (TextRegionColumnReader reader = new TextRegionColumnReader(file)) {
+      assertEquals(3, reader.getNumberOfBlocks());
+      assertEquals(25, reader.getNumberOfRegions());
+      List<TextRegion> result = reader.readAll();
+      assertEquals(expResult.size(), result.size());
+      for (int index = 0; index < result.size(); index++) {
+        assertEquals(expResult.get(index).toString(), result.get(index).toString());
+        assertArrayEquals(expResult.get(index).getPoints(), result.get(index).getPoints());
+        assertEquals(expResult.get(index).getMaxX(), result.get(index).getMaxX());
+      }
+    }
+  }
+
+  /**
+   * Test scanning single columns.
+   */
+  @Test
+  public void testScanColumns() throws IOException {
+    System.out.println("scanColumns");
+    try (TextRegionColumnWriter writer = new TextRegionColumnWriter(file, 8)) {
+      writer.writeAll(createTextRegions(20));
+    }
+    try (TextRegionColumnReader reader = new TextRegionColumnReader(file)) {
+      double sum = 0;
+      int[] noOfTexts = {0};
+      for (int block = 0; block < reader.getNumberOfBlocks(); block++) {
+        TextRegionColumnReader.ColumnBlock columnBlock = reader.getBlock(block);
+        FloatBuffer confidences = columnBlock.getConfidences();
+        assertEquals(columnBlock.getRowCount(), confidences.remaining());
+        while (confidences.hasRemaining()) {
+          sum += confidences.get();
+        }
+        columnBlock.scanTexts(text -> {
+          assertTrue(text.remaining() > 0);
+          noOfTexts[0]++;
+        });
+      }
+      assertEquals(190 / 20.0, sum, 0.0001);
+      assertEquals(20, noOfTexts[0]);
+      TextRegionColumnReader.ColumnBlock lastBlock = reader.getBlock(2);
+      assertEquals(4, lastBlock.getRowCount());
+      assertEquals("resource_1", lastBlock.getResourceId(0));
+      assertEquals("OCR-D-IMG/page_3.jpg", lastBlock.getImageUrl(3));
+      assertEquals(2, lastBlock.getOrders().get(1));
+    }
+  }
+
+  /**
+   * Test export of extracted text regions.
+   */
+  @Test
+  public void testExportExtractedTextRegions() throws Exception {
+    System.out.println("export extracted text regions");
+    File metsFile = new File("src/test/resources/text/mets.xml");
+    List<TextRegion> expResult = PageExtractorUtil.extractAllTextRegions(metsFile, "resourceId");
+    try (TextRegionColumnWriter writer = new TextRegionColumnWriter(file)) {
+      writer.writeAll(expResult);
+    }
+    try (TextRegionColumnReader reader = new TextRegionColumnReader(file)) {
+      List<TextRegion> result = reader.readAll();
+      assertEquals(53, result.size());
+      assertEquals(expResult.get(52).getText(), result.get(52).getText());
+    }
+  }
+
+  /**
+   * Test reading invalid file.
+   */
+  @Test(expected = IOException.class)
+  public void testReadInvalidFile() throws IOException {
+    System.out.println("read invalid file");
+    Files.write(file, new byte[32]);
+    new TextRegionColumnReader(file).close();
+  }
+}
@@ -0,0 +1,659 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.generator;
+
+import edu.kit.ocrd.workspace.BagItUtil;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Generator for synthetic OCR-D workspaces of configurable size.
+ * <p>
+ * A workspace contains
+ * <ul>
+ * <li>a METS file with one MODS dmdSec, one GT dmdSec per page (optional),
+ * the file section and the physical structMap</li>
+ * <li>one image fileGrp 'OCR-D-IMG' followed by (noOfFileGrps - 1) fileGrps
+ * holding one PAGE file per page with noOfRegions text regions each</li>
+ * <li>a provenance document 'metadata/ocrd_provenance.xml' describing one
+ * workflow of noOfProcessors processors. Processor i reads fileGrp i and
+ * writes fileGrp i + 1 (modulo number of PAGE fileGrps).</li>
+ * </ul>
+ * Files are written sequentially without building any DOM so that
+ * workspaces with 100k pages can be generated.
+ */
+public class WorkspaceGenerator {
+
+  /**
+   * Name of METS file.
+   */
+  public static final String METS_FILE = "mets.xml";
+  /**
+   * Name of the metadata directory.
+   */
+  public static final String METADATA_DIR = "metadata";
+  /**
+   * Name of provenance file.
+   */
+  public static final String PROVENANCE_FILE = "ocrd_provenance.xml";
+  /**
+   * USE of the image fileGrp.
+   */
+  public static final String IMAGE_FILE_GRP = "OCR-D-IMG";
+  /**
+   * Prefix of USE of the PAGE fileGrps.
+   */
+  public static final String PAGE_FILE_GRP_PREFIX = "OCR-D-GEN-";
+  /**
+   * Namespace of PAGE files.
+   */
+  public static final String PAGE_NAMESPACE = "http://schema.primaresearch.org/PAGE/gts/pagecontent/2019-07-15";
+  /**
+   * Title of generated documents.
+   */
+  public static final String TITLE = "Synthetic OCR-D workspace";
+  /**
+   * Ground truth features assigned to the pages in turn.
+   */
+  static final String[] GT_FEATURES = {
+    "granularity/physical/document-related/region",
+    "granularity/physical/document-related/text-line",
+    "granularity/physical/document-related/word",
+    "condition/production-related/document-characteristics/low-contrast"
+  };
+  /**
+   * Words used for the generated texts.
+   */
+  private static final String[] WORDS = {"Grundriss", "der", "Psychologie", "Wundt", "Leipzig", "Engelmann", "Seite", "Text"};
+  /**
+   * Number of words per region.
+   */
+  private static final int WORDS_PER_REGION = 4;
+  /**
+   * Start time of the generated workflow (2020-01-01T00:00:00Z).
+   */
+  private static final long START_TIME = 1577836800000L;
+  /**
+   * Formatter for times inside provenance.
+   */
+  private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+  /**
+   * Number of pages.
+   */
+  private int noOfPages = 10;
+  /**
+   * Number of fileGrps including image fileGrp.
+   */
+  private int noOfFileGrps = 3;
+  /**
+   * Number of regions per PAGE file.
+   */
+  private int noOfRegions = 5;
+  /**
+   * Number of processors inside provenance.
+   */
+  private int noOfProcessors = 2;
+  /**
+   * Add GT dmdSecs?
+   */
+  private boolean groundTruth = true;
+
+  /**
+   * Set number of pages.
+   *
+   * @param noOfPages Number of pages.
+   * @return Generator.
+   */
+  public WorkspaceGenerator withPages(final int noOfPages) {
+    this.noOfPages = checkPositive(noOfPages, "pages");
+    return this;
+  }
+
+  /**
+   * Set number of fileGrps including the image fileGrp.
+   *
+   * @param noOfFileGrps Number of fileGrps (at least 2).
+   * @return Generator.
+   */
+  public WorkspaceGenerator withFileGrps(final int noOfFileGrps) {
+    if (noOfFileGrps < 2) {
+      throw new IllegalArgumentException("At least 2 fileGrps are required!");
+    }
+    this.noOfFileGrps = noOfFileGrps;
+    return this;
+  }
+
+  /**
+   * Set number of regions per PAGE file.
+   *
+   * @param noOfRegions Number of regions.
+   * @return Generator.
+   */
+  public WorkspaceGenerator withRegions(final int noOfRegions) {
+    this.noOfRegions = checkPositive(noOfRegions, "regions");
+    return this;
+  }
+
+  /**
+   * Set number of processors of the workflow.
+   *
+   * @param noOfProcessors Number of processors.
+   * @return Generator.
+   */
+  public WorkspaceGenerator withProcessors(final int noOfProcessors) {
+    this.noOfProcessors = checkPositive(noOfProcessors, "processors");
+    return this;
+  }
+
+  /**
+   * Add GT dmdSecs for all pages.
+   *
+   * @param groundTruth Add GT dmdSecs?
+   * @return Generator.
+   */
+  public WorkspaceGenerator withGroundTruth(final boolean groundTruth) {
+    this.groundTruth = groundTruth;
+    return this;
+  }
+
+  /**
+   * Get number of pages.
+   *
+   * @return Number of pages.
+   */
+  public int getNoOfPages() {
+    return noOfPages;
+  }
+
+  /**
+   * Get number of fileGrps including the image fileGrp.
+   *
+   * @return Number of fileGrps.
+   */
+  public int getNoOfFileGrps() {
+    return noOfFileGrps;
+  }
+
+  /**
+   * Get number of regions per PAGE file.
+   *
+   * @return Number of regions.
+   */
+  public int getNoOfRegions() {
+    return noOfRegions;
+  }
+
+  /**
+   * Get number of processors of the workflow.
+   *
+   * @return Number of processors.
+   */
+  public int getNoOfProcessors() {
+    return noOfProcessors;
+  }
+
+  /**
+   * Get USE of PAGE fileGrp.
+   *
+   * @param index Index of fileGrp (1 to noOfFileGrps - 1).
+   * @return USE of fileGrp.
+   */
+  public static String getPageFileGrp(final int index) {
+    return PAGE_FILE_GRP_PREFIX + index;
+  }
+
+  /**
+   * Get 'URL' of PAGE file (relative to workspace).
+   *
+   * @param fileGrp Index of fileGrp (1 to noOfFileGrps - 1).
+   * @param page Page (starting with 1).
+   * @return Relative path of PAGE file.
+   */
+  public static String getPageUrl(final int fileGrp, final int page) {
+    String use = getPageFileGrp(fileGrp);
+    return use + "/" + use + "_" + pad(page) + ".xml";
+  }
+
+  /**
+   * Generate workspace. The METS file and all fileGrps are written to the
+   * workspace directory, the provenance to 'metadata' inside metadata
+   * directory.
+   *
+   * @param workspaceDir Directory of workspace (payload).
+   * @param metadataDir Parent directory of 'metadata' directory.
+   * @return METS file.
+   * @throws IOException Error writing files.
+   */
+  public Path generate(final Path workspaceDir, final Path metadataDir) throws IOException {
+    Files.createDirectories(workspaceDir);
+    writeImages(workspaceDir);
+    for (int fileGrp = 1; fileGrp < noOfFileGrps; fileGrp++) {
+      Files.createDirectories(workspaceDir.resolve(getPageFileGrp(fileGrp)));
+      for (int page = 1; page <= noOfPages; page++) {
+        writePage(workspaceDir.resolve(getPageUrl(fileGrp, page)), fileGrp, page);
+      }
+    }
+    Path provenanceDir = metadataDir.resolve(METADATA_DIR);
+    Files.createDirectories(provenanceDir);
+    writeProvenance(provenanceDir.resolve(PROVENANCE_FILE));
+    Path metsFile = workspaceDir.resolve(METS_FILE);
+    writeMets(metsFile);
+    return metsFile;
+  }
+
+  /**
+   * Generate workspace and pack it as bag.
+   *
+   * @param bagDir Directory of bag (has to be empty or non existent).
+   * @param ocrdIdentifier OCR-D identifier of bag.
+   * @return Directory of bag.
+   * @throws IOException Error writing files.
+   */
+  public Path generateBag(final Path bagDir, final String ocrdIdentifier) throws IOException {
+    Path tempDir = Files.createTempDirectory("workspaceGenerator_");
+    try {
+      generate(bagDir, tempDir);
+      BagItUtil.buildBag(bagDir.toFile(), tempDir.resolve(METADATA_DIR).toFile(), ocrdIdentifier);
+    } finally {
+      FileUtils.deleteDirectory(tempDir.toFile());
+    }
+    return bagDir;
+  }
+
+  /**
+   * Generate workspace, pack it as bag and zip it.
+   *
+   * @param zipFile Zip file.
+   * @param ocrdIdentifier OCR-D identifier of bag.
+   * @return Zip file.
+   * @throws IOException Error writing files.
+   */
+  public Path generateZip(final Path zipFile, final String ocrdIdentifier) throws IOException {
+    Path tempDir = Files.createTempDirectory("workspaceGenerator_");
+    try {
+      Path bagDir = generateBag(tempDir.resolve("bag"), ocrdIdentifier);
+      zip(bagDir, zipFile);
+    } finally {
+      FileUtils.deleteDirectory(tempDir.toFile());
+    }
+    return zipFile;
+  }
+
+  /**
+   * Write placeholder images.
+   *
+   * @param workspaceDir Directory of workspace.
+   * @throws IOException Error writing files.
+   */
+  private void writeImages(final Path workspaceDir) throws IOException {
+    Path imageDir = workspaceDir.resolve(IMAGE_FILE_GRP);
+    Files.createDirectories(imageDir);
+    for (int page = 1; page <= noOfPages; page++) {
+      Files.write(imageDir.resolve(getImageFileName(page)), ("image " + page).getBytes(StandardCharsets.US_ASCII));
+    }
+  }
+
+  /**
+   * Write PAGE file.
+   *
+   * @param pageFile PAGE file.
+   * @param fileGrp Index of fileGrp.
+   * @param page Page number.
+   * @throws IOException Error writing file.
+   */
+  private void writePage(final Path pageFile, final int fileGrp, final int page) throws IOException {
+    try (Writer writer = newWriter(pageFile)) {
+      writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+      writer.write("<pc:PcGts xmlns:pc=\"" + PAGE_NAMESPACE + "\" pcGtsId=\"" + getPageFileGrp(fileGrp) + "_" + pad(page) + "\">\n");
+      writer.write("  <pc:Metadata>\n    <pc:Creator>WorkspaceGenerator</pc:Creator>\n"
+              + "    <pc:Created>2020-01-01T00:00:00</pc:Created>\n    <pc:LastChange>2020-01-01T00:00:00</pc:LastChange>\n  </pc:Metadata>\n");
+      writer.write("  <pc:Page imageFilename=\"" + IMAGE_FILE_GRP + "/" + getImageFileName(page) + "\" imageWidth=\"2000\" imageHeight=\"" + (100 * noOfRegions + 100) + "\">\n");
+      writer.write("    <pc:ReadingOrder>\n      <pc:OrderedGroup id=\"ro_" + page + "\">\n");
+      for (int region = 0; region < noOfRegions; region++) {
+        writer.write("        <pc:RegionRefIndexed index=\"" + region + "\" regionRef=\"" + getRegionId(region) + "\"/>\n");
+      }
+      writer.write("      </pc:OrderedGroup>\n    </pc:ReadingOrder>\n");
+      for (int region = 0; region < noOfRegions; region++) {
+        int top = 50 + region * 100;
+        String regionText = getText(fileGrp, page, region);
+        String regionConfidence = getConfidence(page, region, 0);
+        writer.write("    <pc:TextRegion id=\"" + getRegionId(region) + "\" type=\"paragraph\">\n");
+        writer.write("      <pc:Coords points=\"" + coords(100, top, 1900, top + 80) + "\"/>\n");
+        writer.write("      <pc:TextLine id=\"" + getRegionId(region) + "_line0\">\n");
+        writer.write("        <pc:Coords points=\"" + coords(100, top, 1900, top + 80) + "\"/>\n");
+        String[] words = regionText.split(" ");
+        int wordWidth = 1800 / words.length;
+        for (int word = 0; word < words.length; word++) {
+          int left = 100 + word * wordWidth;
+          writer.write("        <pc:Word id=\"" + getRegionId(region) + "_line0_word" + word + "\">\n");
+          writer.write("          <pc:Coords points=\"" + coords(left, top, left + wordWidth - 10, top + 80) + "\"/>\n");
+          writer.write("          <pc:TextEquiv conf=\"" + getConfidence(page, region, word + 1) + "\">\n");
+          writer.write("            <pc:Unicode>" + words[word] + "</pc:Unicode>\n          </pc:TextEquiv>\n");
+          writer.write("        </pc:Word>\n");
+        }
+        writer.write("        <pc:TextEquiv conf=\"" + regionConfidence + "\">\n          <pc:Unicode>" + regionText + "</pc:Unicode>\n        </pc:TextEquiv>\n");
+        writer.write("      </pc:TextLine>\n");
+        writer.write("      <pc:TextEquiv conf=\"" + regionConfidence + "\">\n        <pc:Unicode>" + regionText + "</pc:Unicode>\n      </pc:TextEquiv>\n");
+        writer.write("    </pc:TextRegion>\n");
+      }
+      writer.write("  </pc:Page>\n</pc:PcGts>\n");
+    }
+  }
+
+  /**
+   * Write METS file.
+   *
+   * @param metsFile METS file.
+   * @throws IOException Error writing file.
+   */
+  private void writeMets(final Path metsFile) throws IOException {
+    try (Writer writer = newWriter(metsFile)) {
+      writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+      writer.write("<mets:mets xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:mets=\"http://www.loc.gov/METS/\""
+              + " xsi:schemaLocation=\"http://www.loc.gov/METS/ http://www.loc.gov/standards/mets/version18/mets.xsd\">\n");
+      writer.write("  <mets:metsHdr CREATEDATE=\"2020-01-01T00:00:00.000+01:00\">\n"
+              + "    <mets:agent OTHERTYPE=\"SOFTWARE\" ROLE=\"CREATOR\" TYPE=\"OTHER\">\n      <mets:name>WorkspaceGenerator</mets:name>\n    </mets:agent>\n"
+              + "  </mets:metsHdr>\n");
+      writer.write("  <mets:dmdSec ID=\"dmdSec_0001\">\n    <mets:mdWrap MDTYPE=\"MODS\">\n      <mets:xmlData>\n"
+              + "        <mods:mods xmlns:mods=\"http://www.loc.gov/mods/v3\">\n"
+              + "          <mods:originInfo>\n            <mods:place>\n              <mods:placeTerm type=\"text\">Karlsruhe</mods:placeTerm>\n            </mods:place>\n"
+              + "            <mods:dateIssued encoding=\"w3cdtf\" keyDate=\"yes\">2020</mods:dateIssued>\n"
+              + "            <mods:publisher>KIT</mods:publisher>\n          </mods:originInfo>\n"
+              + "          <mods:classification authority=\"DTA\">Fachtext</mods:classification>\n"
+              + "          <mods:identifier type=\"purl\">http://example.org/synthetic_" + noOfPages + "</mods:identifier>\n"
+              + "          <mods:titleInfo>\n            <mods:title>" + TITLE + "</mods:title>\n            <mods:subTitle/>\n          </mods:titleInfo>\n"
+              + "          <mods:language>\n            <mods:languageTerm authority=\"iso639-2b\" type=\"code\">deu</mods:languageTerm>\n          </mods:language>\n"
+              + "          <mods:name type=\"personal\">\n            <mods:role>\n              <mods:roleTerm authority=\"marcrelator\" type=\"code\">aut</mods:roleTerm>\n            </mods:role>\n"
+              + "            <mods:displayForm>Workspace Generator</mods:displayForm>\n          </mods:name>\n"
+              + "          <mods:physicalDescription>\n            <mods:extent>" + noOfPages + " S.</mods:extent>\n          </mods:physicalDescription>\n"
+              + "          <mods:typeOfResource>text</mods:typeOfResource>\n"
+              + "        </mods:mods>\n      </mets:xmlData>\n    </mets:mdWrap>\n  </mets:dmdSec>\n");
+      if (groundTruth) {
+        for (int page = 1; page <= noOfPages; page++) {
+          writer.write("  <mets:dmdSec ID=\"DMGT_" + pad(page) + "\">\n    <mets:mdWrap MDTYPE=\"OTHER\" OTHERMDTYPE=\"GT\">\n      <mets:xmlData>\n"
+                  + "        <gt:gt xmlns:gt=\"http://www.ocr-d.de/GT/\">\n"
+                  + "          <gt:state prop=\"" + GT_FEATURES[(page - 1) % GT_FEATURES.length] + "\"/>\n"
+                  + "        </gt:gt>\n      </mets:xmlData>\n    </mets:mdWrap>\n  </mets:dmdSec>\n");
+        }
+      }
+      writer.write("  <mets:amdSec ID=\"amdSec_0001\"/>\n");
+      writer.write("  <mets:fileSec>\n");
+      writer.write("    <mets:fileGrp USE=\"" + IMAGE_FILE_GRP + "\">\n");
+      for (int page = 1; page <= noOfPages; page++) {
+        writer.write("      <mets:file MIMETYPE=\"image/tiff\" ID=\"" + IMAGE_FILE_GRP + "_" + pad(page) + "\">\n"
+                + "        <mets:FLocat LOCTYPE=\"OTHER\" OTHERLOCTYPE=\"FILE\" xlink:href=\"" + IMAGE_FILE_GRP + "/" + getImageFileName(page) + "\"/>\n"
+                + "      </mets:file>\n");
+      }
+      writer.write("    </mets:fileGrp>\n");
+      for (int fileGrp = 1; fileGrp < noOfFileGrps; fileGrp++) {
+        writer.write("    <mets:fileGrp USE=\"" + getPageFileGrp(fileGrp) + "\">\n");
+        for (int page = 1; page <= noOfPages; page++) {
+          writer.write("      <mets:file MIMETYPE=\"application/vnd.prima.page+xml\" ID=\"" + getPageFileGrp(fileGrp) + "_" + pad(page) + "\">\n"
+                  + "        <mets:FLocat LOCTYPE=\"OTHER\" OTHERLOCTYPE=\"FILE\" xlink:href=\"" + getPageUrl(fileGrp, page) + "\"/>\n"
+                  + "      </mets:file>\n");
+        }
+        writer.write("    </mets:fileGrp>\n");
+      }
+      writer.write("  </mets:fileSec>\n");
+      writer.write("  <mets:structMap TYPE=\"LOGICAL\">\n    <mets:div TYPE=\"Monograph\" DMDID=\"dmdSec_0001\" ADMID=\"amdSec_0001\" ID=\"loc_0001\">\n"
+              + "      <mets:div ID=\"loc_chapter_0001\" TYPE=\"Chapter\" LABEL=\"Chapter 1\"/>\n    </mets:div>\n  </mets:structMap>\n");
+      writer.write("  <mets:structMap TYPE=\"PHYSICAL\">\n    <mets:div TYPE=\"physSequence\" ID=\"physroot\">\n");
+      for (int page = 1; page <= noOfPages; page++) {
+        writer.write("      <mets:div ID=\"phys_" + pad(page) + "\" TYPE=\"page\"" + (groundTruth ? " DMDID=\"DMGT_" + pad(page) + "\"" : "") + " ORDER=\"" + page + "\">\n");
+        writer.write("        <mets:fptr FILEID=\"" + IMAGE_FILE_GRP + "_" + pad(page) + "\"/>\n");
+        for (int fileGrp = 1; fileGrp < noOfFileGrps; fileGrp++) {
+          writer.write("        <mets:fptr FILEID=\"" + getPageFileGrp(fileGrp) + "_" + pad(page) + "\"/>\n");
+        }
+        writer.write("      </mets:div>\n");
+      }
+      writer.write("    </mets:div>\n  </mets:structMap>\n");
+      writer.write("  <mets:structLink>\n");
+      for (int page = 1; page <= noOfPages; page++) {
+        writer.write("    <mets:smLink xlink:from=\"loc_chapter_0001\" xlink:to=\"phys_" + pad(page) + "\"/>\n");
+      }
+      writer.write("  </mets:structLink>\n</mets:mets>\n");
+    }
+  }
+
+  /**
+   * Write provenance document.
+   *
+   * @param provenanceFile Provenance file.
+   * @throws IOException Error writing file.
+   */
+  private void writeProvenance(final Path provenanceFile) throws IOException {
+    String workflowId = "ocrd:workflow__synthetic";
+    try (Writer writer = newWriter(provenanceFile)) {
+      writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+      writer.write("<prov:document xmlns:prov=\"http://www.w3.org/ns/prov#\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\""
+              + " xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\" xmlns:ocrd=\"http://www.ocr-d.de\">\n");
+      for (int fileGrp = 0; fileGrp < noOfFileGrps; fileGrp++) {
+        writer.write("    <prov:entity prov:id=\"" + getFileGrpEntityId(fileGrp) + "\">\n"
+                + "        <prov:type xsi:type=\"xsd:QName\">ocrd:mets__referencedFileGroup</prov:type>\n"
+                + "        <prov:value xsi:type=\"xsd:string\">" + getFileGrp(fileGrp) + "</prov:value>\n    </prov:entity>\n");
+      }
+      for (int processor = 0; processor < noOfProcessors; processor++) {
+        writer.write("    <prov:entity prov:id=\"ocrd:parameterFile__" + processor + "\">\n"
+                + "        <prov:type xsi:type=\"xsd:QName\">ocrd:parameter__file</prov:type>\n"
+                + "        <prov:value xsi:type=\"xsd:string\">{\"processor\": " + processor + "}</prov:value>\n    </prov:entity>\n");
+      }
+      long processorTime = START_TIME;
+      for (int processor = 0; processor < noOfProcessors; processor++) {
+        long duration = 1000L * (processor + 1);
+        writer.write("    <prov:activity prov:id=\"" + getProcessorId(processor) + "\">\n"
+                + "        <prov:startTime>" + formatTime(processorTime) + "</prov:startTime>\n"
+                + "        <prov:endTime>" + formatTime(processorTime + duration) + "</prov:endTime>\n"
+                + "        <prov:label>ocrd-synthetic-processor-" + processor + "_Version 1.0.0</prov:label>\n"
+                + "        <prov:type xsi:type=\"xsd:QName\">ocrd:processor</prov:type>\n    </prov:activity>\n");
+        processorTime += duration;
+      }
+      writer.write("    <prov:activity prov:id=\"" + workflowId + "\">\n"
+              + "        <prov:startTime>" + formatTime(START_TIME) + "</prov:startTime>\n"
+              + "        <prov:endTime>" + formatTime(processorTime) + "</prov:endTime>\n"
+              + "        <prov:label>workflow-synthetic</prov:label>\n"
+              + "        <prov:type xsi:type=\"xsd:QName\">ocrd:workflow</prov:type>\n    </prov:activity>\n");
+      for (int processor = 0; processor < noOfProcessors; processor++) {
+        int output = processor % (noOfFileGrps - 1) + 1;
+        writer.write("    <prov:used>\n        <prov:activity prov:ref=\"" + getProcessorId(processor) + "\"/>\n"
+                + "        <prov:entity prov:ref=\"" + getFileGrpEntityId(output - 1) + "\"/>\n    </prov:used>\n");
+        writer.write("    <prov:used>\n        <prov:activity prov:ref=\"" + getProcessorId(processor) + "\"/>\n"
+                + "        <prov:entity prov:ref=\"ocrd:parameterFile__" + processor + "\"/>\n    </prov:used>\n");
+        writer.write("    <prov:wasGeneratedBy>\n        <prov:entity prov:ref=\"" + getFileGrpEntityId(output) + "\"/>\n"
+                + "        <prov:activity prov:ref=\"" + getProcessorId(processor) + "\"/>\n    </prov:wasGeneratedBy>\n");
+        writer.write("    <prov:wasStartedBy prov:id=\"ocrd:taverna__" + workflowId.substring("ocrd:".length()) + "\">\n"
+                + "        <prov:activity prov:ref=\"" + workflowId + "\"/>\n"
+                + "        <prov:trigger prov:ref=\"" + getProcessorId(processor) + "\"/>\n    </prov:wasStartedBy>\n");
+      }
+      writer.write("</prov:document>\n");
+    }
+  }
+
+  /**
+   * Zip directory.
+   *
+   * @param directory Directory.
+   * @param zipFile Zip file.
+   * @throws IOException Error writing zip file.
+   */
+  private static void zip(final Path directory, final Path zipFile) throws IOException {
+    try (OutputStream outputStream = Files.newOutputStream(zipFile);
+            ZipOutputStream zipStream = new ZipOutputStream(outputStream)) {
+      Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+          zipStream.putNextEntry(new ZipEntry(directory.relativize(file).toString().replace('\\', '/')));
+          Files.copy(file, zipStream);
+          zipStream.closeEntry();
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    }
+  }
+
+  /**
+   * Get USE of fileGrp.
+   *
+   * @param fileGrp Index of fileGrp (0 is image fileGrp).
+   * @return USE of fileGrp.
+   */
+  private static String getFileGrp(final int fileGrp) {
+    return fileGrp == 0 ? IMAGE_FILE_GRP : getPageFileGrp(fileGrp);
+  }
+
+  /**
+   * Get ID of provenance entity of fileGrp.
+   *
+   * @param fileGrp Index of fileGrp.
+   * @return ID of entity.
+   */
+  private static String getFileGrpEntityId(final int fileGrp) {
+    return "ocrd:fileGrp__" + getFileGrp(fileGrp).replace("-", "__");
+  }
+
+  /**
+   * Get ID of processor activity.
+   *
+   * @param processor Index of processor.
+   * @return ID of activity.
+   */
+  private static String getProcessorId(final int processor) {
+    return "ocrd:processor__synthetic__" + processor;
+  }
+
+  /**
+   * Get file name of image.
+   *
+   * @param page Page number.
+   * @return File name.
+   */
+  private static String getImageFileName(final int page) {
+    return IMAGE_FILE_GRP + "_" + pad(page) + ".tif";
+  }
+
+  /**
+   * Get ID of region.
+   *
+   * @param region Index of region.
+   * @return ID of region.
+   */
+  private static String getRegionId(final int region) {
+    return "region" + pad(region);
+  }
+
+  /**
+   * Get text of region.
+   *
+   * @param fileGrp Index of fileGrp.
+   * @param page Page number.
+   * @param region Index of region.
+   * @return Text of region.
+   */
+  static String getText(final int fileGrp, final int page, final int region) {
+    StringBuilder text = new StringBuilder();
+    for (int word = 0; word < WORDS_PER_REGION; word++) {
+      if (word > 0) {
+        text.append(' ');
+      }
+      text.append(WORDS[(fileGrp + page + region + word) % WORDS.length]);
+    }
+    return text.toString();
+  }
+
+  /**
+   * Get deterministic confidence between 0.5 and 0.99.
+   *
+   * @param page Page number.
+   * @param region Index of region.
+   * @param element Index of element inside region.
+   * @return Confidence as string.
+   */
+  private static String getConfidence(final int page, final int region, final int element) {
+    int hash = (page * 31 + region) * 31 + element;
+    return String.format(Locale.ROOT, "%.2f", 0.5 + (Math.floorMod(hash * 2654435761L, 50L)) / 100.0);
+  }
+
+  /**
+   * Format points of rectangle.
+   *
+   * @param left Left.
+   * @param top Top.
+   * @param right Right.
+   * @param bottom Bottom.
+   * @return Points.
+   */
+  private static String coords(final int left, final int top, final int right, final int bottom) {
+    return left + "," + top + " " + right + "," + top + " " + right + "," + bottom + " " + left + "," + bottom;
+  }
+
+  /**
+   * Format time as ISO date.
+   *
+   * @param time Time in milliseconds.
+   * @return Formatted time.
+   */
+  private static String formatTime(final long time) {
+    return TIME_FORMATTER.format(Instant.ofEpochMilli(time));
+  }
+
+  /**
+   * Pad number with zeros.
+   *
+   * @param number Number.
+   * @return Number with at least 4 digits.
+   */
+  private static String pad(final int number) {
+    return String.format("%04d", number);
+  }
+
+  /**
+   * Create buffered UTF-8 writer.
+   *
+   * @param file File.
+   * @return Writer.
+   * @throws IOException Error creating file.
+   */
+  private static Writer newWriter(final Path file) throws IOException {
+    return Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Check if value is positive.
+   *
+   * @param value Value.
+   * @param name Name of value.
+   * @return Value.
+   */
+  private static int checkPositive(final int value, final String name) {
+    if (value < 1) {
+      throw new IllegalArgumentException("Number of " + name + " has to be positive!");
+    }
+    return value;
+  }
+}
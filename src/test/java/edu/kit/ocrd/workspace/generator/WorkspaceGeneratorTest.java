@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.generator;
+
+import edu.kit.ocrd.workspace.MetsDocumentUtil;
+import edu.kit.ocrd.workspace.PageExtractorUtil;
+import edu.kit.ocrd.workspace.XmlParserUtil;
+import edu.kit.ocrd.workspace.entity.MetsFile;
+import edu.kit.ocrd.workspace.entity.PageMetadata;
+import edu.kit.ocrd.workspace.entity.ProvenanceMetadata;
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import edu.kit.ocrd.workspace.provenance.ProvenanceUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipFile;
+import org.apache.commons.io.FileUtils;
+import org.jdom.Document;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for WorkspaceGenerator.
+ */
+public class WorkspaceGeneratorTest {
+
+  private Path tempDir;
+
+  public WorkspaceGeneratorTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("workspaceGeneratorTest_");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(tempDir.toFile());
+  }
+
+  /**
+   * Test of generate method, of class WorkspaceGenerator.
+   */
+  @Test
+  public void testGenerate() throws Exception {
+    System.out.println("generate");
+    WorkspaceGenerator instance = new WorkspaceGenerator().withPages(7).withFileGrps(4).withRegions(3).withProcessors(5);
+    Path metsFile = instance.generate(tempDir.resolve("data"), tempDir);
+    Document metsDocument = XmlParserUtil.getDocument(metsFile);
+    List<MetsFile> metsFiles = MetsDocumentUtil.extractMetsFiles(metsDocument, "resourceId", 1);
+    assertEquals(7 * 4, metsFiles.size());
+    assertEquals("phys_0007", metsFiles.get(6).getPageId());
+    assertEquals(7 * 3, MetsDocumentUtil.extractPageUrls(metsDocument).size());
+    List<PageMetadata> features = MetsDocumentUtil.extractGroundTruthFeaturesFromMets(metsDocument, "resourceId");
+    assertEquals(7, features.size());
+    List<TextRegion> textRegions = PageExtractorUtil.extractAllTextRegions(metsFile.toFile(), "resourceId");
+    assertEquals(7 * 3 * 3, textRegions.size());
+    assertEquals(WorkspaceGenerator.getText(1, 1, 2), textRegions.get(2).getText());
+    assertEquals(Integer.valueOf(2), textRegions.get(2).getOrder());
+    Path provenanceFile = tempDir.resolve(WorkspaceGenerator.METADATA_DIR).resolve(WorkspaceGenerator.PROVENANCE_FILE);
+    List<ProvenanceMetadata> workflows = ProvenanceUtil.extractWorkflows(XmlParserUtil.getDocument(provenanceFile), metsDocument, "resourceId");
+    assertEquals(5, workflows.size());
+    assertEquals(Long.valueOf(15), workflows.get(0).getDurationWorkflow());
+  }
+
+  /**
+   * Test of generate method without ground truth.
+   */
+  @Test
+  public void testGenerateWithoutGroundTruth() throws Exception {
+    System.out.println("generate without ground truth");
+    WorkspaceGenerator instance = new WorkspaceGenerator().withPages(3).withGroundTruth(false);
+    Path metsFile = instance.generate(tempDir.resolve("data"), tempDir);
+    Document metsDocument = XmlParserUtil.getDocument(metsFile);
+    assertTrue(MetsDocumentUtil.extractGroundTruthFeaturesFromMets(metsDocument, "resourceId").isEmpty());
+  }
+
+  /**
+   * Test of generateZip method, of class WorkspaceGenerator.
+   */
+  @Test
+  public void testGenerateZip() throws Exception {
+    System.out.println("generateZip");
+    WorkspaceGenerator instance = new WorkspaceGenerator().withPages(2).withFileGrps(2).withRegions(1).withProcessors(1);
+    Path zipFile = instance.generateZip(tempDir.resolve("workspace.zip"), "ocrdIdentifier");
+    try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+      assertNotNull(zip.getEntry("metadata/" + WorkspaceGenerator.PROVENANCE_FILE));
+      assertNotNull(zip.getEntry("data/" + WorkspaceGenerator.METS_FILE));
+      assertNotNull(zip.getEntry("data/" + WorkspaceGenerator.getPageUrl(1, 2)));
+    }
+  }
+
+  /**
+   * Test invalid arguments.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidFileGrps() {
+    System.out.println("invalid fileGrps");
+    new WorkspaceGenerator().withFileGrps(1);
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.generator;
+
+import edu.kit.ocrd.workspace.MetsDocumentUtil;
+import edu.kit.ocrd.workspace.PageExtractorUtil;
+import edu.kit.ocrd.workspace.XmlParserUtil;
+import edu.kit.ocrd.workspace.provenance.ProvenanceUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import org.apache.commons.io.FileUtils;
+import org.jdom.Document;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Scale regression test running all extractors on generated workspaces of
+ * growing size. By default workspaces with 10 and 100 pages are tested.
+ * <ul>
+ * <li>-Dscale.maxPages=100000 adds sizes growing by factor 10 up to the
+ * given number of pages.</li>
+ * <li>-Dscale.maxGrowth=2.0 fails if the time per page of an extractor at
+ * the largest size exceeds the time per page at the smallest size by more
+ * than the given factor.</li>
+ * </ul>
+ */
+public class WorkspaceScaleTest {
+
+  private static final int NO_OF_FILE_GRPS = 3;
+
+  private static final int NO_OF_REGIONS = 5;
+
+  private static final int NO_OF_PROCESSORS = 3;
+
+  private Path tempDir;
+
+  public WorkspaceScaleTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("workspaceScaleTest_");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(tempDir.toFile());
+  }
+
+  private static List<Integer> getSizes() {
+    int maxPages = Integer.getInteger("scale.maxPages", 100);
+    List<Integer> sizes = new ArrayList<>();
+    for (int noOfPages = 10; noOfPages <= maxPages; noOfPages *= 10) {
+      sizes.add(noOfPages);
+    }
+    return sizes;
+  }
+
+  private static double measure(Callable<Integer> extractor, int expectedSize) throws Exception {
+    long start = System.nanoTime();
+    int size = extractor.call();
+    long duration = System.nanoTime() - start;
+    assertEquals(expectedSize, size);
+    return duration / 1000000.0;
+  }
+
+  /**
+   * Test scaling of all extractors.
+   */
+  @Test
+  public void testScaling() throws Exception {
+    System.out.println("scaling");
+    List<Integer> sizes = getSizes();
+    Map<String, double[]> timesPerPage = new LinkedHashMap<>();
+    for (int index = 0; index < sizes.size(); index++) {
+      int noOfPages = sizes.get(index);
+      Path workspaceDir = tempDir.resolve("workspace_" + noOfPages);
+      WorkspaceGenerator generator = new WorkspaceGenerator().withPages(noOfPages).withFileGrps(NO_OF_FILE_GRPS)
+              .withRegions(NO_OF_REGIONS).withProcessors(NO_OF_PROCESSORS);
+      Path metsFile = generator.generate(workspaceDir, workspaceDir);
+      Document provDocument = XmlParserUtil.getDocument(workspaceDir.resolve(WorkspaceGenerator.METADATA_DIR).resolve(WorkspaceGenerator.PROVENANCE_FILE));
+      Map<String, Double> times = new LinkedHashMap<>();
+      Document metsDocument = XmlParserUtil.getDocument(metsFile);
+      times.put("parseMets", measure(() -> XmlParserUtil.getDocument(metsFile).getRootElement().getChildren().size(),
+              metsDocument.getRootElement().getChildren().size()));
+      times.put("extractMetsFiles", measure(() -> MetsDocumentUtil.extractMetsFiles(metsDocument, "resourceId", 1).size(),
+              noOfPages * NO_OF_FILE_GRPS));
+      times.put("extractMetadataFromMets", measure(() -> MetsDocumentUtil.extractMetadataFromMets(metsDocument, "resourceId") != null ? 1 : 0, 1));
+      times.put("extractGroundTruthFeaturesFromMets", measure(() -> MetsDocumentUtil.extractGroundTruthFeaturesFromMets(metsDocument, "resourceId").size(),
+              noOfPages));
+      times.put("extractAllTextRegions", measure(() -> PageExtractorUtil.extractAllTextRegions(metsFile.toFile(), "resourceId").size(),
+              noOfPages * (NO_OF_FILE_GRPS - 1) * NO_OF_REGIONS));
+      times.put("extractWorkflows", measure(() -> ProvenanceUtil.extractWorkflows(provDocument, metsDocument, "resourceId").size(),
+              NO_OF_PROCESSORS));
+      for (Map.Entry<String, Double> entry : times.entrySet()) {
+        timesPerPage.computeIfAbsent(entry.getKey(), key -> new double[sizes.size()])[index] = entry.getValue() / noOfPages;
+        System.out.println(String.format("%-36s %8d pages: %12.3f ms (%.4f ms/page)", entry.getKey(), noOfPages, entry.getValue(), entry.getValue() / noOfPages));
+      }
+      FileUtils.deleteDirectory(workspaceDir.toFile());
+    }
+    String maxGrowth = System.getProperty("scale.maxGrowth");
+    if (maxGrowth != null && sizes.size() > 1) {
+      for (Map.Entry<String, double[]> entry : timesPerPage.entrySet()) {
+        double[] values = entry.getValue();
+        double growth = values[values.length - 1] / values[0];
+        assertTrue(entry.getKey() + " grows by factor " + growth + " per page", growth <= Double.parseDouble(maxGrowth));
+      }
+    }
+  }
+}
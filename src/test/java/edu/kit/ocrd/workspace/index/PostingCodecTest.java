@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.index;
+
+import edu.kit.ocrd.workspace.index.PostingCodec.Postings;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for PostingCodec.
+ */
+public class PostingCodecTest {
+
+  public PostingCodecTest() {
+  }
+
+  /**
+   * Test of writeVInt and readVInt method, of class PostingCodec.
+   */
+  @Test
+  public void testVInt() throws IOException {
+    System.out.println("writeVInt/readVInt");
+    int[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE};
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int value : values) {
+      PostingCodec.writeVInt(out, value);
+    }
+    assertEquals(1 + 1 + 1 + 2 + 2 + 3 + 5, out.size());
+    ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+    for (int value : values) {
+      assertEquals(value, PostingCodec.readVInt(buffer));
+    }
+    assertFalse(buffer.hasRemaining());
+  }
+
+  /**
+   * Test of write and read method, of class PostingCodec.
+   */
+  @Test
+  public void testWriteAndRead() throws IOException {
+    System.out.println("write/read");
+    Postings postings = new Postings(1);
+    postings.add(3, new int[]{0, 5});
+    postings.add(1000, new int[]{2});
+    postings.add(1001, new int[]{1, 2, 300});
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PostingCodec.write(out, postings);
+    Postings result = PostingCodec.read(ByteBuffer.wrap(out.toByteArray()));
+    assertEquals(3, result.size);
+    assertEquals(1000, result.docs[1]);
+    assertArrayEquals(new int[]{1, 2, 300}, result.positions[2]);
+    assertEquals(2, result.indexOf(1001));
+    assertTrue(result.indexOf(4) < 0);
+  }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.index;
+
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for TextRegionIndex.
+ */
+public class TextRegionIndexTest {
+
+  private Path indexDir;
+
+  public TextRegionIndexTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    indexDir = Files.createTempDirectory("textRegionIndex_");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(indexDir.toFile());
+  }
+
+  private static TextRegion createTextRegion(String resourceId, String region, float confidence, String text) {
+    TextRegion textRegion = new TextRegion();
+    textRegion.setResourceId(resourceId);
+    textRegion.setPageUrl("OCR-D-OCR/page_0001.xml");
+    textRegion.setImageUrl("OCR-D-IMG/page_0001.jpg");
+    textRegion.setRegion(region);
+    textRegion.setOrder(1);
+    textRegion.setConfidence(confidence);
+    textRegion.setText(text);
+    return textRegion;
+  }
+
+  /**
+   * Test of search method, of class TextRegionIndex.
+   */
+  @Test
+  public void testSearch() throws IOException {
+    System.out.println("search");
+    try (TextRegionIndex instance = new TextRegionIndex(indexDir)) {
+      instance.addTextRegions(Arrays.asList(
+              createTextRegion("id1", "r1", 0.9f, "Grundriss der Psychologie"),
+              createTextRegion("id1", "r2", 0.5f, "Die Psychologie der Grundriss")));
+      assertTrue(instance.search("psychologie", 0.0f).isEmpty());
+      instance.commit();
+      List<TextRegion> result = instance.search("Psychologie grundriss", 0.0f);
+      assertEquals(2, result.size());
+      assertEquals("r1", result.get(0).getRegion());
+      assertEquals("id1", result.get(0).getResourceId());
+      assertEquals("OCR-D-OCR/page_0001.xml", result.get(0).getPageUrl());
+      assertEquals("OCR-D-IMG/page_0001.jpg", result.get(0).getImageUrl());
+      assertEquals(1, result.get(0).getOrder().intValue());
+      assertEquals(0.9f, result.get(0).getConfidence(), 0.0001f);
+      assertEquals(1, instance.search("psychologie", 0.8f).size());
+      assertTrue(instance.search("unknown", 0.0f).isEmpty());
+      assertTrue(instance.search("", 0.0f).isEmpty());
+    }
+  }
+
+  /**
+   * Test of searchPhrase method, of class TextRegionIndex.
+   */
+  @Test
+  public void testSearchPhrase() throws IOException {
+    System.out.println("searchPhrase");
+    try (TextRegionIndex instance = new TextRegionIndex(indexDir)) {
+      instance.addTextRegions(Arrays.asList(
+              createTextRegion("id1", "r1", 0.9f, "Grundriss der Psychologie"),
+              createTextRegion("id1", "r2", 0.5f, "Die Psychologie der Grundriss")));
+      instance.commit();
+      List<TextRegion> result = instance.searchPhrase("der psychologie", 0.0f);
+      assertEquals(1, result.size());
+      assertEquals("r1", result.get(0).getRegion());
+      result = instance.searchPhrase("psychologie der", 0.0f);
+      assertEquals(1, result.size());
+      assertEquals("r2", result.get(0).getRegion());
+      assertTrue(instance.searchPhrase("psychologie der", 0.6f).isEmpty());
+    }
+  }
+
+  /**
+   * Test of commit and merge method, of class TextRegionIndex.
+   */
+  @Test
+  public void testIncrementalCommitAndMerge() throws IOException {
+    System.out.println("commit/merge");
+    int mergeFactor = 3;
+    try (TextRegionIndex instance = new TextRegionIndex(indexDir, mergeFactor)) {
+      for (int commit = 0; commit < 5; commit++) {
+        List<TextRegion> regions = new ArrayList<>();
+        for (int region = 0; region < 10; region++) {
+          regions.add(createTextRegion("id" + commit, "r" + region, region / 10.0f, "text " + commit + " region " + region));
+        }
+        instance.addTextRegions(regions);
+        instance.commit();
+        assertTrue(instance.getNumberOfSegments() < mergeFactor);
+      }
+      assertEquals(50, instance.getNumberOfDocuments());
+      assertEquals(50, instance.search("text", 0.0f).size());
+      assertEquals(5, instance.searchPhrase("region 3", 0.0f).size());
+      List<TextRegion> result = instance.searchPhrase("text 4 region 9", 0.0f);
+      assertEquals(1, result.size());
+      assertEquals("id4", result.get(0).getResourceId());
+      instance.merge();
+      assertEquals(1, instance.getNumberOfSegments());
+      assertEquals(50, instance.search("text", 0.0f).size());
+    }
+    // Reopen index
+    try (TextRegionIndex instance = new TextRegionIndex(indexDir, mergeFactor)) {
+      assertEquals(1, instance.getNumberOfSegments());
+      assertEquals(50, instance.getNumberOfDocuments());
+      assertEquals(25, instance.search("text region", 0.5f).size());
+    }
+    assertEquals(2, indexDir.toFile().list().length);
+  }
+
+  /**
+   * Test of commit method, of class TextRegionIndex. Only segments of similar
+   * size are merged.
+   */
+  @Test
+  public void testTieredMerge() throws IOException {
+    System.out.println("tiered merge");
+    int mergeFactor = 3;
+    try (TextRegionIndex instance = new TextRegionIndex(indexDir, mergeFactor)) {
+      List<TextRegion> regions = new ArrayList<>();
+      for (int region = 0; region < 5000; region++) {
+        regions.add(createTextRegion("big", "r" + region, 1.0f, "text word" + region + " region " + region));
+      }
+      instance.addTextRegions(regions);
+      instance.commit();
+      Path bigSegment = indexDir.resolve("segment_00000000.idx");
+      assertTrue(Files.exists(bigSegment));
+      long lastModified = Files.getLastModifiedTime(bigSegment).toMillis();
+      for (int commit = 0; commit < 9; commit++) {
+        instance.addTextRegions(Arrays.asList(createTextRegion("small" + commit, "r1", 0.5f, "text small " + commit)));
+        instance.commit();
+        assertTrue(instance.getNumberOfSegments() <= mergeFactor);
+      }
+      // big segment is never rewritten
+      assertTrue(Files.exists(bigSegment));
+      assertEquals(lastModified, Files.getLastModifiedTime(bigSegment).toMillis());
+      assertEquals(2, instance.getNumberOfSegments());
+      assertEquals(5009, instance.getNumberOfDocuments());
+      assertEquals(5009, instance.search("text", 0.0f).size());
+      assertEquals(9, instance.search("small", 0.0f).size());
+      List<TextRegion> result = instance.searchPhrase("text small 8", 0.0f);
+      assertEquals(1, result.size());
+      assertEquals("small8", result.get(0).getResourceId());
+      result = instance.search("word4711", 0.0f);
+      assertEquals(1, result.size());
+      assertEquals("r4711", result.get(0).getRegion());
+    }
+  }
+
+  /**
+   * Test of merge method, of class TextRegionIndex. Segments exceeding the
+   * maximum segment size are not merged.
+   */
+  @Test
+  public void testMaxSegmentSize() throws IOException {
+    System.out.println("maxSegmentSize");
+    try (TextRegionIndex instance = new TextRegionIndex(indexDir, 2, 1)) {
+      for (int commit = 0; commit < 4; commit++) {
+        instance.addTextRegions(Arrays.asList(createTextRegion("id" + commit, "r1", 0.5f, "text " + commit)));
+        instance.commit();
+      }
+      assertEquals(4, instance.getNumberOfSegments());
+      instance.merge();
+      assertEquals(4, instance.getNumberOfSegments());
+      assertEquals(4, instance.search("text", 0.0f).size());
+    }
+  }
+
+  /**
+   * Test of addWorkspace method, of class TextRegionIndex.
+   */
+  @Test
+  public void testAddWorkspace() throws Exception {
+    System.out.println("addWorkspace");
+    File metsFile = new File("src/test/resources/all/data/mets.xml");
+    assertTrue("File exists!", metsFile.exists());
+    try (TextRegionIndex instance = new TextRegionIndex(indexDir)) {
+      assertEquals(5, instance.addWorkspace(metsFile, "OnlyForTests"));
+      instance.commit();
+      assertEquals(5, instance.getNumberOfDocuments());
+    }
+  }
+
+  /**
+   * Test of tokenize method, of class TextRegionIndex.
+   */
+  @Test
+  public void testTokenize() {
+    System.out.println("tokenize");
+    assertEquals(Arrays.asList("größe", "2", "ſein"), TextRegionIndex.tokenize(" Größe, 2 ſein."));
+    assertTrue(TextRegionIndex.tokenize(null).isEmpty());
+  }
+}
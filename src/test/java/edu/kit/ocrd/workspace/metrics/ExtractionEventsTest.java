@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.metrics;
+
+import edu.kit.ocrd.workspace.PageExtractorUtil;
+import edu.kit.ocrd.workspace.XmlParserUtil;
+import edu.kit.ocrd.workspace.cache.DocumentCache;
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.jdom.Document;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for the flight recorder events of the extraction.
+ */
+public class ExtractionEventsTest {
+
+  private Path recordingFile;
+
+  public ExtractionEventsTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    recordingFile = Files.createTempFile("extraction_", ".jfr");
+    // Files have to be parsed to record parse events.
+    DocumentCache.getDefault().clear();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Files.deleteIfExists(recordingFile);
+  }
+
+  /**
+   * Test events recorded during text extraction.
+   */
+  @Test
+  public void testExtractAllTextRegions() throws Exception {
+    System.out.println("events of extractAllTextRegions");
+    File metsFile = new File("src/test/resources/text/mets.xml");
+    List<TextRegion> textRegions;
+    try (Recording recording = new Recording()) {
+      recording.enable(DocumentParseEvent.class);
+      recording.enable(XPathEvaluationEvent.class);
+      recording.enable(RegionExtractionEvent.class);
+      recording.start();
+      textRegions = PageExtractorUtil.extractAllTextRegions(metsFile, "resourceId");
+      recording.stop();
+      recording.dump(recordingFile);
+    }
+    Map<String, Integer> noOfEvents = new HashMap<>();
+    int noOfRegions = 0;
+    for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+      String name = event.getEventType().getName();
+      noOfEvents.merge(name, 1, Integer::sum);
+      assertEquals("resourceId", event.getString("resourceId"));
+      assertNotNull(event.getString("path"));
+      if (name.equals("edu.kit.ocrd.DocumentParse")) {
+        assertTrue(event.getLong("size") > 0);
+        assertTrue(event.getInt("nodeCount") > 0);
+      }
+      if (name.equals("edu.kit.ocrd.RegionExtraction")) {
+        noOfRegions += event.getInt("extractedRegions");
+      }
+    }
+    int noOfPages = noOfEvents.get("edu.kit.ocrd.RegionExtraction");
+    assertTrue(noOfPages > 0);
+    // METS + all PAGE files
+    assertEquals(noOfPages + 1, noOfEvents.get("edu.kit.ocrd.DocumentParse").intValue());
+    assertTrue(noOfEvents.get("edu.kit.ocrd.XPathEvaluation") >= textRegions.size());
+    assertEquals(textRegions.size(), noOfRegions);
+  }
+
+  /**
+   * Test counting elements of document.
+   */
+  @Test
+  public void testCountElements() throws Exception {
+    System.out.println("countElements");
+    Document document = XmlParserUtil.getDocument("<a><b/><c><d/>text</c></a>");
+    assertEquals(4, DocumentParseEvent.countElements(document));
+  }
+
+  /**
+   * Test that nothing is recorded without running recording.
+   */
+  @Test
+  public void testDisabled() throws Exception {
+    System.out.println("disabled");
+    RegionExtractionEvent event = new RegionExtractionEvent();
+    assertFalse(event.isEnabled());
+    event.begin();
+    event.complete("resourceId", "path", 1, 1);
+    assertFalse(event.shouldCommit());
+  }
+}
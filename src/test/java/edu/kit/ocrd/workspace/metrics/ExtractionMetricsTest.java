@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.metrics;
+
+import edu.kit.ocrd.workspace.PageExtractorUtil;
+import edu.kit.ocrd.workspace.cache.DocumentCache;
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for ExtractionMetrics.
+ */
+public class ExtractionMetricsTest {
+
+  private MeterRegistry defaultRegistry;
+
+  private SimpleMeterRegistry registry;
+
+  public ExtractionMetricsTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+    defaultRegistry = ExtractionMetrics.getRegistry();
+    registry = new SimpleMeterRegistry();
+    ExtractionMetrics.setRegistry(registry);
+  }
+
+  @After
+  public void tearDown() {
+    ExtractionMetrics.setRegistry(defaultRegistry);
+  }
+
+  /**
+   * Test of record method, of class ExtractionMetrics.
+   */
+  @Test
+  public void testRecord() throws Exception {
+    System.out.println("record");
+    List<String> result = ExtractionMetrics.record("test", () -> Arrays.asList("a", "b", "c"));
+    assertEquals(3, result.size());
+    Timer timer = registry.find(ExtractionMetrics.METRIC_DURATION)
+            .tags(ExtractionMetrics.TAG_STAGE, "test", ExtractionMetrics.TAG_OUTCOME, ExtractionMetrics.OUTCOME_SUCCESS).timer();
+    assertNotNull(timer);
+    assertEquals(1, timer.count());
+    assertEquals(3.0, registry.find(ExtractionMetrics.METRIC_ITEMS).tags(ExtractionMetrics.TAG_STAGE, "test").counter().count(), 0.0);
+  }
+
+  /**
+   * Test of record method with failing stage.
+   */
+  @Test
+  public void testRecordFailure() {
+    System.out.println("record failure");
+    try {
+      ExtractionMetrics.record("test", () -> {
+        throw new IOException("expected");
+      });
+      fail("Exception expected!");
+    } catch (IOException ex) {
+      assertEquals("expected", ex.getMessage());
+    }
+    assertEquals(1, registry.find(ExtractionMetrics.METRIC_DURATION)
+            .tags(ExtractionMetrics.TAG_STAGE, "test", ExtractionMetrics.TAG_OUTCOME, ExtractionMetrics.OUTCOME_FAILURE).timer().count());
+    assertNull(registry.find(ExtractionMetrics.METRIC_DURATION)
+            .tags(ExtractionMetrics.TAG_OUTCOME, ExtractionMetrics.OUTCOME_SUCCESS).timer());
+  }
+
+  /**
+   * Test of recordChecksumThroughput method, of class ExtractionMetrics.
+   */
+  @Test
+  public void testRecordChecksumThroughput() {
+    System.out.println("recordChecksumThroughput");
+    ExtractionMetrics.recordChecksumThroughput(2000, 2000000000L);
+    assertEquals(2000.0, registry.find(ExtractionMetrics.METRIC_CHECKSUM_BYTES).counter().count(), 0.0);
+    assertEquals(1000.0, registry.find(ExtractionMetrics.METRIC_CHECKSUM_THROUGHPUT).summary().mean(), 0.001);
+  }
+
+  /**
+   * Test that nothing is recorded without any registry.
+   */
+  @Test
+  public void testDisabled() throws Exception {
+    System.out.println("disabled");
+    CompositeMeterRegistry emptyRegistry = new CompositeMeterRegistry();
+    ExtractionMetrics.setRegistry(emptyRegistry);
+    assertFalse(ExtractionMetrics.isEnabled());
+    assertEquals("result", ExtractionMetrics.record("test", () -> "result"));
+    ExtractionMetrics.Sample sample = ExtractionMetrics.start("test");
+    sample.success();
+    assertEquals(0, sample.elapsed());
+    ExtractionMetrics.recordFileSize("test", 100);
+    assertTrue(emptyRegistry.getMeters().isEmpty());
+    emptyRegistry.add(registry);
+    assertTrue(ExtractionMetrics.isEnabled());
+  }
+
+  /**
+   * Test instrumentation of text extraction.
+   */
+  @Test
+  public void testExtractAllTextRegions() throws Exception {
+    System.out.println("extractAllTextRegions");
+    File metsFile = new File("src/test/resources/text/mets.xml");
+    // Parsing is only recorded on a cache miss.
+    DocumentCache.getDefault().clear();
+    List<TextRegion> textRegions = PageExtractorUtil.extractAllTextRegions(metsFile, "resourceId");
+    assertEquals(1, registry.find(ExtractionMetrics.METRIC_DURATION)
+            .tags(ExtractionMetrics.TAG_STAGE, ExtractionMetrics.STAGE_METS_PARSE).timer().count());
+    assertTrue(registry.find(ExtractionMetrics.METRIC_DURATION)
+            .tags(ExtractionMetrics.TAG_STAGE, ExtractionMetrics.STAGE_PAGE_PARSE).timer().count() > 0);
+    assertTrue(registry.find(ExtractionMetrics.METRIC_FILE_SIZE)
+            .tags(ExtractionMetrics.TAG_STAGE, ExtractionMetrics.STAGE_PAGE_PARSE).summary().totalAmount() > 0);
+    assertEquals(textRegions.size(), registry.find(ExtractionMetrics.METRIC_ITEMS)
+            .tags(ExtractionMetrics.TAG_STAGE, ExtractionMetrics.STAGE_PAGE_ALL_TEXT_REGIONS).counter().count(), 0.0);
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.metrics;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for FlightRecorderEvents.
+ */
+public class FlightRecorderEventsTest {
+
+  public FlightRecorderEventsTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of isAvailable method, of class FlightRecorderEvents.
+   */
+  @Test
+  public void testIsAvailable() {
+    System.out.println("isAvailable");
+    // Test runtime provides 'jdk.jfr'.
+    assertTrue(FlightRecorderEvents.isAvailable());
+  }
+
+  /**
+   * Test of begin methods, of class FlightRecorderEvents.
+   */
+  @Test
+  public void testBegin() {
+    System.out.println("begin");
+    assertTrue(FlightRecorderEvents.beginDocumentParse() instanceof DocumentParseEvent);
+    assertTrue(FlightRecorderEvents.beginXPathEvaluation() instanceof XPathEvaluationEvent);
+    assertTrue(FlightRecorderEvents.beginRegionExtraction() instanceof RegionExtractionEvent);
+    assertTrue(FlightRecorderEvents.beginProvenanceBuild() instanceof ProvenanceBuildEvent);
+    FlightRecorderEvents.BagHashing event = FlightRecorderEvents.beginBagHashing();
+    assertTrue(event instanceof BagHashingEvent);
+    // No recording running
+    assertFalse(event.isEnabled());
+    event.complete("resourceId", "path", FlightRecorderEvents.BagHashing.OPERATION_VERIFY, 1, 1);
+  }
+}
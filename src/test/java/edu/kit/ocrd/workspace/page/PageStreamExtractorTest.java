@@ -0,0 +1,238 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.page;
+
+import edu.kit.ocrd.workspace.PageExtractorUtil;
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import edu.kit.ocrd.workspace.page.PageStreamExtractor.Granularity;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for PageStreamExtractor.
+ */
+public class PageStreamExtractorTest {
+
+  private static final Path PAGE_FILE = Paths.get("src/test/resources/all/data/OCR-D-OCR-TESSEROCR-FRAKTUR/OCR-D-OCR-TESSEROCR-FRAKTUR_0001.xml");
+
+  private static final String PAGE = "<PcGts xmlns='http://schema.primaresearch.org/PAGE/gts/pagecontent/2019-07-15'>"
+          + "<Page imageFilename='image.tif'>"
+          + "<TextRegion id='r0'><Coords points='10,10 100,10 100,50 10,50'/>"
+          + "<TextLine id='r0l0'><Coords points='10,10 100,10 100,30 10,30'/>"
+          + "<Word id='r0l0w0'><Coords points='10,10 40,10 40,30 10,30'/>"
+          + "<Glyph id='r0l0w0g0'><TextEquiv conf='0.5'><Unicode>a</Unicode></TextEquiv></Glyph>"
+          + "<Glyph id='r0l0w0g1'><TextEquiv conf='0.6'><Unicode>b</Unicode></TextEquiv></Glyph>"
+          + "<TextEquiv index='1' conf='0.9'><Unicode>ab</Unicode></TextEquiv>"
+          + "<TextEquiv index='2' conf='0.1'><Unicode>xy</Unicode></TextEquiv></Word>"
+          + "<Word id='r0l0w1'><TextEquiv><Unicode><![CDATA[c&d]]></Unicode></TextEquiv></Word>"
+          + "<Word id='r0l0w2'><TextEquiv conf='0.3'><Unicode> </Unicode></TextEquiv></Word>"
+          + "<TextEquiv conf='0.8'><Unicode>ab c&amp;d</Unicode></TextEquiv></TextLine>"
+          + "<TextEquiv conf='0.7'><Unicode>ab c&amp;d</Unicode></TextEquiv></TextRegion>"
+          + "<TextRegion id='r1'><Coords><Point x='5' y='60'/><Point x='50' y='90'/></Coords>"
+          + "<TextEquiv><Unicode>second</Unicode></TextEquiv></TextRegion>"
+          + "</Page></PcGts>";
+
+  public PageStreamExtractorTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of extract method with granularity region.
+   */
+  @Test
+  public void testExtractRegions() throws Exception {
+    System.out.println("extract regions");
+    List<PageTextElement> result = extract(PAGE, Granularity.REGION);
+    assertEquals(2, result.size());
+    PageTextElement first = result.get(0);
+    assertEquals(Granularity.REGION, first.getGranularity());
+    assertEquals("r0", first.getId());
+    assertEquals("r0", first.getRegionId());
+    assertNull(first.getLineId());
+    assertEquals(0, first.getIndex());
+    assertEquals(0.7f, first.getConfidence(), 0.0f);
+    assertEquals("ab c&d", first.getText());
+    assertEquals(10, first.getMinX());
+    assertEquals(10, first.getMinY());
+    assertEquals(100, first.getMaxX());
+    assertEquals(50, first.getMaxY());
+    PageTextElement second = result.get(1);
+    assertEquals(1, second.getIndex());
+    assertFalse(second.hasConfidence());
+    assertEquals("second", second.getText());
+    assertEquals(5, second.getMinX());
+    assertEquals(60, second.getMinY());
+    assertEquals(50, second.getMaxX());
+    assertEquals(90, second.getMaxY());
+  }
+
+  /**
+   * Test of extract method with granularity word.
+   */
+  @Test
+  public void testExtractWords() throws Exception {
+    System.out.println("extract words");
+    List<PageTextElement> result = extract(PAGE, Granularity.WORD);
+    // Blank word is skipped.
+    assertEquals(2, result.size());
+    PageTextElement first = result.get(0);
+    assertEquals("r0l0w0", first.getId());
+    assertEquals("r0", first.getRegionId());
+    assertEquals("r0l0", first.getLineId());
+    // First TextEquiv only.
+    assertEquals("ab", first.getText());
+    assertEquals(0.9f, first.getConfidence(), 0.0f);
+    assertEquals(40, first.getMaxX());
+    PageTextElement second = result.get(1);
+    assertEquals(1, second.getIndex());
+    assertEquals("c&d", second.getText());
+    assertFalse(second.hasConfidence());
+    assertEquals(-1, second.getMinX());
+    assertEquals(-1, second.getMaxY());
+  }
+
+  /**
+   * Test of extract method with granularity line and glyph.
+   */
+  @Test
+  public void testExtractLinesAndGlyphs() throws Exception {
+    System.out.println("extract lines and glyphs");
+    List<PageTextElement> result = extract(PAGE, Granularity.LINE);
+    assertEquals(1, result.size());
+    assertEquals("r0l0", result.get(0).getId());
+    assertEquals("r0l0", result.get(0).getLineId());
+    assertEquals("ab c&d", result.get(0).getText());
+    assertEquals(0.8f, result.get(0).getConfidence(), 0.0f);
+    result = extract(PAGE, Granularity.GLYPH);
+    assertEquals(2, result.size());
+    assertEquals("a", result.get(0).getText());
+    assertEquals("b", result.get(1).getText());
+    assertEquals(0.6f, result.get(1).getConfidence(), 0.0f);
+    assertEquals(1, result.get(1).getIndex());
+    assertEquals("r0l0", result.get(1).getLineId());
+  }
+
+  /**
+   * Test of extract method compared to PageExtractorUtil.
+   */
+  @Test
+  public void testExtractFile() throws Exception {
+    System.out.println("extract file");
+    List<TextRegion> expected = PageExtractorUtil.extractTextRegions(PAGE_FILE.toFile(), "page.xml", "resourceId");
+    List<PageTextElement> result = PageStreamExtractor.extract(PAGE_FILE, Granularity.REGION);
+    assertEquals(expected.size(), result.size());
+    for (int index = 0; index < expected.size(); index++) {
+      assertEquals(expected.get(index).getRegion(), result.get(index).getId());
+      assertEquals(expected.get(index).getText(), result.get(index).getText());
+    }
+    List<PageTextElement> lines = PageStreamExtractor.extract(PAGE_FILE, Granularity.LINE);
+    assertEquals(7, lines.size());
+    assertEquals("region0000_line0000", lines.get(0).getId());
+    assertEquals("region0000", lines.get(0).getRegionId());
+    assertEquals(0.12f, lines.get(0).getConfidence(), 0.0f);
+    assertEquals(620, lines.get(0).getMinX());
+    assertEquals(654, lines.get(0).getMaxY());
+  }
+
+  /**
+   * Test of extract method with large page.
+   */
+  @Test
+  public void testExtractLargePage() throws Exception {
+    System.out.println("extract large page");
+    int noOfLines = 50000;
+    List<InputStream> parts = new ArrayList<>();
+    parts.add(toStream("<PcGts><Page><TextRegion id='r0'>"));
+    for (int index = 0; index < noOfLines; index++) {
+      parts.add(toStream("<TextLine id='l" + index + "'><Coords points='0,0 " + index + ",10'/><TextEquiv conf='0.5'><Unicode>line " + index + "</Unicode></TextEquiv></TextLine>"));
+    }
+    parts.add(toStream("</TextRegion></Page></PcGts>"));
+    Enumeration<InputStream> enumeration = Collections.enumeration(parts);
+    AtomicInteger lastIndex = new AtomicInteger(-1);
+    int result = PageStreamExtractor.extract(new SequenceInputStream(enumeration), Granularity.LINE, element -> {
+      assertEquals(lastIndex.incrementAndGet(), element.getIndex());
+      assertEquals(element.getIndex(), element.getMaxX());
+    });
+    assertEquals(noOfLines, result);
+    assertEquals(noOfLines - 1, lastIndex.get());
+  }
+
+  /**
+   * Test of extract method with stop condition.
+   */
+  @Test
+  public void testExtractStop() throws Exception {
+    System.out.println("extract stop");
+    List<PageTextElement> result = new ArrayList<>();
+    int noOfElements = PageStreamExtractor.extract(toStream(PAGE), Granularity.REGION, result::add, () -> !result.isEmpty());
+    // Stopped before the second region.
+    assertEquals(1, noOfElements);
+    assertEquals(1, result.size());
+    assertEquals("r0", result.get(0).getId());
+    noOfElements = PageStreamExtractor.extract(toStream(PAGE), Granularity.REGION, element -> fail("Stopped!"), () -> true);
+    assertEquals(0, noOfElements);
+  }
+
+  /**
+   * Test of extract method with invalid document.
+   */
+  @Test(expected = IOException.class)
+  public void testExtractInvalid() throws Exception {
+    System.out.println("extract invalid");
+    extract("<PcGts><Page><TextRegion></Page></PcGts>", Granularity.REGION);
+  }
+
+  private static List<PageTextElement> extract(final String page, final Granularity granularity) throws IOException {
+    List<PageTextElement> result = new ArrayList<>();
+    PageStreamExtractor.extract(toStream(page), granularity, result::add);
+    return result;
+  }
+
+  private static InputStream toStream(final String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+}
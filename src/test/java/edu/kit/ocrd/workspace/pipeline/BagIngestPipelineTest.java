@@ -0,0 +1,339 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.pipeline;
+
+import edu.kit.ocrd.workspace.PageExtractorUtil;
+import edu.kit.ocrd.workspace.WorkspaceSession;
+import edu.kit.ocrd.workspace.cache.DocumentCache;
+import edu.kit.ocrd.workspace.cache.ExtractionCache;
+import edu.kit.ocrd.workspace.entity.ConfidenceStatistics;
+import edu.kit.ocrd.workspace.entity.ProcessorLatency;
+import edu.kit.ocrd.workspace.entity.ProcessorPerformanceRollup;
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import edu.kit.ocrd.workspace.generator.WorkspaceGenerator;
+import edu.kit.ocrd.workspace.stats.ProcessorPerformanceAggregator;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for BagIngestPipeline.
+ */
+public class BagIngestPipelineTest {
+
+  private Path tempDir;
+
+  public BagIngestPipelineTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("bagIngestPipelineTest_");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(tempDir.toFile());
+  }
+
+  /**
+   * Test of ingest method, of class BagIngestPipeline.
+   */
+  @Test
+  public void testIngest() throws Exception {
+    System.out.println("ingest");
+    Path bagDir = Files.createDirectory(tempDir.resolve("bags"));
+    Path workDir = Files.createDirectory(tempDir.resolve("work"));
+    WorkspaceGenerator generator = new WorkspaceGenerator().withPages(3).withFileGrps(3).withRegions(2).withProcessors(2);
+    for (int index = 1; index <= 4; index++) {
+      generator.generateZip(bagDir.resolve("bag" + index + ".zip"), "id_" + index);
+    }
+    generator.generateBag(bagDir.resolve("bag5"), "id_5");
+    Files.write(bagDir.resolve("readme.txt"), "ignored".getBytes());
+    List<IngestItem> items = Collections.synchronizedList(new ArrayList<>());
+    BagIngestPipeline instance = new BagIngestPipeline(items::add)
+            .withValidation(false)
+            .withWorkDirectory(workDir)
+            .withQueueCapacity(1)
+            .withParallelism(BagIngestPipeline.STAGE_TEXT, 2);
+    PipelineReport report = instance.ingest(bagDir);
+    assertTrue(report.toString(), report.isSuccessful());
+    assertEquals(5, report.getNumberOfItems());
+    assertEquals(5, items.size());
+    for (IngestItem item : items) {
+      assertTrue(item.getResourceId().startsWith("id_"));
+      assertEquals(3 * 3, item.getMetsFiles().size());
+      assertEquals(3 * 2 * 2, item.getTextRegions().size());
+      assertEquals(2, item.getProvenanceMetadata().size());
+      assertNotNull(item.getMetsProperties());
+      assertNull(item.getMetsDocument());
+    }
+    // All extracted bags are removed.
+    assertEquals(0, workDir.toFile().list().length);
+    assertTrue(Files.exists(bagDir.resolve("bag5")));
+  }
+
+  /**
+   * Test of ingest method with extraction cache.
+   */
+  @Test
+  public void testIngestWithExtractionCache() throws Exception {
+    System.out.println("ingest with extraction cache");
+    Path bagDir = Files.createDirectory(tempDir.resolve("bags"));
+    WorkspaceGenerator generator = new WorkspaceGenerator().withPages(3).withFileGrps(3).withRegions(2).withProcessors(1);
+    for (int index = 1; index <= 3; index++) {
+      generator.generateBag(bagDir.resolve("bag" + index), "id_" + index);
+    }
+    List<IngestItem> items = Collections.synchronizedList(new ArrayList<>());
+    ExtractionCache cache = new ExtractionCache(ExtractionCache.DEFAULT_MAX_ENTRIES);
+    BagIngestPipeline instance = new BagIngestPipeline(items::add)
+            .withValidation(false)
+            .withExtractionCache(cache);
+    PipelineReport report = instance.ingest(bagDir);
+    assertTrue(report.toString(), report.isSuccessful());
+    assertEquals(3, items.size());
+    for (IngestItem item : items) {
+      assertEquals(3 * 2 * 2, item.getTextRegions().size());
+      assertEquals(item.getResourceId(), item.getTextRegions().get(0).getResourceId());
+    }
+    // Each PAGE file is parsed only once.
+    assertEquals(3 * 2, cache.getNumberOfMisses());
+    assertEquals(2 * 3 * 2, cache.getNumberOfMemoryHits());
+  }
+
+  /**
+   * Test of ingest method with extraction cache. PAGE documents are not
+   * added to the default document cache.
+   */
+  @Test
+  public void testIngestWithExtractionCacheWithoutDocumentCache() throws Exception {
+    System.out.println("ingest with extraction cache without document cache");
+    Path bagDir = Files.createDirectory(tempDir.resolve("bags"));
+    WorkspaceGenerator generator = new WorkspaceGenerator().withPages(3).withFileGrps(2).withRegions(2).withProcessors(1);
+    for (int index = 1; index <= 2; index++) {
+      generator.generateBag(bagDir.resolve("bag" + index), "id_" + index);
+    }
+    DocumentCache defaultCache = DocumentCache.getDefault();
+    DocumentCache documentCache = new DocumentCache(DocumentCache.DEFAULT_MAX_WEIGHT);
+    DocumentCache.setDefault(documentCache);
+    try {
+      List<IngestItem> items = Collections.synchronizedList(new ArrayList<>());
+      BagIngestPipeline instance = new BagIngestPipeline(items::add)
+              .withValidation(false)
+              .withExtractionCache(new ExtractionCache(ExtractionCache.DEFAULT_MAX_ENTRIES));
+      PipelineReport report = instance.ingest(bagDir);
+      assertTrue(report.toString(), report.isSuccessful());
+      assertEquals(2, items.size());
+      for (IngestItem item : items) {
+        assertEquals(3 * 2, item.getTextRegions().size());
+      }
+      assertEquals(0, documentCache.getNumberOfMisses());
+      assertEquals(0, documentCache.getWeight());
+      assertEquals(0, documentCache.size());
+    } finally {
+      DocumentCache.setDefault(defaultCache);
+    }
+  }
+
+  /**
+   * Test of ingest method with selected fileGrps.
+   */
+  @Test
+  public void testIngestFileGrps() throws Exception {
+    System.out.println("ingest fileGrps");
+    Path bagDir = Files.createDirectory(tempDir.resolve("bags"));
+    WorkspaceGenerator generator = new WorkspaceGenerator().withPages(3).withFileGrps(4).withRegions(2).withProcessors(3);
+    generator.generateBag(bagDir.resolve("bag"), "id");
+    List<IngestItem> items = Collections.synchronizedList(new ArrayList<>());
+    BagIngestPipeline instance = new BagIngestPipeline(items::add)
+            .withValidation(false)
+            .withFileGrps(WorkspaceGenerator.getPageFileGrp(1));
+    assertTrue(instance.ingest(bagDir).isSuccessful());
+    assertEquals(3 * 2, items.get(0).getTextRegions().size());
+    for (TextRegion textRegion : items.get(0).getTextRegions()) {
+      assertTrue(textRegion.getPageUrl().startsWith(WorkspaceGenerator.getPageFileGrp(1) + "/"));
+    }
+    assertNull(items.get(0).getMetsDocument());
+
+    // Final OCR output: last processor writes last fileGrp.
+    items.clear();
+    instance.withFinalOcrOutput(true);
+    assertTrue(instance.ingest(bagDir).isSuccessful());
+    assertEquals(3 * 2, items.get(0).getTextRegions().size());
+    for (TextRegion textRegion : items.get(0).getTextRegions()) {
+      assertTrue(textRegion.getPageUrl().startsWith(WorkspaceGenerator.getPageFileGrp(3) + "/"));
+    }
+  }
+
+  /**
+   * Test of ingest method collecting confidence statistics.
+   */
+  @Test
+  public void testIngestConfidenceStatistics() throws Exception {
+    System.out.println("ingest confidence statistics");
+    Path bagDir = Files.createDirectory(tempDir.resolve("bags"));
+    new WorkspaceGenerator().withPages(3).withFileGrps(3).withRegions(2).generateBag(bagDir.resolve("bag"), "id");
+    List<IngestItem> items = Collections.synchronizedList(new ArrayList<>());
+    BagIngestPipeline instance = new BagIngestPipeline(items::add).withValidation(false);
+    assertTrue(instance.ingest(bagDir).isSuccessful());
+    assertNull(items.get(0).getConfidenceStatistics());
+
+    items.clear();
+    instance.withConfidenceStatistics(1.0f);
+    assertTrue(instance.ingest(bagDir).isSuccessful());
+    List<ConfidenceStatistics> result = items.get(0).getConfidenceStatistics();
+    // Workspace, 2 fileGrps, 6 pages
+    assertEquals(1 + 2 + 3 * 2, result.size());
+    assertEquals(ConfidenceStatistics.SCOPE_WORKSPACE, result.get(0).getScope());
+    assertEquals(3 * 2 * 2, result.get(0).getCount());
+    assertEquals(result.get(0).getNoOfCharacters(), result.get(0).getNoOfLowConfidenceCharacters());
+    assertEquals(WorkspaceGenerator.getPageFileGrp(1), result.get(1).getFileGrp());
+    assertEquals(3 * 2, result.get(1).getCount());
+    assertEquals(ConfidenceStatistics.SCOPE_PAGE, result.get(3).getScope());
+    assertEquals(WorkspaceGenerator.getPageUrl(1, 1), result.get(3).getPageUrl());
+    assertEquals("id", result.get(3).getResourceId());
+  }
+
+  /**
+   * Test of ingest method collecting confidence statistics of PAGE files
+   * without confidence. The result has to match the statistics of
+   * PageExtractorUtil.
+   */
+  @Test
+  public void testIngestConfidenceStatisticsWithoutConfidence() throws Exception {
+    System.out.println("ingest confidence statistics without confidence");
+    Path bagDir = Files.createDirectory(tempDir.resolve("bags"));
+    Path dataDir = new WorkspaceGenerator().withPages(2).withRegions(3).generateBag(bagDir.resolve("bag"), "id").resolve("data");
+    try (Stream<Path> files = Files.walk(dataDir)) {
+      for (Path pageFile : files.filter(file -> file.toString().endsWith(".xml")).collect(Collectors.toList())) {
+        String page = new String(Files.readAllBytes(pageFile), StandardCharsets.UTF_8);
+        Files.write(pageFile, page.replaceAll(" conf=\"[^\"]*\"", "").getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    WorkspaceSession session = new WorkspaceSession(dataDir.resolve(WorkspaceGenerator.METS_FILE), "id");
+    List<ConfidenceStatistics> expected = PageExtractorUtil.extractConfidenceStatistics(session, null, 0.5f);
+    // Without extraction cache, extraction, disk cache and memory cache.
+    Path cacheDir = tempDir.resolve("cache");
+    ExtractionCache memoryCache = new ExtractionCache(cacheDir, ExtractionCache.DEFAULT_MAX_ENTRIES);
+    ExtractionCache[] caches = {null, memoryCache, new ExtractionCache(cacheDir, ExtractionCache.DEFAULT_MAX_ENTRIES), memoryCache};
+    for (ExtractionCache cache : caches) {
+      List<IngestItem> items = Collections.synchronizedList(new ArrayList<>());
+      BagIngestPipeline instance = new BagIngestPipeline(items::add).withValidation(false).withConfidenceStatistics(0.5f);
+      if (cache != null) {
+        instance.withExtractionCache(cache);
+      }
+      assertTrue(instance.ingest(bagDir).isSuccessful());
+      List<ConfidenceStatistics> result = items.get(0).getConfidenceStatistics();
+      assertEquals(expected.size(), result.size());
+      for (int index = 0; index < expected.size(); index++) {
+        assertEquals(expected.get(index).getScope(), result.get(index).getScope());
+        assertEquals(expected.get(index).getPageUrl(), result.get(index).getPageUrl());
+        assertEquals(0, result.get(index).getCount());
+        assertEquals(expected.get(index).getNoOfMissingConfidences(), result.get(index).getNoOfMissingConfidences());
+        assertEquals(expected.get(index).getNoOfCharacters(), result.get(index).getNoOfCharacters());
+        assertEquals(0, result.get(index).getNoOfLowConfidenceCharacters());
+        assertTrue(Float.isNaN(result.get(index).getMean()));
+      }
+      assertTrue(result.get(0).getNoOfMissingConfidences() > 0);
+    }
+    // PAGE files are parsed only once.
+    assertEquals(caches[2].getNumberOfDiskHits(), memoryCache.getNumberOfMisses());
+    assertEquals(memoryCache.getNumberOfMisses(), memoryCache.getNumberOfMemoryHits());
+  }
+
+  /**
+   * Test of ingest method with processor rollup.
+   */
+  @Test
+  public void testIngestProcessorRollup() throws Exception {
+    System.out.println("ingest processor rollup");
+    Path bagDir = Files.createDirectory(tempDir.resolve("bags"));
+    new WorkspaceGenerator().withPages(1).withProcessors(3).generateBag(bagDir.resolve("bag1"), "id1");
+    new WorkspaceGenerator().withPages(1).withProcessors(2).generateBag(bagDir.resolve("bag2"), "id2");
+    Path rollupFile = tempDir.resolve("rollup.json");
+    List<IngestItem> items = Collections.synchronizedList(new ArrayList<>());
+    BagIngestPipeline instance = new BagIngestPipeline(items::add).withValidation(false);
+    assertTrue(instance.ingest(bagDir).isSuccessful());
+    assertFalse(Files.exists(rollupFile));
+
+    instance.withProcessorRollup(rollupFile);
+    assertTrue(instance.ingest(bagDir).isSuccessful());
+    ProcessorPerformanceRollup result = ProcessorPerformanceAggregator.read(rollupFile);
+    assertEquals(2, result.getNoOfWorkspaces());
+    assertEquals(3 + 2, result.getNoOfProcessorRuns());
+    assertEquals(3, result.getProcessors().size());
+    long noOfRuns = 0;
+    for (ProcessorLatency latency : result.getProcessors().values()) {
+      noOfRuns += latency.getCount();
+    }
+    assertEquals(5, noOfRuns);
+    // Next run is added to the rollup.
+    assertTrue(instance.ingest(bagDir).isSuccessful());
+    assertEquals(4, ProcessorPerformanceAggregator.read(rollupFile).getNoOfWorkspaces());
+  }
+
+  /**
+   * Test of ingest method with invalid bag.
+   */
+  @Test
+  public void testIngestInvalidBag() throws Exception {
+    System.out.println("ingest invalid bag");
+    Path bagDir = Files.createDirectory(tempDir.resolve("bags"));
+    Files.write(bagDir.resolve("invalid.zip"), "no zip".getBytes());
+    Files.createDirectory(bagDir.resolve("noBag"));
+    List<IngestItem> items = Collections.synchronizedList(new ArrayList<>());
+    Path workDir = Files.createDirectory(tempDir.resolve("work"));
+    BagIngestPipeline instance = new BagIngestPipeline(items::add).withValidation(false).withWorkDirectory(workDir);
+    PipelineReport report = instance.ingest(bagDir);
+    assertEquals(2, report.getStatistics(BagIngestPipeline.STAGE_VALIDATE).getNumberOfFailedItems());
+    assertEquals(0, workDir.toFile().list().length);
+    assertFalse(report.isSuccessful());
+    assertEquals(2, report.getFailures().size());
+    assertEquals(0, report.getNumberOfCompletedItems());
+    assertTrue(items.isEmpty());
+  }
+
+  /**
+   * Test of withParallelism method with unknown stage.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownStage() {
+    System.out.println("unknown stage");
+    new BagIngestPipeline(item -> {
+    }).withParallelism("unknown", 2);
+  }
+}
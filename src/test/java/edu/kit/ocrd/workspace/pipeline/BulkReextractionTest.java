@@ -0,0 +1,190 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.pipeline;
+
+import edu.kit.ocrd.workspace.entity.ZippedBagit;
+import edu.kit.ocrd.workspace.generator.WorkspaceGenerator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for BulkReextraction.
+ */
+public class BulkReextractionTest {
+
+  private static final int NO_OF_BAGS = 6;
+
+  private static final int NO_OF_SHARDS = 3;
+
+  private Path tempDir;
+
+  private Path checkpointDir;
+
+  private List<ZippedBagit> corpus;
+
+  public BulkReextractionTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("bulkReextractionTest_");
+    checkpointDir = tempDir.resolve("checkpoint");
+    Path bagDir = Files.createDirectory(tempDir.resolve("bags"));
+    WorkspaceGenerator generator = new WorkspaceGenerator().withPages(2).withFileGrps(2).withRegions(1).withProcessors(1);
+    corpus = new ArrayList<>();
+    for (int index = 1; index <= NO_OF_BAGS; index++) {
+      Path zipFile = generator.generateZip(bagDir.resolve("bag" + index + ".zip"), "id_" + index);
+      String url = index % 2 == 0 ? zipFile.toUri().toString() : zipFile.toString();
+      corpus.add(new ZippedBagit("resource_" + index, "id_" + index, url));
+    }
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(tempDir.toFile());
+  }
+
+  private BulkReextraction createInstance(String extractorVersion, IngestSink sink) {
+    BulkReextraction instance = new BulkReextraction(checkpointDir, NO_OF_SHARDS, extractorVersion, sink).withOwner("test");
+    instance.getPipeline().withValidation(false).withWorkDirectory(tempDir);
+    return instance;
+  }
+
+  /**
+   * Test of run method, of class BulkReextraction.
+   */
+  @Test
+  public void testRun() throws Exception {
+    System.out.println("run");
+    List<IngestItem> items = Collections.synchronizedList(new ArrayList<>());
+    Map<Integer, PipelineReport> reports = createInstance("1.0", items::add).run(corpus);
+    assertEquals(NO_OF_SHARDS, reports.size());
+    assertEquals(NO_OF_BAGS, items.size());
+    for (IngestItem item : items) {
+      assertTrue(item.getResourceId().startsWith("resource_"));
+      assertEquals("1.0", item.getExtractorVersion());
+      assertEquals(2, item.getTextRegions().size());
+    }
+    // Nothing left to do.
+    items.clear();
+    createInstance("1.0", items::add).run(corpus);
+    assertTrue(items.isEmpty());
+    // New version of extractor.
+    createInstance("1.1", items::add).run(corpus);
+    assertEquals(NO_OF_BAGS, items.size());
+  }
+
+  /**
+   * Test of run method with default version of extractor.
+   */
+  @Test
+  public void testRunDefaultExtractorVersion() throws Exception {
+    System.out.println("run with default extractor version");
+    List<IngestItem> items = Collections.synchronizedList(new ArrayList<>());
+    BulkReextraction instance = createInstance(null, items::add);
+    String extractorVersion = instance.getPipeline().getExtractorVersion();
+    assertNotNull(extractorVersion);
+    instance.run(corpus);
+    assertEquals(NO_OF_BAGS, items.size());
+    for (IngestItem item : items) {
+      assertEquals(extractorVersion, item.getExtractorVersion());
+    }
+    // Nothing left to do.
+    items.clear();
+    createInstance(null, items::add).run(corpus);
+    assertTrue(items.isEmpty());
+  }
+
+  /**
+   * Test resuming after failed bags.
+   */
+  @Test
+  public void testResume() throws Exception {
+    System.out.println("resume");
+    Set<String> persisted = ConcurrentHashMap.newKeySet();
+    Map<Integer, PipelineReport> reports = createInstance("1.0", item -> {
+      if (item.getResourceId().equals("resource_3")) {
+        throw new IOException("Database not available!");
+      }
+      persisted.add(item.getResourceId());
+    }).run(corpus);
+    assertEquals(NO_OF_BAGS - 1, persisted.size());
+    int noOfFailures = 0;
+    for (PipelineReport report : reports.values()) {
+      noOfFailures += report.getFailures().size();
+    }
+    assertEquals(1, noOfFailures);
+    persisted.clear();
+    createInstance("1.0", item -> persisted.add(item.getResourceId())).run(corpus);
+    assertEquals(Collections.singleton("resource_3"), persisted);
+  }
+
+  /**
+   * Test skipping shards held by other processes.
+   */
+  @Test
+  public void testShardHeldByOtherProcess() throws Exception {
+    System.out.println("shard held by other process");
+    Files.createDirectories(checkpointDir);
+    int heldShard = BulkReextraction.getShard("id_1", NO_OF_SHARDS);
+    try (FileLease lease = FileLease.tryAcquire(checkpointDir.resolve("shard-" + heldShard + ".lease"), "other", 60000)) {
+      assertNotNull(lease);
+      List<IngestItem> items = Collections.synchronizedList(new ArrayList<>());
+      Map<Integer, PipelineReport> reports = createInstance("1.0", items::add).run(corpus);
+      assertFalse(reports.containsKey(heldShard));
+      for (IngestItem item : items) {
+        String ocrdIdentifier = "id_" + item.getResourceId().substring("resource_".length());
+        assertNotEquals(heldShard, BulkReextraction.getShard(ocrdIdentifier, NO_OF_SHARDS));
+      }
+      assertTrue(items.size() < NO_OF_BAGS);
+    }
+  }
+
+  /**
+   * Test of getShard method, of class BulkReextraction.
+   */
+  @Test
+  public void testGetShard() {
+    System.out.println("getShard");
+    assertEquals(BulkReextraction.getShard("id_1", 16), BulkReextraction.getShard("id_1", 16));
+    for (int index = 0; index < 100; index++) {
+      int shard = BulkReextraction.getShard("identifier" + index, 7);
+      assertTrue(shard >= 0 && shard < 7);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.pipeline;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for CheckpointLog.
+ */
+public class CheckpointLogTest {
+
+  private Path tempDir;
+
+  public CheckpointLogTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("checkpointLogTest_");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(tempDir.toFile());
+  }
+
+  /**
+   * Test of markCompleted and isCompleted methods, of class CheckpointLog.
+   */
+  @Test
+  public void testMarkCompleted() throws IOException {
+    System.out.println("markCompleted");
+    try (CheckpointLog instance = new CheckpointLog(tempDir, "owner@host")) {
+      assertFalse(instance.isCompleted("id\twith tab", 1, "1.0"));
+      instance.markCompleted("id\twith tab", 1, "1.0");
+      instance.markCompleted("id2", 2, "1.0");
+      assertTrue(instance.isCompleted("id\twith tab", 1, "1.0"));
+      assertFalse(instance.isCompleted("id\twith tab", 2, "1.0"));
+      assertFalse(instance.isCompleted("id\twith tab", 1, "1.1"));
+      assertEquals("owner_host.log", instance.getLogFile().getFileName().toString());
+    }
+    // Resume with same owner and read log of other owner.
+    try (CheckpointLog instance = new CheckpointLog(tempDir, "other")) {
+      assertEquals(2, instance.getNumberOfCompletedBags());
+      assertTrue(instance.isCompleted("id2", 2, "1.0"));
+    }
+  }
+
+  /**
+   * Test reading log with incomplete line after crash.
+   */
+  @Test
+  public void testIncompleteLine() throws IOException {
+    System.out.println("incomplete line");
+    Files.write(tempDir.resolve("owner.log"), "id1\t1\t1.0\t1590000000000\nid2\t1\t1.".getBytes(StandardCharsets.UTF_8));
+    try (CheckpointLog instance = new CheckpointLog(tempDir, "owner")) {
+      assertEquals(1, instance.getNumberOfCompletedBags());
+      assertFalse(instance.isCompleted("id2", 1, "1.0"));
+      instance.markCompleted("id2", 1, "1.0");
+    }
+    try (CheckpointLog instance = new CheckpointLog(tempDir, "owner")) {
+      assertTrue(instance.isCompleted("id1", 1, "1.0"));
+      assertTrue(instance.isCompleted("id2", 1, "1.0"));
+    }
+    assertEquals(3, Files.readAllLines(tempDir.resolve("owner.log")).size());
+  }
+
+  /**
+   * Test reload of logs written by other processes.
+   */
+  @Test
+  public void testReload() throws IOException {
+    System.out.println("reload");
+    try (CheckpointLog instance = new CheckpointLog(tempDir, "owner")) {
+      Files.write(tempDir.resolve("other.log"), "id1\t1\t1.0\t1590000000000\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE_NEW);
+      assertFalse(instance.isCompleted("id1", 1, "1.0"));
+      instance.reload();
+      assertTrue(instance.isCompleted("id1", 1, "1.0"));
+    }
+  }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.pipeline;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for FileLease.
+ */
+public class FileLeaseTest {
+
+  private Path tempDir;
+
+  private Path leaseFile;
+
+  public FileLeaseTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("fileLeaseTest_");
+    leaseFile = tempDir.resolve("shard-0.lease");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(tempDir.toFile());
+  }
+
+  /**
+   * Test of tryAcquire method, of class FileLease.
+   */
+  @Test
+  public void testTryAcquire() throws IOException {
+    System.out.println("tryAcquire");
+    try (FileLease lease = FileLease.tryAcquire(leaseFile, "owner1", 60000)) {
+      assertNotNull(lease);
+      assertTrue(lease.isValid());
+      assertNull(FileLease.tryAcquire(leaseFile, "owner2", 60000));
+      assertTrue(lease.renew());
+    }
+    assertFalse(Files.exists(leaseFile));
+    // Only lock file is left.
+    assertArrayEquals(new String[]{"shard-0.lease.lock"}, tempDir.toFile().list());
+    try (FileLease lease = FileLease.tryAcquire(leaseFile, "owner2", 60000)) {
+      assertNotNull(lease);
+    }
+  }
+
+  /**
+   * Test take over of expired lease.
+   */
+  @Test
+  public void testTakeOverExpiredLease() throws Exception {
+    System.out.println("take over expired lease");
+    FileLease expiredLease = FileLease.tryAcquire(leaseFile, "owner1", 1);
+    assertNotNull(expiredLease);
+    Thread.sleep(20);
+    try (FileLease lease = FileLease.tryAcquire(leaseFile, "owner2", 60000)) {
+      assertNotNull(lease);
+      // Old holder detects loss of lease and doesn't remove new lease.
+      assertFalse(expiredLease.renew());
+      assertFalse(expiredLease.isValid());
+      expiredLease.close();
+      assertTrue(Files.exists(leaseFile));
+      assertTrue(lease.renew());
+    }
+    assertFalse(Files.exists(leaseFile));
+  }
+
+  /**
+   * Test concurrent take over of expired lease.
+   */
+  @Test
+  public void testConcurrentTakeOver() throws Exception {
+    System.out.println("concurrent take over");
+    int noOfThreads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(noOfThreads);
+    try {
+      for (int round = 0; round < 20; round++) {
+        Files.deleteIfExists(leaseFile);
+        assertNotNull(FileLease.tryAcquire(leaseFile, "crashed", 1));
+        Thread.sleep(5);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<FileLease>> futures = new ArrayList<>();
+        for (int thread = 0; thread < noOfThreads; thread++) {
+          String owner = "owner" + thread;
+          futures.add(executor.submit(() -> {
+            start.await();
+            return FileLease.tryAcquire(leaseFile, owner, 60000);
+          }));
+        }
+        start.countDown();
+        int noOfLeases = 0;
+        for (Future<FileLease> future : futures) {
+          if (future.get() != null) {
+            noOfLeases++;
+          }
+        }
+        assertEquals(1, noOfLeases);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Test concurrent acquisition while lease is released.
+   */
+  @Test
+  public void testConcurrentAcquireAndClose() throws Exception {
+    System.out.println("concurrent acquire and close");
+    int noOfThreads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(noOfThreads + 1);
+    try {
+      for (int round = 0; round < 50; round++) {
+        Files.deleteIfExists(leaseFile);
+        FileLease holder = FileLease.tryAcquire(leaseFile, "holder", 60000);
+        assertNotNull(holder);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean closed = new AtomicBoolean();
+        List<Future<FileLease>> futures = new ArrayList<>();
+        for (int thread = 0; thread < noOfThreads; thread++) {
+          String owner = "owner" + thread;
+          futures.add(executor.submit(() -> {
+            start.await();
+            // Retry until lease is released and acquired by any thread.
+            FileLease lease = null;
+            while (lease == null && !(closed.get() && Files.exists(leaseFile))) {
+              lease = FileLease.tryAcquire(leaseFile, owner, 60000);
+            }
+            return lease;
+          }));
+        }
+        Future<?> close = executor.submit(() -> {
+          start.await();
+          holder.close();
+          closed.set(true);
+          return null;
+        });
+        start.countDown();
+        close.get();
+        List<FileLease> leases = new ArrayList<>();
+        for (Future<FileLease> future : futures) {
+          if (future.get() != null) {
+            leases.add(future.get());
+          }
+        }
+        assertEquals(1, leases.size());
+        assertTrue(leases.get(0).renew());
+        leases.get(0).close();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Test take over of corrupt lease file.
+   */
+  @Test
+  public void testCorruptLeaseFile() throws IOException {
+    System.out.println("corrupt lease file");
+    Files.write(leaseFile, new byte[0]);
+    try (FileLease lease = FileLease.tryAcquire(leaseFile, "owner", 60000)) {
+      assertNotNull(lease);
+    }
+  }
+}
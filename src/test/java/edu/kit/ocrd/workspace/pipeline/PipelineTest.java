@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.pipeline;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for Pipeline.
+ */
+public class PipelineTest {
+
+  public PipelineTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  private static List<Integer> createItems(int noOfItems) {
+    return IntStream.range(0, noOfItems).boxed().collect(Collectors.toList());
+  }
+
+  /**
+   * Test of run method, of class Pipeline.
+   */
+  @Test
+  public void testRun() throws Exception {
+    System.out.println("run");
+    Pipeline<Integer, String> instance = Pipeline.<Integer>builder()
+            .stage("square", 3, item -> item * item)
+            .stage("format", 2, item -> "#" + item)
+            .build();
+    assertEquals(Arrays.asList("square", "format"), instance.getStageNames());
+    List<String> result = Collections.synchronizedList(new ArrayList<>());
+    PipelineReport report = instance.run(createItems(100), result::add);
+    assertTrue(report.isSuccessful());
+    assertEquals(100, report.getNumberOfItems());
+    assertEquals(100, report.getNumberOfCompletedItems());
+    assertEquals(100, result.size());
+    assertTrue(result.contains("#9801"));
+    assertEquals(100, report.getStatistics("square").getNumberOfProcessedItems());
+    assertEquals(3, report.getStatistics("square").getParallelism());
+    assertEquals(2, report.getStatistics().size());
+  }
+
+  /**
+   * Test of run method with failing and filtered items.
+   */
+  @Test
+  public void testRunWithFailures() throws Exception {
+    System.out.println("run with failures");
+    Pipeline<Integer, Integer> instance = Pipeline.<Integer>builder()
+            .stage("filter", 2, item -> item % 2 == 0 ? item : null)
+            .stage("fail", 2, item -> {
+              if (item % 10 == 0) {
+                throw new IOException("Invalid item " + item);
+              }
+              return item;
+            })
+            .build();
+    PipelineReport report = instance.run(createItems(100));
+    assertFalse(report.isSuccessful());
+    assertEquals(100, report.getNumberOfItems());
+    assertEquals(40, report.getNumberOfCompletedItems());
+    assertEquals(10, report.getFailures().size());
+    assertEquals(10, report.getStatistics("fail").getNumberOfFailedItems());
+    assertEquals(40, report.getStatistics("fail").getNumberOfProcessedItems());
+    PipelineReport.Failure failure = report.getFailures().get(0);
+    assertEquals("fail", failure.getStage());
+    assertTrue(failure.getCause() instanceof IOException);
+    assertEquals(0, ((Integer) failure.getItem()) % 10);
+  }
+
+  /**
+   * Test that a slow stage limits the number of items inside pipeline.
+   */
+  @Test
+  public void testBackpressure() throws Exception {
+    System.out.println("backpressure");
+    int capacity = 2;
+    AtomicInteger read = new AtomicInteger();
+    AtomicInteger persisted = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    Iterable<Integer> source = () -> new Iterator<Integer>() {
+      @Override
+      public boolean hasNext() {
+        return read.get() < 50;
+      }
+
+      @Override
+      public Integer next() {
+        int inFlight = read.incrementAndGet() - persisted.get();
+        maxInFlight.accumulateAndGet(inFlight, Math::max);
+        return read.get();
+      }
+    };
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    Pipeline<Integer, Integer> instance = Pipeline.<Integer>builder()
+            .withQueueCapacity(capacity)
+            .stage("fast", 4, item -> item)
+            .stage("persist", 1, item -> {
+              threads.add(Thread.currentThread().getName());
+              Thread.sleep(2);
+              persisted.incrementAndGet();
+              return item;
+            })
+            .build();
+    PipelineReport report = instance.run(source);
+    assertEquals(50, report.getNumberOfCompletedItems());
+    assertEquals(1, threads.size());
+    // queue 'fast' + threads 'fast' + queue 'persist' + thread 'persist' + item read by source
+    int maxItems = capacity + 4 + capacity + 1 + 1;
+    assertTrue("Too many items inside pipeline: " + maxInFlight.get(), maxInFlight.get() <= maxItems);
+    assertTrue(report.getStatistics("fast").getBlockedTime() > 0);
+  }
+
+  /**
+   * Test of builder with invalid parallelism.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidParallelism() {
+    System.out.println("invalid parallelism");
+    Pipeline.<Integer>builder().stage("invalid", 0, item -> item);
+  }
+
+  /**
+   * Test of builder without stages.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testEmptyPipeline() {
+    System.out.println("empty pipeline");
+    Pipeline.<Integer>builder().build();
+  }
+}
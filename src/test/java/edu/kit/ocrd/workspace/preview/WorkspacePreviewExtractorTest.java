@@ -0,0 +1,217 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.preview;
+
+import edu.kit.ocrd.workspace.MetsDocumentUtil;
+import edu.kit.ocrd.workspace.entity.MetsProperties;
+import edu.kit.ocrd.workspace.generator.WorkspaceGenerator;
+import edu.kit.ocrd.workspace.page.PageStreamExtractor;
+import edu.kit.ocrd.workspace.page.PageStreamExtractor.Granularity;
+import edu.kit.ocrd.workspace.page.PageTextElement;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.commons.io.FileUtils;
+import org.fzk.tools.xml.JaxenUtil;
+import org.jdom.Document;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for WorkspacePreviewExtractor.
+ */
+public class WorkspacePreviewExtractorTest {
+
+  private static final Path METS_FILE = Paths.get("src/test/resources/all/data/mets.xml");
+
+  private Path tempDir;
+
+  public WorkspacePreviewExtractorTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    tempDir = Files.createTempDirectory("workspacePreviewExtractorTest_");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    FileUtils.deleteDirectory(tempDir.toFile());
+  }
+
+  /**
+   * Test of extract method with workspace smaller than the limits.
+   */
+  @Test
+  public void testExtractComplete() throws Exception {
+    System.out.println("extract complete");
+    Path workspaceDir = tempDir.resolve("workspace");
+    Path metsFile = new WorkspaceGenerator().withPages(3).withFileGrps(3).withRegions(2).generate(workspaceDir, tempDir);
+    WorkspacePreview result = new WorkspacePreviewExtractor().withTimeBudget(10, TimeUnit.SECONDS).extract(metsFile, "resourceId");
+    assertEquals("resourceId", result.getResourceId());
+    assertFalse(result.isPartial());
+    assertFalse(result.isTimeBudgetExceeded());
+    assertTrue(result.isMetadataComplete());
+    assertTrue(result.isNoOfPagesExact());
+    assertEquals(3, result.getNoOfPages());
+    MetsProperties expected = MetsDocumentUtil.extractMetadataFromMets(JaxenUtil.getDocument(metsFile.toFile()), "resourceId");
+    MetsProperties metadata = result.getMetadata();
+    assertEquals(WorkspaceGenerator.TITLE, metadata.getTitle());
+    assertEquals(expected.getTitle(), metadata.getTitle());
+    assertEquals(expected.getAuthor(), metadata.getAuthor());
+    assertEquals(expected.getYear(), metadata.getYear());
+    assertEquals(expected.getPublisher(), metadata.getPublisher());
+    assertEquals(expected.getPhysicalDescription(), metadata.getPhysicalDescription());
+    assertEquals(expected.getNoOfPages(), metadata.getNoOfPages());
+    assertEquals(3, result.getPages().size());
+    for (int index = 0; index < 3; index++) {
+      PreviewPage page = result.getPages().get(index);
+      assertEquals(index + 1, page.getOrder());
+      // Last fileGrp by default.
+      assertEquals(WorkspaceGenerator.getPageFileGrp(2), page.getFileGrp());
+      assertEquals(WorkspaceGenerator.getPageUrl(2, index + 1), page.getPageUrl());
+      String text = PageStreamExtractor.extract(workspaceDir.resolve(page.getPageUrl()), Granularity.REGION).stream()
+              .map(PageTextElement::getText).collect(Collectors.joining("\n"));
+      assertEquals(text, page.getText());
+      assertEquals(2, page.getNoOfTextRegions());
+      assertTrue(page.isTextComplete());
+    }
+  }
+
+  /**
+   * Test of extract method with large workspace.
+   */
+  @Test
+  public void testExtractLargeWorkspace() throws Exception {
+    System.out.println("extract large workspace");
+    Path workspaceDir = tempDir.resolve("workspace");
+    Path metsFile = new WorkspaceGenerator().withPages(2000).withFileGrps(3).withRegions(1).generate(workspaceDir, tempDir);
+    WorkspacePreview result = new WorkspacePreviewExtractor()
+            .withMaxPages(5)
+            .withMaxPageFiles(2)
+            .withFileGrps(Arrays.asList("unknown", WorkspaceGenerator.getPageFileGrp(1)))
+            .withTimeBudget(10, TimeUnit.SECONDS)
+            .extract(metsFile, "resourceId");
+    // Text of all requested pages is complete.
+    assertFalse(result.isPartial());
+    assertFalse(result.isTimeBudgetExceeded());
+    assertTrue(result.isMetadataComplete());
+    // Estimated by the size of the fileGrps.
+    assertFalse(result.isNoOfPagesExact());
+    assertEquals(2000, result.getNoOfPages());
+    assertEquals(2000, result.getMetadata().getNoOfPages());
+    assertEquals(5, result.getPages().size());
+    assertEquals("phys_0005", result.getPages().get(4).getPageId());
+    for (int index = 0; index < 5; index++) {
+      PreviewPage page = result.getPages().get(index);
+      assertEquals(index < 2, page.isTextComplete());
+      assertEquals(index < 2 ? WorkspaceGenerator.getPageFileGrp(1) : null, page.getFileGrp());
+      assertEquals(index < 2, page.getText() != null);
+    }
+  }
+
+  /**
+   * Test of extract method with missing PAGE file.
+   */
+  @Test
+  public void testExtractMissingPageFile() throws Exception {
+    System.out.println("extract missing PAGE file");
+    Path workspaceDir = tempDir.resolve("workspace");
+    Path metsFile = new WorkspaceGenerator().withPages(3).withFileGrps(2).generate(workspaceDir, tempDir);
+    Files.delete(workspaceDir.resolve(WorkspaceGenerator.getPageUrl(1, 2)));
+    WorkspacePreview result = new WorkspacePreviewExtractor().withTimeBudget(10, TimeUnit.SECONDS).extract(metsFile, "resourceId");
+    assertTrue(result.isPartial());
+    assertFalse(result.isTimeBudgetExceeded());
+    assertTrue(result.isNoOfPagesExact());
+    assertTrue(result.getPages().get(0).isTextComplete());
+    assertFalse(result.getPages().get(1).isTextComplete());
+  }
+
+  /**
+   * Test of extract method with exceeded time budget.
+   */
+  @Test
+  public void testExtractTimeBudgetExceeded() throws Exception {
+    System.out.println("extract time budget exceeded");
+    Path metsFile = new WorkspaceGenerator().withPages(2).withFileGrps(2).generate(tempDir.resolve("workspace"), tempDir);
+    WorkspacePreview result = new WorkspacePreviewExtractor().withTimeBudget(1, TimeUnit.NANOSECONDS).extract(metsFile, "resourceId");
+    assertTrue(result.isTimeBudgetExceeded());
+    assertTrue(result.isPartial());
+    assertFalse(result.isMetadataComplete());
+    assertFalse(result.isNoOfPagesExact());
+    assertTrue(result.getPages().isEmpty());
+    assertEquals(MetsProperties.NO_TITLE, result.getMetadata().getTitle());
+  }
+
+  /**
+   * Test of extract method compared to the full extraction.
+   */
+  @Test
+  public void testExtractMets() throws Exception {
+    System.out.println("extract METS");
+    Document document = JaxenUtil.getDocument(METS_FILE.toFile());
+    MetsProperties expected = MetsDocumentUtil.extractMetadataFromMets(document, "resourceId");
+    WorkspacePreview result = new WorkspacePreviewExtractor().withMaxPageFiles(0).withTimeBudget(10, TimeUnit.SECONDS)
+            .extract(METS_FILE, "resourceId");
+    assertFalse(result.isTimeBudgetExceeded());
+    assertTrue(result.isMetadataComplete());
+    assertEquals(expected.getTitle(), result.getMetadata().getTitle());
+    assertEquals(expected.getAuthor(), result.getMetadata().getAuthor());
+    assertEquals(expected.getPpn(), result.getMetadata().getPpn());
+    assertEquals(expected.getYear(), result.getMetadata().getYear());
+    assertEquals(expected.getLicense(), result.getMetadata().getLicense());
+    assertEquals(expected.getNoOfPages(), result.getNoOfPages());
+    assertTrue(result.isNoOfPagesExact());
+    // No text requested.
+    assertFalse(result.isPartial());
+    assertNull(result.getPages().get(0).getText());
+  }
+
+  /**
+   * Test of extract method with missing METS file.
+   */
+  @Test(expected = IOException.class)
+  public void testExtractMissingFile() throws Exception {
+    System.out.println("extract missing file");
+    new WorkspacePreviewExtractor().extract(new File(tempDir.toFile(), "mets.xml").toPath(), "resourceId");
+  }
+
+  /**
+   * Test of withTimeBudget method with invalid budget.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testWithTimeBudgetInvalid() {
+    System.out.println("withTimeBudget invalid");
+    new WorkspacePreviewExtractor().withTimeBudget(0, TimeUnit.MILLISECONDS);
+  }
+}
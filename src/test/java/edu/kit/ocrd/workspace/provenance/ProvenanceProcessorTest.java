@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.provenance;
+
+import java.util.Date;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for ProvenanceProcessor.
+ */
+public class ProvenanceProcessorTest {
+
+  public ProvenanceProcessorTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of getter methods, of class ProvenanceProcessor.
+   */
+  @Test
+  public void testGetter() {
+    System.out.println("getter");
+    ProvenanceProcessor instance = new ProvenanceProcessor("id", "label", 2000L, 4499L, "{\"level\": 2}", new int[]{1}, new int[]{2, 3});
+    assertEquals("id", instance.getId());
+    assertEquals("label", instance.getLabel());
+    assertEquals(2000L, instance.getStartTime());
+    assertEquals(4499L, instance.getEndTime());
+    assertEquals(new Date(2000L), instance.getStartDate());
+    // Rounded to seconds.
+    assertEquals(2L, instance.getDuration());
+    assertEquals("{\"level\": 2}", instance.getParameterFile());
+    assertArrayEquals(new int[]{1}, instance.getInputFileGrps());
+    assertArrayEquals(new int[]{2, 3}, instance.getOutputFileGrps());
+    assertTrue(instance.toString().contains("label=label"));
+  }
+
+  /**
+   * Test of getDuration method without times, of class ProvenanceProcessor.
+   */
+  @Test
+  public void testGetDurationWithoutTimes() {
+    System.out.println("getDuration without times");
+    ProvenanceProcessor instance = new ProvenanceProcessor("id", "label", ProvenanceWorkflow.NO_TIME, ProvenanceWorkflow.NO_TIME, null, new int[0], new int[0]);
+    assertNull(instance.getStartDate());
+    assertEquals(0L, instance.getDuration());
+    // Order of times doesn't matter.
+    assertEquals(3L, new ProvenanceProcessor("id", "label", 5000L, 2000L, null, new int[0], new int[0]).getDuration());
+  }
+}
@@ -7,6 +7,8 @@ package edu.kit.ocrd.workspace.provenance;
 
 import edu.kit.ocrd.workspace.entity.ProvenanceMetadata;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.fzk.tools.xml.JaxenUtil;
 import org.jdom.Document;
@@ -77,4 +79,86 @@ public class ProvenanceUtilTest {
     assertEquals(12, result.size());
   }
   
+  /**
+   * Test of extractProvenanceWorkflows method, of class ProvenanceUtil.
+   */
+  @Test
+  public void testExtractProvenanceWorkflows() throws Exception {
+    System.out.println("extractProvenanceWorkflows");
+    Document provDocument = JaxenUtil.getDocument(new File("src/test/resources/provenance/ocrd_provenance.xml"));
+    Document metsDocument = JaxenUtil.getDocument(new File("src/test/resources/provenance/mets.xml"));
+    List<ProvenanceWorkflow> result = ProvenanceUtil.extractProvenanceWorkflows(provDocument, metsDocument, "anyResourceId");
+    assertEquals(3, result.size());
+    int noOfProcessors = 0;
+    for (ProvenanceWorkflow workflow : result) {
+      assertEquals("anyResourceId", workflow.getResourceId());
+      assertTrue(workflow.getStartTime() > 0);
+      assertTrue(workflow.getEndTime() >= workflow.getStartTime());
+      assertEquals(4, workflow.getProcessors().size());
+      noOfProcessors += workflow.getProcessors().size();
+      // FileGrps are shared by all workflows.
+      assertEquals(result.get(0).getNoOfFileGrps(), workflow.getNoOfFileGrps());
+      for (int index = 0; index < workflow.getNoOfFileGrps(); index++) {
+        assertSame(result.get(0).getFileGrp(index), workflow.getFileGrp(index));
+      }
+    }
+    assertEquals(12, noOfProcessors);
+    // Denormalized view is identical to extracted provenance metadata.
+    List<ProvenanceMetadata> expected = ProvenanceUtil.extractWorkflows(provDocument, metsDocument, "anyResourceId");
+    List<ProvenanceMetadata> rows = ProvenanceWorkflow.toProvenanceMetadata(result);
+    assertEquals(expected.size(), rows.size());
+    for (int index = 0; index < expected.size(); index++) {
+      assertEquals(expected.get(index).getWorkflowId(), rows.get(index).getWorkflowId());
+      assertEquals(expected.get(index).getStartWorkflow(), rows.get(index).getStartWorkflow());
+      assertEquals(expected.get(index).getDurationWorkflow(), rows.get(index).getDurationWorkflow());
+      assertEquals(expected.get(index).getProcessorLabel(), rows.get(index).getProcessorLabel());
+      assertEquals(expected.get(index).getStartProcessor(), rows.get(index).getStartProcessor());
+      assertEquals(expected.get(index).getDurationProcessor(), rows.get(index).getDurationProcessor());
+      assertEquals(expected.get(index).getParameterFile(), rows.get(index).getParameterFile());
+      assertEquals(expected.get(index).getInputFileGrps(), rows.get(index).getInputFileGrps());
+      assertEquals(expected.get(index).getOutputFileGrps(), rows.get(index).getOutputFileGrps());
+    }
+    ProvenanceProcessor recognize = null;
+    for (ProvenanceProcessor processor : result.get(0).getProcessors()) {
+      if (processor.getLabel().startsWith("ocrd-tesserocr-segment-line")) {
+        recognize = processor;
+      }
+    }
+    assertNotNull(recognize);
+    assertEquals(1, recognize.getInputFileGrps().length);
+    assertEquals(1, recognize.getOutputFileGrps().length);
+    assertTrue(result.get(0).getFileGrp(recognize.getOutputFileGrps()[0]).startsWith("OCR-D-SEG-LINE"));
+  }
+
+  /**
+   * Test of getFileGrps method, of class ProvenanceUtil.
+   */
+  @Test
+  public void testGetFileGrps() {
+    System.out.println("getFileGrps");
+    assertEquals(Arrays.asList("OCR-D-IMG", "OCR-D-SEG"), ProvenanceUtil.getFileGrps("[OCR-D-IMG, OCR-D-SEG]"));
+    assertEquals(Arrays.asList("OCR-D-IMG"), ProvenanceUtil.getFileGrps("OCR-D-IMG"));
+    assertTrue(ProvenanceUtil.getFileGrps("[]").isEmpty());
+    assertTrue(ProvenanceUtil.getFileGrps(null).isEmpty());
+  }
+
+  /**
+   * Test of getFinalOutputFileGrp method, of class ProvenanceUtil.
+   */
+  @Test
+  public void testGetFinalOutputFileGrp() throws Exception {
+    System.out.println("getFinalOutputFileGrp");
+    File metsFile = new File("src/test/resources/provenance/mets.xml");
+    File provFile = new File("src/test/resources/provenance/ocrd_provenance.xml");
+    Document provDocument = JaxenUtil.getDocument(provFile);
+    Document metsDocument = JaxenUtil.getDocument(metsFile);
+    List<ProvenanceMetadata> provenance = ProvenanceUtil.extractWorkflows(provDocument, metsDocument, "anyResourceId");
+    List<String> candidates = Arrays.asList("OCR-D-SEG-LINE", "OCR-D-OCR-TESSEROCR", "OCR-D-OCR-TESSEROCR1", "OCR-D-OCR-TESSEROCR2");
+    // Latest workflow (13th of November).
+    assertEquals("OCR-D-OCR-TESSEROCR2", ProvenanceUtil.getFinalOutputFileGrp(provenance, candidates));
+    assertEquals("OCR-D-SEG-LINE", ProvenanceUtil.getFinalOutputFileGrp(provenance, Arrays.asList("OCR-D-SEG-LINE")));
+    assertNull(ProvenanceUtil.getFinalOutputFileGrp(provenance, Arrays.asList("UNKNOWN")));
+    assertNull(ProvenanceUtil.getFinalOutputFileGrp(new ArrayList<>(), candidates));
+  }
+
 }
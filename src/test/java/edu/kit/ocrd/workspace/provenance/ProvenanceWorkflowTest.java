@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.provenance;
+
+import edu.kit.ocrd.workspace.entity.ProvenanceMetadata;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for ProvenanceWorkflow.
+ */
+public class ProvenanceWorkflowTest {
+
+  private static final String[] FILE_GRPS = {"OCR-D-IMG", "OCR-D-OCR", "OCR-D-SEG"};
+
+  public ProvenanceWorkflowTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of getter methods, of class ProvenanceWorkflow.
+   */
+  @Test
+  public void testGetter() {
+    System.out.println("getter");
+    ProvenanceWorkflow instance = createWorkflow();
+    assertEquals("resourceId", instance.getResourceId());
+    assertEquals("workflow", instance.getWorkflowId());
+    assertEquals(1000000L, instance.getStartTime());
+    assertEquals(1010400L, instance.getEndTime());
+    assertEquals(10L, instance.getDuration());
+    assertEquals(3, instance.getNoOfFileGrps());
+    assertEquals("OCR-D-SEG", instance.getFileGrp(2));
+    assertEquals(2, instance.getProcessors().size());
+    try {
+      instance.getProcessors().clear();
+      fail("Processors should be unmodifiable!");
+    } catch (UnsupportedOperationException ex) {
+      assertEquals(2, instance.getProcessors().size());
+    }
+    assertTrue(instance.toString().contains("processors=2"));
+    ProvenanceWorkflow empty = new ProvenanceWorkflow(null, "empty", ProvenanceWorkflow.NO_TIME, 5000L, new String[0], new ArrayList<>());
+    assertEquals(0L, empty.getDuration());
+    assertTrue(empty.toProvenanceMetadata().isEmpty());
+  }
+
+  /**
+   * Test of toProvenanceMetadata method, of class ProvenanceWorkflow.
+   */
+  @Test
+  public void testToProvenanceMetadata() {
+    System.out.println("toProvenanceMetadata");
+    List<ProvenanceMetadata> result = createWorkflow().toProvenanceMetadata();
+    assertEquals(2, result.size());
+    ProvenanceMetadata first = result.get(0);
+    assertEquals("resourceId", first.getResourceId());
+    assertEquals("workflow", first.getWorkflowId());
+    assertEquals(new Date(1000000L), first.getStartWorkflow());
+    assertEquals(Long.valueOf(10L), first.getDurationWorkflow());
+    assertEquals("ocrd-segment", first.getProcessorLabel());
+    assertEquals(new Date(1000000L), first.getStartProcessor());
+    assertEquals(Long.valueOf(4L), first.getDurationProcessor());
+    assertEquals("{}", first.getParameterFile());
+    assertEquals("[OCR-D-IMG]", first.getInputFileGrps());
+    assertEquals("[OCR-D-SEG]", first.getOutputFileGrps());
+    ProvenanceMetadata second = result.get(1);
+    assertNull(second.getStartProcessor());
+    assertEquals(Long.valueOf(0L), second.getDurationProcessor());
+    assertNull(second.getParameterFile());
+    assertEquals("[OCR-D-IMG, OCR-D-SEG]", second.getInputFileGrps());
+    assertEquals(Arrays.asList("OCR-D-IMG", "OCR-D-SEG"), ProvenanceUtil.getFileGrps(second.getInputFileGrps()));
+    assertEquals("[]", second.getOutputFileGrps());
+    // Rows of several workflows.
+    assertEquals(4, ProvenanceWorkflow.toProvenanceMetadata(Arrays.asList(createWorkflow(), createWorkflow())).size());
+  }
+
+  private static ProvenanceWorkflow createWorkflow() {
+    List<ProvenanceProcessor> processors = new ArrayList<>();
+    processors.add(new ProvenanceProcessor("p0", "ocrd-segment", 1000000L, 1003600L, "{}", new int[]{0}, new int[]{2}));
+    processors.add(new ProvenanceProcessor("p1", "ocrd-recognize", ProvenanceWorkflow.NO_TIME, 1010400L, null, new int[]{0, 2}, new int[0]));
+    return new ProvenanceWorkflow("resourceId", "workflow", 1000000L, 1010400L, FILE_GRPS, processors);
+  }
+}
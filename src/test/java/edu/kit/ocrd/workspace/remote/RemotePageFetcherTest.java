@@ -0,0 +1,280 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.remote;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.kit.ocrd.workspace.PageExtractorUtil;
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for RemotePageFetcher using a local HTTP server.
+ */
+public class RemotePageFetcherTest {
+
+  private static final Path PAGE_FILE = Paths.get("src/test/resources/all/data/OCR-D-OCR-TESSEROCR-FRAKTUR/OCR-D-OCR-TESSEROCR-FRAKTUR_0001.xml");
+
+  private static final String ETAG = "\"v1\"";
+
+  private HttpServer server;
+
+  private ExecutorService serverExecutor;
+
+  private String baseUrl;
+
+  private Path tempDir;
+
+  private final AtomicInteger noOfRequests = new AtomicInteger();
+
+  private final AtomicInteger noOfParallelRequests = new AtomicInteger();
+
+  private final AtomicInteger maxParallelRequests = new AtomicInteger();
+
+  public RemotePageFetcherTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("remotePageFetcherTest_");
+    byte[] page = Files.readAllBytes(PAGE_FILE);
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    serverExecutor = Executors.newFixedThreadPool(8);
+    server.setExecutor(serverExecutor);
+    server.createContext("/page", exchange -> {
+      track(() -> {
+        if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+          exchange.sendResponseHeaders(304, -1);
+          exchange.close();
+        } else {
+          exchange.getResponseHeaders().add("ETag", ETAG);
+          respond(exchange, 200, page);
+        }
+      });
+    });
+    server.createContext("/noetag", exchange -> track(() -> respond(exchange, 200, page)));
+    server.createContext("/slow", exchange -> track(() -> {
+      sleep(200);
+      respond(exchange, 200, page);
+    }));
+    server.createContext("/missing", exchange -> track(() -> respond(exchange, 404, "not found".getBytes(StandardCharsets.UTF_8))));
+    server.start();
+    baseUrl = "http://localhost:" + server.getAddress().getPort();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    server.stop(0);
+    serverExecutor.shutdownNow();
+    FileUtils.deleteDirectory(tempDir.toFile());
+  }
+
+  /**
+   * Test of fetch method, of class RemotePageFetcher.
+   */
+  @Test
+  public void testFetch() throws Exception {
+    System.out.println("fetch");
+    try (RemotePageFetcher instance = new RemotePageFetcher(tempDir.resolve("cache"))) {
+      Path result = instance.fetch(baseUrl + "/page/1.xml").get();
+      assertArrayEquals(Files.readAllBytes(PAGE_FILE), Files.readAllBytes(result));
+      assertEquals(1, instance.getNumberOfDownloads());
+      // Revalidated with ETag.
+      assertEquals(result, instance.fetch(baseUrl + "/page/1.xml").get());
+      assertEquals(1, instance.getNumberOfDownloads());
+      assertEquals(1, instance.getNumberOfNotModified());
+      // Without ETag always downloaded.
+      instance.fetch(baseUrl + "/noetag/1.xml").get();
+      instance.fetch(baseUrl + "/noetag/1.xml").get();
+      assertEquals(3, instance.getNumberOfDownloads());
+    }
+    // Disk cache is reused by new instance.
+    try (RemotePageFetcher instance = new RemotePageFetcher(tempDir.resolve("cache"))) {
+      instance.fetch(baseUrl + "/page/1.xml").get();
+      assertEquals(0, instance.getNumberOfDownloads());
+      assertEquals(1, instance.getNumberOfNotModified());
+    }
+  }
+
+  /**
+   * Test of fetch method with missing file.
+   */
+  @Test
+  public void testFetchMissing() throws Exception {
+    System.out.println("fetch missing");
+    try (RemotePageFetcher instance = new RemotePageFetcher(tempDir.resolve("cache"))) {
+      instance.fetch(baseUrl + "/missing/1.xml").get();
+      fail("Exception expected!");
+    } catch (ExecutionException ex) {
+      assertTrue(ex.getCause() instanceof IOException);
+      assertTrue(ex.getCause().getMessage().contains("404"));
+    }
+  }
+
+  /**
+   * Test of fetch method with a URL failing immediately. A failed download
+   * must not stay registered as pending.
+   */
+  @Test
+  public void testFetchFailingTwice() throws Exception {
+    System.out.println("fetch failing twice");
+    try (RemotePageFetcher instance = new RemotePageFetcher(tempDir.resolve("cache"))) {
+      for (int round = 0; round < 100; round++) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+          try {
+            instance.fetch("unknown://localhost/page.xml").get(10, TimeUnit.SECONDS);
+            fail("Exception expected!");
+          } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof MalformedURLException);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Test of withTimeouts method, of class RemotePageFetcher.
+   */
+  @Test
+  public void testTimeout() throws Exception {
+    System.out.println("timeout");
+    try (RemotePageFetcher instance = new RemotePageFetcher(tempDir.resolve("cache")).withTimeouts(1000, 50)) {
+      instance.fetch(baseUrl + "/slow/1.xml").get();
+      fail("Exception expected!");
+    } catch (ExecutionException ex) {
+      assertTrue(ex.getCause() instanceof IOException);
+    }
+  }
+
+  /**
+   * Test of withMaxConnectionsPerHost method, of class RemotePageFetcher.
+   */
+  @Test
+  public void testMaxConnectionsPerHost() throws Exception {
+    System.out.println("withMaxConnectionsPerHost");
+    try (RemotePageFetcher instance = new RemotePageFetcher(tempDir.resolve("cache"), 8).withMaxConnectionsPerHost(2)) {
+      List<CompletableFuture<Path>> results = new ArrayList<>();
+      for (int index = 0; index < 8; index++) {
+        results.add(instance.fetch(baseUrl + "/slow/" + index + ".xml"));
+      }
+      CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get();
+      assertEquals(8, instance.getNumberOfDownloads());
+      assertEquals(8, noOfRequests.get());
+      assertTrue("Parallel requests: " + maxParallelRequests.get(), maxParallelRequests.get() <= 2);
+    }
+  }
+
+  /**
+   * Test of extractAllTextRegions method with remote PAGE files.
+   */
+  @Test
+  public void testExtractAllTextRegionsWithRemotePages() throws Exception {
+    System.out.println("extractAllTextRegions with remote pages");
+    Path workspace = Files.createDirectories(tempDir.resolve("workspace"));
+    FileUtils.copyFile(PAGE_FILE.toFile(), workspace.resolve("OCR-D-OCR/local.xml").toFile());
+    String remoteUrl = baseUrl + "/page/remote.xml";
+    String mets = "<mets:mets xmlns:mets='http://www.loc.gov/METS/' xmlns:xlink='http://www.w3.org/1999/xlink'>"
+            + "<mets:fileSec><mets:fileGrp USE='OCR-D-OCR'>"
+            + "<mets:file ID='LOCAL' MIMETYPE='application/vnd.prima.page+xml'><mets:FLocat LOCTYPE='URL' xlink:href='OCR-D-OCR/local.xml'/></mets:file>"
+            + "<mets:file ID='REMOTE' MIMETYPE='application/vnd.prima.page+xml'><mets:FLocat LOCTYPE='URL' xlink:href='" + remoteUrl + "'/></mets:file>"
+            + "</mets:fileGrp></mets:fileSec></mets:mets>";
+    Path metsFile = workspace.resolve("mets.xml");
+    Files.write(metsFile, mets.getBytes(StandardCharsets.UTF_8));
+    // Remote files are ignored without fetcher.
+    List<TextRegion> localOnly = PageExtractorUtil.extractAllTextRegions(metsFile.toFile(), "resourceId");
+    assertEquals(5, localOnly.size());
+    try (RemotePageFetcher instance = new RemotePageFetcher(tempDir.resolve("cache"))) {
+      List<TextRegion> result = PageExtractorUtil.extractAllTextRegions(metsFile.toFile(), "resourceId", null, instance);
+      assertEquals(10, result.size());
+      assertEquals("OCR-D-OCR/local.xml", result.get(0).getPageUrl());
+      assertEquals(remoteUrl, result.get(9).getPageUrl());
+      assertEquals(localOnly.get(0).getText(), result.get(5).getText());
+    }
+  }
+
+  /**
+   * Test of isRemote method, of class RemotePageFetcher.
+   */
+  @Test
+  public void testIsRemote() {
+    System.out.println("isRemote");
+    assertTrue(RemotePageFetcher.isRemote("http://example.org/page.xml"));
+    assertTrue(RemotePageFetcher.isRemote("https://example.org/page.xml"));
+    assertFalse(RemotePageFetcher.isRemote("OCR-D-OCR/page.xml"));
+    assertFalse(RemotePageFetcher.isRemote("file:///tmp/page.xml"));
+  }
+
+  private void track(final Handler handler) throws IOException {
+    noOfRequests.incrementAndGet();
+    int parallel = noOfParallelRequests.incrementAndGet();
+    maxParallelRequests.accumulateAndGet(parallel, Math::max);
+    try {
+      handler.handle();
+    } finally {
+      noOfParallelRequests.decrementAndGet();
+    }
+  }
+
+  private static void respond(final HttpExchange exchange, final int status, final byte[] content) throws IOException {
+    exchange.sendResponseHeaders(status, content.length);
+    try (OutputStream outputStream = exchange.getResponseBody()) {
+      outputStream.write(content);
+    }
+  }
+
+  private static void sleep(final long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private interface Handler {
+
+    void handle() throws IOException;
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.spatial;
+
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for PageSpatialIndex.
+ */
+public class PageSpatialIndexTest {
+
+  public PageSpatialIndexTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of search method compared to linear search.
+   */
+  @Test
+  public void testSearch() {
+    System.out.println("search");
+    Random random = new Random(4711);
+    for (int noOfRegions : new int[]{0, 1, 15, 16, 17, 300, 5000}) {
+      List<TextRegion> textRegions = createTextRegions(random, noOfRegions);
+      PageSpatialIndex instance = PageSpatialIndex.build(textRegions);
+      assertEquals(noOfRegions - noOfRegions / 10, instance.getNoOfItems());
+      for (int query = 0; query < 200; query++) {
+        int minX = random.nextInt(5000);
+        int minY = random.nextInt(7000);
+        int maxX = minX + random.nextInt(800);
+        int maxY = minY + random.nextInt(800);
+        assertArrayEquals(searchLinear(textRegions, minX, minY, maxX, maxY), instance.search(minX, minY, maxX, maxY));
+        assertArrayEquals(searchLinear(textRegions, minX, minY, minX, minY), instance.search(minX, minY));
+      }
+    }
+  }
+
+  /**
+   * Test of hitTest method.
+   */
+  @Test
+  public void testHitTest() {
+    System.out.println("hitTest");
+    List<TextRegion> textRegions = new ArrayList<>();
+    // Two triangles sharing the same bounding box.
+    textRegions.add(region(0, 0, 100, 0, 0, 100));
+    textRegions.add(region(100, 0, 100, 100, 0, 100));
+    textRegions.add(region());
+    textRegions.add(region(200, 200, 300, 200, 300, 300, 200, 300));
+    PageSpatialIndex instance = PageSpatialIndex.build(textRegions);
+    assertEquals(3, instance.getNoOfItems());
+    assertArrayEquals(new int[]{0, 1}, instance.search(10, 10));
+    assertArrayEquals(new int[]{0}, instance.hitTest(textRegions, 10, 10));
+    assertArrayEquals(new int[]{1}, instance.hitTest(textRegions, 90, 90));
+    assertArrayEquals(new int[]{0, 1}, instance.hitTest(textRegions, 50, 50));
+    assertArrayEquals(new int[]{3}, instance.hitTest(textRegions, 250, 250));
+    assertEquals(0, instance.hitTest(textRegions, 150, 150).length);
+    assertArrayEquals(new int[]{0, 1, 3}, instance.search(0, 0, 1000, 1000));
+  }
+
+  /**
+   * Test of write and read method.
+   */
+  @Test
+  public void testWriteAndRead() throws IOException {
+    System.out.println("write/read");
+    Random random = new Random(42);
+    for (int noOfRegions : new int[]{0, 1, 1000}) {
+      List<TextRegion> textRegions = createTextRegions(random, noOfRegions);
+      PageSpatialIndex instance = PageSpatialIndex.build(textRegions);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      instance.write(new DataOutputStream(bytes));
+      PageSpatialIndex result = PageSpatialIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+      assertEquals(instance.getNoOfItems(), result.getNoOfItems());
+      for (int query = 0; query < 50; query++) {
+        int x = random.nextInt(5000);
+        int y = random.nextInt(7000);
+        assertArrayEquals(instance.search(x, y, x + 500, y + 500), result.search(x, y, x + 500, y + 500));
+      }
+    }
+    try {
+      PageSpatialIndex.read(new DataInputStream(new ByteArrayInputStream(new byte[16])));
+      fail("Invalid index not detected!");
+    } catch (IOException ex) {
+      assertTrue(ex.getMessage().contains("Invalid"));
+    }
+  }
+
+  /**
+   * Test of hitTest method with large page.
+   */
+  @Test
+  public void testHitTestLargePage() {
+    System.out.println("hitTest large page");
+    Random random = new Random(1);
+    List<TextRegion> textRegions = createTextRegions(random, 10000);
+    PageSpatialIndex instance = PageSpatialIndex.build(textRegions);
+    int noOfQueries = 10000;
+    int noOfHits = 0;
+    long start = System.nanoTime();
+    for (int query = 0; query < noOfQueries; query++) {
+      noOfHits += instance.hitTest(textRegions, random.nextInt(5000), random.nextInt(7000)).length;
+    }
+    long durationPerQuery = (System.nanoTime() - start) / noOfQueries;
+    System.out.println("Hits: " + noOfHits + ", ns per hit test: " + durationPerQuery);
+    assertTrue(noOfHits > 0);
+    // Sub millisecond (generous limit for slow build machines).
+    assertTrue(durationPerQuery < 1000000);
+  }
+
+  /**
+   * Test of getHilbertValue method.
+   */
+  @Test
+  public void testGetHilbertValue() {
+    System.out.println("getHilbertValue");
+    assertEquals(0, PageSpatialIndex.getHilbertValue(0, 0));
+    // Neighbours on the curve are neighbours in space.
+    int size = 64;
+    int[][] positions = new int[size * size][];
+    for (int x = 0; x < size; x++) {
+      for (int y = 0; y < size; y++) {
+        long value = PageSpatialIndex.getHilbertValue(x << 9, y << 9) >> 18;
+        assertNull(positions[(int) value]);
+        positions[(int) value] = new int[]{x, y};
+      }
+    }
+    for (int index = 1; index < positions.length; index++) {
+      int distance = Math.abs(positions[index][0] - positions[index - 1][0]) + Math.abs(positions[index][1] - positions[index - 1][1]);
+      assertEquals(1, distance);
+    }
+  }
+
+  private static int[] searchLinear(final List<TextRegion> textRegions, final int minX, final int minY, final int maxX, final int maxY) {
+    List<Integer> result = new ArrayList<>();
+    for (int index = 0; index < textRegions.size(); index++) {
+      TextRegion textRegion = textRegions.get(index);
+      if (textRegion.hasCoordinates() && textRegion.getMinX() <= maxX && textRegion.getMaxX() >= minX
+              && textRegion.getMinY() <= maxY && textRegion.getMaxY() >= minY) {
+        result.add(index);
+      }
+    }
+    int[] items = new int[result.size()];
+    Arrays.setAll(items, result::get);
+    return items;
+  }
+
+  private static List<TextRegion> createTextRegions(final Random random, final int noOfRegions) {
+    List<TextRegion> textRegions = new ArrayList<>();
+    for (int index = 0; index < noOfRegions; index++) {
+      if (index % 10 == 9) {
+        // Some regions without coordinates.
+        textRegions.add(region());
+      } else {
+        int left = random.nextInt(5000);
+        int top = random.nextInt(7000);
+        int right = left + 1 + random.nextInt(300);
+        int bottom = top + 1 + random.nextInt(100);
+        textRegions.add(region(left, top, right, top, right, bottom, left, bottom));
+      }
+    }
+    return textRegions;
+  }
+
+  private static TextRegion region(final int... points) {
+    TextRegion textRegion = new TextRegion();
+    textRegion.setPoints(points);
+    return textRegion;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.spatial;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for PolygonUtil.
+ */
+public class PolygonUtilTest {
+
+  public PolygonUtilTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of parsePoints method, of class PolygonUtil.
+   */
+  @Test
+  public void testParsePoints() {
+    System.out.println("parsePoints");
+    assertArrayEquals(new int[]{1, 2, 30, 40, 5, 60}, PolygonUtil.parsePoints("1,2 30,40  5,60"));
+    assertArrayEquals(new int[]{1, 2, 5, 6}, PolygonUtil.parsePoints(" 1,2\n3,x -1,4 5,6 7, ,8 9 "));
+    assertEquals(0, PolygonUtil.parsePoints("").length);
+    assertEquals(0, PolygonUtil.parsePoints(null).length);
+    StringBuilder points = new StringBuilder();
+    for (int index = 0; index < 100; index++) {
+      points.append(index).append(',').append(2 * index).append(' ');
+    }
+    int[] result = PolygonUtil.parsePoints(points.toString());
+    assertEquals(200, result.length);
+    assertEquals(198, result[199]);
+    assertEquals(points.toString().trim(), PolygonUtil.formatPoints(result));
+  }
+
+  /**
+   * Test of getBoundingBox method, of class PolygonUtil.
+   */
+  @Test
+  public void testGetBoundingBox() {
+    System.out.println("getBoundingBox");
+    assertArrayEquals(new int[]{5, 2, 30, 60}, PolygonUtil.getBoundingBox(new int[]{10, 2, 30, 40, 5, 60}));
+    assertArrayEquals(new int[]{-1, -1, -1, -1}, PolygonUtil.getBoundingBox(PolygonUtil.NO_POINTS));
+  }
+
+  /**
+   * Test of contains method, of class PolygonUtil.
+   */
+  @Test
+  public void testContains() {
+    System.out.println("contains");
+    // L shaped polygon.
+    int[] polygon = {0, 0, 100, 0, 100, 20, 20, 20, 20, 100, 0, 100};
+    assertTrue(PolygonUtil.contains(polygon, 10, 10));
+    assertTrue(PolygonUtil.contains(polygon, 90, 10));
+    assertTrue(PolygonUtil.contains(polygon, 10, 90));
+    assertFalse(PolygonUtil.contains(polygon, 50, 50));
+    assertFalse(PolygonUtil.contains(polygon, 101, 10));
+    assertFalse(PolygonUtil.contains(polygon, 10, 101));
+    // Border and corners
+    assertTrue(PolygonUtil.contains(polygon, 0, 0));
+    assertTrue(PolygonUtil.contains(polygon, 100, 10));
+    assertTrue(PolygonUtil.contains(polygon, 20, 50));
+    assertTrue(PolygonUtil.contains(polygon, 60, 20));
+    // Triangle
+    int[] triangle = {0, 0, 100, 0, 0, 100};
+    assertTrue(PolygonUtil.contains(triangle, 49, 49));
+    assertTrue(PolygonUtil.contains(triangle, 50, 50));
+    assertFalse(PolygonUtil.contains(triangle, 51, 51));
+    // Degenerated polygons
+    assertTrue(PolygonUtil.contains(new int[]{0, 0, 10, 10}, 5, 7));
+    assertFalse(PolygonUtil.contains(new int[]{0, 0, 10, 10}, 5, 11));
+    assertFalse(PolygonUtil.contains(PolygonUtil.NO_POINTS, 0, 0));
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.stats;
+
+import edu.kit.ocrd.workspace.entity.ConfidenceStatistics;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for ConfidenceHistogram.
+ */
+public class ConfidenceHistogramTest {
+
+  private static final float MAX_ERROR = 1.0f / ConfidenceHistogram.NO_OF_BINS;
+
+  public ConfidenceHistogramTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of getPercentile method, of class ConfidenceHistogram.
+   */
+  @Test
+  public void testGetPercentile() {
+    System.out.println("getPercentile");
+    ConfidenceHistogram instance = new ConfidenceHistogram(0.5f);
+    Random random = new Random(42);
+    float[] values = new float[10000];
+    double sum = 0;
+    for (int index = 0; index < values.length; index++) {
+      values[index] = random.nextFloat();
+      sum += values[index];
+      instance.add(values[index], 1);
+    }
+    Arrays.sort(values);
+    assertEquals(values.length, instance.getCount());
+    assertEquals((float) (sum / values.length), instance.getMean(), 1e-5f);
+    assertEquals(values[values.length / 10], instance.getPercentile(0.1), MAX_ERROR);
+    assertEquals(values[values.length / 2], instance.getPercentile(0.5), MAX_ERROR);
+    assertEquals(values[values.length * 9 / 10], instance.getPercentile(0.9), MAX_ERROR);
+  }
+
+  /**
+   * Test of add method with special values.
+   */
+  @Test
+  public void testAdd() {
+    System.out.println("add");
+    ConfidenceHistogram instance = new ConfidenceHistogram(0.5f);
+    assertTrue(Float.isNaN(instance.getMean()));
+    assertTrue(Float.isNaN(instance.getPercentile(0.5)));
+    instance.add(Float.NaN, 3);
+    instance.add(1.0f, 4);
+    instance.add(0.2f, 5);
+    instance.add(-1.0f, 6);
+    assertEquals(3, instance.getCount());
+    assertEquals(1, instance.getNoOfMissingConfidences());
+    assertEquals(3 + 4 + 5 + 6, instance.getNoOfCharacters());
+    assertEquals(5 + 6, instance.getNoOfLowConfidenceCharacters());
+    assertEquals(0.4f, instance.getMean(), 1e-6f);
+    assertEquals(1.0f, instance.getPercentile(1.0), MAX_ERROR);
+    assertEquals(0.0f, instance.getPercentile(0.0), MAX_ERROR);
+  }
+
+  /**
+   * Test of merge method, of class ConfidenceHistogram.
+   */
+  @Test
+  public void testMerge() {
+    System.out.println("merge");
+    ConfidenceHistogram first = new ConfidenceHistogram(0.5f);
+    ConfidenceHistogram second = new ConfidenceHistogram(0.5f);
+    first.add(0.1f, 2);
+    second.add(0.9f, 3);
+    second.add(Float.NaN, 1);
+    first.merge(second);
+    assertEquals(2, first.getCount());
+    assertEquals(0.5f, first.getMean(), 1e-6f);
+    assertEquals(6, first.getNoOfCharacters());
+    assertEquals(2, first.getNoOfLowConfidenceCharacters());
+    assertEquals(1, first.getNoOfMissingConfidences());
+    first.clear();
+    assertEquals(0, first.getCount());
+    assertEquals(0, first.getNoOfCharacters());
+  }
+
+  /**
+   * Test of merge method with different thresholds.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testMergeDifferentThreshold() {
+    System.out.println("merge different threshold");
+    new ConfidenceHistogram(0.5f).merge(new ConfidenceHistogram(0.6f));
+  }
+
+  /**
+   * Test of toStatistics method, of class ConfidenceHistogram.
+   */
+  @Test
+  public void testToStatistics() {
+    System.out.println("toStatistics");
+    ConfidenceHistogram instance = new ConfidenceHistogram(0.7f);
+    instance.add(0.6f, 10);
+    instance.add(0.8f, 20);
+    ConfidenceStatistics result = instance.toStatistics(ConfidenceStatistics.SCOPE_PAGE, "OCR-D-OCR", "OCR-D-OCR/page.xml");
+    assertEquals(ConfidenceStatistics.SCOPE_PAGE, result.getScope());
+    assertEquals("OCR-D-OCR", result.getFileGrp());
+    assertEquals("OCR-D-OCR/page.xml", result.getPageUrl());
+    assertEquals(2, result.getCount());
+    assertEquals(0.7f, result.getMean(), 1e-6f);
+    assertEquals(instance.getPercentile(0.1), result.getP10(), 0.0f);
+    assertEquals(instance.getPercentile(0.5), result.getP50(), 0.0f);
+    assertEquals(instance.getPercentile(0.9), result.getP90(), 0.0f);
+    assertEquals(30, result.getNoOfCharacters());
+    assertEquals(10, result.getNoOfLowConfidenceCharacters());
+    assertEquals(0.7f, result.getLowConfidenceThreshold(), 0.0f);
+  }
+}
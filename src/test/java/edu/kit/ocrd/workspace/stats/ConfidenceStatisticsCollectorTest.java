@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.stats;
+
+import edu.kit.ocrd.workspace.entity.ConfidenceStatistics;
+import edu.kit.ocrd.workspace.entity.TextRegion;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for ConfidenceStatisticsCollector.
+ */
+public class ConfidenceStatisticsCollectorTest {
+
+  public ConfidenceStatisticsCollectorTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of getStatistics method, of class ConfidenceStatisticsCollector.
+   */
+  @Test
+  public void testGetStatistics() {
+    System.out.println("getStatistics");
+    ConfidenceStatisticsCollector instance = new ConfidenceStatisticsCollector();
+    instance.startPage("GRP_1", "GRP_1/page1.xml");
+    instance.add(0.2f, "a b");
+    instance.add(0.8f, "cde");
+    instance.startPage("GRP_1", "GRP_1/page2.xml");
+    instance.startPage("GRP_2", "GRP_2/page1.xml");
+    instance.add(Float.NaN, "fg");
+    instance.add(0.6f, "h");
+    List<ConfidenceStatistics> result = instance.getStatistics("resourceId");
+    assertEquals(1 + 2 + 3, result.size());
+    ConfidenceStatistics workspace = result.get(0);
+    assertEquals(ConfidenceStatistics.SCOPE_WORKSPACE, workspace.getScope());
+    assertNull(workspace.getFileGrp());
+    assertEquals(3, workspace.getCount());
+    assertEquals(1, workspace.getNoOfMissingConfidences());
+    assertEquals(8, workspace.getNoOfCharacters());
+    assertEquals(2, workspace.getNoOfLowConfidenceCharacters());
+    assertEquals(ConfidenceStatisticsCollector.DEFAULT_LOW_CONFIDENCE_THRESHOLD, workspace.getLowConfidenceThreshold(), 0.0f);
+    assertEquals("GRP_1", result.get(1).getFileGrp());
+    assertEquals(2, result.get(1).getCount());
+    assertEquals(0.5f, result.get(1).getMean(), 1e-6f);
+    assertEquals("GRP_2", result.get(2).getFileGrp());
+    assertEquals(1, result.get(2).getCount());
+    // Empty page
+    ConfidenceStatistics empty = result.get(4);
+    assertEquals(ConfidenceStatistics.SCOPE_PAGE, empty.getScope());
+    assertEquals("GRP_1/page2.xml", empty.getPageUrl());
+    assertEquals(0, empty.getCount());
+    assertTrue(Float.isNaN(empty.getMean()));
+    for (ConfidenceStatistics statistics : result) {
+      assertEquals("resourceId", statistics.getResourceId());
+    }
+  }
+
+  /**
+   * Test of add method without page.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testAddWithoutPage() {
+    System.out.println("add without page");
+    new ConfidenceStatisticsCollector().add(0.5f, "text");
+  }
+
+  /**
+   * Test of collect method, of class ConfidenceStatisticsCollector.
+   */
+  @Test
+  public void testCollect() {
+    System.out.println("collect");
+    Map<String, String> fileGrpOfPage = new HashMap<>();
+    fileGrpOfPage.put("GRP/page1.xml", "GRP");
+    fileGrpOfPage.put("GRP/page2.xml", "GRP");
+    List<ConfidenceStatistics> result = ConfidenceStatisticsCollector.collect(Arrays.asList(
+            createTextRegion("GRP/page1.xml", 0.9f, "abc"),
+            createTextRegion("GRP/page1.xml", 0.3f, "de"),
+            createTextRegion("GRP/page2.xml", 0.4f, "f")), fileGrpOfPage, 0.5f);
+    assertEquals(1 + 1 + 2, result.size());
+    assertEquals(3, result.get(0).getCount());
+    assertEquals(3, result.get(1).getCount());
+    assertEquals(2, result.get(2).getCount());
+    assertEquals(2, result.get(2).getNoOfLowConfidenceCharacters());
+    assertEquals(1, result.get(3).getCount());
+    assertEquals("resourceId", result.get(3).getResourceId());
+  }
+
+  /**
+   * Test of countCharacters method, of class ConfidenceStatisticsCollector.
+   */
+  @Test
+  public void testCountCharacters() {
+    System.out.println("countCharacters");
+    assertEquals(0, ConfidenceStatisticsCollector.countCharacters(null));
+    assertEquals(0, ConfidenceStatisticsCollector.countCharacters(" \n"));
+    assertEquals(3, ConfidenceStatisticsCollector.countCharacters("a b\tc"));
+    assertEquals(2, ConfidenceStatisticsCollector.countCharacters("𝔄ä"));
+  }
+
+  private static TextRegion createTextRegion(final String pageUrl, final float confidence, final String text) {
+    TextRegion textRegion = new TextRegion();
+    textRegion.setResourceId("resourceId");
+    textRegion.setPageUrl(pageUrl);
+    textRegion.setConfidence(confidence);
+    textRegion.setText(text);
+    return textRegion;
+  }
+}
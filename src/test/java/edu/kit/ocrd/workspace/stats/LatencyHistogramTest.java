@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.stats;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for LatencyHistogram.
+ */
+public class LatencyHistogramTest {
+
+  public LatencyHistogramTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of getBucketIndex method.
+   */
+  @Test
+  public void testGetBucketIndex() {
+    System.out.println("getBucketIndex");
+    assertEquals(0, LatencyHistogram.getBucketIndex(0));
+    assertEquals(127, LatencyHistogram.getBucketIndex(127));
+    assertEquals(128, LatencyHistogram.getBucketIndex(128));
+    assertEquals(128, LatencyHistogram.getBucketIndex(129));
+    assertEquals(129, LatencyHistogram.getBucketIndex(130));
+    assertEquals(LatencyHistogram.NO_OF_BUCKETS - 1, LatencyHistogram.getBucketIndex(LatencyHistogram.MAX_VALUE));
+    int lastIndex = -1;
+    for (long value = 0; value < 100000; value++) {
+      int index = LatencyHistogram.getBucketIndex(value);
+      assertTrue(index == lastIndex || index == lastIndex + 1);
+      assertTrue(LatencyHistogram.getLowestValue(index) <= value);
+      assertTrue(LatencyHistogram.getHighestValue(index) >= value);
+      lastIndex = index;
+    }
+    for (int index = 0; index < LatencyHistogram.NO_OF_BUCKETS; index++) {
+      assertEquals(index, LatencyHistogram.getBucketIndex(LatencyHistogram.getLowestValue(index)));
+      assertEquals(index, LatencyHistogram.getBucketIndex(LatencyHistogram.getHighestValue(index)));
+    }
+  }
+
+  /**
+   * Test of record and getValueAtPercentile method.
+   */
+  @Test
+  public void testRecord() {
+    System.out.println("record");
+    LatencyHistogram instance = new LatencyHistogram();
+    assertEquals(0, instance.getCount());
+    assertEquals(0, instance.getValueAtPercentile(50));
+    assertTrue(Double.isNaN(instance.getMean()));
+    for (long value = 1; value <= 100; value++) {
+      instance.record(value);
+    }
+    assertEquals(100, instance.getCount());
+    assertEquals(5050, instance.getSum());
+    assertEquals(1, instance.getMin());
+    assertEquals(100, instance.getMax());
+    assertEquals(50.5, instance.getMean(), 0.0);
+    // Small values are exact.
+    assertEquals(50, instance.getValueAtPercentile(50));
+    assertEquals(99, instance.getValueAtPercentile(99));
+    assertEquals(100, instance.getValueAtPercentile(100));
+    assertEquals(1, instance.getValueAtPercentile(0));
+    instance.record(-5);
+    assertEquals(0, instance.getMin());
+    instance.record(Long.MAX_VALUE);
+    assertEquals(LatencyHistogram.MAX_VALUE, instance.getMax());
+  }
+
+  /**
+   * Test of getValueAtPercentile method with large values.
+   */
+  @Test
+  public void testPrecision() {
+    System.out.println("precision");
+    LatencyHistogram instance = new LatencyHistogram();
+    Random random = new Random(42);
+    long[] values = new long[10000];
+    for (int index = 0; index < values.length; index++) {
+      values[index] = (long) (Math.exp(random.nextDouble() * 20));
+      instance.record(values[index]);
+    }
+    Arrays.sort(values);
+    for (double percentile : new double[]{10, 50, 90, 99, 99.9}) {
+      long expected = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+      long result = instance.getValueAtPercentile(percentile);
+      assertEquals(expected, result, Math.max(1, expected / 64.0));
+    }
+  }
+
+  /**
+   * Test of merge method.
+   */
+  @Test
+  public void testMerge() {
+    System.out.println("merge");
+    LatencyHistogram all = new LatencyHistogram();
+    LatencyHistogram first = new LatencyHistogram();
+    LatencyHistogram second = new LatencyHistogram();
+    for (long value = 0; value < 5000; value += 7) {
+      all.record(value * value);
+      (value % 2 == 0 ? first : second).record(value * value);
+    }
+    first.merge(second);
+    first.merge(new LatencyHistogram());
+    assertEquals(all.getCount(), first.getCount());
+    assertEquals(all.getSum(), first.getSum());
+    assertEquals(all.getMin(), first.getMin());
+    assertEquals(all.getMax(), first.getMax());
+    assertArrayEquals(all.getBucketIndexes(), first.getBucketIndexes());
+    for (double percentile = 0; percentile <= 100; percentile += 0.5) {
+      assertEquals(all.getValueAtPercentile(percentile), first.getValueAtPercentile(percentile));
+    }
+  }
+
+  /**
+   * Test of restore method.
+   */
+  @Test
+  public void testRestore() {
+    System.out.println("restore");
+    LatencyHistogram instance = new LatencyHistogram();
+    instance.record(3);
+    instance.record(3);
+    instance.record(60000);
+    instance.record(3600000);
+    int[] indexes = instance.getBucketIndexes();
+    assertEquals(3, indexes.length);
+    long[] counts = instance.getBucketCounts(indexes);
+    assertArrayEquals(new long[]{2, 1, 1}, counts);
+    LatencyHistogram result = LatencyHistogram.restore(indexes, counts, instance.getSum(), instance.getMin(), instance.getMax());
+    assertEquals(4, result.getCount());
+    assertEquals(instance.getSum(), result.getSum());
+    assertEquals(3, result.getMin());
+    assertEquals(3600000, result.getMax());
+    assertEquals(instance.getValueAtPercentile(75), result.getValueAtPercentile(75));
+    assertEquals(0, LatencyHistogram.restore(new int[0], new long[0], 0, 0, 0).getCount());
+    try {
+      LatencyHistogram.restore(new int[]{LatencyHistogram.NO_OF_BUCKETS}, new long[]{1}, 0, 0, 0);
+      fail("Invalid bucket not detected!");
+    } catch (IllegalArgumentException ex) {
+      assertTrue(ex.getMessage().contains("Invalid bucket"));
+    }
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.stats;
+
+import edu.kit.ocrd.workspace.entity.ProcessorLatency;
+import edu.kit.ocrd.workspace.entity.ProcessorPerformanceRollup;
+import edu.kit.ocrd.workspace.entity.ProvenanceMetadata;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for ProcessorPerformanceAggregator.
+ */
+public class ProcessorPerformanceAggregatorTest {
+
+  private Path tempDir;
+
+  public ProcessorPerformanceAggregatorTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("rollup");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(tempDir.toFile());
+  }
+
+  /**
+   * Test of add and toRollup method.
+   */
+  @Test
+  public void testAdd() {
+    System.out.println("add");
+    ProcessorPerformanceAggregator instance = new ProcessorPerformanceAggregator();
+    assertEquals(3, instance.add(Arrays.asList(row("ocrd-a", 1L), row("ocrd-b", 10L), row("ocrd-a", 3L), row(null, 1L), row("ocrd-c", null))));
+    assertEquals(0, instance.add(new ArrayList<>()));
+    assertEquals(2, instance.getNumberOfWorkspaces());
+    assertEquals(3, instance.getNumberOfProcessorRuns());
+    ProcessorPerformanceRollup result = instance.toRollup();
+    assertEquals(ProcessorPerformanceRollup.ROLLUP_ID, result.getId());
+    assertEquals(2, result.getNoOfWorkspaces());
+    assertEquals(3, result.getNoOfProcessorRuns());
+    assertNotNull(result.getLastUpdate());
+    assertEquals(Arrays.asList("ocrd-a", "ocrd-b"), new ArrayList<>(result.getProcessors().keySet()));
+    ProcessorLatency latency = result.getProcessors().get("ocrd-a");
+    assertEquals(2, latency.getCount());
+    // Milliseconds
+    assertEquals(1000, latency.getMin());
+    assertEquals(3000, latency.getMax());
+    assertEquals(2000.0, latency.getMean(), 0.0);
+    assertEquals(1000, latency.getP50(), 1000 / 64);
+    assertEquals(3000, latency.getP99(), 3000 / 64);
+    assertEquals(2, latency.getBucketIndexes().length);
+    assertEquals(10000, result.getProcessors().get("ocrd-b").getP50());
+    instance.clear();
+    assertEquals(0, instance.toRollup().getProcessors().size());
+  }
+
+  /**
+   * Test of merge method.
+   */
+  @Test
+  public void testMerge() {
+    System.out.println("merge");
+    ProcessorPerformanceAggregator all = new ProcessorPerformanceAggregator();
+    ProcessorPerformanceAggregator first = new ProcessorPerformanceAggregator();
+    ProcessorPerformanceAggregator second = new ProcessorPerformanceAggregator();
+    for (int workspace = 0; workspace < 100; workspace++) {
+      List<ProvenanceMetadata> provenance = Arrays.asList(row("ocrd-a", (long) workspace), row("ocrd-b", workspace * 37L));
+      all.add(provenance);
+      (workspace % 3 == 0 ? first : second).add(provenance);
+    }
+    first.merge(second.toRollup());
+    ProcessorPerformanceRollup expected = all.toRollup();
+    ProcessorPerformanceRollup result = first.toRollup();
+    assertEquals(expected.getNoOfWorkspaces(), result.getNoOfWorkspaces());
+    assertEquals(expected.getNoOfProcessorRuns(), result.getNoOfProcessorRuns());
+    for (String label : expected.getProcessors().keySet()) {
+      ProcessorLatency expectedLatency = expected.getProcessors().get(label);
+      ProcessorLatency latency = result.getProcessors().get(label);
+      assertEquals(expectedLatency.getCount(), latency.getCount());
+      assertEquals(expectedLatency.getSum(), latency.getSum());
+      assertEquals(expectedLatency.getP50(), latency.getP50());
+      assertEquals(expectedLatency.getP99(), latency.getP99());
+      assertArrayEquals(expectedLatency.getBucketCounts(), latency.getBucketCounts());
+    }
+  }
+
+  /**
+   * Test of flush method.
+   */
+  @Test
+  public void testFlush() throws Exception {
+    System.out.println("flush");
+    Path rollupFile = tempDir.resolve("rollup").resolve("processors.json");
+    assertNull(ProcessorPerformanceAggregator.read(rollupFile));
+    ProcessorPerformanceAggregator instance = new ProcessorPerformanceAggregator();
+    instance.add(Arrays.asList(row("ocrd-a", 1L), row("ocrd-b", 2L)));
+    ProcessorPerformanceRollup result = instance.flush(rollupFile);
+    assertEquals(1, result.getNoOfWorkspaces());
+    assertEquals(0, instance.getNumberOfWorkspaces());
+    // Nothing is counted twice.
+    instance.flush(rollupFile);
+    instance.add(Arrays.asList(row("ocrd-a", 5L)));
+    result = instance.flush(rollupFile);
+    assertEquals(2, result.getNoOfWorkspaces());
+    assertEquals(3, result.getNoOfProcessorRuns());
+    ProcessorPerformanceRollup read = ProcessorPerformanceAggregator.read(rollupFile);
+    assertEquals(2, read.getNoOfWorkspaces());
+    assertEquals(2, read.getProcessors().get("ocrd-a").getCount());
+    assertEquals(5000, read.getProcessors().get("ocrd-a").getMax());
+    assertEquals(result.getProcessors().get("ocrd-a").getP99(), read.getProcessors().get("ocrd-a").getP99());
+    assertEquals(1, rollupFile.getParent().toFile().list((dir, name) -> name.endsWith(".json")).length);
+  }
+
+  /**
+   * Test of flush method with concurrent nodes.
+   */
+  @Test
+  public void testFlushConcurrently() throws Exception {
+    System.out.println("flush concurrently");
+    Path rollupFile = tempDir.resolve("processors.json");
+    int noOfNodes = 4;
+    int noOfWorkspaces = 50;
+    ExecutorService executor = Executors.newFixedThreadPool(noOfNodes);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int node = 0; node < noOfNodes; node++) {
+      futures.add(executor.submit(() -> {
+        ProcessorPerformanceAggregator instance = new ProcessorPerformanceAggregator();
+        for (int workspace = 0; workspace < noOfWorkspaces; workspace++) {
+          instance.add(Arrays.asList(row("ocrd-a", (long) workspace)));
+          instance.flush(rollupFile);
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+    ProcessorPerformanceRollup result = ProcessorPerformanceAggregator.read(rollupFile);
+    assertEquals(noOfNodes * noOfWorkspaces, result.getNoOfWorkspaces());
+    assertEquals(noOfNodes * noOfWorkspaces, result.getProcessors().get("ocrd-a").getCount());
+  }
+
+  private static ProvenanceMetadata row(final String processorLabel, final Long duration) {
+    ProvenanceMetadata row = new ProvenanceMetadata();
+    row.setProcessorLabel(processorLabel);
+    row.setDurationProcessor(duration);
+    return row;
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.structure;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for LogicalSection.
+ */
+public class LogicalSectionTest {
+
+  public LogicalSectionTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of tree and page range of LogicalSection.
+   */
+  @Test
+  public void testSection() {
+    System.out.println("section");
+    LogicalSection parent = new LogicalSection(0, "book", "Monograph", null, "dmd", null);
+    LogicalSection child = new LogicalSection(1, "ch1", "Chapter", "Chapter 1", null, parent);
+    assertEquals(0, parent.getDepth());
+    assertEquals(1, child.getDepth());
+    assertNull(parent.getParent());
+    assertEquals(parent, child.getParent());
+    assertEquals(1, parent.getChildren().size());
+    assertEquals(child, parent.getChildren().get(0));
+    assertEquals("Chapter 1", child.getLabel());
+    assertEquals("dmd", parent.getDmdId());
+    assertFalse(child.hasPages());
+    assertEquals(LogicalSection.NO_PAGE, child.getFirstPage());
+    child.addPages(3, 3);
+    child.addPages(1, 2);
+    assertTrue(child.hasPages());
+    assertEquals(1, child.getFirstPage());
+    assertEquals(3, child.getLastPage());
+    assertTrue(child.toString().contains("pages=1-3"));
+  }
+
+  /**
+   * Test of getChildren method, of class LogicalSection.
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void testGetChildrenUnmodifiable() {
+    System.out.println("getChildren");
+    LogicalSection parent = new LogicalSection(0, "book", "Monograph", null, null, null);
+    parent.getChildren().add(parent);
+  }
+}
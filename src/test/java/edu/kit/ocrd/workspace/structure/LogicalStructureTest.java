@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.structure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for LogicalStructure.
+ */
+public class LogicalStructureTest {
+
+  public LogicalStructureTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of getSections method, of class LogicalStructure.
+   */
+  @Test
+  public void testGetSections() {
+    System.out.println("getSections");
+    String[] pageIds = {"p0", "p1", "p2", "p3"};
+    List<LogicalSection> sections = new ArrayList<>();
+    LogicalSection book = addSection(sections, "book", null, 0, 3);
+    LogicalSection chapter1 = addSection(sections, "ch1", book, 0, 1);
+    LogicalSection chapter2 = addSection(sections, "ch2", book, 1, 3);
+    LogicalSection section = addSection(sections, "ch2s1", chapter2, 2, 2);
+    LogicalSection empty = addSection(sections, "empty", book, -1, -1);
+    LogicalStructure instance = new LogicalStructure(pageIds, sections);
+    assertEquals(Arrays.asList(book, chapter1), instance.getSections(0));
+    // Overlapping chapters.
+    assertEquals(Arrays.asList(book, chapter1, chapter2), instance.getSections(1));
+    assertEquals(Arrays.asList(book, chapter2, section), instance.getSections("p2"));
+    assertEquals(section, instance.getInnermostSection(2));
+    assertEquals(chapter2, instance.getInnermostSection(3));
+    assertTrue(instance.getSections(4).isEmpty());
+    assertTrue(instance.getSections("unknown").isEmpty());
+    assertEquals(Arrays.asList("p1", "p2", "p3"), instance.getPageIds(chapter2));
+    assertTrue(instance.getPageIds(empty).isEmpty());
+    assertTrue(instance.getPageIds("unknown").isEmpty());
+    assertEquals(Arrays.asList(book), instance.getRootSections());
+    assertEquals(empty, instance.getSection("empty"));
+  }
+
+  /**
+   * Test of getSections method compared to a linear scan.
+   */
+  @Test
+  public void testGetSectionsRandom() {
+    System.out.println("getSections random");
+    Random random = new Random(4711);
+    int noOfPages = 5000;
+    String[] pageIds = new String[noOfPages];
+    for (int index = 0; index < noOfPages; index++) {
+      pageIds[index] = "phys_" + index;
+    }
+    List<LogicalSection> sections = new ArrayList<>();
+    LogicalSection book = addSection(sections, "book", null, 0, noOfPages - 1);
+    for (int index = 0; index < 2000; index++) {
+      LogicalSection parent = sections.get(random.nextInt(sections.size()));
+      int first = parent.getFirstPage() + random.nextInt(parent.getLastPage() - parent.getFirstPage() + 1);
+      int last = first + random.nextInt(parent.getLastPage() - first + 1);
+      addSection(sections, "s" + index, parent, first, last);
+    }
+    LogicalStructure instance = new LogicalStructure(pageIds, sections);
+    for (int page = 0; page < noOfPages; page++) {
+      List<LogicalSection> expected = new ArrayList<>();
+      for (LogicalSection section : sections) {
+        if (section.getFirstPage() <= page && page <= section.getLastPage()) {
+          expected.add(section);
+        }
+      }
+      assertEquals(expected, instance.getSections(page));
+    }
+    assertEquals(book, instance.getSections(noOfPages - 1).get(0));
+  }
+
+  private static LogicalSection addSection(final List<LogicalSection> sections, final String id, final LogicalSection parent,
+          final int first, final int last) {
+    LogicalSection section = new LogicalSection(sections.size(), id, "Chapter", null, null, parent);
+    if (first >= 0) {
+      section.addPages(first, last);
+    }
+    sections.add(section);
+    return section;
+  }
+}
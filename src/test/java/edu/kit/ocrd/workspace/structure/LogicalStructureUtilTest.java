@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.structure;
+
+import edu.kit.ocrd.workspace.XmlParserUtil;
+import java.util.Arrays;
+import java.util.Collections;
+import org.jdom.Document;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for LogicalStructureUtil.
+ */
+public class LogicalStructureUtilTest {
+
+  private static final String METS = "<mets:mets xmlns:mets='http://www.loc.gov/METS/' xmlns:xlink='http://www.w3.org/1999/xlink'>"
+          + "<mets:structMap TYPE='LOGICAL'><mets:div ID='book' TYPE='Monograph'>"
+          + "<mets:div ID='ch1' TYPE='Chapter' LABEL='Chapter 1'>"
+          + "<mets:div ID='ch1s1' TYPE='Section'/><mets:div ID='ch1s2' TYPE='Section'/></mets:div>"
+          + "<mets:div ID='ch2' TYPE='Chapter' LABEL='Chapter 2' DMDID='dmd2'/>"
+          + "<mets:div ID='empty' TYPE='Chapter'/>"
+          + "</mets:div></mets:structMap>"
+          + "<mets:structMap TYPE='PHYSICAL'><mets:div ID='physroot' TYPE='physSequence'>"
+          + "<mets:div ID='p3' TYPE='page' ORDER='3'/><mets:div ID='p1' TYPE='page' ORDER='1'/>"
+          + "<mets:div ID='p2' TYPE='page' ORDER='2'/><mets:div ID='p4' TYPE='page' ORDER='4'/>"
+          + "<mets:div ID='p5' TYPE='page' ORDER='5'/><mets:div ID='cover' TYPE='other'/>"
+          + "</mets:div></mets:structMap>"
+          + "<mets:structLink>"
+          + "<mets:smLink xlink:from='book' xlink:to='physroot'/>"
+          + "<mets:smLink xlink:from='ch1s1' xlink:to='p1'/><mets:smLink xlink:from='ch1s1' xlink:to='p2'/>"
+          + "<mets:smLink xlink:from='ch1s2' xlink:to='p3'/>"
+          + "<mets:smLink xlink:from='ch2' xlink:to='p4'/><mets:smLink xlink:from='ch2' xlink:to='p5'/>"
+          + "<mets:smLink xlink:from='ch2' xlink:to='unknown'/><mets:smLink xlink:from='unknown' xlink:to='p1'/>"
+          + "</mets:structLink></mets:mets>";
+
+  public LogicalStructureUtilTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of extractLogicalStructure method, of class LogicalStructureUtil.
+   */
+  @Test
+  public void testExtractLogicalStructure() throws Exception {
+    System.out.println("extractLogicalStructure");
+    LogicalStructure result = LogicalStructureUtil.extractLogicalStructure(XmlParserUtil.getDocument(METS));
+    // Pages sorted by ORDER, non page divs skipped.
+    assertEquals(5, result.getNoOfPages());
+    assertEquals("p1", result.getPageId(0));
+    assertEquals("p5", result.getPageId(4));
+    assertEquals(-1, result.getPageIndex("cover"));
+    assertEquals(6, result.getSections().size());
+    assertEquals(1, result.getRootSections().size());
+    LogicalSection book = result.getRootSections().get(0);
+    assertEquals("book", book.getId());
+    assertEquals(0, book.getFirstPage());
+    assertEquals(4, book.getLastPage());
+    LogicalSection chapter1 = result.getSection("ch1");
+    assertEquals("Chapter 1", chapter1.getLabel());
+    assertEquals(book, chapter1.getParent());
+    assertEquals(2, chapter1.getChildren().size());
+    // Range is collected from the sections of the chapter.
+    assertEquals(Arrays.asList("p1", "p2", "p3"), result.getPageIds(chapter1));
+    assertEquals(Arrays.asList("p4", "p5"), result.getPageIds("ch2"));
+    assertEquals("dmd2", result.getSection("ch2").getDmdId());
+    assertFalse(result.getSection("empty").hasPages());
+    assertEquals(Collections.emptyList(), result.getPageIds("empty"));
+  }
+
+  /**
+   * Test of extractLogicalStructure method without valid ORDER.
+   */
+  @Test
+  public void testExtractLogicalStructureDocumentOrder() throws Exception {
+    System.out.println("extractLogicalStructure document order");
+    LogicalStructure result = LogicalStructureUtil.extractLogicalStructure(XmlParserUtil.getDocument(METS.replace(" ORDER='2'", "")));
+    assertEquals(Arrays.asList("p3", "p1", "p2", "p4", "p5"), result.getPageIds("book"));
+    // Chapter 1 spans p3 to p2 in document order.
+    assertEquals(Arrays.asList("p3", "p1", "p2"), result.getPageIds("ch1"));
+  }
+
+  /**
+   * Test of extractLogicalStructure method with two physical sequences.
+   */
+  @Test
+  public void testExtractLogicalStructureSequences() throws Exception {
+    System.out.println("extractLogicalStructure sequences");
+    String mets = "<mets:mets xmlns:mets='http://www.loc.gov/METS/' xmlns:xlink='http://www.w3.org/1999/xlink'>"
+            + "<mets:structMap TYPE='LOGICAL'><mets:div ID='volume' TYPE='Volume'>"
+            + "<mets:div ID='part1' TYPE='Part'/><mets:div ID='part2' TYPE='Part'/>"
+            + "</mets:div></mets:structMap>"
+            + "<mets:structMap TYPE='PHYSICAL'>"
+            + "<mets:div ID='seq1' TYPE='physSequence'>"
+            + "<mets:div ID='p2' TYPE='page' ORDER='2'/><mets:div ID='p1' TYPE='page' ORDER='1'/>"
+            + "</mets:div>"
+            + "<mets:div ID='seq2' TYPE='physSequence'>"
+            + "<mets:div ID='p3' TYPE='page' ORDER='3'/><mets:div ID='p4' TYPE='page' ORDER='4'/>"
+            + "<mets:div ID='p5' TYPE='page' ORDER='5'/>"
+            + "</mets:div>"
+            + "<mets:div ID='seq3' TYPE='physSequence'/>"
+            + "</mets:structMap>"
+            + "<mets:structLink>"
+            + "<mets:smLink xlink:from='part1' xlink:to='seq1'/><mets:smLink xlink:from='part2' xlink:to='seq2'/>"
+            + "<mets:smLink xlink:from='volume' xlink:to='seq3'/>"
+            + "</mets:structLink></mets:mets>";
+    LogicalStructure result = LogicalStructureUtil.extractLogicalStructure(XmlParserUtil.getDocument(mets));
+    assertEquals(5, result.getNoOfPages());
+    assertEquals(Arrays.asList("p1", "p2"), result.getPageIds("part1"));
+    assertEquals(Arrays.asList("p3", "p4", "p5"), result.getPageIds("part2"));
+    // Sequence without pages adds no range.
+    assertEquals(Arrays.asList("p1", "p2", "p3", "p4", "p5"), result.getPageIds("volume"));
+    assertEquals("part2", result.getInnermostSection(2).getId());
+  }
+
+  /**
+   * Test of extractLogicalStructure method with METS without structure.
+   */
+  @Test
+  public void testExtractLogicalStructureEmpty() throws Exception {
+    System.out.println("extractLogicalStructure empty");
+    Document document = XmlParserUtil.getDocument("<mets:mets xmlns:mets='http://www.loc.gov/METS/'/>");
+    LogicalStructure result = LogicalStructureUtil.extractLogicalStructure(document);
+    assertEquals(0, result.getNoOfPages());
+    assertTrue(result.getSections().isEmpty());
+    assertTrue(result.getSections(0).isEmpty());
+    assertNull(result.getInnermostSection(0));
+    assertNull(result.getSection("book"));
+  }
+}
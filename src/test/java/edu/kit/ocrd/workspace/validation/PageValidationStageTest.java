@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import edu.kit.ocrd.workspace.MetsDocumentUtil;
+import edu.kit.ocrd.workspace.XmlParserUtil;
+import edu.kit.ocrd.workspace.entity.XmlSchemaDefinition;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test for PageValidationStage.
+ */
+public class PageValidationStageTest {
+
+  private static final String PAGE_NAMESPACE = "http://schema.primaresearch.org/PAGE/gts/pagecontent/2018-07-15";
+
+  private Path tempDir;
+
+  private SchemaRegistry registry;
+
+  public PageValidationStageTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("pageValidation_");
+    registry = new SchemaRegistry();
+    String xsd = FileUtils.readFileToString(new File("src/test/resources/xsd/2018.xsd"), StandardCharsets.UTF_8);
+    registry.register(new XmlSchemaDefinition("pc", PAGE_NAMESPACE, xsd));
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(tempDir.toFile());
+  }
+
+  private List<Path> createPages(int noOfPages, int invalidEvery) throws IOException {
+    List<Path> pages = new ArrayList<>();
+    for (int index = 0; index < noOfPages; index++) {
+      String imageWidth = (index % invalidEvery == invalidEvery - 1) ? "invalid" : "100";
+      String page = "<PcGts xmlns='" + PAGE_NAMESPACE + "'><Metadata><Creator>test</Creator>"
+              + "<Created>2018-07-15T12:00:00</Created><LastChange>2018-07-15T12:00:00</LastChange></Metadata>"
+              + "<Page imageFilename='image.png' imageWidth='" + imageWidth + "' imageHeight='100'/></PcGts>";
+      Path path = tempDir.resolve("page_" + index + ".xml");
+      Files.write(path, page.getBytes(StandardCharsets.UTF_8));
+      pages.add(path);
+    }
+    return pages;
+  }
+
+  /**
+   * Test of validate method, of class PageValidationStage.
+   */
+  @Test
+  public void testValidate() throws IOException {
+    System.out.println("validate");
+    List<Path> pages = createPages(40, 8);
+    PageValidationStage instance = new PageValidationStage(registry);
+    ValidationReport result = instance.validate(pages, false);
+    assertTrue(result.isComplete());
+    assertFalse(result.isValid());
+    assertEquals(40, result.getResults().size());
+    assertEquals(5, result.getErrors().size());
+    for (int index = 0; index < pages.size(); index++) {
+      assertEquals(pages.get(index), result.getResults().get(index).getPath());
+    }
+    assertEquals(pages.get(7), result.getErrors().get(0).getPath());
+    assertTrue(result.toString().contains("5 invalid"));
+  }
+
+  /**
+   * Test of validate method with valid files.
+   */
+  @Test
+  public void testValidateValidFiles() throws IOException {
+    System.out.println("validate valid files");
+    PageValidationStage instance = new PageValidationStage(registry);
+    ValidationReport result = instance.validate(createPages(10, Integer.MAX_VALUE), true);
+    assertTrue(result.isValid());
+    assertTrue(result.getErrors().isEmpty());
+    assertEquals(1, registry.getNumberOfCompilations());
+  }
+
+  /**
+   * Test of validate method in fail fast mode.
+   */
+  @Test
+  public void testValidateFailFast() throws IOException {
+    System.out.println("validate fail fast");
+    ForkJoinPool pool = new ForkJoinPool(1);
+    try {
+      PageValidationStage instance = new PageValidationStage(registry, pool);
+      ValidationReport result = instance.validate(createPages(40, 2), true);
+      assertFalse(result.isComplete());
+      assertFalse(result.isValid());
+      assertEquals(2, result.getResults().size());
+      assertEquals(1, result.getErrors().size());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Test of validateWorkspace method, of class PageValidationStage.
+   */
+  @Test
+  public void testValidateWorkspace() throws Exception {
+    System.out.println("validateWorkspace");
+    File metsFile = new File("src/test/resources/all/data/mets.xml");
+    int noOfPages = MetsDocumentUtil.extractPageUrls(XmlParserUtil.getDocument(metsFile)).size();
+    PageValidationStage instance = new PageValidationStage(registry);
+    // PAGE files of workspace use a namespace without registered XSD.
+    ValidationReport result = instance.validateWorkspace(metsFile, false);
+    assertEquals(noOfPages, result.getNumberOfFiles());
+    assertEquals(noOfPages, result.getErrors().size());
+    assertTrue(result.getErrors().get(0).getNamespace().startsWith("http://schema.primaresearch.org/PAGE/gts/pagecontent/"));
+  }
+}
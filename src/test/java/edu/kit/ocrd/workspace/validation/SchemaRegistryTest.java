@@ -0,0 +1,179 @@
+/*
+ * Copyright 2020 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import edu.kit.ocrd.workspace.entity.XmlSchemaDefinition;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+import static org.junit.Assert.*;
+
+/**
+ * Test for SchemaRegistry.
+ */
+public class SchemaRegistryTest {
+
+  private static final String PAGE_NAMESPACE = "http://schema.primaresearch.org/PAGE/gts/pagecontent/2018-07-15";
+
+  private static final String OTHER_NAMESPACE = "http://example.org/other";
+
+  private static final String OTHER_XSD = "<schema xmlns='http://www.w3.org/2001/XMLSchema' targetNamespace='" + OTHER_NAMESPACE + "' elementFormDefault='qualified'>"
+          + "<element name='other' type='int'/></schema>";
+
+  private Path tempDir;
+
+  public SchemaRegistryTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("schemaRegistry_");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(tempDir.toFile());
+  }
+
+  private static XmlSchemaDefinition createPageDefinition() throws IOException {
+    String xsd = FileUtils.readFileToString(new File("src/test/resources/xsd/2018.xsd"), StandardCharsets.UTF_8);
+    return new XmlSchemaDefinition("pc", PAGE_NAMESPACE, xsd);
+  }
+
+  private Path createPage(String name, String imageWidth) throws IOException {
+    String page = "<?xml version='1.0' encoding='UTF-8'?>"
+            + "<PcGts xmlns='" + PAGE_NAMESPACE + "'><Metadata><Creator>test</Creator>"
+            + "<Created>2018-07-15T12:00:00</Created><LastChange>2018-07-15T12:00:00</LastChange></Metadata>"
+            + "<Page imageFilename='image.png' imageWidth='" + imageWidth + "' imageHeight='100'/></PcGts>";
+    Path path = tempDir.resolve(name);
+    Files.write(path, page.getBytes(StandardCharsets.UTF_8));
+    return path;
+  }
+
+  private Path createOther(String name, String value) throws IOException {
+    Path path = tempDir.resolve(name);
+    Files.write(path, ("<other xmlns='" + OTHER_NAMESPACE + "'>" + value + "</other>").getBytes(StandardCharsets.UTF_8));
+    return path;
+  }
+
+  /**
+   * Test of validate method, of class SchemaRegistry.
+   */
+  @Test
+  public void testValidate() throws IOException {
+    System.out.println("validate");
+    SchemaRegistry instance = new SchemaRegistry();
+    instance.register(createPageDefinition());
+    assertTrue(instance.isRegistered(PAGE_NAMESPACE));
+    ValidationResult result = instance.validate(createPage("valid.xml", "100"));
+    assertTrue(result.getMessage(), result.isValid());
+    assertEquals(PAGE_NAMESPACE, result.getNamespace());
+    result = instance.validate(createPage("invalid.xml", "wide"));
+    assertFalse(result.isValid());
+    assertNotNull(result.getMessage());
+    // Schema is compiled only once.
+    assertEquals(1, instance.getNumberOfCompilations());
+  }
+
+  /**
+   * Test of validate method with unregistered namespace.
+   */
+  @Test
+  public void testValidateUnknownNamespace() throws IOException {
+    System.out.println("validate unknown namespace");
+    SchemaRegistry instance = new SchemaRegistry();
+    ValidationResult result = instance.validate(new File("src/test/resources/all/data/mets.xml").toPath());
+    assertFalse(result.isValid());
+    assertEquals("http://www.loc.gov/METS/", result.getNamespace());
+    assertEquals(0, instance.getNumberOfCompilations());
+  }
+
+  /**
+   * Test of getSchema method with unregistered namespace.
+   */
+  @Test(expected = SAXException.class)
+  public void testGetSchemaUnknownNamespace() throws SAXException {
+    System.out.println("getSchema unknown namespace");
+    new SchemaRegistry().getSchema(OTHER_NAMESPACE);
+  }
+
+  /**
+   * Test eviction of rarely used schemas.
+   */
+  @Test
+  public void testEviction() throws Exception {
+    System.out.println("eviction");
+    SchemaRegistry instance = new SchemaRegistry(1);
+    instance.register(createPageDefinition());
+    instance.register(new XmlSchemaDefinition("other", OTHER_NAMESPACE, OTHER_XSD));
+    assertNotNull(instance.getSchema(PAGE_NAMESPACE));
+    assertTrue(instance.validate(createOther("other.xml", "42")).isValid());
+    assertFalse(instance.validate(createOther("otherInvalid.xml", "text")).isValid());
+    assertEquals(1, instance.getNumberOfCachedSchemas());
+    assertEquals(2, instance.getNumberOfCompilations());
+    // Page schema was evicted and has to be compiled again.
+    assertTrue(instance.validate(createPage("valid.xml", "100")).isValid());
+    assertEquals(3, instance.getNumberOfCompilations());
+    // Registering again replaces compiled schema.
+    instance.register(createPageDefinition());
+    assertEquals(0, instance.getNumberOfCachedSchemas());
+  }
+
+  /**
+   * Test of validateAll method, of class SchemaRegistry.
+   */
+  @Test
+  public void testValidateAll() throws IOException {
+    System.out.println("validateAll");
+    SchemaRegistry instance = new SchemaRegistry();
+    instance.register(createPageDefinition());
+    List<Path> paths = new ArrayList<>();
+    for (int index = 0; index < 50; index++) {
+      paths.add(createPage("page_" + index + ".xml", index % 10 == 0 ? "invalid" : "100"));
+    }
+    paths.add(tempDir.resolve("doesNotExist.xml"));
+    List<ValidationResult> results = instance.validateAll(paths);
+    assertEquals(paths.size(), results.size());
+    int noOfInvalidFiles = 0;
+    for (int index = 0; index < paths.size(); index++) {
+      assertEquals(paths.get(index), results.get(index).getPath());
+      if (!results.get(index).isValid()) {
+        noOfInvalidFiles++;
+      }
+    }
+    assertEquals(6, noOfInvalidFiles);
+    assertEquals(1, instance.getNumberOfCompilations());
+  }
+}